@@ -1,5 +1,7 @@
 package ru.kalimulin.dto.cartItemDTO;
 
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -8,6 +10,10 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 @NoArgsConstructor
 public class CartItemCreateDTO {
+    @NotNull(message = "Укажите товар")
     private Long productId;
+
+    @NotNull(message = "Укажите количество товара")
+    @Min(value = 1, message = "Количество товара должно быть больше 0")
     private Integer quantity;
-}
\ No newline at end of file
+}
@@ -0,0 +1,24 @@
+package ru.kalimulin.dto.cartItemDTO;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Пакетное добавление товаров в корзину. Максимальное количество позиций задается настройкой
+ * {@code shop.cart.batch.max-items} и проверяется в сервисе.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CartItemsBatchDTO {
+    @NotEmpty(message = "Список товаров пуст")
+    private List<@NotNull(message = "Позиция не может быть пустой") @Valid CartItemCreateDTO> items;
+}
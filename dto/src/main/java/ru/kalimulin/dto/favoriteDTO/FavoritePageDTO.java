@@ -0,0 +1,23 @@
+package ru.kalimulin.dto.favoriteDTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.kalimulin.dto.productDTO.ProductResponseDTO;
+
+import java.util.List;
+
+/**
+ * Страница избранных товаров. Следующая страница запрашивается с курсором
+ * {@code afterProductId}, равным {@code nextProductId}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FavoritePageDTO {
+    private List<ProductResponseDTO> products;
+    private boolean hasMore;
+    private Long nextProductId;
+}
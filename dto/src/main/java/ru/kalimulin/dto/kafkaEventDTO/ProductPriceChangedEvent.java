@@ -0,0 +1,12 @@
+package ru.kalimulin.dto.kafkaEventDTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductPriceChangedEvent {
+    private Long productId;
+}
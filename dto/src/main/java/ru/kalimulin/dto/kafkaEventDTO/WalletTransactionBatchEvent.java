@@ -0,0 +1,32 @@
+package ru.kalimulin.dto.kafkaEventDTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Одно событие на весь пакет операций вместо отдельного сообщения на каждый кошелек.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class WalletTransactionBatchEvent {
+    private String transactionType;
+    private String initiatorLogin;
+    private List<Line> lines;
+    private BigDecimal totalCredited;
+    private BigDecimal totalDebited;
+    private Instant timestamp;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Line {
+        private String walletNumber;
+        private BigDecimal amount;
+    }
+}
@@ -11,6 +11,11 @@ import java.time.Instant;
 @AllArgsConstructor
 @NoArgsConstructor
 public class WalletTransactionEvent {
+    /**
+     * Номер кошелька, состояние которого меняет событие. По нему выбирается ключ записи,
+     * поэтому все изменения одного кошелька читаются из одной партиции в порядке отправки.
+     */
+    private String walletNumber;
     private String transactionType;
     private String senderLogin;
     private String recipientWallet;
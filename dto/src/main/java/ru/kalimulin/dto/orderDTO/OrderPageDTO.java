@@ -0,0 +1,24 @@
+package ru.kalimulin.dto.orderDTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Страница истории заказов. Следующая страница запрашивается с курсором
+ * {@code afterCreatedAt}/{@code afterId}, равным {@code nextCreatedAt}/{@code nextId}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderPageDTO {
+    private List<OrderDTO> orders;
+    private boolean hasMore;
+    private LocalDateTime nextCreatedAt;
+    private Long nextId;
+}
@@ -0,0 +1,27 @@
+package ru.kalimulin.dto.walletDTO;
+
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Строка пакетной выплаты: положительная сумма зачисляется на кошелек, отрицательная - списывается.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WalletPayoutLineDTO {
+    @NotBlank(message = "Укажите номер кошелька")
+    private String walletNumber;
+
+    @NotNull(message = "Укажите сумму")
+    @Digits(integer = 13, fraction = 2, message = "Сумма должна содержать не более 2 знаков после запятой")
+    private BigDecimal amount;
+}
@@ -0,0 +1,21 @@
+package ru.kalimulin.dto.walletDTO;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WalletPayoutRequestDTO {
+    @NotEmpty(message = "Список выплат не может быть пустым")
+    @Size(max = 5000, message = "За один запрос можно передать не более 5000 строк")
+    private List<@Valid WalletPayoutLineDTO> lines;
+}
@@ -0,0 +1,18 @@
+package ru.kalimulin.dto.walletDTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WalletPayoutResultDTO {
+    private int walletsCount;
+    private BigDecimal totalCredited;
+    private BigDecimal totalDebited;
+}
@@ -5,4 +5,9 @@ import ru.kalimulin.models.Cart;
 
 public interface CartMapper {
     CartDTO toCartDTO(Cart cart);
+
+    /**
+     * Преобразует корзину, не обращаясь к ее владельцу: логин берется из сессии.
+     */
+    CartDTO toCartDTO(Cart cart, String userLogin);
 }
\ No newline at end of file
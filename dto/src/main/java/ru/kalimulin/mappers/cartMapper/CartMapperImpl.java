@@ -19,12 +19,20 @@ public class CartMapperImpl implements CartMapper {
 
     @Override
     public CartDTO toCartDTO(Cart cart) {
+        if (cart == null) {
+            return null;
+        }
+        return toCartDTO(cart, cart.getUser().getLogin());
+    }
+
+    @Override
+    public CartDTO toCartDTO(Cart cart, String userLogin) {
         if (cart == null) {
             return null;
         }
         return CartDTO.builder()
                 .id(cart.getId())
-                .userLogin(cart.getUser().getLogin())
+                .userLogin(userLogin)
                 .items(cart.getItems().stream()
                         .map(cartItemMapper::toCartItemDTO)
                         .collect(Collectors.toList()))
@@ -8,4 +8,14 @@ import java.util.List;
 public interface OrderMapper {
     OrderDTO toOrderDTO(Order order);
     List<OrderDTO> toListOrderDTO(List<Order> orders);
+
+    /**
+     * Преобразует заказ, не обращаясь к покупателю: логин берется из сессии.
+     */
+    OrderDTO toOrderDTO(Order order, String userLogin);
+
+    /**
+     * Преобразует заказы одного покупателя, не обращаясь к нему: логин берется из сессии.
+     */
+    List<OrderDTO> toListOrderDTO(List<Order> orders, String userLogin);
 }
\ No newline at end of file
@@ -20,12 +20,20 @@ public class OrderMapperImpl implements OrderMapper {
 
     @Override
     public OrderDTO toOrderDTO(Order order) {
+        if (order == null) {
+            return null;
+        }
+        return toOrderDTO(order, order.getUser().getLogin());
+    }
+
+    @Override
+    public OrderDTO toOrderDTO(Order order, String userLogin) {
         if (order == null) {
             return null;
         }
         return OrderDTO.builder()
                 .id(order.getId())
-                .userLogin(order.getUser().getLogin())
+                .userLogin(userLogin)
                 .totalPrice(order.getTotalPrice())
                 .status(order.getStatus())
                 .createdAt(order.getCreatedAt())
@@ -45,4 +53,14 @@ public class OrderMapperImpl implements OrderMapper {
                 .collect(Collectors.toList());
 
     }
+
+    @Override
+    public List<OrderDTO> toListOrderDTO(List<Order> orders, String userLogin) {
+        if (orders == null || orders.isEmpty()) {
+            return List.of();
+        }
+        return orders.stream()
+                .map(order -> toOrderDTO(order, userLogin))
+                .collect(Collectors.toList());
+    }
 }
\ No newline at end of file
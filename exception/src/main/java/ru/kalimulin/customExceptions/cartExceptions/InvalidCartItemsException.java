@@ -0,0 +1,7 @@
+package ru.kalimulin.customExceptions.cartExceptions;
+
+public class InvalidCartItemsException extends RuntimeException {
+    public InvalidCartItemsException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package ru.kalimulin.customExceptions.idempotencyExceptions;
+
+public class IdempotencyKeyInUseException extends RuntimeException {
+    public IdempotencyKeyInUseException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package ru.kalimulin.customExceptions.idempotencyExceptions;
+
+public class IdempotencyKeyReusedException extends RuntimeException {
+    public IdempotencyKeyReusedException(String message) {
+        super(message);
+    }
+}
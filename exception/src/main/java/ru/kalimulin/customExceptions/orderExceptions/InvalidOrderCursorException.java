@@ -0,0 +1,7 @@
+package ru.kalimulin.customExceptions.orderExceptions;
+
+public class InvalidOrderCursorException extends RuntimeException {
+    public InvalidOrderCursorException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package ru.kalimulin.customExceptions.walletExceptions;
+
+public class InvalidPayoutException extends RuntimeException {
+    public InvalidPayoutException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package ru.kalimulin.customExceptions.walletExceptions;
+
+public class InvalidStatementPeriodException extends RuntimeException {
+    public InvalidStatementPeriodException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package ru.kalimulin.customExceptions.walletExceptions;
+
+public class PinVerificationUnavailableException extends RuntimeException {
+    public PinVerificationUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -1,7 +1,10 @@
 package ru.kalimulin.exceptionHandler;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.ObjectError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import ru.kalimulin.customExceptions.addressExceptions.AddressNotFoundException;
@@ -10,10 +13,14 @@ import ru.kalimulin.customExceptions.addressExceptions.UserHasNoAddressException
 import ru.kalimulin.customExceptions.cartExceptions.CartIsEmptyException;
 import ru.kalimulin.customExceptions.cartExceptions.CartItemNotFoundException;
 import ru.kalimulin.customExceptions.cartExceptions.CartNotFoundException;
+import ru.kalimulin.customExceptions.cartExceptions.InvalidCartItemsException;
 import ru.kalimulin.customExceptions.categoryExceptions.CategoryAlreadyExistsException;
 import ru.kalimulin.customExceptions.categoryExceptions.CategoryNotFoundException;
+import ru.kalimulin.customExceptions.idempotencyExceptions.IdempotencyKeyInUseException;
+import ru.kalimulin.customExceptions.idempotencyExceptions.IdempotencyKeyReusedException;
 import ru.kalimulin.customExceptions.imageExceptions.ImageLimitExceededException;
 import ru.kalimulin.customExceptions.imageExceptions.ImageNotFoundException;
+import ru.kalimulin.customExceptions.orderExceptions.InvalidOrderCursorException;
 import ru.kalimulin.customExceptions.orderExceptions.OrderCannotBeDeletedException;
 import ru.kalimulin.customExceptions.orderExceptions.OrderItemNotFoundException;
 import ru.kalimulin.customExceptions.orderExceptions.UnauthorizedOrderDeletionException;
@@ -25,10 +32,15 @@ import ru.kalimulin.customExceptions.roleExceptions.RoleAlreadyAssignedException
 import ru.kalimulin.customExceptions.roleExceptions.RoleNotFoundException;
 import ru.kalimulin.customExceptions.userExceptions.*;
 import ru.kalimulin.customExceptions.walletExceptions.InsufficientFundsException;
+import ru.kalimulin.customExceptions.walletExceptions.InvalidPayoutException;
 import ru.kalimulin.customExceptions.walletExceptions.InvalidPinException;
+import ru.kalimulin.customExceptions.walletExceptions.InvalidStatementPeriodException;
 import ru.kalimulin.customExceptions.walletExceptions.PaymentProcessingException;
+import ru.kalimulin.customExceptions.walletExceptions.PinVerificationUnavailableException;
 import ru.kalimulin.customExceptions.walletExceptions.WalletNotFoundException;
 
+import java.util.stream.Collectors;
+
 @ControllerAdvice
 public class GlobalExceptionHandler {
     @ExceptionHandler(UserNotFoundException.class)
@@ -91,6 +103,26 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(InvalidPayoutException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidPayoutException(InvalidPayoutException ex) {
+        ErrorResponse errorResponse = new ErrorResponse(ex.getMessage(), HttpStatus.BAD_REQUEST.value());
+        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(InvalidStatementPeriodException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidStatementPeriodException(InvalidStatementPeriodException ex) {
+        ErrorResponse errorResponse = new ErrorResponse(ex.getMessage(), HttpStatus.BAD_REQUEST.value());
+        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(PinVerificationUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handlePinVerificationUnavailableException(PinVerificationUnavailableException ex) {
+        ErrorResponse errorResponse = new ErrorResponse(ex.getMessage(), HttpStatus.SERVICE_UNAVAILABLE.value());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(errorResponse);
+    }
+
     @ExceptionHandler(InsufficientFundsException.class)
     public ResponseEntity<ErrorResponse> handleInsufficientFundsException(InsufficientFundsException ex) {
         ErrorResponse errorResponse = new ErrorResponse(ex.getMessage(), HttpStatus.PAYMENT_REQUIRED.value());
@@ -163,6 +195,12 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
     }
 
+    @ExceptionHandler(InvalidCartItemsException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidCartItemsException(InvalidCartItemsException ex) {
+        ErrorResponse errorResponse = new ErrorResponse(ex.getMessage(), HttpStatus.BAD_REQUEST.value());
+        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(ProductOutOfStockException.class)
     public ResponseEntity<ErrorResponse> handleProductOutOfStockException(ProductOutOfStockException ex) {
         ErrorResponse errorResponse = new ErrorResponse(ex.getMessage(), HttpStatus.CONFLICT.value());
@@ -205,6 +243,33 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
     }
 
+    @ExceptionHandler(InvalidOrderCursorException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidOrderCursorException(InvalidOrderCursorException ex) {
+        ErrorResponse errorResponse = new ErrorResponse(ex.getMessage(), HttpStatus.BAD_REQUEST.value());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+    }
+
+    @ExceptionHandler(IdempotencyKeyInUseException.class)
+    public ResponseEntity<ErrorResponse> handleIdempotencyKeyInUseException(IdempotencyKeyInUseException ex) {
+        ErrorResponse errorResponse = new ErrorResponse(ex.getMessage(), HttpStatus.CONFLICT.value());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+    }
+
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    public ResponseEntity<ErrorResponse> handleIdempotencyKeyReusedException(IdempotencyKeyReusedException ex) {
+        ErrorResponse errorResponse = new ErrorResponse(ex.getMessage(), HttpStatus.UNPROCESSABLE_ENTITY.value());
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(errorResponse);
+    }
+
+    @ExceptionHandler(MethodArgumentNotValidException.class)
+    public ResponseEntity<ErrorResponse> handleMethodArgumentNotValidException(MethodArgumentNotValidException ex) {
+        String message = ex.getBindingResult().getAllErrors().stream()
+                .map(ObjectError::getDefaultMessage)
+                .collect(Collectors.joining("; "));
+        ErrorResponse errorResponse = new ErrorResponse(message, HttpStatus.BAD_REQUEST.value());
+        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(RoleAlreadyAssignedException.class)
     public ResponseEntity<String> handleRoleAlreadyAssignedException(RoleAlreadyAssignedException ex) {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
@@ -0,0 +1,12 @@
+package ru.kalimulin.enums;
+
+public enum LedgerOperation {
+    DEPOSIT,      // Пополнение кошелька
+    WITHDRAWAL,   // Списание средств с кошелька
+    PURCHASE,     // Оплата заказа покупателем
+    SALE,         // Выручка продавца с оплаченного заказа
+    TRANSFER_OUT, // Исходящий перевод
+    TRANSFER_IN,  // Входящий перевод
+    PAYOUT,       // Пакетное зачисление администратором (выплаты, возвраты)
+    CHARGE        // Пакетное списание администратором
+}
@@ -0,0 +1,6 @@
+package ru.kalimulin.enums;
+
+public enum OrderExportFormat {
+    CSV,   // Одна строка на позицию заказа
+    NDJSON // Один JSON-объект на заказ вместе с позициями
+}
@@ -0,0 +1,6 @@
+package ru.kalimulin.enums;
+
+public enum WalletStatementFormat {
+    CSV,   // Одна строка на операцию с заголовком
+    NDJSON // Один JSON-объект на операцию
+}
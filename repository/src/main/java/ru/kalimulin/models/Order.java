@@ -41,4 +41,10 @@ public class Order {
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
+
+    /**
+     * Момент истечения резерва товаров заказа; {@code null}, если резерв снят или уже превращен в продажу.
+     */
+    @Column(name = "reserved_until")
+    private LocalDateTime reservedUntil;
 }
\ No newline at end of file
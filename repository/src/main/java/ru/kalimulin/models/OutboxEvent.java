@@ -0,0 +1,55 @@
+package ru.kalimulin.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Событие, ожидающее отправки в Kafka.
+ * Записывается в той же транзакции, что и бизнес-изменения.
+ */
+@Entity
+@Table(name = "outbox_events")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxEvent {
+    // Последовательность с шагом 50 позволяет Hibernate вставлять события JDBC-батчами
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_events_seq")
+    @SequenceGenerator(name = "outbox_events_seq", sequenceName = "outbox_events_id_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "topic", nullable = false)
+    private String topic;
+
+    @Column(name = "event_key")
+    private String eventKey;
+
+    @Column(name = "event_type", nullable = false)
+    private String eventType;
+
+    @Column(name = "payload", nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    // Число неудачных попыток прочитать событие перед отправкой
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    // Событие, исчерпавшее попытки, остается в таблице и больше не отправляется
+    @Column(name = "failed_at")
+    private LocalDateTime failedAt;
+}
@@ -19,7 +19,11 @@ public class Wallet {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(name = "balance", nullable = false)
+    /**
+     * Баланс до начала ведения журнала. Приложение его не изменяет: текущий баланс
+     * рассчитывается по снимку и журналу операций (см. {@link WalletLedgerEntry}).
+     */
+    @Column(name = "balance", nullable = false, updatable = false)
     private BigDecimal balance;
 
     @Column(name = "pin", nullable = false)
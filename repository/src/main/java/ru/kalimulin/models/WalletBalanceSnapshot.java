@@ -0,0 +1,34 @@
+package ru.kalimulin.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Последний снимок баланса кошелька: баланс с учетом всех записей журнала до {@code lastEntryId} включительно.
+ */
+@Entity
+@Table(name = "wallet_balance_snapshots")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WalletBalanceSnapshot {
+    @Id
+    @Column(name = "wallet_id")
+    private Long walletId;
+
+    @Column(name = "balance", nullable = false)
+    private BigDecimal balance;
+
+    @Column(name = "last_entry_id", nullable = false)
+    private Long lastEntryId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
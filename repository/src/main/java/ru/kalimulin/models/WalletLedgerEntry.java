@@ -0,0 +1,40 @@
+package ru.kalimulin.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.kalimulin.enums.LedgerOperation;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Запись журнала операций кошелька. Записи только добавляются и никогда не изменяются:
+ * поступления имеют положительную сумму, списания - отрицательную.
+ */
+@Entity
+@Table(name = "wallet_ledger")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WalletLedgerEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "wallet_id", nullable = false, updatable = false)
+    private Long walletId;
+
+    @Column(name = "amount", nullable = false, updatable = false)
+    private BigDecimal amount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "operation", nullable = false, updatable = false)
+    private LedgerOperation operation;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,11 @@
+package ru.kalimulin.projections;
+
+import java.util.List;
+
+/**
+ * Кандидат в границу снимка балансов: последняя видимая запись журнала и транзакции,
+ * которые в тот момент писали в журнал. Граница подтверждена, когда все эти транзакции завершились:
+ * тогда записей с id не больше {@code lastEntryId} уже не появится.
+ */
+public record LedgerWatermark(long lastEntryId, List<String> pendingWriters) {
+}
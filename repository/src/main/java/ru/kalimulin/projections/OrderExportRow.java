@@ -0,0 +1,17 @@
+package ru.kalimulin.projections;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Строка выгрузки истории заказов: одна позиция заказа вместе с данными самого заказа.
+ */
+public record OrderExportRow(Long orderId,
+                             LocalDateTime createdAt,
+                             String status,
+                             BigDecimal totalPrice,
+                             Long productId,
+                             String productTitle,
+                             Integer quantity,
+                             BigDecimal price) {
+}
@@ -0,0 +1,12 @@
+package ru.kalimulin.projections;
+
+import java.math.BigDecimal;
+
+/**
+ * Текущая цена товара.
+ */
+public interface ProductPriceView {
+    Long getId();
+
+    BigDecimal getPrice();
+}
@@ -0,0 +1,10 @@
+package ru.kalimulin.projections;
+
+/**
+ * Суммарное количество товара в наборе позиций заказов.
+ */
+public interface ProductQuantityView {
+    Long getProductId();
+
+    Long getQuantity();
+}
@@ -0,0 +1,14 @@
+package ru.kalimulin.projections;
+
+/**
+ * Данные товара и его продавца, необходимые для проведения оплаты.
+ */
+public interface ProductSaleView {
+    Long getId();
+
+    String getTitle();
+
+    Long getOwnerId();
+
+    String getOwnerEmail();
+}
@@ -0,0 +1,10 @@
+package ru.kalimulin.projections;
+
+/**
+ * Идентификатор кошелька по его номеру.
+ */
+public interface WalletNumberView {
+    Long getId();
+
+    String getWalletNumber();
+}
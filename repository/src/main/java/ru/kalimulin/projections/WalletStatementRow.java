@@ -0,0 +1,13 @@
+package ru.kalimulin.projections;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Строка выписки по кошельку: одна запись журнала операций.
+ */
+public record WalletStatementRow(Long entryId,
+                                 LocalDateTime createdAt,
+                                 String operation,
+                                 BigDecimal amount) {
+}
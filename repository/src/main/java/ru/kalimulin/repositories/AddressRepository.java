@@ -3,13 +3,12 @@ package ru.kalimulin.repositories;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import ru.kalimulin.models.Address;
-import ru.kalimulin.models.User;
 
 import java.util.List;
-import java.util.Optional;
 
 @Repository
 public interface AddressRepository extends JpaRepository<Address, Long> {
-    List<Address> findAddressByUser(User user);
+    List<Address> findAllByUserId(Long userId);
 
+    boolean existsByUserId(Long userId);
 }
@@ -15,5 +15,7 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
 
     Optional<CartItem> findByCartAndProduct(Cart cart, Product product);
 
+    Optional<CartItem> findByCartIdAndProductId(Long cartId, Long productId);
+
     void deleteByCart(Cart cart);
-}
\ No newline at end of file
+}
@@ -1,13 +1,44 @@
 package ru.kalimulin.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.kalimulin.models.Cart;
-import ru.kalimulin.models.User;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface CartRepository extends JpaRepository<Cart, Long> {
-    Optional<Cart> findByUser(User user);
-}
\ No newline at end of file
+public interface CartRepository extends JpaRepository<Cart, Long>, CartRepositoryCustom {
+    Optional<Cart> findByUserId(Long userId);
+
+    @Query("SELECT c.id FROM Cart c WHERE c.user.id = :userId")
+    Optional<Long> findIdByUserId(@Param("userId") Long userId);
+
+    /**
+     * Блокирует строки корзин пользователей до конца транзакции в порядке возрастания id.
+     * Корзина из Redis читается после блокировки, поэтому последней в базу записывается самая свежая версия.
+     *
+     * @return идентификаторы найденных корзин
+     */
+    @Query(value = "SELECT id FROM carts WHERE user_id IN (:userIds) ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<Long> lockByUserIdIn(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * Атомарно изменяет стоимость корзины на величину изменения ее содержимого,
+     * не загружая позиции корзины.
+     *
+     * @param id    идентификатор корзины
+     * @param delta изменение стоимости; отрицательное при удалении товара
+     * @return количество обновленных строк
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Cart c SET c.totalPrice = c.totalPrice + :delta WHERE c.id = :id")
+    int addToTotalPrice(@Param("id") Long id, @Param("delta") BigDecimal delta);
+}
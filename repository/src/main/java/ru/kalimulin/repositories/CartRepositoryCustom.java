@@ -0,0 +1,60 @@
+package ru.kalimulin.repositories;
+
+import java.util.Map;
+
+/**
+ * Дополнительные операции над корзинами, выполняемые через JDBC.
+ */
+public interface CartRepositoryCustom {
+
+    /**
+     * Добавляет товары в корзину одним JDBC-батчем: для уже лежащих в корзине товаров
+     * количество увеличивается, остальные добавляются новыми позициями.
+     * Стоимость корзины не меняется.
+     *
+     * @param cartId     идентификатор корзины
+     * @param quantities добавляемое количество по идентификатору товара
+     */
+    void addItems(Long cartId, Map<Long, Integer> quantities);
+
+    /**
+     * Удаляет товар из корзины и пересчитывает ее стоимость по оставшимся позициям одним UPDATE.
+     * Стоимость не зависит от того, по какой цене товар добавлялся и успел ли пересчет после изменения цены.
+     *
+     * @param cartId    идентификатор корзины
+     * @param productId идентификатор товара
+     * @return {@code false}, если товара не было в корзине
+     */
+    boolean removeItem(Long cartId, Long productId);
+
+    /**
+     * Очищает корзину одним DELETE позиций и обнуляет ее стоимость. Несохраненные изменения
+     * сбрасываются в базу до удаления, а корзина, если она загружена в контекст персистентности,
+     * отсоединяется вместе с позициями, чтобы вызывающий код не увидел удаленные позиции.
+     * Остальной контекст не очищается.
+     *
+     * @param cartId идентификатор корзины
+     * @return количество удаленных позиций
+     */
+    int clearItems(Long cartId);
+
+    /**
+     * Заменяет содержимое корзин пользователей переданными позициями и пересчитывает их стоимость
+     * по текущим ценам товаров. Используется для отложенной записи корзин, которые хранятся в Redis.
+     * <p>
+     * Корзины пользователей должны уже существовать. Позиции с удаленными товарами пропускаются.
+     *
+     * @param itemsByUserId количество товара по идентификатору товара для каждого пользователя;
+     *                      пустая карта очищает корзину
+     */
+    void replaceItems(Map<Long, Map<Long, Integer>> itemsByUserId);
+
+    /**
+     * Пересчитывает по текущим ценам стоимость всех корзин, в которых есть товар.
+     * Пересчет полный, поэтому повторный вызов для того же товара безопасен.
+     *
+     * @param productId идентификатор товара, цена которого изменилась
+     * @return количество пересчитанных корзин
+     */
+    int recalculateTotalsByProductId(Long productId);
+}
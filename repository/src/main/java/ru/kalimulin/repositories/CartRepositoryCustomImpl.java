@@ -0,0 +1,105 @@
+package ru.kalimulin.repositories;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import ru.kalimulin.models.Cart;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class CartRepositoryCustomImpl implements CartRepositoryCustom {
+    private static final String UPSERT_ITEM_SQL =
+            "INSERT INTO cart_items (cart_id, product_id, quantity) VALUES (?, ?, ?) " +
+                    "ON CONFLICT (cart_id, product_id) DO UPDATE SET quantity = cart_items.quantity + EXCLUDED.quantity";
+    private static final String DELETE_ITEMS_SQL =
+            "DELETE FROM cart_items WHERE cart_id IN (SELECT id FROM carts WHERE user_id IN (:userIds))";
+    private static final String INSERT_ITEM_SQL =
+            "INSERT INTO cart_items (cart_id, product_id, quantity) " +
+                    "SELECT c.id, p.id, ? FROM carts c JOIN products p ON p.id = ? WHERE c.user_id = ?";
+    private static final String CART_TOTAL_SQL =
+            "COALESCE((SELECT SUM(ci.quantity * p.price) FROM cart_items ci JOIN products p ON p.id = ci.product_id " +
+                    "WHERE ci.cart_id = carts.id), 0)";
+    private static final String UPDATE_TOTALS_SQL =
+            "UPDATE carts SET total_price = " + CART_TOTAL_SQL + " WHERE user_id IN (:userIds)";
+    private static final String DELETE_ITEM_SQL = "DELETE FROM cart_items WHERE cart_id = ? AND product_id = ?";
+    private static final String UPDATE_TOTAL_SQL = "UPDATE carts SET total_price = " + CART_TOTAL_SQL + " WHERE id = ?";
+    private static final String UPDATE_TOTALS_BY_PRODUCT_SQL =
+            "UPDATE carts SET total_price = " + CART_TOTAL_SQL +
+                    " WHERE id IN (SELECT cart_id FROM cart_items WHERE product_id = ?)";
+
+    private static final String CLEAR_ITEMS_JPQL = "DELETE FROM CartItem i WHERE i.cart.id = :cartId";
+    private static final String RESET_TOTAL_JPQL = "UPDATE Cart c SET c.totalPrice = 0 WHERE c.id = :cartId";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final EntityManager entityManager;
+
+    @Transactional
+    @Override
+    public void addItems(Long cartId, Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(UPSERT_ITEM_SQL, new ArrayList<>(quantities.entrySet()), quantities.size(), (ps, entry) -> {
+            ps.setLong(1, cartId);
+            ps.setLong(2, entry.getKey());
+            ps.setInt(3, entry.getValue());
+        });
+    }
+
+    @Transactional
+    @Override
+    public boolean removeItem(Long cartId, Long productId) {
+        if (jdbcTemplate.update(DELETE_ITEM_SQL, cartId, productId) == 0) {
+            return false;
+        }
+
+        // Вычитание стоимости по текущей цене расходится с суммой, накопленной по старым ценам
+        jdbcTemplate.update(UPDATE_TOTAL_SQL, cartId);
+        return true;
+    }
+
+    @Transactional
+    @Override
+    public int clearItems(Long cartId) {
+        entityManager.flush();
+        int deleted = entityManager.createQuery(CLEAR_ITEMS_JPQL).setParameter("cartId", cartId).executeUpdate();
+        entityManager.createQuery(RESET_TOTAL_JPQL).setParameter("cartId", cartId).executeUpdate();
+
+        // Возвращает загруженную корзину или прокси без запроса; отсоединение каскадно снимает и позиции
+        entityManager.detach(entityManager.getReference(Cart.class, cartId));
+        return deleted;
+    }
+
+    @Transactional
+    @Override
+    public void replaceItems(Map<Long, Map<Long, Integer>> itemsByUserId) {
+        if (itemsByUserId.isEmpty()) {
+            return;
+        }
+
+        Map<String, Object> params = Map.of("userIds", itemsByUserId.keySet());
+        namedParameterJdbcTemplate.update(DELETE_ITEMS_SQL, params);
+
+        List<Object[]> rows = new ArrayList<>();
+        itemsByUserId.forEach((userId, items) -> items.forEach((productId, quantity) ->
+                rows.add(new Object[]{quantity, productId, userId})));
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_ITEM_SQL, rows);
+        }
+
+        namedParameterJdbcTemplate.update(UPDATE_TOTALS_SQL, params);
+    }
+
+    @Transactional
+    @Override
+    public int recalculateTotalsByProductId(Long productId) {
+        return jdbcTemplate.update(UPDATE_TOTALS_BY_PRODUCT_SQL, productId);
+    }
+}
@@ -1,13 +1,51 @@
 package ru.kalimulin.repositories;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.kalimulin.models.Favorite;
-import ru.kalimulin.models.User;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface FavoriteRepository extends JpaRepository<Favorite, Long> {
-    Optional<Favorite> findByUser(User user);
+public interface FavoriteRepository extends JpaRepository<Favorite, Long>, FavoriteRepositoryCustom {
+    Optional<Favorite> findByUserId(Long userId);
+
+    /**
+     * Проверяет наличие товара в избранном пользователя по паре (пользователь, товар) без загрузки списка.
+     *
+     * @param userId    идентификатор пользователя
+     * @param productId идентификатор товара
+     * @return {@code true}, если товар в избранном
+     */
+    @Query("SELECT COUNT(f) > 0 FROM Favorite f JOIN f.products p WHERE f.user.id = :userId AND p.id = :productId")
+    boolean existsByUserIdAndProductId(@Param("userId") Long userId, @Param("productId") Long productId);
+
+    @Query("SELECT p.id FROM Favorite f JOIN f.products p WHERE f.user.id = :userId ORDER BY p.id DESC")
+    List<Long> findFirstProductIdsPage(@Param("userId") Long userId, Limit limit);
+
+    @Query("SELECT p.id FROM Favorite f JOIN f.products p WHERE f.user.id = :userId AND p.id < :afterProductId " +
+            "ORDER BY p.id DESC")
+    List<Long> findProductIdsPageAfter(@Param("userId") Long userId,
+                                       @Param("afterProductId") Long afterProductId,
+                                       Limit limit);
+
+    /**
+     * Удаляет товар из избранного пользователя одним DELETE по таблице связей.
+     *
+     * @param userId    идентификатор пользователя
+     * @param productId идентификатор товара
+     * @return количество удаленных строк: 0, если товара не было в избранном
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM favorite_product WHERE product_id = :productId " +
+            "AND favorite_id IN (SELECT id FROM favorites WHERE user_id = :userId)", nativeQuery = true)
+    int deleteProduct(@Param("userId") Long userId, @Param("productId") Long productId);
+
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package ru.kalimulin.repositories;
+
+/**
+ * Дополнительные операции над избранным, выполняемые через JDBC.
+ */
+public interface FavoriteRepositoryCustom {
+
+    /**
+     * Добавляет товар в избранное пользователя без чтения списка избранного. Избранное создается,
+     * если его еще нет; повторное добавление того же товара ничего не меняет.
+     *
+     * @param userId    идентификатор пользователя
+     * @param productId идентификатор товара
+     * @return {@code true}, если товар добавлен; {@code false}, если он уже был в избранном или не существует
+     */
+    boolean addProduct(Long userId, Long productId);
+}
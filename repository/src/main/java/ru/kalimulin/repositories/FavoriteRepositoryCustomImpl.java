@@ -0,0 +1,25 @@
+package ru.kalimulin.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+@RequiredArgsConstructor
+public class FavoriteRepositoryCustomImpl implements FavoriteRepositoryCustom {
+    private static final String INSERT_FAVORITE_SQL =
+            "INSERT INTO favorites (user_id) VALUES (?) ON CONFLICT (user_id) DO NOTHING";
+    private static final String INSERT_PRODUCT_SQL =
+            "INSERT INTO favorite_product (favorite_id, product_id) " +
+                    "SELECT f.id, p.id FROM favorites f JOIN products p ON p.id = ? WHERE f.user_id = ? " +
+                    "ON CONFLICT (favorite_id, product_id) DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Transactional
+    @Override
+    public boolean addProduct(Long userId, Long productId) {
+        jdbcTemplate.update(INSERT_FAVORITE_SQL, userId);
+        // Несуществующий товар отсекается соединением с products, уже добавленный - первичным ключом пары
+        return jdbcTemplate.update(INSERT_PRODUCT_SQL, productId, userId) > 0;
+    }
+}
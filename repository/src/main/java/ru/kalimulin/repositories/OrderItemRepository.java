@@ -1,13 +1,21 @@
 package ru.kalimulin.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.kalimulin.models.Order;
 import ru.kalimulin.models.OrderItem;
+import ru.kalimulin.projections.ProductQuantityView;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     List<OrderItem> findByOrder(Order order);
+
+    @Query("SELECT i.product.id AS productId, SUM(i.quantity) AS quantity FROM OrderItem i " +
+            "WHERE i.order.id IN :orderIds GROUP BY i.product.id")
+    List<ProductQuantityView> sumQuantitiesByOrderIds(@Param("orderIds") Collection<Long> orderIds);
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package ru.kalimulin.repositories;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -7,13 +8,31 @@ import org.springframework.stereotype.Repository;
 import ru.kalimulin.models.Order;
 import ru.kalimulin.models.User;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
 
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long> {
-    Optional<List<Order>> findByUser(User user);
+public interface OrderRepository extends JpaRepository<Order, Long>, OrderRepositoryCustom {
+    List<Order> findAllByUserId(Long userId);
 
     @Query("SELECT COUNT(o) > 0 FROM Order o JOIN o.items i WHERE o.user = :buyer AND i.product.owner = :seller AND o.status = 'PAID'")
     boolean existsByUserAndSeller(@Param("buyer") User buyer, @Param("seller") User seller);
+
+    @Query("SELECT o FROM Order o WHERE o.user.id = :userId ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findFirstPageByUserId(@Param("userId") Long userId, Limit limit);
+
+    @Query("SELECT o FROM Order o WHERE o.user.id = :userId " +
+            "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+            "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findPageByUserIdAfter(@Param("userId") Long userId,
+                                      @Param("createdAt") LocalDateTime createdAt,
+                                      @Param("id") Long id,
+                                      Limit limit);
+
+    /**
+     * Загружает заказы вместе с позициями и товарами одним запросом.
+     */
+    @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.items i LEFT JOIN FETCH i.product WHERE o.id IN :ids")
+    List<Order> findWithItemsByIdIn(@Param("ids") Collection<Long> ids);
 }
\ No newline at end of file
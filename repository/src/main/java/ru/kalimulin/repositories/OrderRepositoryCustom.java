@@ -0,0 +1,71 @@
+package ru.kalimulin.repositories;
+
+import ru.kalimulin.projections.OrderExportRow;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Операции над заказами, выполняемые через JDBC.
+ * Снятие резерва - условный UPDATE, поэтому резерв заказа может быть снят только один раз:
+ * либо при оплате, либо при удалении заказа, либо при истечении срока.
+ */
+public interface OrderRepositoryCustom {
+
+    /**
+     * Атомарно снимает резерв заказа.
+     *
+     * @param orderId идентификатор заказа
+     * @return {@code true}, если резерв был активен и снят этим вызовом
+     */
+    boolean releaseReservation(Long orderId);
+
+    /**
+     * Атомарно снимает резервы неоплаченных заказов, срок которых истек.
+     * Строки, заблокированные другими транзакциями, пропускаются.
+     *
+     * @param now   текущий момент времени
+     * @param limit максимальное количество заказов за один вызов
+     * @return идентификаторы заказов, резервы которых сняты этим вызовом
+     */
+    List<Long> claimExpiredReservations(LocalDateTime now, int limit);
+
+    /**
+     * Блокирует очередную пачку брошенных заказов: неоплаченных, созданных раньше указанного момента
+     * и не удерживающих резерв товаров. Заказы выбираются по возрастанию id после {@code afterId};
+     * строки, заблокированные другими транзакциями, пропускаются.
+     *
+     * @param createdBefore заказы, созданные раньше этого момента, считаются брошенными
+     * @param afterId       id последнего заказа предыдущей пачки
+     * @param limit         максимальный размер пачки
+     * @return идентификаторы заблокированных заказов по возрастанию
+     */
+    List<Long> lockAbandonedOrders(LocalDateTime createdBefore, long afterId, int limit);
+
+    /**
+     * Удаляет позиции указанных заказов одним запросом.
+     *
+     * @param orderIds идентификаторы заказов
+     * @return количество удаленных позиций
+     */
+    int deleteItemsByOrderIds(List<Long> orderIds);
+
+    /**
+     * Удаляет указанные заказы одним запросом. Позиции заказов должны быть удалены заранее.
+     *
+     * @param orderIds идентификаторы заказов
+     * @return количество удаленных заказов
+     */
+    int deleteOrdersByIds(List<Long> orderIds);
+
+    /**
+     * Построчно читает историю заказов пользователя курсором базы данных, не загружая ее в память целиком.
+     * Строки упорядочены от новых заказов к старым, позиции одного заказа идут подряд.
+     *
+     * @param userId    идентификатор пользователя
+     * @param fetchSize количество строк, получаемых из базы за одно обращение
+     * @param consumer  обработчик каждой строки
+     */
+    void streamExportRows(Long userId, int fetchSize, Consumer<OrderExportRow> consumer);
+}
@@ -0,0 +1,101 @@
+package ru.kalimulin.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import ru.kalimulin.projections.OrderExportRow;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+@RequiredArgsConstructor
+public class OrderRepositoryCustomImpl implements OrderRepositoryCustom {
+    private static final String RELEASE_RESERVATION_SQL =
+            "UPDATE orders SET reserved_until = NULL WHERE id = ? AND reserved_until IS NOT NULL";
+    private static final String CLAIM_EXPIRED_RESERVATIONS_SQL =
+            "UPDATE orders SET reserved_until = NULL WHERE id IN (" +
+                    "SELECT id FROM orders WHERE status = 'PENDING' AND reserved_until < ? " +
+                    "ORDER BY reserved_until LIMIT ? FOR UPDATE SKIP LOCKED) RETURNING id";
+    private static final String LOCK_ABANDONED_ORDERS_SQL =
+            "SELECT id FROM orders WHERE id > ? AND status = 'PENDING' AND created_at < ? " +
+                    "AND reserved_until IS NULL ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED";
+    private static final String DELETE_ITEMS_BY_ORDER_IDS_SQL = "DELETE FROM order_items WHERE order_id IN (:orderIds)";
+    private static final String DELETE_ORDERS_BY_IDS_SQL = "DELETE FROM orders WHERE id IN (:orderIds)";
+    private static final String EXPORT_ROWS_SQL =
+            "SELECT o.id, o.created_at, o.status, o.total_price, i.product_id, p.title, i.quantity, i.price " +
+                    "FROM orders o " +
+                    "LEFT JOIN order_items i ON i.order_id = o.id " +
+                    "LEFT JOIN products p ON p.id = i.product_id " +
+                    "WHERE o.user_id = ? ORDER BY o.created_at DESC, o.id DESC, i.id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Transactional
+    @Override
+    public boolean releaseReservation(Long orderId) {
+        return jdbcTemplate.update(RELEASE_RESERVATION_SQL, orderId) == 1;
+    }
+
+    @Transactional
+    @Override
+    public List<Long> claimExpiredReservations(LocalDateTime now, int limit) {
+        return jdbcTemplate.queryForList(CLAIM_EXPIRED_RESERVATIONS_SQL, Long.class, Timestamp.valueOf(now), limit);
+    }
+
+    @Transactional
+    @Override
+    public List<Long> lockAbandonedOrders(LocalDateTime createdBefore, long afterId, int limit) {
+        return jdbcTemplate.queryForList(LOCK_ABANDONED_ORDERS_SQL, Long.class,
+                afterId, Timestamp.valueOf(createdBefore), limit);
+    }
+
+    @Transactional
+    @Override
+    public int deleteItemsByOrderIds(List<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return 0;
+        }
+        return namedParameterJdbcTemplate.update(DELETE_ITEMS_BY_ORDER_IDS_SQL, Map.of("orderIds", orderIds));
+    }
+
+    @Transactional
+    @Override
+    public int deleteOrdersByIds(List<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return 0;
+        }
+        return namedParameterJdbcTemplate.update(DELETE_ORDERS_BY_IDS_SQL, Map.of("orderIds", orderIds));
+    }
+
+    // Курсор PostgreSQL с fetch size работает только внутри транзакции (без autocommit)
+    @Transactional(readOnly = true)
+    @Override
+    public void streamExportRows(Long userId, int fetchSize, Consumer<OrderExportRow> consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(EXPORT_ROWS_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            ps.setLong(1, userId);
+            return ps;
+        }, (RowCallbackHandler) rs -> {
+            Timestamp createdAt = rs.getTimestamp(2);
+            consumer.accept(new OrderExportRow(
+                    rs.getLong(1),
+                    createdAt != null ? createdAt.toLocalDateTime() : null,
+                    rs.getString(3),
+                    rs.getBigDecimal(4),
+                    rs.getObject(5, Long.class),
+                    rs.getString(6),
+                    rs.getObject(7, Integer.class),
+                    rs.getBigDecimal(8)));
+        });
+    }
+}
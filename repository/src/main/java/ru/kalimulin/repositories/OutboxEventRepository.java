@@ -0,0 +1,24 @@
+package ru.kalimulin.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.kalimulin.models.OutboxEvent;
+
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Блокирует очередную пачку событий для отправки.
+     * Строки, уже заблокированные другим узлом, и события, исчерпавшие попытки, пропускаются.
+     *
+     * @param limit максимальный размер пачки
+     * @return события в порядке записи
+     */
+    @Query(value = "SELECT * FROM outbox_events WHERE failed_at IS NULL ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<OutboxEvent> lockNextBatch(@Param("limit") int limit);
+}
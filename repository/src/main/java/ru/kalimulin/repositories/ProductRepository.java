@@ -5,17 +5,80 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.kalimulin.models.Product;
 import ru.kalimulin.models.User;
+import ru.kalimulin.projections.ProductPriceView;
+import ru.kalimulin.projections.ProductSaleView;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product>,
+        ProductRepositoryCustom {
     Page<Product> findAll(Specification<Product> specification, Pageable pageable);
 
     Page<Product> findByOwner(User seller, Pageable pageable);
 
     List<Product> findTop10ByOrderBySalesCountDesc();
+
+    /**
+     * Загружает товары вместе с данными продавцов одним запросом.
+     *
+     * @param ids идентификаторы товаров
+     * @return данные найденных товаров
+     */
+    @Query("SELECT p.id AS id, p.title AS title, o.id AS ownerId, o.email AS ownerEmail " +
+            "FROM Product p JOIN p.owner o WHERE p.id IN :ids")
+    List<ProductSaleView> findSaleViewsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Возвращает цену товара без загрузки сущности.
+     *
+     * @param id идентификатор товара
+     * @return цена товара, если он найден
+     */
+    @Query("SELECT p.price FROM Product p WHERE p.id = :id")
+    Optional<BigDecimal> findPriceById(@Param("id") Long id);
+
+    /**
+     * Возвращает цены товаров одним запросом без загрузки сущностей.
+     *
+     * @param ids идентификаторы товаров
+     * @return цены найденных товаров
+     */
+    @Query("SELECT p.id AS id, p.price AS price FROM Product p WHERE p.id IN :ids")
+    List<ProductPriceView> findPricesByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Загружает товары вместе с продавцами, категориями и изображениями одним запросом.
+     *
+     * @param ids идентификаторы товаров
+     * @return найденные товары без гарантированного порядка
+     */
+    @Query("SELECT DISTINCT p FROM Product p JOIN FETCH p.owner JOIN FETCH p.category " +
+            "LEFT JOIN FETCH p.images WHERE p.id IN :ids")
+    List<Product> findWithDetailsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Атомарно списывает остаток товара и увеличивает счетчик продаж.
+     * Списание выполняется одним условным UPDATE, поэтому параллельные
+     * покупки не могут увести остаток в минус.
+     *
+     * @param productId идентификатор товара
+     * @param quantity  количество проданного товара
+     * @return количество обновленных строк: 1 - остаток списан, 0 - товара недостаточно или он не найден
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Product p SET p.stocks = p.stocks - :quantity, p.salesCount = p.salesCount + :quantity " +
+            "WHERE p.id = :productId AND p.stocks >= :quantity")
+    int decreaseStocks(@Param("productId") Long productId, @Param("quantity") int quantity);
 }
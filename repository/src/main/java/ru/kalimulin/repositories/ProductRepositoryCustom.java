@@ -0,0 +1,43 @@
+package ru.kalimulin.repositories;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Дополнительные операции над товарами, выполняемые через JDBC.
+ * Все методы принимают количество по идентификатору товара и выполняются одним JDBC-батчем.
+ */
+public interface ProductRepositoryCustom {
+
+    /**
+     * Атомарно списывает остатки проданных товаров и увеличивает счетчики продаж.
+     * Для каждого товара выполняется условный UPDATE, как в {@link ProductRepository#decreaseStocks(Long, int)}.
+     *
+     * @param quantities количество проданного товара по идентификатору товара
+     * @return идентификаторы товаров, остаток которых не удалось списать
+     * (товара недостаточно или он не найден)
+     */
+    Set<Long> decreaseStocksBatch(Map<Long, Integer> quantities);
+
+    /**
+     * Атомарно резервирует товары: уменьшает остаток без изменения счетчика продаж.
+     *
+     * @param quantities резервируемое количество по идентификатору товара
+     * @return идентификаторы товаров, которые не удалось зарезервировать
+     */
+    Set<Long> reserveStocksBatch(Map<Long, Integer> quantities);
+
+    /**
+     * Возвращает на склад ранее зарезервированное количество.
+     *
+     * @param quantities возвращаемое количество по идентификатору товара
+     */
+    void returnStocksBatch(Map<Long, Integer> quantities);
+
+    /**
+     * Увеличивает счетчики продаж товаров, остаток которых уже был зарезервирован.
+     *
+     * @param quantities проданное количество по идентификатору товара
+     */
+    void increaseSalesCountBatch(Map<Long, Integer> quantities);
+}
@@ -0,0 +1,87 @@
+package ru.kalimulin.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+@RequiredArgsConstructor
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+    private static final String DECREASE_STOCKS_SQL =
+            "UPDATE products SET stocks = stocks - ?, sales_count = sales_count + ? WHERE id = ? AND stocks >= ?";
+    private static final String RESERVE_STOCKS_SQL =
+            "UPDATE products SET stocks = stocks - ? WHERE id = ? AND stocks >= ?";
+    private static final String RETURN_STOCKS_SQL = "UPDATE products SET stocks = stocks + ? WHERE id = ?";
+    private static final String INCREASE_SALES_COUNT_SQL = "UPDATE products SET sales_count = sales_count + ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Transactional
+    @Override
+    public Set<Long> decreaseStocksBatch(Map<Long, Integer> quantities) {
+        return conditionalUpdate(DECREASE_STOCKS_SQL, quantities, (ps, entry) -> {
+            ps.setInt(1, entry.getValue());
+            ps.setInt(2, entry.getValue());
+            ps.setLong(3, entry.getKey());
+            ps.setInt(4, entry.getValue());
+        });
+    }
+
+    @Transactional
+    @Override
+    public Set<Long> reserveStocksBatch(Map<Long, Integer> quantities) {
+        return conditionalUpdate(RESERVE_STOCKS_SQL, quantities, (ps, entry) -> {
+            ps.setInt(1, entry.getValue());
+            ps.setLong(2, entry.getKey());
+            ps.setInt(3, entry.getValue());
+        });
+    }
+
+    @Transactional
+    @Override
+    public void returnStocksBatch(Map<Long, Integer> quantities) {
+        update(RETURN_STOCKS_SQL, quantities);
+    }
+
+    @Transactional
+    @Override
+    public void increaseSalesCountBatch(Map<Long, Integer> quantities) {
+        update(INCREASE_SALES_COUNT_SQL, quantities);
+    }
+
+    /**
+     * Выполняет условное списание вида {@code SET ... WHERE id = ? AND stocks >= ?}.
+     *
+     * @return идентификаторы товаров, для которых UPDATE не затронул ни одной строки
+     */
+    private Set<Long> conditionalUpdate(String sql, Map<Long, Integer> quantities,
+                                        ParameterizedPreparedStatementSetter<Map.Entry<Long, Integer>> setter) {
+        if (quantities.isEmpty()) {
+            return Collections.emptySet();
+        }
+
+        List<Map.Entry<Long, Integer>> entries = new ArrayList<>(quantities.entrySet());
+        int[][] results = jdbcTemplate.batchUpdate(sql, entries, entries.size(), setter);
+
+        Set<Long> rejected = new HashSet<>();
+        for (int i = 0; i < entries.size(); i++) {
+            if (results[0][i] == 0) {
+                rejected.add(entries.get(i).getKey());
+            }
+        }
+        return rejected;
+    }
+
+    private void update(String sql, Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(sql, new ArrayList<>(quantities.entrySet()), quantities.size(), (ps, entry) -> {
+            ps.setInt(1, entry.getValue());
+            ps.setLong(2, entry.getKey());
+        });
+    }
+}
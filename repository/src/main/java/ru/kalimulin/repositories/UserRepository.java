@@ -2,10 +2,14 @@ package ru.kalimulin.repositories;
 
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import ru.kalimulin.enums.RoleName;
 import ru.kalimulin.models.User;
 
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -14,4 +18,9 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @EntityGraph(attributePaths = {"roles", "addresses"})
     Optional<User> findByLogin(String login);
 
+    @Query("SELECT u.id FROM User u WHERE u.login = :login")
+    Optional<Long> findIdByLogin(@Param("login") String login);
+
+    @Query("SELECT r.roleName FROM User u JOIN u.roles r WHERE u.login = :login")
+    Set<RoleName> findRoleNamesByLogin(@Param("login") String login);
 }
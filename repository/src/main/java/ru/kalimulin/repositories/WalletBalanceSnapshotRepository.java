@@ -0,0 +1,9 @@
+package ru.kalimulin.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import ru.kalimulin.models.WalletBalanceSnapshot;
+
+@Repository
+public interface WalletBalanceSnapshotRepository extends JpaRepository<WalletBalanceSnapshot, Long> {
+}
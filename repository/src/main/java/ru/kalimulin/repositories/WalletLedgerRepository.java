@@ -0,0 +1,9 @@
+package ru.kalimulin.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import ru.kalimulin.models.WalletLedgerEntry;
+
+@Repository
+public interface WalletLedgerRepository extends JpaRepository<WalletLedgerEntry, Long>, WalletLedgerRepositoryCustom {
+}
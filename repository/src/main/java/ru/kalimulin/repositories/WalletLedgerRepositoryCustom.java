@@ -0,0 +1,96 @@
+package ru.kalimulin.repositories;
+
+import ru.kalimulin.enums.LedgerOperation;
+import ru.kalimulin.models.WalletLedgerEntry;
+import ru.kalimulin.projections.LedgerWatermark;
+import ru.kalimulin.projections.WalletStatementRow;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Операции над журналом кошельков, выполняемые через JDBC.
+ * Баланс кошелька = последний снимок (или начальный баланс из wallets, если снимка еще нет)
+ * плюс сумма записей журнала после снимка.
+ * <p>
+ * Записи добавляются под разделяемой advisory-блокировкой журнала, которая берется до выделения id
+ * и держится до конца транзакции. По ней снимок узнает, какие транзакции еще могут зафиксировать
+ * записи с меньшими id, чем уже видимые.
+ */
+public interface WalletLedgerRepositoryCustom {
+
+    /**
+     * Добавляет записи в журнал JDBC-батчами.
+     *
+     * @param entries записи журнала; id и дата создания заполняются при вставке
+     */
+    void appendBatch(List<WalletLedgerEntry> entries);
+
+    /**
+     * Добавляет записи в журнал кошельков нескольких пользователей одним JDBC-батчем.
+     *
+     * @param amountsByUserId сумма операции по идентификатору владельца кошелька
+     * @param operation       тип операции
+     * @return идентификаторы пользователей, у которых не найден кошелек
+     */
+    Set<Long> appendByUserIds(Map<Long, BigDecimal> amountsByUserId, LedgerOperation operation);
+
+    /**
+     * Вычисляет текущий баланс кошелька одним запросом.
+     *
+     * @param walletId идентификатор кошелька
+     * @return баланс или пустой {@link Optional}, если кошелька нет
+     */
+    Optional<BigDecimal> currentBalance(Long walletId);
+
+    /**
+     * Вычисляет текущие балансы нескольких кошельков одним запросом.
+     *
+     * @param walletIds идентификаторы кошельков
+     * @return баланс по идентификатору кошелька; отсутствующие кошельки в результат не попадают
+     */
+    Map<Long, BigDecimal> currentBalances(Collection<Long> walletIds);
+
+    /**
+     * Запоминает кандидата в границу снимка: максимальный id видимой записи журнала
+     * и транзакции, удерживающие блокировку записи в журнал.
+     *
+     * @return кандидат в границу или пустой {@link Optional}, если журнал пуст
+     */
+    Optional<LedgerWatermark> captureWatermark();
+
+    /**
+     * Проверяет, что все транзакции, писавшие в журнал в момент получения границы, завершились.
+     *
+     * @param watermark кандидат в границу снимка
+     * @return {@code true}, если записей с id не больше границы уже не появится
+     */
+    boolean isWatermarkCommitted(LedgerWatermark watermark);
+
+    /**
+     * Переносит записи журнала с id не больше подтвержденной границы в снимки балансов.
+     *
+     * @param lastEntryId подтвержденная граница, см. {@link #isWatermarkCommitted(LedgerWatermark)}
+     * @return количество обновленных снимков
+     */
+    int snapshotBalances(long lastEntryId);
+
+    /**
+     * Построчно передает записи журнала кошелька за период в порядке их создания.
+     * Строки читаются курсором порциями по {@code fetchSize} и не собираются в память.
+     *
+     * @param walletId  идентификатор кошелька
+     * @param from      начало периода включительно
+     * @param to        конец периода не включительно
+     * @param fetchSize количество строк, получаемых из базы за один раз
+     * @param consumer  обработчик каждой строки
+     */
+    void streamStatement(Long walletId, LocalDateTime from, LocalDateTime to, int fetchSize,
+                         Consumer<WalletStatementRow> consumer);
+}
@@ -0,0 +1,186 @@
+package ru.kalimulin.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import ru.kalimulin.enums.LedgerOperation;
+import ru.kalimulin.models.WalletLedgerEntry;
+import ru.kalimulin.projections.LedgerWatermark;
+import ru.kalimulin.projections.WalletStatementRow;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Consumer;
+
+@RequiredArgsConstructor
+public class WalletLedgerRepositoryCustomImpl implements WalletLedgerRepositoryCustom {
+    private static final int BATCH_SIZE = 500;
+    // Ключ advisory-блокировки записи в журнал; в pg_locks он виден как classid = 0, objid = ключ, objsubid = 1
+    private static final long APPEND_LOCK_KEY = 732_001L;
+    private static final String APPEND_LOCK_SQL = "SELECT pg_advisory_xact_lock_shared(" + APPEND_LOCK_KEY + ")";
+    private static final String APPEND_LOCK_HOLDERS_CONDITION =
+            "locktype = 'advisory' AND classid = 0 AND objid = " + APPEND_LOCK_KEY + " AND objsubid = 1";
+    private static final String APPEND_SQL =
+            "INSERT INTO wallet_ledger (wallet_id, amount, operation, created_at) VALUES (?, ?, ?, ?)";
+    private static final String APPEND_BY_USER_SQL =
+            "INSERT INTO wallet_ledger (wallet_id, amount, operation, created_at) " +
+                    "SELECT id, ?, ?, ? FROM wallets WHERE user_id = ?";
+    private static final String CURRENT_BALANCE_SQL =
+            "SELECT COALESCE(s.balance, w.balance) + COALESCE((" +
+                    "SELECT SUM(l.amount) FROM wallet_ledger l " +
+                    "WHERE l.wallet_id = w.id AND l.id > COALESCE(s.last_entry_id, 0)), 0) " +
+                    "FROM wallets w LEFT JOIN wallet_balance_snapshots s ON s.wallet_id = w.id WHERE w.id = ?";
+    private static final String CURRENT_BALANCES_SQL =
+            "SELECT w.id, COALESCE(s.balance, w.balance) + COALESCE((" +
+                    "SELECT SUM(l.amount) FROM wallet_ledger l " +
+                    "WHERE l.wallet_id = w.id AND l.id > COALESCE(s.last_entry_id, 0)), 0) AS balance " +
+                    "FROM wallets w LEFT JOIN wallet_balance_snapshots s ON s.wallet_id = w.id WHERE w.id IN (:walletIds)";
+    private static final String LAST_ENTRY_ID_SQL = "SELECT MAX(id) FROM wallet_ledger";
+    private static final String APPEND_LOCK_HOLDERS_SQL =
+            "SELECT virtualtransaction FROM pg_locks WHERE " + APPEND_LOCK_HOLDERS_CONDITION;
+    private static final String PENDING_WRITERS_SQL =
+            "SELECT COUNT(*) FROM pg_locks WHERE " + APPEND_LOCK_HOLDERS_CONDITION +
+                    " AND virtualtransaction IN (:writers)";
+    private static final String SNAPSHOT_SQL =
+            "INSERT INTO wallet_balance_snapshots (wallet_id, balance, last_entry_id, created_at) " +
+                    "SELECT w.id, COALESCE(s.balance, w.balance) + SUM(l.amount), MAX(l.id), now() " +
+                    "FROM wallet_ledger l " +
+                    "JOIN wallets w ON w.id = l.wallet_id " +
+                    "LEFT JOIN wallet_balance_snapshots s ON s.wallet_id = l.wallet_id " +
+                    "WHERE l.id > COALESCE(s.last_entry_id, 0) AND l.id <= ? " +
+                    "GROUP BY w.id, w.balance, s.balance " +
+                    "ON CONFLICT (wallet_id) DO UPDATE SET balance = EXCLUDED.balance, " +
+                    "last_entry_id = EXCLUDED.last_entry_id, created_at = EXCLUDED.created_at";
+    private static final String STATEMENT_SQL =
+            "SELECT id, created_at, operation, amount FROM wallet_ledger " +
+                    "WHERE wallet_id = ? AND created_at >= ? AND created_at < ? ORDER BY created_at, id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Transactional
+    @Override
+    public void appendBatch(List<WalletLedgerEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        lockForAppend();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(APPEND_SQL, entries, BATCH_SIZE, (ps, entry) -> {
+            ps.setLong(1, entry.getWalletId());
+            ps.setBigDecimal(2, entry.getAmount());
+            ps.setString(3, entry.getOperation().name());
+            ps.setTimestamp(4, now);
+        });
+    }
+
+    @Transactional
+    @Override
+    public Set<Long> appendByUserIds(Map<Long, BigDecimal> amountsByUserId, LedgerOperation operation) {
+        if (amountsByUserId.isEmpty()) {
+            return Collections.emptySet();
+        }
+
+        lockForAppend();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Map.Entry<Long, BigDecimal>> entries = new ArrayList<>(amountsByUserId.entrySet());
+        int[][] results = jdbcTemplate.batchUpdate(APPEND_BY_USER_SQL, entries, entries.size(), (ps, entry) -> {
+            ps.setBigDecimal(1, entry.getValue());
+            ps.setString(2, operation.name());
+            ps.setTimestamp(3, now);
+            ps.setLong(4, entry.getKey());
+        });
+
+        Set<Long> missing = new HashSet<>();
+        for (int i = 0; i < entries.size(); i++) {
+            if (results[0][i] == 0) {
+                missing.add(entries.get(i).getKey());
+            }
+        }
+        return missing;
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public Optional<BigDecimal> currentBalance(Long walletId) {
+        return jdbcTemplate.queryForList(CURRENT_BALANCE_SQL, BigDecimal.class, walletId).stream().findFirst();
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public Map<Long, BigDecimal> currentBalances(Collection<Long> walletIds) {
+        if (walletIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        namedParameterJdbcTemplate.query(CURRENT_BALANCES_SQL, Map.of("walletIds", walletIds),
+                (RowCallbackHandler) rs -> balances.put(rs.getLong("id"), rs.getBigDecimal("balance")));
+        return balances;
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public Optional<LedgerWatermark> captureWatermark() {
+        // Сначала граница, потом держатели блокировки: транзакция, выделившая id не больше границы,
+        // к этому моменту либо завершилась, либо еще держит блокировку
+        Long lastEntryId = jdbcTemplate.queryForObject(LAST_ENTRY_ID_SQL, Long.class);
+        if (lastEntryId == null) {
+            return Optional.empty();
+        }
+        List<String> writers = jdbcTemplate.queryForList(APPEND_LOCK_HOLDERS_SQL, String.class);
+        return Optional.of(new LedgerWatermark(lastEntryId, writers));
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public boolean isWatermarkCommitted(LedgerWatermark watermark) {
+        if (watermark.pendingWriters().isEmpty()) {
+            return true;
+        }
+        Long pending = namedParameterJdbcTemplate.queryForObject(PENDING_WRITERS_SQL,
+                Map.of("writers", watermark.pendingWriters()), Long.class);
+        return pending == null || pending == 0;
+    }
+
+    @Transactional
+    @Override
+    public int snapshotBalances(long lastEntryId) {
+        return jdbcTemplate.update(SNAPSHOT_SQL, lastEntryId);
+    }
+
+    /**
+     * Берет разделяемую блокировку записи в журнал до выделения id новых записей.
+     * Блокировка снимается при завершении транзакции, писатели друг друга не ждут.
+     */
+    private void lockForAppend() {
+        jdbcTemplate.query(APPEND_LOCK_SQL, (RowCallbackHandler) rs -> {
+        });
+    }
+
+    // Курсор PostgreSQL с fetch size работает только внутри транзакции (без autocommit)
+    @Transactional(readOnly = true)
+    @Override
+    public void streamStatement(Long walletId, LocalDateTime from, LocalDateTime to, int fetchSize,
+                                Consumer<WalletStatementRow> consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(STATEMENT_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            ps.setLong(1, walletId);
+            ps.setTimestamp(2, Timestamp.valueOf(from));
+            ps.setTimestamp(3, Timestamp.valueOf(to));
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(new WalletStatementRow(
+                rs.getLong(1),
+                rs.getTimestamp(2).toLocalDateTime(),
+                rs.getString(3),
+                rs.getBigDecimal(4))));
+    }
+}
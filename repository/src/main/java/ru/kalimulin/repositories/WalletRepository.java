@@ -1,17 +1,40 @@
 package ru.kalimulin.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.kalimulin.models.User;
 import ru.kalimulin.models.Wallet;
+import ru.kalimulin.projections.WalletNumberView;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface WalletRepository extends JpaRepository<Wallet, Long> {
+public interface WalletRepository extends JpaRepository<Wallet, Long>, WalletRepositoryCustom {
     Optional<Wallet> findByUser(User user);
 
     boolean existsByWalletNumber(String walletNumber);
 
     Optional<Wallet> findByWalletNumber(String walletNumber);
+
+    @Query("SELECT w.id FROM Wallet w WHERE w.user.id = :userId")
+    Optional<Long> findIdByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT w.id FROM Wallet w WHERE w.walletNumber = :walletNumber")
+    Optional<Long> findIdByWalletNumber(@Param("walletNumber") String walletNumber);
+
+    /**
+     * Выделяет следующий блок номеров кошельков (см. WalletNumberGenerator).
+     */
+    @Query(value = "SELECT nextval('wallet_number_blocks_seq')", nativeQuery = true)
+    long nextWalletNumberBlock();
+
+    @Query("SELECT w.pin FROM Wallet w WHERE w.id = :id")
+    Optional<String> findPinById(@Param("id") Long id);
+
+    @Query("SELECT w.id AS id, w.walletNumber AS walletNumber FROM Wallet w WHERE w.walletNumber IN :walletNumbers")
+    List<WalletNumberView> findNumberViewsByWalletNumberIn(@Param("walletNumbers") Collection<String> walletNumbers);
 }
@@ -0,0 +1,23 @@
+package ru.kalimulin.repositories;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Блокировки кошельков, выполняемые через JDBC.
+ */
+public interface WalletRepositoryCustom {
+
+    /**
+     * Блокирует строки кошельков для списания до конца транзакции в порядке возрастания id.
+     * Одинаковый порядок блокировок исключает взаимоблокировку пересекающихся пакетных списаний.
+     * <p>
+     * На PostgreSQL строки блокируются FOR NO KEY UPDATE: эта блокировка не конфликтует
+     * с FOR KEY SHARE, которую берет проверка внешнего ключа журнала, поэтому зачисления
+     * на заблокированный кошелек не ждут списания.
+     *
+     * @param ids идентификаторы кошельков
+     * @return идентификаторы найденных кошельков
+     */
+    List<Long> lockByIdIn(Collection<Long> ids);
+}
@@ -0,0 +1,40 @@
+package ru.kalimulin.repositories;
+
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+
+import java.sql.DatabaseMetaData;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public class WalletRepositoryCustomImpl implements WalletRepositoryCustom {
+    private static final String LOCK_SQL = "SELECT id FROM wallets WHERE id IN (:ids) ORDER BY id ";
+    private static final String NO_KEY_UPDATE = "FOR NO KEY UPDATE";
+    // H2 в тестах не поддерживает FOR NO KEY UPDATE
+    private static final String UPDATE = "FOR UPDATE";
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final String lockSql;
+
+    public WalletRepositoryCustomImpl(NamedParameterJdbcTemplate namedParameterJdbcTemplate) {
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.lockSql = LOCK_SQL + (isPostgres(namedParameterJdbcTemplate) ? NO_KEY_UPDATE : UPDATE);
+    }
+
+    @Override
+    public List<Long> lockByIdIn(Collection<Long> ids) {
+        return namedParameterJdbcTemplate.queryForList(lockSql, Map.of("ids", ids), Long.class);
+    }
+
+    private static boolean isPostgres(NamedParameterJdbcTemplate namedParameterJdbcTemplate) {
+        try {
+            String product = JdbcUtils.extractDatabaseMetaData(namedParameterJdbcTemplate.getJdbcTemplate().getDataSource(),
+                    DatabaseMetaData::getDatabaseProductName);
+            return "PostgreSQL".equals(product);
+        } catch (MetaDataAccessException e) {
+            throw new IllegalStateException("Не удалось определить тип базы данных", e);
+        }
+    }
+}
@@ -29,6 +29,9 @@ CREATE TABLE addresses (
                            FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
 );
 
+-- Блоки номеров кошельков: каждое значение - блок из 1000 номеров (см. WalletNumberGenerator)
+CREATE SEQUENCE wallet_number_blocks_seq MINVALUE 0 MAXVALUE 99999999 START WITH 0 NO CYCLE;
+
 CREATE TABLE wallets (
                          id SERIAL PRIMARY KEY,
                          balance DECIMAL(15, 2) NOT NULL DEFAULT 0,
@@ -57,6 +60,7 @@ CREATE TABLE products (
                           stocks INT NOT NULL CHECK (stocks >= 0),
                           price DECIMAL(10,2) NOT NULL CHECK (price > 0),
                           status VARCHAR(50) NOT NULL DEFAULT 'AVAILABLE',
+                          sales_count INT NOT NULL DEFAULT 0,
                           category_id BIGINT NOT NULL,
                           user_id BIGINT NOT NULL,
                           created_at TIMESTAMP DEFAULT now(),
@@ -83,7 +87,7 @@ CREATE TABLE cart_items (
 
 CREATE TABLE favorites (
                            id SERIAL PRIMARY KEY,
-                           user_id BIGINT NOT NULL,
+                           user_id BIGINT NOT NULL UNIQUE,
                            FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
 );
 
@@ -112,6 +116,7 @@ CREATE TABLE orders (
                         total_price DECIMAL(15, 2) NOT NULL,
                         status VARCHAR(50) NOT NULL,  -- Добавьте enum или статусы по необходимости
                         created_at TIMESTAMP DEFAULT now(),
+                        reserved_until TIMESTAMP,
                         FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
 );
 CREATE TABLE order_items (
@@ -126,6 +131,29 @@ CREATE TABLE order_items (
 
 
 
+-- Журнал операций кошельков: записи только добавляются, баланс = снимок + записи после снимка.
+-- Проверка внешнего ключа берет FOR KEY SHARE на строку кошелька; списания блокируют ее
+-- FOR NO KEY UPDATE (см. WalletRepository.lockByIdIn), поэтому зачисления их не ждут.
+-- Запись в журнал идет под разделяемой advisory-блокировкой, по которой снимок находит
+-- незавершенные транзакции (см. WalletLedgerRepositoryCustomImpl).
+CREATE TABLE wallet_ledger (
+                               id BIGSERIAL PRIMARY KEY,
+                               wallet_id BIGINT NOT NULL,
+                               amount DECIMAL(15, 2) NOT NULL,
+                               operation VARCHAR(50) NOT NULL,
+                               created_at TIMESTAMP NOT NULL DEFAULT now(),
+                               FOREIGN KEY (wallet_id) REFERENCES wallets(id) ON DELETE CASCADE
+);
+
+-- Последний снимок баланса кошелька (wallets.balance - баланс до появления журнала)
+CREATE TABLE wallet_balance_snapshots (
+                                          wallet_id BIGINT PRIMARY KEY,
+                                          balance DECIMAL(15, 2) NOT NULL,
+                                          last_entry_id BIGINT NOT NULL,
+                                          created_at TIMESTAMP NOT NULL DEFAULT now(),
+                                          FOREIGN KEY (wallet_id) REFERENCES wallets(id) ON DELETE CASCADE
+);
+
 -- Индексы для ускорения поиска пользователей по login и email
 CREATE INDEX idx_users_login ON users(login);
 CREATE INDEX idx_users_email ON users(email);
@@ -133,8 +161,17 @@ CREATE INDEX idx_users_email ON users(email);
 -- Индекс для ускорения получения кошелька пользователя
 CREATE INDEX idx_wallets_user_id ON wallets(user_id);
 
+-- Индекс для расчета баланса по хвосту журнала
+CREATE INDEX idx_wallet_ledger_wallet_id ON wallet_ledger(wallet_id, id);
+-- Индекс для выписки по кошельку за период (диапазон по дате в порядке операций)
+CREATE INDEX idx_wallet_ledger_wallet_created_at ON wallet_ledger(wallet_id, created_at, id);
+
 -- Индекс для ускорения получения корзины пользователя
 CREATE INDEX idx_carts_user_id ON carts(user_id);
+-- Товар лежит в корзине одной позицией (используется при пакетном добавлении товаров),
+-- второй индекс - для пересчета корзин при изменении цены товара
+CREATE UNIQUE INDEX idx_cart_items_cart_id_product_id ON cart_items(cart_id, product_id);
+CREATE INDEX idx_cart_items_product_id ON cart_items(product_id);
 
 -- Индексы для ускорения фильтрации товаров по категории, продавцу, статусу, цене
 CREATE INDEX idx_products_category_id ON products(category_id);
@@ -143,6 +180,29 @@ CREATE INDEX idx_products_status ON products(status);
 CREATE INDEX idx_products_price ON products(price);
 
 -- Индексы для ускорения поиска избранных товаров
-CREATE INDEX idx_favorites_user_id ON favorites(user_id);
 CREATE INDEX idx_favorite_product_favorite_id ON favorite_product(favorite_id);
 CREATE INDEX idx_favorite_product_product_id ON favorite_product(product_id);
+
+-- Индекс для постраничного получения истории заказов пользователя
+CREATE INDEX idx_orders_user_created_at ON orders(user_id, created_at DESC, id DESC);
+
+-- Индекс для ускорения получения и удаления позиций заказа
+CREATE INDEX idx_order_items_order_id ON order_items(order_id);
+
+-- Индекс для поиска неоплаченных заказов с истекшим резервом товаров
+CREATE INDEX idx_orders_reserved_until ON orders(reserved_until) WHERE status = 'PENDING' AND reserved_until IS NOT NULL;
+
+-- События, ожидающие отправки в Kafka (transactional outbox)
+CREATE SEQUENCE outbox_events_id_seq INCREMENT BY 50;
+
+CREATE TABLE outbox_events (
+                               id BIGINT PRIMARY KEY DEFAULT nextval('outbox_events_id_seq'),
+                               topic VARCHAR(255) NOT NULL,
+                               event_key VARCHAR(255),
+                               event_type VARCHAR(255) NOT NULL,
+                               payload TEXT NOT NULL,
+                               created_at TIMESTAMP NOT NULL DEFAULT now(),
+                               attempts INT NOT NULL DEFAULT 0,
+                               last_error TEXT,
+                               failed_at TIMESTAMP
+);
@@ -0,0 +1,11 @@
+package ru.kalimulin;
+
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+/**
+ * Конфигурация для тестов слоя репозиториев и интеграционных тестов сервисов на H2
+ * (модуль service получает ее вместе с test-jar этого модуля).
+ */
+@SpringBootApplication
+public class RepositoryTestApplication {
+}
@@ -0,0 +1,171 @@
+package ru.kalimulin.repositories;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.kalimulin.models.Cart;
+import ru.kalimulin.models.Category;
+import ru.kalimulin.models.Product;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CartRepositoryPostgresTest extends PostgresRepositoryTest {
+    @Autowired
+    private CartRepository cartRepository;
+    @Autowired
+    private RepositoryFixtures fixtures;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void replaceItemsShouldOverwriteItemsAndRecalculateTotals() {
+        Category category = fixtures.createCategory();
+        Product first = fixtures.createProduct(category, "100.00");
+        Product second = fixtures.createProduct(category, "25.50");
+        Cart cart = createCart();
+        Cart emptied = createCart();
+        cartRepository.replaceItems(Map.of(
+                cart.getUser().getId(), Map.of(first.getId(), 5),
+                emptied.getUser().getId(), Map.of(first.getId(), 1)));
+
+        cartRepository.replaceItems(Map.of(
+                cart.getUser().getId(), Map.of(first.getId(), 2, second.getId(), 3),
+                emptied.getUser().getId(), Map.of()));
+
+        assertThat(quantities(cart)).containsExactlyInAnyOrderEntriesOf(Map.of(first.getId(), 2, second.getId(), 3));
+        assertThat(totalPrice(cart)).isEqualByComparingTo("276.50");
+        assertThat(quantities(emptied)).isEmpty();
+        assertThat(totalPrice(emptied)).isEqualByComparingTo(BigDecimal.ZERO);
+    }
+
+    @Test
+    void lockByUserIdInShouldOrderConcurrentCartWrites() throws InterruptedException {
+        Category category = fixtures.createCategory();
+        Product product = fixtures.createProduct(category, "10.00");
+        Cart cart = createCart();
+        Long userId = cart.getUser().getId();
+
+        AtomicBoolean secondLocked = new AtomicBoolean();
+        Thread second = new Thread(() -> transactionTemplate.executeWithoutResult(status -> {
+            cartRepository.lockByUserIdIn(List.of(userId));
+            secondLocked.set(true);
+            cartRepository.replaceItems(Map.of(userId, Map.of(product.getId(), 7)));
+        }));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            assertThat(cartRepository.lockByUserIdIn(List.of(userId, -1L))).containsExactly(cart.getId());
+            second.start();
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            // Вторая запись ждет завершения первой и выполняется после нее
+            assertThat(secondLocked).isFalse();
+            cartRepository.replaceItems(Map.of(userId, Map.of(product.getId(), 3)));
+        });
+        second.join(10_000);
+
+        assertThat(second.isAlive()).isFalse();
+        assertThat(quantities(cart)).containsExactlyEntriesOf(Map.of(product.getId(), 7));
+        assertThat(totalPrice(cart)).isEqualByComparingTo("70.00");
+    }
+
+    @Test
+    void addItemsShouldInsertNewItemsAndIncrementExistingOnes() {
+        Category category = fixtures.createCategory();
+        Product first = fixtures.createProduct(category, "10.00");
+        Product second = fixtures.createProduct(category, "5.00");
+        Cart cart = createCart();
+
+        cartRepository.addItems(cart.getId(), Map.of(first.getId(), 2));
+        cartRepository.addItems(cart.getId(), Map.of(first.getId(), 3, second.getId(), 1));
+
+        assertThat(quantities(cart)).containsExactlyInAnyOrderEntriesOf(Map.of(first.getId(), 5, second.getId(), 1));
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM cart_items WHERE cart_id = ?", Long.class, cart.getId())).isEqualTo(2);
+    }
+
+    @Test
+    void addItemsShouldNotConflictOnConcurrentAddsOfSameProduct() throws InterruptedException {
+        Category category = fixtures.createCategory();
+        Product product = fixtures.createProduct(category, "10.00");
+        Cart cart = createCart();
+
+        int writers = 4;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Throwable> errors = new CopyOnWriteArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < writers; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    transactionTemplate.executeWithoutResult(status ->
+                            cartRepository.addItems(cart.getId(), Map.of(product.getId(), 1)));
+                } catch (Throwable e) {
+                    errors.add(e);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join(10_000);
+        }
+
+        assertThat(errors).isEmpty();
+        assertThat(quantities(cart)).containsExactlyEntriesOf(Map.of(product.getId(), writers));
+    }
+
+    @Test
+    void removeItemShouldKeepTotalConsistentAfterPriceChange() {
+        Category category = fixtures.createCategory();
+        Product repriced = fixtures.createProduct(category, "10.00");
+        Product other = fixtures.createProduct(category, "5.00");
+        Cart cart = createCart();
+        cartRepository.addItems(cart.getId(), Map.of(repriced.getId(), 2, other.getId(), 1));
+        cartRepository.addToTotalPrice(cart.getId(), new BigDecimal("25.00"));
+
+        // Цена изменилась, пересчет корзин по событию еще не выполнен
+        jdbcTemplate.update("UPDATE products SET price = 12.00 WHERE id = ?", repriced.getId());
+
+        assertThat(cartRepository.removeItem(cart.getId(), repriced.getId())).isTrue();
+        assertThat(totalPrice(cart)).isEqualByComparingTo("5.00");
+        // Пересчет по событию изменения цены уже не находит корзину, но стоимость и так верна
+        assertThat(cartRepository.recalculateTotalsByProductId(repriced.getId())).isZero();
+        assertThat(totalPrice(cart)).isEqualByComparingTo("5.00");
+        assertThat(cartRepository.removeItem(cart.getId(), repriced.getId())).isFalse();
+    }
+
+    private Map<Long, Integer> quantities(Cart cart) {
+        return jdbcTemplate.query("SELECT product_id, quantity FROM cart_items WHERE cart_id = ?",
+                rs -> {
+                    Map<Long, Integer> result = new HashMap<>();
+                    while (rs.next()) {
+                        result.put(rs.getLong("product_id"), rs.getInt("quantity"));
+                    }
+                    return result;
+                }, cart.getId());
+    }
+
+    private BigDecimal totalPrice(Cart cart) {
+        return jdbcTemplate.queryForObject("SELECT total_price FROM carts WHERE id = ?", BigDecimal.class, cart.getId());
+    }
+
+    private Cart createCart() {
+        return cartRepository.save(Cart.builder().user(fixtures.createUser()).totalPrice(BigDecimal.ZERO).build());
+    }
+}
@@ -0,0 +1,124 @@
+package ru.kalimulin.repositories;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.kalimulin.models.Cart;
+import ru.kalimulin.models.Category;
+import ru.kalimulin.models.Product;
+import ru.kalimulin.models.User;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import({RepositoryFixtures.class, SqlStatementRecorder.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CartRepositoryTest {
+    @Autowired
+    private CartRepository cartRepository;
+    @Autowired
+    private RepositoryFixtures fixtures;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void replaceItemsShouldOverwriteItemsAndRecalculateTotals() {
+        User owner = fixtures.createUser("seller");
+        Category category = fixtures.createCategory();
+        Product first = fixtures.createProduct(owner, category, "100.00");
+        Product second = fixtures.createProduct(owner, category, "25.50");
+
+        Cart cart = cartRepository.save(Cart.builder().user(fixtures.createUser("buyer")).totalPrice(BigDecimal.ZERO).build());
+        Cart emptied = cartRepository.save(Cart.builder().user(fixtures.createUser("buyer")).totalPrice(BigDecimal.TEN).build());
+        cartRepository.replaceItems(Map.of(emptied.getUser().getId(), Map.of(first.getId(), 1)));
+
+        cartRepository.replaceItems(Map.of(
+                cart.getUser().getId(), Map.of(first.getId(), 2, second.getId(), 3, -1L, 1),
+                emptied.getUser().getId(), Map.of()));
+
+        List<Map<String, Object>> items = jdbcTemplate.queryForList(
+                "SELECT product_id, quantity FROM cart_items WHERE cart_id = ? ORDER BY product_id", cart.getId());
+        assertThat(items).hasSize(2);
+        assertThat(((Number) items.get(0).get("quantity")).intValue()).isEqualTo(2);
+        assertThat(((Number) items.get(1).get("quantity")).intValue()).isEqualTo(3);
+        assertThat(totalPrice(cart)).isEqualByComparingTo("276.50");
+
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM cart_items WHERE cart_id = ?", Long.class, emptied.getId())).isZero();
+        assertThat(totalPrice(emptied)).isEqualByComparingTo(BigDecimal.ZERO);
+    }
+
+    @Test
+    void recalculateTotalsByProductIdShouldRepriceOnlyCartsWithProduct() {
+        User owner = fixtures.createUser("seller");
+        Category category = fixtures.createCategory();
+        Product repriced = fixtures.createProduct(owner, category, "10.00");
+        Product other = fixtures.createProduct(owner, category, "1.00");
+
+        Cart withProduct = cartRepository.save(Cart.builder().user(fixtures.createUser("buyer")).totalPrice(BigDecimal.ZERO).build());
+        Cart withoutProduct = cartRepository.save(Cart.builder().user(fixtures.createUser("buyer")).totalPrice(BigDecimal.ZERO).build());
+        cartRepository.replaceItems(Map.of(
+                withProduct.getUser().getId(), Map.of(repriced.getId(), 2, other.getId(), 1),
+                withoutProduct.getUser().getId(), Map.of(other.getId(), 5)));
+        cartRepository.addToTotalPrice(withoutProduct.getId(), new BigDecimal("0.01"));
+
+        jdbcTemplate.update("UPDATE products SET price = 12.50 WHERE id = ?", repriced.getId());
+
+        assertThat(cartRepository.recalculateTotalsByProductId(repriced.getId())).isEqualTo(1);
+        assertThat(totalPrice(withProduct)).isEqualByComparingTo("26.00");
+        assertThat(totalPrice(withoutProduct)).isEqualByComparingTo("5.01");
+    }
+
+    @Test
+    void removeItemShouldRecalculateTotalFromRemainingItems() {
+        User owner = fixtures.createUser("seller");
+        Category category = fixtures.createCategory();
+        Product repriced = fixtures.createProduct(owner, category, "10.00");
+        Product other = fixtures.createProduct(owner, category, "5.00");
+        Cart cart = cartRepository.save(Cart.builder().user(fixtures.createUser("buyer")).totalPrice(BigDecimal.ZERO).build());
+        cartRepository.replaceItems(Map.of(cart.getUser().getId(), Map.of(repriced.getId(), 2, other.getId(), 1)));
+
+        jdbcTemplate.update("UPDATE products SET price = 12.00 WHERE id = ?", repriced.getId());
+
+        assertThat(cartRepository.removeItem(cart.getId(), repriced.getId())).isTrue();
+        assertThat(totalPrice(cart)).isEqualByComparingTo("5.00");
+        assertThat(cartRepository.removeItem(cart.getId(), repriced.getId())).isFalse();
+    }
+
+    @Test
+    void clearItemsShouldDeleteLargeCartWithSingleStatement() {
+        User owner = fixtures.createUser("seller");
+        Category category = fixtures.createCategory();
+        Map<Long, Integer> items = new HashMap<>();
+        for (int i = 0; i < 500; i++) {
+            items.put(fixtures.createProduct(owner, category, "1.00").getId(), 1);
+        }
+        Cart cart = cartRepository.save(Cart.builder().user(fixtures.createUser("buyer")).totalPrice(BigDecimal.ZERO).build());
+        cartRepository.replaceItems(Map.of(cart.getUser().getId(), items));
+        assertThat(totalPrice(cart)).isEqualByComparingTo("500.00");
+
+        SqlStatementRecorder.clear();
+        assertThat(cartRepository.clearItems(cart.getId())).isEqualTo(500);
+
+        assertThat(SqlStatementRecorder.count("delete")).isEqualTo(1);
+        assertThat(SqlStatementRecorder.count("select")).isZero();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM cart_items WHERE cart_id = ?", Long.class, cart.getId())).isZero();
+        assertThat(totalPrice(cart)).isEqualByComparingTo(BigDecimal.ZERO);
+    }
+
+    private BigDecimal totalPrice(Cart cart) {
+        return jdbcTemplate.queryForObject("SELECT total_price FROM carts WHERE id = ?", BigDecimal.class, cart.getId());
+    }
+}
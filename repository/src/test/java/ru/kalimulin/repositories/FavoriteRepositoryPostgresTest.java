@@ -0,0 +1,86 @@
+package ru.kalimulin.repositories;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.kalimulin.models.Product;
+import ru.kalimulin.models.User;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FavoriteRepositoryPostgresTest extends PostgresRepositoryTest {
+    @Autowired
+    private FavoriteRepository favoriteRepository;
+    @Autowired
+    private RepositoryFixtures fixtures;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void addProductShouldCreateFavoritesAndIgnoreDuplicate() {
+        User buyer = fixtures.createUser();
+        Product product = fixtures.createProduct();
+
+        assertThat(favoriteRepository.addProduct(buyer.getId(), product.getId())).isTrue();
+        // Повторное добавление ничего не меняет
+        assertThat(favoriteRepository.addProduct(buyer.getId(), product.getId())).isFalse();
+
+        assertThat(favoriteCount(buyer)).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM favorites WHERE user_id = ?", Long.class, buyer.getId())).isEqualTo(1);
+    }
+
+    @Test
+    void addProductShouldReturnFalseForMissingProduct() {
+        User buyer = fixtures.createUser();
+
+        assertThat(favoriteRepository.addProduct(buyer.getId(), -1L)).isFalse();
+        assertThat(favoriteCount(buyer)).isZero();
+    }
+
+    @Test
+    void concurrentDuplicateAddsShouldInsertProductOnce() throws InterruptedException {
+        User buyer = fixtures.createUser();
+        Product product = fixtures.createProduct();
+
+        int writers = 4;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Boolean> results = new CopyOnWriteArrayList<>();
+        List<Throwable> errors = new CopyOnWriteArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < writers; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    results.add(transactionTemplate.execute(status ->
+                            favoriteRepository.addProduct(buyer.getId(), product.getId())));
+                } catch (Throwable e) {
+                    errors.add(e);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join(10_000);
+        }
+
+        assertThat(errors).isEmpty();
+        assertThat(results).containsOnlyOnce(true).hasSize(writers);
+        assertThat(favoriteCount(buyer)).isEqualTo(1);
+    }
+
+    private long favoriteCount(User user) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM favorite_product fp " +
+                "JOIN favorites f ON f.id = fp.favorite_id WHERE f.user_id = ?", Long.class, user.getId());
+    }
+}
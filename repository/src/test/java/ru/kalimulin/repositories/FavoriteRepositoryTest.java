@@ -0,0 +1,108 @@
+package ru.kalimulin.repositories;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.kalimulin.models.Category;
+import ru.kalimulin.models.Favorite;
+import ru.kalimulin.models.Product;
+import ru.kalimulin.models.User;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import(RepositoryFixtures.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class FavoriteRepositoryTest {
+    @Autowired
+    private FavoriteRepository favoriteRepository;
+    @Autowired
+    private RepositoryFixtures fixtures;
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    void existsShouldCheckOnlyUsersOwnPairs() {
+        User owner = fixtures.createUser("seller");
+        Category category = fixtures.createCategory();
+        Product liked = fixtures.createProduct(owner, category, "100.00");
+        Product other = fixtures.createProduct(owner, category, "100.00");
+
+        Favorite favorite = createFavorite(fixtures.createUser("buyer"), List.of(liked));
+        Favorite stranger = createFavorite(fixtures.createUser("buyer"), List.of(other));
+
+        Long userId = favorite.getUser().getId();
+        assertThat(favoriteRepository.existsByUserIdAndProductId(userId, liked.getId())).isTrue();
+        assertThat(favoriteRepository.existsByUserIdAndProductId(userId, other.getId())).isFalse();
+        assertThat(favoriteRepository.existsByUserIdAndProductId(stranger.getUser().getId(), other.getId())).isTrue();
+    }
+
+    @Test
+    void pagesShouldWalkProductIdsDescendingWithoutGapsOrDuplicates() {
+        User owner = fixtures.createUser("seller");
+        Category category = fixtures.createCategory();
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            products.add(fixtures.createProduct(owner, category, "100.00"));
+        }
+        Favorite favorite = createFavorite(fixtures.createUser("buyer"), products);
+        createFavorite(fixtures.createUser("buyer"), List.of(products.get(0)));
+        Long userId = favorite.getUser().getId();
+
+        List<Long> first = favoriteRepository.findFirstProductIdsPage(userId, Limit.of(2));
+        List<Long> second = favoriteRepository.findProductIdsPageAfter(userId, first.get(1), Limit.of(2));
+        List<Long> third = favoriteRepository.findProductIdsPageAfter(userId, second.get(1), Limit.of(2));
+
+        List<Long> walked = new ArrayList<>(first);
+        walked.addAll(second);
+        walked.addAll(third);
+        assertThat(walked).containsExactlyElementsOf(products.stream()
+                .map(Product::getId)
+                .sorted((a, b) -> Long.compare(b, a))
+                .toList());
+    }
+
+    @Test
+    void deleteProductShouldRemoveOnlyRequestedPair() {
+        User owner = fixtures.createUser("seller");
+        Category category = fixtures.createCategory();
+        Product removed = fixtures.createProduct(owner, category, "100.00");
+        Product kept = fixtures.createProduct(owner, category, "100.00");
+        Long userId = createFavorite(fixtures.createUser("buyer"), List.of(removed, kept)).getUser().getId();
+
+        assertThat(favoriteRepository.deleteProduct(userId, removed.getId())).isEqualTo(1);
+        assertThat(favoriteRepository.deleteProduct(userId, removed.getId())).isZero();
+
+        assertThat(favoriteRepository.existsByUserIdAndProductId(userId, removed.getId())).isFalse();
+        assertThat(favoriteRepository.existsByUserIdAndProductId(userId, kept.getId())).isTrue();
+    }
+
+    @Test
+    void findWithDetailsByIdInShouldLoadOwnerAndCategory() {
+        User owner = fixtures.createUser("seller");
+        Category category = fixtures.createCategory();
+        Product product = fixtures.createProduct(owner, category, "100.00");
+
+        List<Product> found = productRepository.findWithDetailsByIdIn(List.of(product.getId(), -1L));
+
+        assertThat(found).hasSize(1);
+        assertThat(found.get(0).getOwner().getEmail()).isEqualTo(owner.getEmail());
+        assertThat(found.get(0).getCategory().getName()).isEqualTo(category.getName());
+    }
+
+    private Favorite createFavorite(User user, List<Product> products) {
+        return favoriteRepository.save(Favorite.builder()
+                .user(user)
+                .products(new ArrayList<>(products))
+                .build());
+    }
+}
@@ -0,0 +1,16 @@
+package ru.kalimulin.repositories;
+
+/**
+ * Заглушки функций PostgreSQL для тестов на H2 (см. h2-functions.sql).
+ */
+public final class H2Functions {
+
+    private H2Functions() {
+    }
+
+    /**
+     * В H2 блокировка записи в журнал не нужна: снимки балансов проверяются на PostgreSQL.
+     */
+    public static void advisoryXactLockShared(long key) {
+    }
+}
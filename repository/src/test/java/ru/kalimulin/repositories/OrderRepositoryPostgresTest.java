@@ -0,0 +1,147 @@
+package ru.kalimulin.repositories;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.kalimulin.enums.OrderStatus;
+import ru.kalimulin.models.*;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderRepositoryPostgresTest extends PostgresRepositoryTest {
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private RepositoryFixtures fixtures;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void claimExpiredReservationsShouldReleaseOnlyExpiredPendingOrders() {
+        LocalDateTime now = LocalDateTime.now();
+        User buyer = fixtures.createUser();
+        Product product = fixtures.createProduct();
+        Order expired = saveOrder(buyer, product, OrderStatus.PENDING, now.minusMinutes(1));
+        Order active = saveOrder(buyer, product, OrderStatus.PENDING, now.plusMinutes(10));
+        Order paid = saveOrder(buyer, product, OrderStatus.PAID, now.minusMinutes(1));
+
+        List<Long> claimed = orderRepository.claimExpiredReservations(now, 10);
+
+        assertThat(claimed).contains(expired.getId()).doesNotContain(active.getId(), paid.getId());
+        assertThat(reservedUntil(expired.getId())).isNull();
+        assertThat(reservedUntil(active.getId())).isNotNull();
+        // Резерв снимается один раз: повторный вызов заказ не возвращает
+        assertThat(orderRepository.claimExpiredReservations(now, 10)).doesNotContain(expired.getId());
+    }
+
+    @Test
+    void claimExpiredReservationsShouldSkipOrdersLockedByAnotherTransaction() {
+        LocalDateTime now = LocalDateTime.now();
+        User buyer = fixtures.createUser();
+        Product product = fixtures.createProduct();
+        Order locked = saveOrder(buyer, product, OrderStatus.PENDING, now.minusMinutes(2));
+        Order free = saveOrder(buyer, product, OrderStatus.PENDING, now.minusMinutes(1));
+
+        List<Long> claimed = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.queryForList("SELECT id FROM orders WHERE id = ? FOR UPDATE", Long.class, locked.getId());
+            // Второе соединение не ждет блокировку, а пропускает строку
+            claimed.addAll(inNewThread(() -> orderRepository.claimExpiredReservations(now, 10)));
+        });
+
+        assertThat(claimed).contains(free.getId()).doesNotContain(locked.getId());
+        assertThat(reservedUntil(locked.getId())).isNotNull();
+    }
+
+    @Test
+    void lockAbandonedOrdersShouldReturnOldUnreservedPendingOrdersInIdOrder() {
+        LocalDateTime now = LocalDateTime.now();
+        User buyer = fixtures.createUser();
+        Product product = fixtures.createProduct();
+        Order first = saveOrder(buyer, product, OrderStatus.PENDING, null);
+        Order reserved = saveOrder(buyer, product, OrderStatus.PENDING, now.plusMinutes(10));
+        Order paid = saveOrder(buyer, product, OrderStatus.PAID, null);
+        Order second = saveOrder(buyer, product, OrderStatus.PENDING, null);
+        Order third = saveOrder(buyer, product, OrderStatus.PENDING, null);
+        Order recent = saveOrder(buyer, product, OrderStatus.PENDING, null);
+        makeOld(first, reserved, paid, second, third);
+
+        List<Long> firstBatch = transactionTemplate.execute(status ->
+                orderRepository.lockAbandonedOrders(now.minusHours(1), first.getId() - 1, 2));
+        List<Long> secondBatch = transactionTemplate.execute(status ->
+                orderRepository.lockAbandonedOrders(now.minusHours(1), firstBatch.get(1), 2));
+
+        assertThat(firstBatch).containsExactly(first.getId(), second.getId());
+        assertThat(secondBatch).containsExactly(third.getId());
+        assertThat(secondBatch).doesNotContain(reserved.getId(), paid.getId(), recent.getId());
+    }
+
+    @Test
+    void lockAbandonedOrdersShouldSkipOrdersLockedByAnotherTransaction() {
+        LocalDateTime now = LocalDateTime.now();
+        User buyer = fixtures.createUser();
+        Product product = fixtures.createProduct();
+        Order locked = saveOrder(buyer, product, OrderStatus.PENDING, null);
+        Order free = saveOrder(buyer, product, OrderStatus.PENDING, null);
+        makeOld(locked, free);
+
+        List<Long> batch = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.queryForList("SELECT id FROM orders WHERE id = ? FOR UPDATE", Long.class, locked.getId());
+            batch.addAll(inNewThread(() -> transactionTemplate.execute(inner ->
+                    orderRepository.lockAbandonedOrders(now.minusHours(1), locked.getId() - 1, 10))));
+        });
+
+        assertThat(batch).containsExactly(free.getId());
+    }
+
+    private void makeOld(Order... orders) {
+        for (Order order : orders) {
+            jdbcTemplate.update("UPDATE orders SET created_at = ? WHERE id = ?",
+                    Timestamp.valueOf(LocalDateTime.now().minusHours(2)), order.getId());
+        }
+    }
+
+    private List<Long> inNewThread(Supplier<List<Long>> call) {
+        List<Long> result = new ArrayList<>();
+        Thread thread = new Thread(() -> result.addAll(call.get()));
+        thread.start();
+        try {
+            thread.join(10_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        assertThat(thread.isAlive()).isFalse();
+        return result;
+    }
+
+    private Timestamp reservedUntil(Long orderId) {
+        return jdbcTemplate.queryForObject("SELECT reserved_until FROM orders WHERE id = ?", Timestamp.class, orderId);
+    }
+
+    private Order saveOrder(User buyer, Product product, OrderStatus status, LocalDateTime reservedUntil) {
+        Order order = Order.builder()
+                .user(buyer)
+                .status(status)
+                .totalPrice(product.getPrice())
+                .reservedUntil(reservedUntil)
+                .items(new ArrayList<>())
+                .build();
+        order.getItems().add(OrderItem.builder()
+                .order(order)
+                .product(product)
+                .quantity(1)
+                .price(product.getPrice())
+                .build());
+        return orderRepository.save(order);
+    }
+}
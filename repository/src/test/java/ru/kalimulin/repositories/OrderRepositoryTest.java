@@ -0,0 +1,104 @@
+package ru.kalimulin.repositories;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.kalimulin.enums.OrderStatus;
+import ru.kalimulin.models.*;
+import ru.kalimulin.projections.OrderExportRow;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import(RepositoryFixtures.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderRepositoryTest {
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private RepositoryFixtures fixtures;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void keysetPagesShouldCoverAllOrdersWithoutDuplicates() {
+        User buyer = fixtures.createUser();
+        Product product = fixtures.createProduct();
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(orderRepository.save(createOrder(buyer, product)).getId());
+        }
+        // Одинаковая дата создания у трех заказов проверяет сортировку по id внутри одной даты
+        LocalDateTime sameTime = LocalDateTime.of(2025, 1, 1, 12, 0);
+        jdbcTemplate.update("UPDATE orders SET created_at = ? WHERE id IN (?, ?, ?)",
+                Timestamp.valueOf(sameTime), ids.get(0), ids.get(1), ids.get(2));
+
+        List<Order> firstPage = orderRepository.findFirstPageByUserId(buyer.getId(), Limit.of(2));
+        Order last = firstPage.get(1);
+        List<Order> secondPage = orderRepository.findPageByUserIdAfter(buyer.getId(), last.getCreatedAt(), last.getId(), Limit.of(2));
+        last = secondPage.get(1);
+        List<Order> thirdPage = orderRepository.findPageByUserIdAfter(buyer.getId(), last.getCreatedAt(), last.getId(), Limit.of(2));
+
+        List<Long> paged = new ArrayList<>();
+        firstPage.forEach(order -> paged.add(order.getId()));
+        secondPage.forEach(order -> paged.add(order.getId()));
+        thirdPage.forEach(order -> paged.add(order.getId()));
+
+        assertThat(paged).containsExactly(ids.get(4), ids.get(3), ids.get(2), ids.get(1), ids.get(0));
+    }
+
+    @Test
+    void findWithItemsByIdInShouldFetchItemsAndProducts() {
+        User buyer = fixtures.createUser();
+        Order order = orderRepository.save(createOrder(buyer, fixtures.createProduct()));
+
+        List<Order> orders = orderRepository.findWithItemsByIdIn(List.of(order.getId()));
+
+        assertThat(orders).hasSize(1);
+        assertThat(orders.get(0).getItems()).hasSize(1);
+        assertThat(orders.get(0).getItems().get(0).getProduct().getTitle()).isEqualTo("Товар");
+    }
+
+    @Test
+    void streamExportRowsShouldReturnEveryItemNewestOrderFirst() {
+        User buyer = fixtures.createUser();
+        Product product = fixtures.createProduct();
+        Order older = orderRepository.save(createOrder(buyer, product));
+        Order newer = orderRepository.save(createOrder(buyer, product));
+        orderRepository.save(createOrder(fixtures.createUser(), product));
+
+        List<OrderExportRow> rows = new ArrayList<>();
+        orderRepository.streamExportRows(buyer.getId(), 1, rows::add);
+
+        assertThat(rows).extracting(OrderExportRow::orderId).containsExactly(newer.getId(), older.getId());
+        assertThat(rows).extracting(OrderExportRow::productTitle).containsOnly("Товар");
+    }
+
+    private Order createOrder(User buyer, Product product) {
+        Order order = Order.builder()
+                .user(buyer)
+                .status(OrderStatus.PENDING)
+                .totalPrice(product.getPrice())
+                .items(new ArrayList<>())
+                .build();
+        order.getItems().add(OrderItem.builder()
+                .order(order)
+                .product(product)
+                .quantity(1)
+                .price(product.getPrice())
+                .build());
+        return order;
+    }
+}
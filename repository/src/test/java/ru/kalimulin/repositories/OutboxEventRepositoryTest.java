@@ -0,0 +1,50 @@
+package ru.kalimulin.repositories;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.kalimulin.models.OutboxEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.jdbc.batch_size=50")
+@Import(SqlStatementRecorder.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OutboxEventRepositoryTest {
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Test
+    void eventsOfOneTransactionShouldBeInsertedInOneBatch() {
+        // Первое обращение генератора инициализирует пул id, его в подсчет не включаем
+        outboxEventRepository.saveAll(createEvents(1));
+
+        SqlStatementRecorder.clear();
+        outboxEventRepository.saveAll(createEvents(30));
+
+        // С IDENTITY Hibernate выполнял бы каждую вставку сразу, чтобы получить id
+        assertThat(SqlStatementRecorder.count("insert")).isEqualTo(1);
+        assertThat(SqlStatementRecorder.count("select next value")).isLessThanOrEqualTo(1);
+    }
+
+    private List<OutboxEvent> createEvents(int count) {
+        List<OutboxEvent> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            events.add(OutboxEvent.builder()
+                    .topic("email-notifications")
+                    .eventKey("seller" + i + "@example.com")
+                    .eventType("ru.kalimulin.dto.kafkaEventDTO.EmailNotificationEvent")
+                    .payload("{}")
+                    .build());
+        }
+        return events;
+    }
+}
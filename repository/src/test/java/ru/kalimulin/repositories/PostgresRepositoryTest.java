@@ -0,0 +1,74 @@
+package ru.kalimulin.repositories;
+
+import org.junit.jupiter.api.extension.ConditionEvaluationResult;
+import org.junit.jupiter.api.extension.ExecutionCondition;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * Базовый класс тестов нативных запросов, которые выполняются только на PostgreSQL
+ * ({@code RETURNING}, {@code FOR UPDATE SKIP LOCKED}, {@code ON CONFLICT}).
+ * <p>
+ * Схема создается из {@code tables.sql}, то есть проверяется и сама боевая схема.
+ * База берется из переменной окружения {@code SHOP_TEST_POSTGRES_URL}
+ * (логин и пароль - {@code SHOP_TEST_POSTGRES_USER} и {@code SHOP_TEST_POSTGRES_PASSWORD}),
+ * иначе запускается контейнер Testcontainers. Без Docker и без внешней базы тесты пропускаются.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.sql.init.mode=always",
+        "spring.sql.init.schema-locations=classpath:postgres-reset.sql,classpath:tables.sql"
+})
+@Import(RepositoryFixtures.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@ExtendWith(PostgresRepositoryTest.PostgresAvailableCondition.class)
+abstract class PostgresRepositoryTest {
+    private static final String URL_ENV = "SHOP_TEST_POSTGRES_URL";
+
+    private static PostgreSQLContainer<?> container;
+
+    // Расширения, в отличие от @EnabledIf, наследуются тестовыми классами
+    static class PostgresAvailableCondition implements ExecutionCondition {
+        @Override
+        public ConditionEvaluationResult evaluateExecutionCondition(ExtensionContext context) {
+            if (System.getenv(URL_ENV) != null || DockerClientFactory.instance().isDockerAvailable()) {
+                return ConditionEvaluationResult.enabled("PostgreSQL доступен");
+            }
+            return ConditionEvaluationResult.disabled("Нет ни " + URL_ENV + ", ни Docker для запуска PostgreSQL");
+        }
+    }
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        String url = System.getenv(URL_ENV);
+        if (url != null) {
+            registry.add("spring.datasource.url", () -> url);
+            registry.add("spring.datasource.username", () -> System.getenv().getOrDefault("SHOP_TEST_POSTGRES_USER", "postgres"));
+            registry.add("spring.datasource.password", () -> System.getenv().getOrDefault("SHOP_TEST_POSTGRES_PASSWORD", ""));
+            return;
+        }
+        PostgreSQLContainer<?> postgres = startContainer();
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    // Один контейнер на все тестовые классы, его останавливает Testcontainers при завершении JVM
+    private static synchronized PostgreSQLContainer<?> startContainer() {
+        if (container == null) {
+            container = new PostgreSQLContainer<>("postgres:16-alpine");
+            container.start();
+        }
+        return container;
+    }
+}
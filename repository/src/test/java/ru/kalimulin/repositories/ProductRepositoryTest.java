@@ -0,0 +1,137 @@
+package ru.kalimulin.repositories;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.kalimulin.enums.ProductStatus;
+import ru.kalimulin.models.Category;
+import ru.kalimulin.models.Product;
+import ru.kalimulin.models.User;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductRepositoryTest {
+    private static final int INITIAL_STOCKS = 1000;
+    private static final int DECREMENTS = 3000;
+    private static final int THREADS = 32;
+
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Test
+    void decreaseStocksShouldNotOversellUnderConcurrency() throws Exception {
+        Product product = productRepository.save(createProduct(INITIAL_STOCKS));
+
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < DECREMENTS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                if (productRepository.decreaseStocks(product.getId(), 1) == 1) {
+                    sold.incrementAndGet();
+                } else {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        Product result = productRepository.findById(product.getId()).orElseThrow();
+
+        assertThat(sold.get()).isEqualTo(INITIAL_STOCKS);
+        assertThat(rejected.get()).isEqualTo(DECREMENTS - INITIAL_STOCKS);
+        assertThat(result.getStocks()).isZero();
+        assertThat(result.getSalesCount()).isEqualTo(INITIAL_STOCKS);
+    }
+
+    @Test
+    void decreaseStocksShouldRejectWhenNotEnoughStocks() {
+        Product product = productRepository.save(createProduct(2));
+
+        assertThat(productRepository.decreaseStocks(product.getId(), 3)).isZero();
+        assertThat(productRepository.decreaseStocks(product.getId(), 2)).isEqualTo(1);
+        assertThat(productRepository.findById(product.getId()).orElseThrow().getStocks()).isZero();
+    }
+
+    @Test
+    void decreaseStocksBatchShouldApplyAllDecrementsAndReturnRejected() {
+        Product first = productRepository.save(createProduct(10));
+        Product second = productRepository.save(createProduct(1));
+
+        Set<Long> rejected = productRepository.decreaseStocksBatch(Map.of(
+                first.getId(), 7,
+                second.getId(), 2,
+                -1L, 1));
+
+        assertThat(rejected).containsExactlyInAnyOrder(second.getId(), -1L);
+        assertThat(productRepository.findById(first.getId()).orElseThrow().getStocks()).isEqualTo(3);
+        assertThat(productRepository.findById(first.getId()).orElseThrow().getSalesCount()).isEqualTo(7);
+        assertThat(productRepository.findById(second.getId()).orElseThrow().getStocks()).isEqualTo(1);
+    }
+
+    @Test
+    void reservedStocksShouldBeReturnedOrCountedAsSales() {
+        Product product = productRepository.save(createProduct(5));
+
+        assertThat(productRepository.reserveStocksBatch(Map.of(product.getId(), 6))).containsExactly(product.getId());
+        assertThat(productRepository.reserveStocksBatch(Map.of(product.getId(), 3))).isEmpty();
+        assertThat(productRepository.findById(product.getId()).orElseThrow().getStocks()).isEqualTo(2);
+        assertThat(productRepository.findById(product.getId()).orElseThrow().getSalesCount()).isZero();
+
+        productRepository.returnStocksBatch(Map.of(product.getId(), 1));
+        productRepository.increaseSalesCountBatch(Map.of(product.getId(), 2));
+
+        Product result = productRepository.findById(product.getId()).orElseThrow();
+        assertThat(result.getStocks()).isEqualTo(3);
+        assertThat(result.getSalesCount()).isEqualTo(2);
+    }
+
+    private Product createProduct(int stocks) {
+        String suffix = String.valueOf(System.nanoTime());
+        User owner = userRepository.save(User.builder()
+                .login("seller" + suffix)
+                .email("seller" + suffix + "@example.com")
+                .password("password")
+                .build());
+        Category category = categoryRepository.save(Category.builder().name("Категория " + suffix).build());
+
+        return Product.builder()
+                .title("Товар")
+                .description("Описание")
+                .stocks(stocks)
+                .price(new BigDecimal("100.00"))
+                .status(ProductStatus.AVAILABLE)
+                .salesCount(0)
+                .category(category)
+                .owner(owner)
+                .build();
+    }
+}
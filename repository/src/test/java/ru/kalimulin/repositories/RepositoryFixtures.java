@@ -0,0 +1,71 @@
+package ru.kalimulin.repositories;
+
+import org.springframework.boot.test.context.TestComponent;
+import ru.kalimulin.enums.ProductStatus;
+import ru.kalimulin.models.Category;
+import ru.kalimulin.models.Product;
+import ru.kalimulin.models.User;
+
+import java.math.BigDecimal;
+
+/**
+ * Общие тестовые данные репозиториев: сохраненные пользователи, категории и товары с уникальными именами.
+ * Подключается к тестовому классу через {@code @Import(RepositoryFixtures.class)}.
+ */
+@TestComponent
+class RepositoryFixtures {
+    private final UserRepository userRepository;
+    private final CategoryRepository categoryRepository;
+    private final ProductRepository productRepository;
+
+    RepositoryFixtures(UserRepository userRepository, CategoryRepository categoryRepository,
+                       ProductRepository productRepository) {
+        this.userRepository = userRepository;
+        this.categoryRepository = categoryRepository;
+        this.productRepository = productRepository;
+    }
+
+    User createUser() {
+        return createUser("user");
+    }
+
+    User createUser(String prefix) {
+        String suffix = String.valueOf(System.nanoTime());
+        return userRepository.save(User.builder()
+                .login(prefix + suffix)
+                .email(prefix + suffix + "@example.com")
+                .password("password")
+                .build());
+    }
+
+    Category createCategory() {
+        return categoryRepository.save(Category.builder().name("Категория " + System.nanoTime()).build());
+    }
+
+    /**
+     * Создает товар по цене 100.00 в новой категории у нового продавца.
+     */
+    Product createProduct() {
+        return createProduct(createCategory(), "100.00");
+    }
+
+    /**
+     * Создает товар у нового продавца.
+     */
+    Product createProduct(Category category, String price) {
+        return createProduct(createUser("seller"), category, price);
+    }
+
+    Product createProduct(User owner, Category category, String price) {
+        return productRepository.save(Product.builder()
+                .title("Товар")
+                .description("Описание")
+                .stocks(10)
+                .price(new BigDecimal(price))
+                .status(ProductStatus.AVAILABLE)
+                .salesCount(0)
+                .category(category)
+                .owner(owner)
+                .build());
+    }
+}
@@ -0,0 +1,66 @@
+package ru.kalimulin.repositories;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Запоминает SQL, который приложение отправляет в базу, чтобы тесты могли проверить количество запросов.
+ * Подключается к тестовому классу через {@code @Import(SqlStatementRecorder.class)}.
+ * <p>
+ * В отличие от {@code StatementInspector} Hibernate, оборачивает {@link DataSource} и поэтому видит
+ * и запросы JdbcTemplate. JDBC-батч учитывается как один запрос.
+ */
+public class SqlStatementRecorder implements BeanPostProcessor {
+    private static final Set<String> STATEMENT_METHODS = Set.of("prepareStatement", "prepareCall");
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource) {
+            return new DelegatingDataSource(dataSource) {
+                @Override
+                public Connection getConnection() throws SQLException {
+                    return recording(super.getConnection());
+                }
+            };
+        }
+        return bean;
+    }
+
+    public static void clear() {
+        STATEMENTS.clear();
+    }
+
+    public static List<String> statements() {
+        return List.copyOf(STATEMENTS);
+    }
+
+    public static long count(String prefix) {
+        return STATEMENTS.stream()
+                .filter(sql -> sql.trim().toLowerCase().startsWith(prefix))
+                .count();
+    }
+
+    private static Connection recording(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(SqlStatementRecorder.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    if (STATEMENT_METHODS.contains(method.getName())) {
+                        STATEMENTS.add((String) args[0]);
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+}
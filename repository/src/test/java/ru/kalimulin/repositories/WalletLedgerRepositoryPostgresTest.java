@@ -0,0 +1,153 @@
+package ru.kalimulin.repositories;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.kalimulin.enums.LedgerOperation;
+import ru.kalimulin.models.User;
+import ru.kalimulin.models.Wallet;
+import ru.kalimulin.models.WalletBalanceSnapshot;
+import ru.kalimulin.models.WalletLedgerEntry;
+import ru.kalimulin.projections.LedgerWatermark;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WalletLedgerRepositoryPostgresTest extends PostgresRepositoryTest {
+    @Autowired
+    private WalletLedgerRepository walletLedgerRepository;
+    @Autowired
+    private WalletBalanceSnapshotRepository walletBalanceSnapshotRepository;
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void snapshotShouldKeepBalanceAndCountOnlyLaterEntries() {
+        Wallet wallet = walletRepository.save(createWallet("100.00"));
+        walletLedgerRepository.appendBatch(List.of(
+                entry(wallet.getId(), "50.00", LedgerOperation.DEPOSIT),
+                entry(wallet.getId(), "-30.00", LedgerOperation.PURCHASE)));
+
+        LedgerWatermark watermark = walletLedgerRepository.captureWatermark().orElseThrow();
+        assertThat(walletLedgerRepository.isWatermarkCommitted(watermark)).isTrue();
+        assertThat(walletLedgerRepository.snapshotBalances(watermark.lastEntryId())).isPositive();
+        walletLedgerRepository.appendBatch(List.of(entry(wallet.getId(), "5.00", LedgerOperation.DEPOSIT)));
+
+        WalletBalanceSnapshot snapshot = walletBalanceSnapshotRepository.findById(wallet.getId()).orElseThrow();
+        assertThat(snapshot.getBalance()).isEqualByComparingTo("120.00");
+        assertThat(snapshot.getLastEntryId()).isEqualTo(watermark.lastEntryId());
+        assertThat(walletLedgerRepository.currentBalance(wallet.getId())).hasValueSatisfying(
+                balance -> assertThat(balance).isEqualByComparingTo("125.00"));
+    }
+
+    @Test
+    void watermarkShouldWaitForEntriesCommittedAfterLaterOnes() throws Exception {
+        Wallet wallet = walletRepository.save(createWallet("0.00"));
+        CountDownLatch appended = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // Долгая транзакция получает меньший id, но фиксируется после записи с большим id
+        CompletableFuture<Void> slowWriter = CompletableFuture.runAsync(() ->
+                transactionTemplate.executeWithoutResult(status -> {
+                    walletLedgerRepository.appendBatch(List.of(entry(wallet.getId(), "10.00", LedgerOperation.DEPOSIT)));
+                    appended.countDown();
+                    await(release);
+                }));
+        await(appended);
+        walletLedgerRepository.appendBatch(List.of(entry(wallet.getId(), "1.00", LedgerOperation.DEPOSIT)));
+
+        LedgerWatermark watermark = walletLedgerRepository.captureWatermark().orElseThrow();
+        assertThat(watermark.pendingWriters()).isNotEmpty();
+        assertThat(walletLedgerRepository.isWatermarkCommitted(watermark)).isFalse();
+
+        release.countDown();
+        slowWriter.get(10, TimeUnit.SECONDS);
+
+        assertThat(walletLedgerRepository.isWatermarkCommitted(watermark)).isTrue();
+        walletLedgerRepository.snapshotBalances(watermark.lastEntryId());
+        assertThat(walletBalanceSnapshotRepository.findById(wallet.getId()).orElseThrow().getBalance())
+                .isEqualByComparingTo("11.00");
+        assertThat(walletLedgerRepository.currentBalance(wallet.getId())).hasValueSatisfying(
+                balance -> assertThat(balance).isEqualByComparingTo("11.00"));
+    }
+
+    @Test
+    void creditShouldNotWaitForDebitLockOnWallet() {
+        Wallet wallet = walletRepository.save(createWallet("100.00"));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            assertThat(walletRepository.lockByIdIn(List.of(wallet.getId()))).containsExactly(wallet.getId());
+            // Проверка внешнего ключа журнала не ждет блокировки списания
+            CompletableFuture<Void> credit = CompletableFuture.runAsync(() -> walletLedgerRepository.appendBatch(
+                    List.of(entry(wallet.getId(), "10.00", LedgerOperation.SALE))));
+            assertThat(credit).succeedsWithin(5, TimeUnit.SECONDS);
+        });
+
+        assertThat(walletLedgerRepository.currentBalance(wallet.getId())).hasValueSatisfying(
+                balance -> assertThat(balance).isEqualByComparingTo("110.00"));
+    }
+
+    @Test
+    void deletingUserShouldRemoveLedgerEntriesByCascade() {
+        Wallet wallet = walletRepository.save(createWallet("0.00"));
+        Wallet other = walletRepository.save(createWallet("0.00"));
+        walletLedgerRepository.appendBatch(List.of(
+                entry(wallet.getId(), "10.00", LedgerOperation.DEPOSIT),
+                entry(other.getId(), "7.00", LedgerOperation.DEPOSIT)));
+
+        userRepository.deleteById(wallet.getUser().getId());
+
+        assertThat(ledgerCount(wallet)).isZero();
+        assertThat(ledgerCount(other)).isEqualTo(1);
+    }
+
+    private long ledgerCount(Wallet wallet) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM wallet_ledger WHERE wallet_id = ?", Long.class, wallet.getId());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private WalletLedgerEntry entry(Long walletId, String amount, LedgerOperation operation) {
+        return WalletLedgerEntry.builder()
+                .walletId(walletId)
+                .amount(new BigDecimal(amount))
+                .operation(operation)
+                .build();
+    }
+
+    private Wallet createWallet(String balance) {
+        String suffix = String.valueOf(System.nanoTime());
+        // Пользователь сохраняется каскадом вместе с кошельком
+        User user = User.builder()
+                .login("user" + suffix)
+                .email("user" + suffix + "@example.com")
+                .password("password")
+                .build();
+
+        return Wallet.builder()
+                .user(user)
+                .balance(new BigDecimal(balance))
+                .pin("pin")
+                .walletNumber(suffix.substring(suffix.length() - 12))
+                .build();
+    }
+}
@@ -0,0 +1,149 @@
+package ru.kalimulin.repositories;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.kalimulin.enums.LedgerOperation;
+import ru.kalimulin.models.User;
+import ru.kalimulin.models.Wallet;
+import ru.kalimulin.models.WalletBalanceSnapshot;
+import ru.kalimulin.models.WalletLedgerEntry;
+import ru.kalimulin.projections.WalletStatementRow;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class WalletLedgerRepositoryTest {
+    @Autowired
+    private WalletLedgerRepository walletLedgerRepository;
+    @Autowired
+    private WalletBalanceSnapshotRepository walletBalanceSnapshotRepository;
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Test
+    void currentBalanceShouldAddLedgerEntriesToOpeningBalance() {
+        Wallet wallet = walletRepository.save(createWallet("100.00"));
+
+        walletLedgerRepository.appendBatch(List.of(
+                entry(wallet.getId(), "50.00", LedgerOperation.DEPOSIT),
+                entry(wallet.getId(), "-30.50", LedgerOperation.PURCHASE)));
+
+        assertThat(walletLedgerRepository.currentBalance(wallet.getId())).hasValueSatisfying(
+                balance -> assertThat(balance).isEqualByComparingTo("119.50"));
+        assertThat(walletLedgerRepository.currentBalance(-1L)).isEmpty();
+    }
+
+    @Test
+    void currentBalancesShouldReturnBalancesOfExistingWallets() {
+        Wallet first = walletRepository.save(createWallet("10.00"));
+        Wallet second = walletRepository.save(createWallet("20.00"));
+        walletLedgerRepository.appendBatch(List.of(entry(second.getId(), "-5.00", LedgerOperation.CHARGE)));
+
+        Map<Long, BigDecimal> balances = walletLedgerRepository.currentBalances(List.of(first.getId(), second.getId(), -1L));
+
+        assertThat(balances).containsOnlyKeys(first.getId(), second.getId());
+        assertThat(balances.get(first.getId())).isEqualByComparingTo("10.00");
+        assertThat(balances.get(second.getId())).isEqualByComparingTo("15.00");
+    }
+
+    @Test
+    void currentBalanceShouldCountOnlyEntriesAfterSnapshot() {
+        Wallet wallet = walletRepository.save(createWallet("0.00"));
+        walletLedgerRepository.appendBatch(List.of(entry(wallet.getId(), "70.00", LedgerOperation.DEPOSIT)));
+        Long lastEntryId = walletLedgerRepository.findAll().stream()
+                .filter(entry -> entry.getWalletId().equals(wallet.getId()))
+                .mapToLong(WalletLedgerEntry::getId)
+                .max()
+                .orElseThrow();
+
+        walletBalanceSnapshotRepository.save(WalletBalanceSnapshot.builder()
+                .walletId(wallet.getId())
+                .balance(new BigDecimal("70.00"))
+                .lastEntryId(lastEntryId)
+                .createdAt(LocalDateTime.now())
+                .build());
+        walletLedgerRepository.appendBatch(List.of(entry(wallet.getId(), "-20.00", LedgerOperation.WITHDRAWAL)));
+
+        assertThat(walletLedgerRepository.currentBalance(wallet.getId())).hasValueSatisfying(
+                balance -> assertThat(balance).isEqualByComparingTo("50.00"));
+    }
+
+    @Test
+    void appendByUserIdsShouldCreditAllWalletsAndReturnMissingUsers() {
+        Wallet first = walletRepository.save(createWallet("100.00"));
+        Wallet second = walletRepository.save(createWallet("0.00"));
+
+        Set<Long> missing = walletLedgerRepository.appendByUserIds(Map.of(
+                first.getUser().getId(), new BigDecimal("50.00"),
+                second.getUser().getId(), new BigDecimal("25.50"),
+                -1L, BigDecimal.TEN), LedgerOperation.SALE);
+
+        assertThat(missing).containsExactly(-1L);
+        assertThat(walletLedgerRepository.currentBalance(first.getId())).hasValueSatisfying(
+                balance -> assertThat(balance).isEqualByComparingTo("150.00"));
+        assertThat(walletLedgerRepository.currentBalance(second.getId())).hasValueSatisfying(
+                balance -> assertThat(balance).isEqualByComparingTo("25.50"));
+        // Строка кошелька не изменяется, поступления хранятся только в журнале
+        assertThat(walletRepository.findById(first.getId()).orElseThrow().getBalance()).isEqualByComparingTo("100.00");
+    }
+
+    @Test
+    void streamStatementShouldReturnWalletEntriesInPeriodInOrder() {
+        Wallet wallet = walletRepository.save(createWallet("0.00"));
+        Wallet other = walletRepository.save(createWallet("0.00"));
+        walletLedgerRepository.appendBatch(List.of(
+                entry(wallet.getId(), "10.00", LedgerOperation.DEPOSIT),
+                entry(other.getId(), "7.00", LedgerOperation.DEPOSIT),
+                entry(wallet.getId(), "-4.00", LedgerOperation.PURCHASE)));
+        LocalDateTime now = LocalDateTime.now();
+
+        List<WalletStatementRow> rows = new ArrayList<>();
+        walletLedgerRepository.streamStatement(wallet.getId(), now.minusHours(1), now.plusHours(1), 1, rows::add);
+
+        assertThat(rows).extracting(WalletStatementRow::operation).containsExactly("DEPOSIT", "PURCHASE");
+        assertThat(rows.get(1).amount()).isEqualByComparingTo("-4.00");
+        assertThat(rows.get(0).entryId()).isLessThan(rows.get(1).entryId());
+
+        List<WalletStatementRow> outside = new ArrayList<>();
+        walletLedgerRepository.streamStatement(wallet.getId(), now.plusHours(1), now.plusHours(2), 1, outside::add);
+        assertThat(outside).isEmpty();
+    }
+
+    private WalletLedgerEntry entry(Long walletId, String amount, LedgerOperation operation) {
+        return WalletLedgerEntry.builder()
+                .walletId(walletId)
+                .amount(new BigDecimal(amount))
+                .operation(operation)
+                .build();
+    }
+
+    private Wallet createWallet(String balance) {
+        String suffix = String.valueOf(System.nanoTime());
+        // Пользователь сохраняется каскадом вместе с кошельком
+        User user = User.builder()
+                .login("user" + suffix)
+                .email("user" + suffix + "@example.com")
+                .password("password")
+                .build();
+
+        return Wallet.builder()
+                .user(user)
+                .balance(new BigDecimal(balance))
+                .pin("pin")
+                .walletNumber(suffix.substring(suffix.length() - 12))
+                .build();
+    }
+}
@@ -0,0 +1,2 @@
+-- Функции PostgreSQL, которые вызываются из нативных запросов, проверяемых на H2
+CREATE ALIAS IF NOT EXISTS pg_advisory_xact_lock_shared FOR "ru.kalimulin.repositories.H2Functions.advisoryXactLockShared";
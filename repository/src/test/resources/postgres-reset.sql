@@ -0,0 +1,3 @@
+-- Пересоздание схемы перед применением tables.sql в тестах на PostgreSQL
+DROP SCHEMA public CASCADE;
+CREATE SCHEMA public;
@@ -0,0 +1,5 @@
+package ru.kalimulin.kafka;
+
+public interface ProductPriceEventProducer {
+    void sendPriceChanged(Long productId);
+}
@@ -1,7 +1,10 @@
 package ru.kalimulin.kafka;
 
+import ru.kalimulin.dto.kafkaEventDTO.WalletTransactionBatchEvent;
 import ru.kalimulin.dto.kafkaEventDTO.WalletTransactionEvent;
 
 public interface WalletEventProducer {
     void sendWalletTransaction(WalletTransactionEvent event);
+
+    void sendWalletTransactionBatch(WalletTransactionBatchEvent event);
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package ru.kalimulin.service;
+
+/**
+ * Сервис для удаления брошенных неоплаченных заказов.
+ */
+public interface AbandonedOrderService {
+
+    /**
+     * Удаляет очередную пачку брошенных заказов вместе с их позициями.
+     * Заказ считается брошенным, если он не оплачен, старше настроенного возраста и не удерживает резерв товаров.
+     *
+     * @param afterId id последнего заказа предыдущей пачки; для первой пачки - 0.
+     * @return результат обработки пачки.
+     */
+    SweepChunk deleteAbandonedChunk(long afterId);
+
+    /**
+     * Результат обработки одной пачки брошенных заказов.
+     *
+     * @param lastOrderId   id последнего заказа пачки, с которого продолжится следующая пачка.
+     * @param ordersDeleted количество удаленных заказов.
+     * @param itemsDeleted  количество удаленных позиций заказов.
+     * @param hasMore       {@code true}, если пачка заполнена целиком и за ней могут быть еще заказы.
+     */
+    record SweepChunk(long lastOrderId, int ordersDeleted, int itemsDeleted, boolean hasMore) {
+    }
+}
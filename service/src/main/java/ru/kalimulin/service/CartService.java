@@ -4,6 +4,8 @@ import jakarta.servlet.http.HttpSession;
 import ru.kalimulin.dto.cartDTO.CartDTO;
 import ru.kalimulin.dto.cartItemDTO.CartItemCreateDTO;
 
+import java.util.List;
+
 public interface CartService {
     /**
      * Получает корзину текущего пользователя.
@@ -21,6 +23,15 @@ public interface CartService {
      */
     void addItemToCart(HttpSession session, CartItemCreateDTO cartItemCreateDTO);
 
+    /**
+     * Добавляет в корзину пользователя несколько товаров за один запрос: при слиянии гостевой корзины
+     * или импорте списка товаров. Количество повторяющихся товаров суммируется.
+     *
+     * @param session текущая сессия пользователя
+     * @param items   добавляемые товары
+     */
+    void addItemsToCart(HttpSession session, List<CartItemCreateDTO> items);
+
     /**
      * Удаляет товар из корзины пользователя.
      *
@@ -35,4 +46,12 @@ public interface CartService {
      * @param session текущая сессия пользователя
      */
     void clearCart(HttpSession session);
-}
\ No newline at end of file
+
+    /**
+     * Записывает корзину пользователя в базу данных, если она хранится вне ее.
+     * Вызывается перед оформлением заказа, который читает корзину из базы.
+     *
+     * @param session текущая сессия пользователя
+     */
+    void flushCart(HttpSession session);
+}
@@ -3,10 +3,7 @@ package ru.kalimulin.service;
 import jakarta.servlet.http.HttpSession;
 import ru.kalimulin.customExceptions.favoriteExceptions.FavoriteNotFoundException;
 import ru.kalimulin.customExceptions.productExceptions.ProductNotFoundException;
-import ru.kalimulin.customExceptions.userExceptions.UserNotFoundException;
-import ru.kalimulin.dto.productDTO.ProductResponseDTO;
-
-import java.util.List;
+import ru.kalimulin.dto.favoriteDTO.FavoritePageDTO;
 
 /**
  * Сервис для управления избранными товарами
@@ -14,13 +11,11 @@ import java.util.List;
 public interface FavoriteService {
 
     /**
-     * Добавляет товар в избранное пользователя.
+     * Добавляет товар в избранное пользователя. Повторное добавление того же товара ничего не меняет.
      *
      * @param productId ID товара, который нужно добавить.
      * @param session   Текущая сессия пользователя.
-     * @throws UserNotFoundException    если пользователь не найден.
      * @throws ProductNotFoundException если товар не найден.
-     * @throws IllegalStateException    если товар уже находится в избранном.
      */
     void addToFavorite(Long productId, HttpSession session);
 
@@ -29,19 +24,26 @@ public interface FavoriteService {
      *
      * @param productId ID товара, который нужно удалить.
      * @param session   Текущая сессия пользователя.
-     * @throws UserNotFoundException     если пользователь не найден.
-     * @throws ProductNotFoundException  если товар не найден.
-     * @throws FavoriteNotFoundException если у пользователя нет избранного списка.
+     * @throws FavoriteNotFoundException если товара нет в избранном пользователя.
      */
     void removeFromFavorites(Long productId, HttpSession session);
 
     /**
-     * Получает список товаров, добавленных в избранное.
+     * Проверяет, находится ли товар в избранном пользователя.
+     *
+     * @param productId ID товара.
+     * @param session   Текущая сессия пользователя.
+     * @return {@code true}, если товар в избранном.
+     */
+    boolean isFavorite(Long productId, HttpSession session);
+
+    /**
+     * Получает страницу избранных товаров, начиная с последних добавленных в каталог.
      *
-     * @param session Текущая сессия пользователя.
-     * @return Список товаров в избранном.
-     * @throws UserNotFoundException     если пользователь не найден.
-     * @throws FavoriteNotFoundException если у пользователя нет избранного списка.
+     * @param session        Текущая сессия пользователя.
+     * @param afterProductId ID последнего товара предыдущей страницы или {@code null} для первой страницы.
+     * @param size           Размер страницы или {@code null} для размера по умолчанию.
+     * @return Страница избранных товаров.
      */
-    List<ProductResponseDTO> getFavorites(HttpSession session);
+    FavoritePageDTO getFavoritesPage(HttpSession session, Long afterProductId, Integer size);
 }
@@ -0,0 +1,23 @@
+package ru.kalimulin.service;
+
+import jakarta.servlet.http.HttpSession;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.kalimulin.customExceptions.userExceptions.UnauthorizedException;
+import ru.kalimulin.enums.OrderExportFormat;
+
+/**
+ * Сервис для выгрузки полной истории заказов пользователя.
+ */
+public interface OrderExportService {
+
+    /**
+     * Готовит выгрузку истории заказов пользователя. Пользователь определяется сразу,
+     * а заказы записываются в ответ по мере чтения из базы данных, не загружаясь в память целиком.
+     *
+     * @param session текущая сессия пользователя.
+     * @param format  формат выгрузки.
+     * @return тело ответа, записывающее выгрузку.
+     * @throws UnauthorizedException если пользователь не авторизован.
+     */
+    StreamingResponseBody exportOrders(HttpSession session, OrderExportFormat format);
+}
@@ -2,12 +2,14 @@ package ru.kalimulin.service;
 
 import jakarta.servlet.http.HttpSession;
 import ru.kalimulin.dto.orderDTO.OrderDTO;
+import ru.kalimulin.dto.orderDTO.OrderPageDTO;
 import ru.kalimulin.customExceptions.userExceptions.*;
 import ru.kalimulin.customExceptions.cartExceptions.*;
 import ru.kalimulin.customExceptions.orderExceptions.*;
 import ru.kalimulin.customExceptions.walletExceptions.*;
 import ru.kalimulin.customExceptions.productExceptions.NotEnoughStockException;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -49,6 +51,20 @@ public interface OrderService {
      */
     List<OrderDTO> getUserOrders(HttpSession session);
 
+    /**
+     * Получает страницу заказов пользователя от новых к старым.
+     * Позиции всех заказов страницы загружаются одним запросом.
+     *
+     * @param session        текущая сессия пользователя.
+     * @param afterCreatedAt дата создания последнего заказа предыдущей страницы; {@code null} для первой страницы.
+     * @param afterId        id последнего заказа предыдущей страницы; {@code null} для первой страницы.
+     * @param size           размер страницы; ограничивается настроенным максимумом.
+     * @return страница заказов и курсор следующей страницы.
+     * @throws UserNotFoundException       если пользователь не найден.
+     * @throws InvalidOrderCursorException если указана только одна часть курсора.
+     */
+    OrderPageDTO getUserOrdersPage(HttpSession session, LocalDateTime afterCreatedAt, Long afterId, Integer size);
+
     /**
      * Удаляет неоплаченный заказ.
      *
@@ -0,0 +1,52 @@
+package ru.kalimulin.service;
+
+import jakarta.servlet.http.HttpSession;
+import ru.kalimulin.customExceptions.walletExceptions.InvalidPinException;
+import ru.kalimulin.customExceptions.walletExceptions.PinVerificationUnavailableException;
+
+/**
+ * Сервис проверки и хэширования PIN-кодов кошельков.
+ * BCrypt выполняется в отдельном пуле ограниченного размера, а не в потоке запроса.
+ */
+public interface PinVerificationService {
+
+    /**
+     * Проверяет PIN-код кошелька. После успешной проверки в сессии сохраняется отметка с HMAC PIN-кода,
+     * и повторные операции с тем же кошельком и тем же PIN-кодом в течение короткого времени BCrypt не выполняют.
+     * Введенный PIN-код сравнивается с отметкой каждый раз.
+     *
+     * @param session  текущая сессия пользователя.
+     * @param walletId идентификатор кошелька.
+     * @param pinHash  хэшированный PIN-код кошелька.
+     * @param pin      PIN-код, введенный пользователем.
+     * @throws InvalidPinException                 если PIN-код неверный.
+     * @throws PinVerificationUnavailableException если пул проверки перегружен.
+     */
+    void verify(HttpSession session, Long walletId, String pinHash, String pin);
+
+    /**
+     * Проверяет PIN-код без использования отметки в сессии.
+     *
+     * @param pin     PIN-код, который нужно проверить.
+     * @param pinHash хэшированный PIN-код кошелька.
+     * @return {@code true}, если PIN-код совпадает.
+     * @throws PinVerificationUnavailableException если пул проверки перегружен.
+     */
+    boolean matches(String pin, String pinHash);
+
+    /**
+     * Хэширует PIN-код.
+     *
+     * @param pin PIN-код.
+     * @return хэшированный PIN-код.
+     * @throws PinVerificationUnavailableException если пул проверки перегружен.
+     */
+    String hash(String pin);
+
+    /**
+     * Удаляет отметку о проверенном PIN-коде из сессии.
+     *
+     * @param session текущая сессия пользователя.
+     */
+    void revoke(HttpSession session);
+}
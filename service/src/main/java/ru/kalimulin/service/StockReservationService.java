@@ -0,0 +1,46 @@
+package ru.kalimulin.service;
+
+import ru.kalimulin.customExceptions.productExceptions.NotEnoughStockException;
+import ru.kalimulin.models.Order;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Сервис для резервирования товаров между созданием и оплатой заказа.
+ */
+public interface StockReservationService {
+
+    /**
+     * Атомарно резервирует товары заказа.
+     *
+     * @param quantities резервируемое количество по идентификатору товара.
+     * @return момент истечения резерва.
+     * @throws NotEnoughStockException если хотя бы одного товара недостаточно на складе.
+     */
+    LocalDateTime reserve(Map<Long, Integer> quantities);
+
+    /**
+     * Превращает резерв заказа в продажу. Если резерв уже истек, товары списываются заново.
+     *
+     * @param orderId    идентификатор заказа.
+     * @param quantities количество по идентификатору товара.
+     * @return идентификаторы товаров, которые не удалось списать.
+     */
+    Set<Long> convertToSale(Long orderId, Map<Long, Integer> quantities);
+
+    /**
+     * Снимает резерв заказа и возвращает товары на склад.
+     *
+     * @param order заказ, резерв которого нужно снять.
+     */
+    void release(Order order);
+
+    /**
+     * Снимает одну пачку истекших резервов и возвращает товары на склад.
+     *
+     * @return количество заказов, резервы которых были сняты.
+     */
+    int releaseExpired();
+}
@@ -28,12 +28,14 @@ public interface UserService {
     /**
      * Аутентификация пользователя.
      * Проверяет email и пароль. Если они некорректны, выбрасывает исключение.
+     * При успешном входе сохраняет id, логин и email пользователя в сессии.
      *
      * @param loginRequestDTO DTO с email и паролем для аутентификации.
+     * @param session         сессия, в которой сохраняется вошедший пользователь.
      * @return LoginResponseDTO с сообщением об успешной аутентификации.
      * @throws InvalidEmailOrPasswordException если email или пароль некорректны.
      */
-    LoginResponseDTO authenticateUser(LoginRequestDTO loginRequestDTO);
+    LoginResponseDTO authenticateUser(LoginRequestDTO loginRequestDTO, HttpSession session);
 
 
     /**
@@ -0,0 +1,89 @@
+package ru.kalimulin.service;
+
+import ru.kalimulin.customExceptions.walletExceptions.InsufficientFundsException;
+import ru.kalimulin.customExceptions.walletExceptions.WalletNotFoundException;
+import ru.kalimulin.enums.LedgerOperation;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Сервис журнала операций кошельков. Баланс не хранится в строке кошелька,
+ * а рассчитывается как последний снимок плюс записи журнала после него.
+ */
+public interface WalletLedgerService {
+
+    /**
+     * Возвращает текущий баланс кошелька.
+     *
+     * @param walletId идентификатор кошелька.
+     * @return баланс кошелька.
+     * @throws WalletNotFoundException если кошелек не найден.
+     */
+    BigDecimal getBalance(Long walletId);
+
+    /**
+     * Зачисляет средства на кошелек. Строка кошелька не блокируется.
+     *
+     * @param walletId  идентификатор кошелька.
+     * @param amount    сумма зачисления.
+     * @param operation тип операции.
+     * @return баланс после зачисления.
+     */
+    BigDecimal credit(Long walletId, BigDecimal amount, LedgerOperation operation);
+
+    /**
+     * Списывает средства с кошелька. Списания одного кошелька выполняются по очереди
+     * под блокировкой его строки, чтобы баланс не ушел в минус.
+     *
+     * @param walletId  идентификатор кошелька.
+     * @param amount    сумма списания.
+     * @param operation тип операции.
+     * @return баланс после списания.
+     * @throws InsufficientFundsException если средств недостаточно.
+     * @throws WalletNotFoundException    если кошелек не найден.
+     */
+    BigDecimal debit(Long walletId, BigDecimal amount, LedgerOperation operation);
+
+    /**
+     * Переводит средства между кошельками. Блокируется только кошелек отправителя.
+     *
+     * @param senderWalletId    идентификатор кошелька отправителя.
+     * @param recipientWalletId идентификатор кошелька получателя.
+     * @param amount            сумма перевода.
+     * @throws InsufficientFundsException если у отправителя недостаточно средств.
+     * @throws WalletNotFoundException    если кошелек отправителя не найден.
+     */
+    void transfer(Long senderWalletId, Long recipientWalletId, BigDecimal amount);
+
+    /**
+     * Применяет пакет зачислений и списаний одной транзакцией. Кошельки со списаниями
+     * блокируются в порядке возрастания id, после чего проверяются их балансы.
+     *
+     * @param amountsByWalletId сумма по идентификатору кошелька: положительная - зачисление, отрицательная - списание.
+     * @param creditOperation   тип операции для зачислений.
+     * @param debitOperation    тип операции для списаний.
+     * @throws InsufficientFundsException если хотя бы на одном кошельке недостаточно средств.
+     * @throws WalletNotFoundException    если кошелек со списанием не найден.
+     */
+    void applyBatch(Map<Long, BigDecimal> amountsByWalletId, LedgerOperation creditOperation,
+                    LedgerOperation debitOperation);
+
+    /**
+     * Зачисляет средства на кошельки нескольких пользователей одним батчем.
+     *
+     * @param amountsByUserId сумма зачисления по идентификатору владельца кошелька.
+     * @param operation       тип операции.
+     * @return идентификаторы пользователей, у которых не найден кошелек.
+     */
+    Set<Long> creditUsers(Map<Long, BigDecimal> amountsByUserId, LedgerOperation operation);
+
+    /**
+     * Обновляет снимки балансов до границы, полученной при предыдущем вызове, если все транзакции,
+     * писавшие тогда в журнал, завершились, и запоминает новую границу.
+     *
+     * @return количество обновленных снимков.
+     */
+    int snapshotBalances();
+}
@@ -0,0 +1,27 @@
+package ru.kalimulin.service;
+
+import jakarta.servlet.http.HttpSession;
+import ru.kalimulin.customExceptions.walletExceptions.InsufficientFundsException;
+import ru.kalimulin.customExceptions.walletExceptions.InvalidPayoutException;
+import ru.kalimulin.customExceptions.walletExceptions.WalletNotFoundException;
+import ru.kalimulin.dto.walletDTO.WalletPayoutRequestDTO;
+import ru.kalimulin.dto.walletDTO.WalletPayoutResultDTO;
+
+/**
+ * Сервис пакетных зачислений и списаний по многим кошелькам (выплаты продавцам, возвраты).
+ */
+public interface WalletPayoutService {
+
+    /**
+     * Применяет пакет выплат одной транзакцией: либо все строки, либо ни одной.
+     * Строки с одинаковым номером кошелька суммируются.
+     *
+     * @param request пакет выплат.
+     * @param session текущая сессия администратора.
+     * @return итоги пакета.
+     * @throws InvalidPayoutException     если в пакете есть строка с нулевой суммой.
+     * @throws WalletNotFoundException    если хотя бы один кошелек не найден.
+     * @throws InsufficientFundsException если для списания недостаточно средств.
+     */
+    WalletPayoutResultDTO applyPayouts(WalletPayoutRequestDTO request, HttpSession session);
+}
@@ -0,0 +1,32 @@
+package ru.kalimulin.service;
+
+import jakarta.servlet.http.HttpSession;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.kalimulin.customExceptions.userExceptions.UnauthorizedException;
+import ru.kalimulin.customExceptions.walletExceptions.InvalidStatementPeriodException;
+import ru.kalimulin.customExceptions.walletExceptions.WalletNotFoundException;
+import ru.kalimulin.enums.WalletStatementFormat;
+
+import java.time.LocalDate;
+
+/**
+ * Сервис для выгрузки выписки по кошельку пользователя.
+ */
+public interface WalletStatementService {
+
+    /**
+     * Готовит выписку по кошельку пользователя за период. Кошелек и период проверяются сразу,
+     * а операции записываются в ответ по мере чтения из журнала, не загружаясь в память целиком.
+     *
+     * @param session текущая сессия пользователя.
+     * @param from    первый день периода.
+     * @param to      последний день периода включительно.
+     * @param format  формат выписки.
+     * @return тело ответа, записывающее выписку.
+     * @throws InvalidStatementPeriodException если начало периода позже его конца.
+     * @throws UnauthorizedException           если пользователь не авторизован.
+     * @throws WalletNotFoundException         если у пользователя нет кошелька.
+     */
+    StreamingResponseBody exportStatement(HttpSession session, LocalDate from, LocalDate to,
+                                          WalletStatementFormat format);
+}
@@ -0,0 +1,40 @@
+package ru.kalimulin.serviceImpl;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.kalimulin.repositories.OrderRepository;
+import ru.kalimulin.service.AbandonedOrderService;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class AbandonedOrderServiceImpl implements AbandonedOrderService {
+    private final OrderRepository orderRepository;
+
+    @Value("${shop.orders.abandoned.max-age:7d}")
+    private Duration maxAge;
+
+    @Value("${shop.orders.abandoned.chunk-size:500}")
+    private int chunkSize;
+
+    @Transactional
+    @Override
+    public SweepChunk deleteAbandonedChunk(long afterId) {
+        List<Long> orderIds = orderRepository.lockAbandonedOrders(LocalDateTime.now().minus(maxAge), afterId, chunkSize);
+        if (orderIds.isEmpty()) {
+            return new SweepChunk(afterId, 0, 0, false);
+        }
+
+        // Сначала позиции, затем сами заказы - по одному запросу на пачку
+        int itemsDeleted = orderRepository.deleteItemsByOrderIds(orderIds);
+        int ordersDeleted = orderRepository.deleteOrdersByIds(orderIds);
+
+        return new SweepChunk(orderIds.get(orderIds.size() - 1), ordersDeleted, itemsDeleted,
+                orderIds.size() == chunkSize);
+    }
+}
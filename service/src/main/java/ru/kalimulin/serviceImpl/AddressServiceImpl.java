@@ -8,13 +8,11 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.kalimulin.customExceptions.addressExceptions.AddressNotFoundException;
 import ru.kalimulin.customExceptions.userExceptions.UnauthorizedAccessException;
-import ru.kalimulin.customExceptions.userExceptions.UserNotFoundException;
 import ru.kalimulin.dto.addressDTO.AddressCreateDTO;
 import ru.kalimulin.dto.addressDTO.AddressResponseDTO;
 import ru.kalimulin.dto.addressDTO.AddressUpdateDTO;
 import ru.kalimulin.mappers.addressMapper.AddressMapper;
 import ru.kalimulin.models.Address;
-import ru.kalimulin.models.User;
 import ru.kalimulin.repositories.AddressRepository;
 import ru.kalimulin.repositories.UserRepository;
 import ru.kalimulin.service.AddressService;
@@ -34,14 +32,12 @@ public class AddressServiceImpl implements AddressService {
     @Transactional
     @Override
     public AddressResponseDTO createAddress(AddressCreateDTO addressCreateDTO, HttpSession session) {
-        User user = getUser(session);
+        Long userId = SessionUtils.getUserId(session);
         logger.info("Запрос на создание адреса от пользователя");
         Address address = addressMapper.toAddress(addressCreateDTO);
-        address.setUser(user);
+        address.setUser(userRepository.getReferenceById(userId));
 
-        user.getAddresses().add(address);
-
-        userRepository.save(user);
+        addressRepository.save(address);
 
         logger.info("Адрес успешно создан");
         return addressMapper.toAddressResponseDTO(address);
@@ -50,10 +46,10 @@ public class AddressServiceImpl implements AddressService {
     @Transactional
     @Override
     public List<AddressResponseDTO> getAddresses(HttpSession session) {
-        User user = getUser(session);
+        Long userId = SessionUtils.getUserId(session);
         logger.info("Запрос на получение списка адресов");
 
-        List<Address> addresses = addressRepository.findAddressByUser(user);
+        List<Address> addresses = addressRepository.findAllByUserId(userId);
 
         return addressMapper.toAddressResponseDTOList(addresses);
     }
@@ -61,12 +57,12 @@ public class AddressServiceImpl implements AddressService {
     @Transactional
     @Override
     public AddressResponseDTO updateAddress(Long addressId, AddressUpdateDTO addressUpdateDTO, HttpSession session) {
-        User user = getUser(session);
+        Long userId = SessionUtils.getUserId(session);
         logger.info("Запрос на обновление адреса");
 
         Address address = getAddressById(addressId);
 
-        if (!address.getUser().equals(user)) {
+        if (!address.getUser().getId().equals(userId)) {
             logger.warn("Попытка изменения чужого адреса");
             throw new UnauthorizedAccessException("Этот адрес не принадлежит текущему пользователю.");
         }
@@ -96,29 +92,20 @@ public class AddressServiceImpl implements AddressService {
     @Transactional
     @Override
     public void deleteAddress(Long id, HttpSession session) {
-        User user = getUser(session);
+        Long userId = SessionUtils.getUserId(session);
         logger.info("Запрос на удаление адреса");
 
         Address address = getAddressById(id);
 
-        user.getAddresses().remove(address);
+        if (!address.getUser().getId().equals(userId)) {
+            logger.warn("Попытка удаления чужого адреса");
+            throw new UnauthorizedAccessException("Этот адрес не принадлежит текущему пользователю.");
+        }
+
         addressRepository.delete(address);
         logger.info("Адрес успешно удален");
     }
 
-    /**
-     * Получает пользователя по текущей сессии.
-     *
-     * @param session текущая сессия пользователя
-     * @return объект пользователя
-     * @throws UserNotFoundException если пользователь не найден
-     */
-    private User getUser(HttpSession session) {
-        String userLogin = SessionUtils.getUserLogin(session);
-        return userRepository.findByLogin(userLogin)
-                .orElseThrow(() -> new UserNotFoundException("Пользователь с login " + userLogin + " не найден"));
-    }
-
     /**
      * Получает адрес по его идентификатору.
      *
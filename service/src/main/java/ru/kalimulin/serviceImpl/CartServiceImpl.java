@@ -4,87 +4,109 @@ import jakarta.servlet.http.HttpSession;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.kalimulin.customExceptions.cartExceptions.CartItemNotFoundException;
 import ru.kalimulin.customExceptions.productExceptions.ProductNotFoundException;
-import ru.kalimulin.customExceptions.userExceptions.UserNotFoundException;
 import ru.kalimulin.dto.cartDTO.CartDTO;
 import ru.kalimulin.dto.cartItemDTO.CartItemCreateDTO;
 import ru.kalimulin.mappers.cartItemMapper.CartItemMapper;
 import ru.kalimulin.mappers.cartMapper.CartMapper;
 import ru.kalimulin.models.Cart;
-import ru.kalimulin.models.CartItem;
-import ru.kalimulin.models.Product;
-import ru.kalimulin.models.User;
-import ru.kalimulin.repositories.CartItemRepository;
+import ru.kalimulin.projections.ProductPriceView;
 import ru.kalimulin.repositories.CartRepository;
 import ru.kalimulin.repositories.ProductRepository;
 import ru.kalimulin.repositories.UserRepository;
 import ru.kalimulin.service.CartService;
+import ru.kalimulin.util.CartItemQuantities;
+import ru.kalimulin.util.SessionUser;
 import ru.kalimulin.util.SessionUtils;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@ConditionalOnProperty(name = "shop.cart.engine", havingValue = "database", matchIfMissing = true)
 public class CartServiceImpl implements CartService {
     private final CartRepository cartRepository;
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
-    private final CartItemRepository cartItemRepository;
     private final CartMapper cartMapper;
     private final CartItemMapper cartItemMapper;
 
+    @Value("${shop.cart.batch.max-items:500}")
+    private int maxBatchItems;
+
     private static final Logger logger = LoggerFactory.getLogger(CartServiceImpl.class);
 
     @Transactional
     @Override
     public CartDTO getCart(HttpSession session) {
         logger.info("Запрос на получение корзины");
-        Cart cart = getOrCreateCart(SessionUtils.getUserLogin(session));
-        return cartMapper.toCartDTO(cart);
+        SessionUser user = SessionUtils.getUser(session);
+        Cart cart = getOrCreateCart(user.id());
+        return cartMapper.toCartDTO(cart, user.login());
     }
 
     @Transactional
     @Override
     public void addItemToCart(HttpSession session, CartItemCreateDTO cartItemCreateDTO) {
         logger.info("Запрос на добавление товара в корзину");
-        Cart cart = getOrCreateCart(SessionUtils.getUserLogin(session));
-        Product product = productRepository.findById(cartItemCreateDTO.getProductId())
-                .orElseThrow(() -> new ProductNotFoundException("Товар не найден"));
-
-        CartItem cartItem = cartItemRepository.findByCartAndProduct(cart, product)
-                .orElseGet(() -> CartItem.builder()
-                        .cart(cart)
-                        .product(product)
-                        .quantity(0)
-                        .build());
+        Long cartId = getOrCreateCartId(SessionUtils.getUserId(session));
+        Long productId = cartItemCreateDTO.getProductId();
+        BigDecimal price = findPrice(productId);
 
-        cartItem.setQuantity(cartItem.getQuantity() + cartItemCreateDTO.getQuantity());
-        cartItemRepository.save(cartItem);
+        // Upsert по уникальному индексу (cart_id, product_id): параллельные добавления товара не конфликтуют
+        cartRepository.addItems(cartId, Map.of(productId, cartItemCreateDTO.getQuantity()));
 
-        updateCartTotalPrice(cart);
+        // Стоимость меняется на стоимость добавленного количества, остальные позиции не загружаются
+        cartRepository.addToTotalPrice(cartId, price.multiply(BigDecimal.valueOf(cartItemCreateDTO.getQuantity())));
         logger.info("Товар добавлен в корзину");
     }
 
+    @Transactional
+    @Override
+    public void addItemsToCart(HttpSession session, List<CartItemCreateDTO> items) {
+        logger.info("Запрос на пакетное добавление товаров в корзину");
+        Map<Long, Integer> quantities = CartItemQuantities.merge(items, maxBatchItems);
+
+        Map<Long, BigDecimal> prices = productRepository.findPricesByIdIn(quantities.keySet()).stream()
+                .collect(Collectors.toMap(ProductPriceView::getId, ProductPriceView::getPrice));
+        if (prices.size() != quantities.size()) {
+            Set<Long> missing = new HashSet<>(quantities.keySet());
+            missing.removeAll(prices.keySet());
+            throw new ProductNotFoundException("Товары не найдены: " + missing);
+        }
+
+        Long cartId = getOrCreateCartId(SessionUtils.getUserId(session));
+        cartRepository.addItems(cartId, quantities);
+
+        BigDecimal delta = quantities.entrySet().stream()
+                .map(entry -> prices.get(entry.getKey()).multiply(BigDecimal.valueOf(entry.getValue())))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        cartRepository.addToTotalPrice(cartId, delta);
+        logger.info("В корзину добавлено позиций: {}", quantities.size());
+    }
+
     @Transactional
     @Override
     public void removeItemFromCart(HttpSession session, Long productId) {
         logger.info("Запрос на удаление товара из корзины");
 
-        Cart cart = getOrCreateCart(SessionUtils.getUserLogin(session));
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new ProductNotFoundException("Товар не найден"));
-
-        CartItem cartItem = cartItemRepository.findByCartAndProduct(cart, product)
-                .orElseThrow(() -> new CartItemNotFoundException("Товар не найден в корзине"));
-
-        cartItemRepository.delete(cartItem);
+        Long cartId = getOrCreateCartId(SessionUtils.getUserId(session));
 
-        cart.getItems().remove(cartItem);
-        updateCartTotalPrice(cart);
+        // Стоимость пересчитывается по оставшимся позициям: товар мог добавляться по другой цене
+        if (!cartRepository.removeItem(cartId, productId)) {
+            throw new CartItemNotFoundException("Товар не найден в корзине");
+        }
 
         logger.info("Товар удален из корзины");
     }
@@ -93,29 +115,30 @@ public class CartServiceImpl implements CartService {
     @Override
     public void clearCart(HttpSession session) {
         logger.info("Запрос на очищение корзины");
-        Cart cart = getOrCreateCart(SessionUtils.getUserLogin(session));
-        cartItemRepository.deleteAll(cart.getItems());
-        cart.getItems().clear();
+        Long cartId = getOrCreateCartId(SessionUtils.getUserId(session));
 
-        cart.setTotalPrice(BigDecimal.ZERO);
-        cartRepository.save(cart);
+        // Позиции удаляются одним DELETE без загрузки корзины
+        int deleted = cartRepository.clearItems(cartId);
 
-        logger.info("Корзина очищена");
+        logger.info("Корзина очищена, удалено позиций: {}", deleted);
+    }
+
+    @Override
+    public void flushCart(HttpSession session) {
+        // Корзина хранится в базе данных, изменения уже записаны
     }
 
     /**
      * Получает или создает корзину для пользователя.
      *
-     * @param userLogin логин пользователя
+     * @param userId идентификатор пользователя
      * @return объект корзины пользователя
      */
-    private Cart getOrCreateCart(String userLogin) {
-        User user = userRepository.findByLogin(userLogin)
-                .orElseThrow(() -> new UserNotFoundException("Пользователь не найден"));
-        return cartRepository.findByUser(user)
+    private Cart getOrCreateCart(Long userId) {
+        return cartRepository.findByUserId(userId)
                 .orElseGet(() -> {
                     Cart newCart = Cart.builder()
-                            .user(user)
+                            .user(userRepository.getReferenceById(userId))
                             .totalPrice(BigDecimal.ZERO)
                             .items(new ArrayList<>())
                             .build();
@@ -124,15 +147,25 @@ public class CartServiceImpl implements CartService {
     }
 
     /**
-     * Обновляет общую стоимость товаров в корзине.
+     * Получает идентификатор корзины пользователя без загрузки корзины, создавая ее при отсутствии.
      *
-     * @param cart объект корзины пользователя
+     * @param userId идентификатор пользователя
+     * @return идентификатор корзины
      */
-    private void updateCartTotalPrice(Cart cart) {
-        BigDecimal totalPrice = cart.getItems().stream()
-                .map(item -> item.getProduct().getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        cart.setTotalPrice(totalPrice);
-        cartRepository.save(cart);
+    private Long getOrCreateCartId(Long userId) {
+        return cartRepository.findIdByUserId(userId)
+                .orElseGet(() -> getOrCreateCart(userId).getId());
+    }
+
+    /**
+     * Возвращает текущую цену товара без загрузки сущности.
+     *
+     * @param productId идентификатор товара
+     * @return цена товара
+     * @throws ProductNotFoundException если товар не найден
+     */
+    private BigDecimal findPrice(Long productId) {
+        return productRepository.findPriceById(productId)
+                .orElseThrow(() -> new ProductNotFoundException("Товар не найден"));
     }
 }
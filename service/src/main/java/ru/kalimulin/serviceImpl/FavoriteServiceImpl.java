@@ -4,133 +4,112 @@ import jakarta.servlet.http.HttpSession;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.kalimulin.customExceptions.favoriteExceptions.FavoriteNotFoundException;
 import ru.kalimulin.customExceptions.productExceptions.ProductNotFoundException;
-import ru.kalimulin.customExceptions.userExceptions.UserNotFoundException;
-import ru.kalimulin.dto.productDTO.ProductResponseDTO;
+import ru.kalimulin.dto.favoriteDTO.FavoritePageDTO;
 import ru.kalimulin.mappers.productMapper.ProductMapper;
-import ru.kalimulin.models.Favorite;
 import ru.kalimulin.models.Product;
-import ru.kalimulin.models.User;
 import ru.kalimulin.repositories.FavoriteRepository;
 import ru.kalimulin.repositories.ProductRepository;
-import ru.kalimulin.repositories.UserRepository;
 import ru.kalimulin.service.FavoriteService;
 import ru.kalimulin.util.SessionUtils;
 
-import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 @Service
 @RequiredArgsConstructor
 public class FavoriteServiceImpl implements FavoriteService {
 
-    private final UserRepository userRepository;
     private final ProductRepository productRepository;
     private final FavoriteRepository favoriteRepository;
     private final ProductMapper productMapper;
+
+    @Value("${shop.favorites.page.default-size:20}")
+    private int defaultPageSize;
+
+    @Value("${shop.favorites.page.max-size:100}")
+    private int maxPageSize;
+
     private static final Logger logger = LoggerFactory.getLogger(FavoriteServiceImpl.class);
 
     @Transactional
     @Override
     public void addToFavorite(Long productId, HttpSession session) {
-        String userLogin = SessionUtils.getUserLogin(session);
-
-        User user = findUserByLogin(userLogin);
-
-        Product product = findProductById(productId);
+        Long userId = SessionUtils.getUserId(session);
 
         logger.info("Пользователь пытается добавить в избранное товар с id {}", productId);
 
-        Favorite favorite = favoriteRepository.findByUser(user)
-                .orElse(Favorite.builder().user(user).products(new ArrayList<>()).build());
+        if (favoriteRepository.addProduct(userId, productId)) {
+            logger.info("Пользователь успешно добавил в избранное товар с id {}", productId);
+            return;
+        }
 
-        if (favorite.getProducts().contains(product)) {
-            logger.warn("Попытка добавить товар которое уже есть в избранном");
-            throw new IllegalStateException("Товар уже в избранном");
+        // Вставка пропускается и для несуществующего товара, и для уже добавленного
+        if (!productRepository.existsById(productId)) {
+            logger.warn("Товар с id {} не найден", productId);
+            throw new ProductNotFoundException("Товар с id " + productId + " не найден");
         }
 
-        favorite.getProducts().add(product);
-        favoriteRepository.save(favorite);
-        logger.info("Пользователь успешно добавил в избранное товар с id {}", productId);
+        logger.info("Товар с id {} уже в избранном", productId);
     }
 
     @Transactional
     @Override
     public void removeFromFavorites(Long productId, HttpSession session) {
-        String userLogin = SessionUtils.getUserLogin(session);
-        User user = findUserByLogin(userLogin);
-
-        Product product = findProductById(productId);
+        Long userId = SessionUtils.getUserId(session);
 
         logger.info("Попытка пользователя удалить товар из избранного");
 
-        Favorite favorite = findFavoriteByUser(user);
-
-        favorite.getProducts().remove(product);
-        favoriteRepository.save(favorite);
+        if (favoriteRepository.deleteProduct(userId, productId) == 0) {
+            logger.warn("Товар с id {} не найден в избранном", productId);
+            throw new FavoriteNotFoundException("Товар с id " + productId + " не найден в избранном");
+        }
 
         logger.info("Пользователь успешно удалил товар с id {}", productId);
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     @Override
-    public List<ProductResponseDTO> getFavorites(HttpSession session) {
-        String userLogin = SessionUtils.getUserLogin(session);
-        User user = findUserByLogin(userLogin);
+    public boolean isFavorite(Long productId, HttpSession session) {
+        return favoriteRepository.existsByUserIdAndProductId(SessionUtils.getUserId(session), productId);
+    }
 
-        logger.info("Попытка получить список товаров из избранного пользователя");
+    @Transactional(readOnly = true)
+    @Override
+    public FavoritePageDTO getFavoritesPage(HttpSession session, Long afterProductId, Integer size) {
+        Long userId = SessionUtils.getUserId(session);
 
-        Favorite favorite = findFavoriteByUser(user);
+        logger.info("Попытка получить страницу товаров из избранного пользователя");
 
-        logger.info("Пользователь получил список товаров из избранного");
-        return productMapper.toListProductResponseDTO(favorite.getProducts());
-    }
+        int pageSize = size == null || size <= 0 ? defaultPageSize : Math.min(size, maxPageSize);
 
-    /**
-     * Получение пользователя по логину.
-     *
-     * @param login логин пользователя.
-     * @return найденный пользователь.
-     * @throws UserNotFoundException если пользователь с таким логином не найден.
-     */
-    private User findUserByLogin(String login) {
-        return userRepository.findByLogin(login)
-                .orElseThrow(() -> {
-                    logger.warn("Пользователь не найден");
-                    return new UserNotFoundException("Пользователь с таким логином " + login + " не найден");
-                });
-    }
+        // Запрашиваем на один товар больше, чтобы узнать, есть ли следующая страница
+        Limit limit = Limit.of(pageSize + 1);
+        List<Long> productIds = afterProductId == null
+                ? favoriteRepository.findFirstProductIdsPage(userId, limit)
+                : favoriteRepository.findProductIdsPageAfter(userId, afterProductId, limit);
 
-    /**
-     * Получение товара по id.
-     *
-     * @param productId id товара
-     * @return найденный товар
-     * @throws ProductNotFoundException если товар с таким id не найден.
-     */
-    private Product findProductById(Long productId) {
-        return productRepository.findById(productId)
-                .orElseThrow(() -> {
-                    logger.warn("Товар с id " + productId + " не найден");
-                    return new ProductNotFoundException("Товар с id " + productId + " не найден");
-                });
-    }
+        boolean hasMore = productIds.size() > pageSize;
+        if (hasMore) {
+            productIds = productIds.subList(0, pageSize);
+        }
 
-    /**
-     * Получение избранного пользователя.
-     *
-     * @param user пользователь для которого возвращается его избранное.
-     * @return избранное
-     * @throws FavoriteNotFoundException если избранное не найдено
-     */
-    private Favorite findFavoriteByUser(User user) {
-        return favoriteRepository.findByUser(user)
-                .orElseThrow(() -> {
-                    logger.warn("Избранное пользователя не найдено");
-                    return new FavoriteNotFoundException("Избранное не найдено");
-                });
+        List<Product> products = productIds.isEmpty()
+                ? List.of()
+                : productRepository.findWithDetailsByIdIn(productIds).stream()
+                .sorted(Comparator.comparing(Product::getId).reversed())
+                .toList();
+
+        logger.info("Пользователь получил страницу товаров из избранного");
+        return FavoritePageDTO.builder()
+                .products(productMapper.toListProductResponseDTO(products))
+                .hasMore(hasMore)
+                .nextProductId(hasMore ? productIds.get(productIds.size() - 1) : null)
+                .build();
     }
 }
@@ -0,0 +1,140 @@
+package ru.kalimulin.serviceImpl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpSession;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.kalimulin.dto.orderDTO.OrderDTO;
+import ru.kalimulin.dto.orderItemDTO.OrderItemDTO;
+import ru.kalimulin.enums.OrderExportFormat;
+import ru.kalimulin.enums.OrderStatus;
+import ru.kalimulin.repositories.OrderRepository;
+import ru.kalimulin.service.OrderExportService;
+import ru.kalimulin.util.SessionUser;
+import ru.kalimulin.util.SessionUtils;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+@Service
+@RequiredArgsConstructor
+public class OrderExportServiceImpl implements OrderExportService {
+    private static final String CSV_HEADER = "order_id,created_at,status,total_price,product_id,product_title,quantity,price";
+    private static final String FORMULA_PREFIXES = "=+-@";
+
+    private final OrderRepository orderRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${shop.orders.export.fetch-size:500}")
+    private int fetchSize;
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderExportServiceImpl.class);
+
+    @Override
+    public StreamingResponseBody exportOrders(HttpSession session, OrderExportFormat format) {
+        SessionUser user = SessionUtils.getUser(session);
+        Long userId = user.id();
+        String userLogin = user.login();
+
+        // Тело выполняется уже после возврата из контроллера; курсор открывается внутри streamExportRows
+        return out -> {
+            logger.info("Выгрузка истории заказов в формате {}", format);
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            if (format == OrderExportFormat.CSV) {
+                writeCsv(userId, writer);
+            } else {
+                writeNdjson(userLogin, userId, writer);
+            }
+            writer.flush();
+        };
+    }
+
+    /**
+     * Пишет по одной CSV-строке на каждую позицию заказа.
+     */
+    private void writeCsv(Long userId, Writer writer) throws IOException {
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        orderRepository.streamExportRows(userId, fetchSize, row -> write(writer, String.join(",",
+                String.valueOf(row.orderId()),
+                csvValue(row.createdAt()),
+                csvValue(row.status()),
+                csvValue(row.totalPrice()),
+                csvValue(row.productId()),
+                csvValue(row.productTitle()),
+                csvValue(row.quantity()),
+                csvValue(row.price())) + "\n"));
+    }
+
+    /**
+     * Пишет по одному JSON-объекту на заказ. Позиции заказа идут подряд,
+     * поэтому в памяти одновременно находится только один заказ.
+     */
+    private void writeNdjson(String userLogin, Long userId, Writer writer) {
+        OrderDTO[] current = new OrderDTO[1];
+        orderRepository.streamExportRows(userId, fetchSize, row -> {
+            if (current[0] != null && !current[0].getId().equals(row.orderId())) {
+                write(writer, toJsonLine(current[0]));
+                current[0] = null;
+            }
+            if (current[0] == null) {
+                current[0] = OrderDTO.builder()
+                        .id(row.orderId())
+                        .userLogin(userLogin)
+                        .createdAt(row.createdAt())
+                        .status(OrderStatus.valueOf(row.status()))
+                        .totalPrice(row.totalPrice())
+                        .items(new ArrayList<>())
+                        .build();
+            }
+            if (row.productId() != null) {
+                current[0].getItems().add(OrderItemDTO.builder()
+                        .productId(row.productId())
+                        .productName(row.productTitle())
+                        .quantity(row.quantity())
+                        .price(row.price())
+                        .build());
+            }
+        });
+        if (current[0] != null) {
+            write(writer, toJsonLine(current[0]));
+        }
+    }
+
+    private String toJsonLine(OrderDTO order) {
+        try {
+            return objectMapper.writeValueAsString(order) + "\n";
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void write(Writer writer, String line) {
+        try {
+            writer.write(line);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String csvValue(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        // Текст, начинающийся с символа формулы, табличный редактор выполнит при открытии файла
+        if (value instanceof CharSequence && !text.isEmpty() && FORMULA_PREFIXES.indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.contains(",") || text.contains("\"") || text.contains("\n") || text.contains("\r")) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+}
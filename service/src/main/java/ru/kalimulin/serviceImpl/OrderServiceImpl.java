@@ -4,6 +4,8 @@ import jakarta.servlet.http.HttpSession;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.kalimulin.customExceptions.addressExceptions.AddressNotFoundException;
@@ -11,31 +13,40 @@ import ru.kalimulin.customExceptions.addressExceptions.AddressNotProvidedExcepti
 import ru.kalimulin.customExceptions.addressExceptions.UserHasNoAddressException;
 import ru.kalimulin.customExceptions.cartExceptions.CartIsEmptyException;
 import ru.kalimulin.customExceptions.cartExceptions.CartNotFoundException;
+import ru.kalimulin.customExceptions.orderExceptions.InvalidOrderCursorException;
 import ru.kalimulin.customExceptions.orderExceptions.OrderCannotBeDeletedException;
 import ru.kalimulin.customExceptions.orderExceptions.OrderNotFoundException;
 import ru.kalimulin.customExceptions.orderExceptions.UnauthorizedOrderDeletionException;
 import ru.kalimulin.customExceptions.productExceptions.NotEnoughStockException;
 import ru.kalimulin.customExceptions.productExceptions.ProductNotFoundException;
 import ru.kalimulin.customExceptions.userExceptions.UnauthorizedAccessException;
-import ru.kalimulin.customExceptions.userExceptions.UserNotFoundException;
 import ru.kalimulin.customExceptions.walletExceptions.PaymentProcessingException;
 import ru.kalimulin.customExceptions.walletExceptions.WalletNotFoundException;
 import ru.kalimulin.dto.kafkaEventDTO.EmailNotificationEvent;
 import ru.kalimulin.dto.orderDTO.OrderDTO;
+import ru.kalimulin.dto.orderDTO.OrderPageDTO;
+import ru.kalimulin.enums.LedgerOperation;
 import ru.kalimulin.enums.OrderStatus;
-import ru.kalimulin.kafka.InventoryEventProducer;
 import ru.kalimulin.kafka.KafkaEmailEventPublisher;
 import ru.kalimulin.mappers.orderMapper.OrderMapper;
 import ru.kalimulin.models.*;
+import ru.kalimulin.projections.ProductSaleView;
 import ru.kalimulin.repositories.*;
 import ru.kalimulin.service.CartService;
 import ru.kalimulin.service.OrderService;
+import ru.kalimulin.service.StockReservationService;
+import ru.kalimulin.service.WalletLedgerService;
 import ru.kalimulin.stubService.PaymentService;
+import ru.kalimulin.util.SessionUser;
 import ru.kalimulin.util.SessionUtils;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -48,10 +59,16 @@ public class OrderServiceImpl implements OrderService {
     private final PaymentService paymentService;
     private final CartService cartService;
     private final ProductRepository productRepository;
-    private final WalletRepository walletRepository;
+    private final WalletLedgerService walletLedgerService;
     private final AddressRepository addressRepository;
-    private final InventoryEventProducer inventoryEventProducer;
     private final KafkaEmailEventPublisher kafkaOrderEventPublisher;
+    private final StockReservationService stockReservationService;
+
+    @Value("${shop.orders.page.default-size:20}")
+    private int defaultPageSize;
+
+    @Value("${shop.orders.page.max-size:100}")
+    private int maxPageSize;
 
     private static final Logger logger = LoggerFactory.getLogger(OrderServiceImpl.class);
 
@@ -59,39 +76,39 @@ public class OrderServiceImpl implements OrderService {
     @Override
     public OrderDTO createOrder(HttpSession session) {
         logger.info("Попытка создать заказ");
-        String userLogin = SessionUtils.getUserLogin(session);
-        User user = userRepository.findByLogin(userLogin)
-                .orElseThrow(() -> new UserNotFoundException("Пользователь с логином " + userLogin + " не найден"));
+        SessionUser sessionUser = SessionUtils.getUser(session);
 
-        Cart cart = cartRepository.findByUser(user)
-                .orElseThrow(() -> new CartNotFoundException("Корзина пользователя " + userLogin + " не найдена"));
+        // Корзина может храниться вне базы с отложенной записью - дописываем ее перед чтением
+        cartService.flushCart(session);
+        Cart cart = cartRepository.findByUserId(sessionUser.id())
+                .orElseThrow(() -> new CartNotFoundException("Корзина пользователя " + sessionUser.login() + " не найдена"));
 
-        Order order = createOrderFromCart(user, cart.getTotalPrice(), cart);
+        Order order = createOrderFromCart(userRepository.getReferenceById(sessionUser.id()), cart.getTotalPrice(), cart);
+
+        // Резервируем товары до оплаты, чтобы их не выкупили другие покупатели
+        order.setReservedUntil(stockReservationService.reserve(countQuantities(order.getItems())));
 
         order = orderRepository.save(order);
 
         logger.info("Заказ успешно создан");
 
-        return orderMapper.toOrderDTO(order);
+        return orderMapper.toOrderDTO(order, sessionUser.login());
     }
 
     @Transactional
     @Override
     public OrderDTO paymentOrder(Long orderId, HttpSession session, Long addressId) {
         logger.info("Попытка оплатить заказ");
-        String userLogin = SessionUtils.getUserLogin(session);
-        User user = userRepository.findByLogin(userLogin)
-                .orElseThrow(() -> new UserNotFoundException("Пользователь с логином " + userLogin + " не найден"));
+        SessionUser sessionUser = SessionUtils.getUser(session);
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new OrderNotFoundException("Заказ с ID " + orderId + " не найден"));
 
-        if (!order.getUser().equals(user)) {
+        if (!order.getUser().getId().equals(sessionUser.id())) {
             throw new PaymentProcessingException("Вы не можете оплатить чужой заказ!");
         }
 
         // Проверяем, есть ли у пользователя хотя бы один адрес
-        List<Address> userAddresses = addressRepository.findAddressByUser(user);
-        if (userAddresses.isEmpty()) {
+        if (!addressRepository.existsByUserId(sessionUser.id())) {
             throw new UserHasNoAddressException("У вас нет сохраненного адреса. Добавьте адрес перед оплатой.");
         }
 
@@ -103,41 +120,51 @@ public class OrderServiceImpl implements OrderService {
         // Проверяем, принадлежит ли указанный адрес пользователю
         Address deliveryAddress = addressRepository.findById(addressId)
                 .orElseThrow(() -> new AddressNotFoundException("Адрес с ID " + addressId + " не найден."));
-        if (!deliveryAddress.getUser().equals(user)) {
+        if (!deliveryAddress.getUser().getId().equals(sessionUser.id())) {
             throw new UnauthorizedAccessException("Вы не можете использовать этот адрес.");
         }
 
-        boolean paymentSuccess = paymentService.processPayment(user, order.getTotalPrice());
+        boolean paymentSuccess = paymentService.processPayment(order.getUser(), order.getTotalPrice());
 
         if (paymentSuccess) {
             order.setStatus(OrderStatus.PAID);
 
-            for (OrderItem item : order.getItems()) {
-                Product product = productRepository.findById(item.getProduct().getId())
-                        .orElseThrow(() -> new ProductNotFoundException("Товар не найден"));
-
-                if (product.getStocks() < item.getQuantity()) {
-                    throw new NotEnoughStockException("Недостаточно товара на складе: " + product.getTitle());
-                }
+            List<OrderItem> items = order.getItems();
 
-                User seller = product.getOwner();
-                Wallet sellerWallet = walletRepository.findByUser(seller)
-                        .orElseThrow(() -> new WalletNotFoundException("Кошелек продавца не найден"));
+            Map<Long, Integer> quantities = countQuantities(items);
 
-                sellerWallet.setBalance(sellerWallet.getBalance()
-                        .add(BigDecimal.valueOf(item.getQuantity()).multiply(item.getPrice())));
+            // Товары вместе с продавцами загружаем одним запросом
+            Map<Long, ProductSaleView> products = productRepository.findSaleViewsByIdIn(quantities.keySet()).stream()
+                    .collect(Collectors.toMap(ProductSaleView::getId, Function.identity()));
+            if (products.size() != quantities.size()) {
+                throw new ProductNotFoundException("Товар не найден");
+            }
 
-                walletRepository.save(sellerWallet);
+            // Превращаем резерв в продажу; если резерв истек, остатки списываются заново
+            Set<Long> outOfStock = stockReservationService.convertToSale(order.getId(), quantities);
+            if (!outOfStock.isEmpty()) {
+                String titles = outOfStock.stream()
+                        .map(productId -> products.get(productId).getTitle())
+                        .collect(Collectors.joining(", "));
+                throw new NotEnoughStockException("Недостаточно товара на складе: " + titles);
+            }
 
-                // Увеличиваем количество продаж
-                product.setSalesCount(product.getSalesCount() + item.getQuantity());
+            // Суммируем выручку по продавцам и добавляем ее в журнал одним батчем, не блокируя кошельки продавцов
+            Map<Long, BigDecimal> sellerCredits = new HashMap<>();
+            for (OrderItem item : items) {
+                sellerCredits.merge(products.get(item.getProduct().getId()).getOwnerId(),
+                        BigDecimal.valueOf(item.getQuantity()).multiply(item.getPrice()), BigDecimal::add);
+            }
+            if (!walletLedgerService.creditUsers(sellerCredits, LedgerOperation.SALE).isEmpty()) {
+                throw new WalletNotFoundException("Кошелек продавца не найден");
+            }
 
-                // Отправка Kafka-события для обновления остатков товара
-                inventoryEventProducer.sendInventoryUpdate(product.getId(), item.getQuantity());
+            for (OrderItem item : items) {
+                ProductSaleView product = products.get(item.getProduct().getId());
 
                 // Отправляем Kafka-событие для продавца
                 EmailNotificationEvent emailEvent = new EmailNotificationEvent(
-                        seller.getEmail(),
+                        product.getOwnerEmail(),
                         product.getTitle(),
                         item.getQuantity(),
                         deliveryAddress.toString()
@@ -145,10 +172,11 @@ public class OrderServiceImpl implements OrderService {
                 kafkaOrderEventPublisher.sendEmailNotification(emailEvent);
             }
 
+            order.setReservedUntil(null);
             orderRepository.save(order);
 
             cartService.clearCart(session);
-            return orderMapper.toOrderDTO(order);
+            return orderMapper.toOrderDTO(order, sessionUser.login());
         } else {
             throw new PaymentProcessingException("Ошибка при обработке платежа");
         }
@@ -158,41 +186,87 @@ public class OrderServiceImpl implements OrderService {
     @Override
     public List<OrderDTO> getUserOrders(HttpSession session) {
         logger.info("Попытка получить список заказов пользователя");
-        String userLogin = SessionUtils.getUserLogin(session);
-        User user = userRepository.findByLogin(userLogin)
-                .orElseThrow(() -> new UserNotFoundException("Пользователь с логином " + userLogin + " не найден"));
+        SessionUser sessionUser = SessionUtils.getUser(session);
 
-        List<Order> userOrders = orderRepository.findByUser(user)
-                .orElseThrow(() -> new OrderNotFoundException("История покупок не найдена"));
+        List<Order> userOrders = orderRepository.findAllByUserId(sessionUser.id());
 
         logger.info("Заказы успешно получены");
-        return orderMapper.toListOrderDTO(userOrders);
+        return orderMapper.toListOrderDTO(userOrders, sessionUser.login());
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public OrderPageDTO getUserOrdersPage(HttpSession session, LocalDateTime afterCreatedAt, Long afterId, Integer size) {
+        logger.info("Попытка получить страницу заказов пользователя");
+        if ((afterCreatedAt == null) != (afterId == null)) {
+            throw new InvalidOrderCursorException("Курсор страницы должен содержать и дату создания, и id заказа");
+        }
+
+        SessionUser sessionUser = SessionUtils.getUser(session);
+
+        int pageSize = size == null || size <= 0 ? defaultPageSize : Math.min(size, maxPageSize);
+
+        // Запрашиваем на один заказ больше, чтобы узнать, есть ли следующая страница
+        Limit limit = Limit.of(pageSize + 1);
+        List<Order> orders = afterId == null
+                ? orderRepository.findFirstPageByUserId(sessionUser.id(), limit)
+                : orderRepository.findPageByUserIdAfter(sessionUser.id(), afterCreatedAt, afterId, limit);
+
+        boolean hasMore = orders.size() > pageSize;
+        if (hasMore) {
+            orders = orders.subList(0, pageSize);
+        }
+
+        if (!orders.isEmpty()) {
+            // Позиции и товары всех заказов страницы подгружаются в те же сущности одним запросом
+            orderRepository.findWithItemsByIdIn(orders.stream().map(Order::getId).toList());
+        }
+
+        Order last = orders.isEmpty() ? null : orders.get(orders.size() - 1);
+        logger.info("Страница заказов успешно получена");
+        return OrderPageDTO.builder()
+                .orders(orderMapper.toListOrderDTO(orders, sessionUser.login()))
+                .hasMore(hasMore)
+                .nextCreatedAt(hasMore ? last.getCreatedAt() : null)
+                .nextId(hasMore ? last.getId() : null)
+                .build();
     }
 
     @Transactional
     @Override
     public void deleteUnpaidOrder(Long id, HttpSession session) {
         logger.info("Попытка удалить заказ по id {}", id);
-        String userLogin = SessionUtils.getUserLogin(session);
-        User user = userRepository.findByLogin(userLogin)
-                .orElseThrow(() -> new UserNotFoundException("Пользователь с логином " + userLogin + " не найден"));
+        Long userId = SessionUtils.getUserId(session);
 
         Order order = orderRepository.findById(id)
                 .orElseThrow(() -> new OrderNotFoundException("Заказ с таким id " + id + " не найден"));
 
-        if (!user.equals(order.getUser())) {
+        if (!order.getUser().getId().equals(userId)) {
             throw new UnauthorizedOrderDeletionException("Вы не можете удалить не свой заказ");
         }
 
         if (order.getStatus() == OrderStatus.PENDING) {
-            logger.info("Заказ успешно удален");
+            stockReservationService.release(order);
             orderRepository.delete(order);
+            logger.info("Заказ успешно удален");
         } else {
             logger.warn("Пользователь пытается удалить оплаченный заказ");
             throw new OrderCannotBeDeletedException("Можно удалить только неоплаченный заказ");
         }
     }
 
+    /**
+     * Считает количество каждого товара в позициях заказа.
+     *
+     * @param items позиции заказа.
+     * @return количество по идентификатору товара.
+     */
+    private Map<Long, Integer> countQuantities(List<OrderItem> items) {
+        return items.stream()
+                .collect(Collectors.groupingBy(item -> item.getProduct().getId(),
+                        Collectors.summingInt(OrderItem::getQuantity)));
+    }
+
     /**
      * Создает новый заказ на основе содержимого корзины пользователя.
      *
@@ -0,0 +1,152 @@
+package ru.kalimulin.serviceImpl;
+
+import jakarta.servlet.http.HttpSession;
+import org.mindrot.jbcrypt.BCrypt;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.kalimulin.customExceptions.walletExceptions.InvalidPinException;
+import ru.kalimulin.customExceptions.walletExceptions.PinVerificationUnavailableException;
+import ru.kalimulin.service.PinVerificationService;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.*;
+
+@Service
+public class PinVerificationServiceImpl implements PinVerificationService {
+    private static final String VERIFIED_PIN_ATTRIBUTE = "verifiedPin";
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final ExecutorService pinVerificationExecutor;
+    private final SecretKeySpec sessionKey;
+
+    @Value("${shop.wallet.pin.timeout:2s}")
+    private Duration timeout;
+
+    @Value("${shop.wallet.pin.verified-ttl:5m}")
+    private Duration verifiedTtl;
+
+    private static final Logger logger = LoggerFactory.getLogger(PinVerificationServiceImpl.class);
+
+    /**
+     * @param sessionSecret ключ HMAC для отметок о проверенном PIN-коде, общий для всех экземпляров.
+     *                      Если он не задан, ключ генерируется при запуске: отметки, выданные другим экземпляром,
+     *                      тогда не совпадут и PIN-код будет проверен через BCrypt заново.
+     */
+    public PinVerificationServiceImpl(@Qualifier("pinVerificationExecutor") ExecutorService pinVerificationExecutor,
+                                      @Value("${shop.wallet.pin.session-secret:}") String sessionSecret) {
+        this.pinVerificationExecutor = pinVerificationExecutor;
+        byte[] key = sessionSecret.isBlank() ? new byte[32] : sessionSecret.getBytes(StandardCharsets.UTF_8);
+        if (sessionSecret.isBlank()) {
+            new SecureRandom().nextBytes(key);
+        }
+        this.sessionKey = new SecretKeySpec(key, HMAC_ALGORITHM);
+    }
+
+    @Override
+    public void verify(HttpSession session, Long walletId, String pinHash, String pin) {
+        byte[] pinDigest = pinDigest(walletId, pinHash, pin);
+
+        // Отметка позволяет пропустить только BCrypt: введенный PIN-код все равно сравнивается с ней
+        if (session.getAttribute(VERIFIED_PIN_ATTRIBUTE) instanceof VerifiedPin verified
+                && verified.isValidFor(walletId, pinDigest)) {
+            return;
+        }
+
+        if (!matches(pin, pinHash)) {
+            revoke(session);
+            throw new InvalidPinException("Пин-код не прошел проверку");
+        }
+
+        session.setAttribute(VERIFIED_PIN_ATTRIBUTE,
+                new VerifiedPin(walletId, pinDigest, Instant.now().plus(verifiedTtl)));
+    }
+
+    @Override
+    public boolean matches(String pin, String pinHash) {
+        return execute(() -> BCrypt.checkpw(pin, pinHash));
+    }
+
+    @Override
+    public String hash(String pin) {
+        return execute(() -> BCrypt.hashpw(pin, BCrypt.gensalt()));
+    }
+
+    @Override
+    public void revoke(HttpSession session) {
+        session.removeAttribute(VERIFIED_PIN_ATTRIBUTE);
+    }
+
+    /**
+     * HMAC-SHA256 от кошелька, хэша и введенного PIN-кода на ключе приложения.
+     * Хэш PIN-кода входит в отпечаток, поэтому смена PIN делает отметку недействительной,
+     * а без ключа по отпечатку из хранилища сессий PIN-код не подобрать.
+     */
+    private byte[] pinDigest(Long walletId, String pinHash, String pin) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(sessionKey);
+            mac.update(String.valueOf(walletId).getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            mac.update(pinHash.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return mac.doFinal(pin.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 недоступен", e);
+        }
+    }
+
+    /**
+     * Выполняет BCrypt в пуле проверки PIN-кодов и ждет результат не дольше настроенного времени.
+     * Если очередь пула заполнена или ожидание истекло, запрос отклоняется, а не занимает поток Tomcat.
+     * <p>
+     * {@code cancel(true)} снимает из очереди еще не начатую задачу, но BCrypt не проверяет прерывание:
+     * уже начатая проверка дорабатывает до конца и занимает поток пула. Поэтому объем незавершенной работы
+     * ограничен числом потоков и длиной очереди ({@code shop.wallet.pin.threads} и {@code queue-capacity}),
+     * сверх этого запросы отклоняются сразу.
+     */
+    private <T> T execute(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = pinVerificationExecutor.submit(task);
+        } catch (RejectedExecutionException e) {
+            logger.warn("Очередь проверки PIN-кодов переполнена");
+            throw new PinVerificationUnavailableException("Сервис проверки PIN-кода перегружен. Повторите попытку позже");
+        }
+
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            logger.warn("Превышено время ожидания проверки PIN-кода");
+            throw new PinVerificationUnavailableException("Сервис проверки PIN-кода перегружен. Повторите попытку позже");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PinVerificationUnavailableException("Проверка PIN-кода прервана");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Ошибка проверки PIN-кода", e.getCause());
+        }
+    }
+
+    /**
+     * Отметка о проверенном PIN-коде: отпечаток PIN-кода (см. {@link #pinDigest}) и срок действия.
+     */
+    private record VerifiedPin(Long walletId, byte[] pinDigest, Instant expiresAt) implements Serializable {
+        boolean isValidFor(Long walletId, byte[] pinDigest) {
+            return this.walletId.equals(walletId)
+                    && MessageDigest.isEqual(this.pinDigest, pinDigest)
+                    && Instant.now().isBefore(expiresAt);
+        }
+    }
+}
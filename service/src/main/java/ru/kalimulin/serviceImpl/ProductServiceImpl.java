@@ -22,6 +22,7 @@ import ru.kalimulin.dto.productDTO.ProductResponseDTO;
 import ru.kalimulin.dto.productDTO.ProductUpdateDTO;
 import ru.kalimulin.enums.ProductStatus;
 import ru.kalimulin.enums.RoleName;
+import ru.kalimulin.kafka.ProductPriceEventProducer;
 import ru.kalimulin.mappers.imageMapper.ImageMapper;
 import ru.kalimulin.mappers.productMapper.ProductMapper;
 import ru.kalimulin.models.Category;
@@ -49,6 +50,7 @@ public class ProductServiceImpl implements ProductService {
     private final ProductMapper productMapper;
     private final ImageMapper imageMapper;
     private final CacheService cacheService;
+    private final ProductPriceEventProducer productPriceEventProducer;
 
     private static final Logger logger = LoggerFactory.getLogger(ProductServiceImpl.class);
 
@@ -162,6 +164,8 @@ public class ProductServiceImpl implements ProductService {
         if (productUpdateDTO.getDescription() != null) {
             product.setDescription(productUpdateDTO.getDescription());
         }
+        boolean priceChanged = productUpdateDTO.getPrice() != null
+                && productUpdateDTO.getPrice().compareTo(product.getPrice()) != 0;
         if (productUpdateDTO.getPrice() != null) {
             product.setPrice(productUpdateDTO.getPrice());
         }
@@ -189,6 +193,10 @@ public class ProductServiceImpl implements ProductService {
             product.setCategory(newCategory);
         }
         productRepository.save(product);
+        if (priceChanged) {
+            // Стоимость корзин с этим товаром пересчитывается в фоне
+            productPriceEventProducer.sendPriceChanged(id);
+        }
         logger.info("Товар с id {} успешно обновлен", id);
 
         return productMapper.toProductResponseDTO(product);
@@ -21,6 +21,7 @@ import ru.kalimulin.repositories.UserRepository;
 import ru.kalimulin.service.RoleService;
 import ru.kalimulin.stubService.PaymentService;
 import ru.kalimulin.util.SessionUtils;
+import ru.kalimulin.util.UserRoleCache;
 
 import java.math.BigDecimal;
 
@@ -31,6 +32,7 @@ public class RoleServiceImpl implements RoleService {
     private final UserRepository userRepository;
     private final PaymentService paymentService;
     private final UserMapper userMapper;
+    private final UserRoleCache userRoleCache;
 
     private static final Logger logger = LoggerFactory.getLogger(RoleServiceImpl.class);
     private static final BigDecimal SELLER_ROLE_PRICE = BigDecimal.valueOf(999.99);
@@ -56,6 +58,7 @@ public class RoleServiceImpl implements RoleService {
         user.getRoles().add(sellerRole);
 
         userRepository.save(user);
+        userRoleCache.evict(user.getLogin());
 
         logger.info("Пользователь успешно приобрел роль SELLER");
         return userMapper.toUserResponseDTO(user);
@@ -80,6 +83,7 @@ public class RoleServiceImpl implements RoleService {
 
         user.getRoles().add(adminRole);
         userRepository.save(user);
+        userRoleCache.evict(user.getLogin());
 
         logger.info("Пользователь теперь является администратором");
         return userMapper.toUserResponseDTO(user);
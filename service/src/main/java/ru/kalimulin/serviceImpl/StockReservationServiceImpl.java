@@ -0,0 +1,91 @@
+package ru.kalimulin.serviceImpl;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.kalimulin.customExceptions.productExceptions.NotEnoughStockException;
+import ru.kalimulin.models.Order;
+import ru.kalimulin.models.OrderItem;
+import ru.kalimulin.projections.ProductQuantityView;
+import ru.kalimulin.repositories.OrderItemRepository;
+import ru.kalimulin.repositories.OrderRepository;
+import ru.kalimulin.repositories.ProductRepository;
+import ru.kalimulin.service.StockReservationService;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class StockReservationServiceImpl implements StockReservationService {
+    private final ProductRepository productRepository;
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+
+    @Value("${shop.reservation.ttl:15m}")
+    private Duration reservationTtl;
+
+    @Value("${shop.reservation.sweep-batch-size:100}")
+    private int sweepBatchSize;
+
+    private static final Logger logger = LoggerFactory.getLogger(StockReservationServiceImpl.class);
+
+    @Transactional
+    @Override
+    public LocalDateTime reserve(Map<Long, Integer> quantities) {
+        Set<Long> rejected = productRepository.reserveStocksBatch(quantities);
+        if (!rejected.isEmpty()) {
+            logger.warn("Недостаточно товара для резерва: {}", rejected);
+            throw new NotEnoughStockException("Недостаточно товара на складе");
+        }
+        return LocalDateTime.now().plus(reservationTtl);
+    }
+
+    @Transactional
+    @Override
+    public Set<Long> convertToSale(Long orderId, Map<Long, Integer> quantities) {
+        if (orderRepository.releaseReservation(orderId)) {
+            // Остатки уже списаны при резервировании, осталось учесть продажи
+            productRepository.increaseSalesCountBatch(quantities);
+            return Collections.emptySet();
+        }
+
+        logger.info("Резерв заказа {} истек, товары списываются повторно", orderId);
+        return productRepository.decreaseStocksBatch(quantities);
+    }
+
+    @Transactional
+    @Override
+    public void release(Order order) {
+        if (orderRepository.releaseReservation(order.getId())) {
+            productRepository.returnStocksBatch(order.getItems().stream()
+                    .collect(Collectors.groupingBy(item -> item.getProduct().getId(),
+                            Collectors.summingInt(OrderItem::getQuantity))));
+            logger.info("Резерв заказа {} снят", order.getId());
+        }
+    }
+
+    @Transactional
+    @Override
+    public int releaseExpired() {
+        List<Long> orderIds = orderRepository.claimExpiredReservations(LocalDateTime.now(), sweepBatchSize);
+        if (orderIds.isEmpty()) {
+            return 0;
+        }
+
+        // Возвращаем товары всех заказов пачки одним батчем
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (ProductQuantityView view : orderItemRepository.sumQuantitiesByOrderIds(orderIds)) {
+            quantities.put(view.getProductId(), Math.toIntExact(view.getQuantity()));
+        }
+        productRepository.returnStocksBatch(quantities);
+
+        logger.info("Сняты истекшие резервы заказов: {}", orderIds.size());
+        return orderIds.size();
+    }
+}
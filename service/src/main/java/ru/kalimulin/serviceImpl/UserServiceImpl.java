@@ -19,7 +19,9 @@ import ru.kalimulin.models.User;
 import ru.kalimulin.repositories.RoleRepository;
 import ru.kalimulin.repositories.UserRepository;
 import ru.kalimulin.service.UserService;
+import ru.kalimulin.util.SessionUser;
 import ru.kalimulin.util.SessionUtils;
+import ru.kalimulin.util.UserRoleCache;
 
 import java.util.HashSet;
 import java.util.List;
@@ -32,6 +34,7 @@ public class UserServiceImpl implements UserService {
     private final RoleRepository roleRepository;
     private final UserMapper userMapper;
     private final PasswordEncoder passwordEncoder;
+    private final UserRoleCache userRoleCache;
 
     private static final Logger logger = LoggerFactory.getLogger(UserServiceImpl.class);
 
@@ -56,7 +59,7 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    public LoginResponseDTO authenticateUser(LoginRequestDTO loginRequestDTO) {
+    public LoginResponseDTO authenticateUser(LoginRequestDTO loginRequestDTO, HttpSession session) {
         logger.info("Попытка входа пользователя:");
         User user = findUserByLogin(loginRequestDTO.getLogin());
 
@@ -65,6 +68,8 @@ public class UserServiceImpl implements UserService {
             throw new InvalidEmailOrPasswordException("Неверный логин или пароль");
         }
 
+        SessionUtils.setUser(session, new SessionUser(user.getId(), user.getLogin(), user.getEmail()));
+
         logger.info("Успешный вход");
         return LoginResponseDTO.builder()
                 .message("Успешный вход!")
@@ -82,6 +87,8 @@ public class UserServiceImpl implements UserService {
         checkUserUniqueness(userUpdateDTO.getLogin(), userUpdateDTO.getEmail());
 
         if (userUpdateDTO.getLogin() != null) {
+            // Роли кэшируются по логину: старый логин может достаться другому пользователю
+            userRoleCache.evict(user.getLogin());
             user.setLogin(userUpdateDTO.getLogin());
         }
 
@@ -94,6 +101,8 @@ public class UserServiceImpl implements UserService {
         }
 
         userRepository.save(user);
+        // Логин и email в сессии должны совпадать с профилем, иначе следующие запросы не найдут пользователя
+        SessionUtils.setUser(session, new SessionUser(user.getId(), user.getLogin(), user.getEmail()));
         logger.info("Профиль пользователя обновлен");
         return userMapper.toUserResponseDTO(user);
     }
@@ -141,6 +150,7 @@ public class UserServiceImpl implements UserService {
 
         User user = findUserByLogin(userLogin);
         userRepository.delete(user);
+        userRoleCache.evict(userLogin);
 
         logger.info("Пользователь удален");
     }
@@ -0,0 +1,151 @@
+package ru.kalimulin.serviceImpl;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.kalimulin.customExceptions.walletExceptions.InsufficientFundsException;
+import ru.kalimulin.customExceptions.walletExceptions.WalletNotFoundException;
+import ru.kalimulin.enums.LedgerOperation;
+import ru.kalimulin.models.WalletLedgerEntry;
+import ru.kalimulin.projections.LedgerWatermark;
+import ru.kalimulin.repositories.WalletLedgerRepository;
+import ru.kalimulin.repositories.WalletRepository;
+import ru.kalimulin.service.WalletLedgerService;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Service
+@RequiredArgsConstructor
+public class WalletLedgerServiceImpl implements WalletLedgerService {
+    private final WalletLedgerRepository walletLedgerRepository;
+    private final WalletRepository walletRepository;
+
+    /**
+     * Граница следующего снимка, ожидающая завершения транзакций, которые писали в журнал при ее получении.
+     * Снимок по неподтвержденной границе пропустил бы записи, зафиксированные позже записей с большими id.
+     */
+    private volatile LedgerWatermark pendingWatermark;
+
+    private static final Logger logger = LoggerFactory.getLogger(WalletLedgerServiceImpl.class);
+
+    @Transactional(readOnly = true)
+    @Override
+    public BigDecimal getBalance(Long walletId) {
+        return walletLedgerRepository.currentBalance(walletId)
+                .orElseThrow(() -> new WalletNotFoundException("Кошелек пользователя не найден"));
+    }
+
+    @Transactional
+    @Override
+    public BigDecimal credit(Long walletId, BigDecimal amount, LedgerOperation operation) {
+        walletLedgerRepository.appendBatch(List.of(entry(walletId, amount, operation)));
+        return getBalance(walletId);
+    }
+
+    @Transactional
+    @Override
+    public BigDecimal debit(Long walletId, BigDecimal amount, LedgerOperation operation) {
+        BigDecimal balance = lockAndCheckBalance(walletId, amount);
+        walletLedgerRepository.appendBatch(List.of(entry(walletId, amount.negate(), operation)));
+        return balance.subtract(amount);
+    }
+
+    @Transactional
+    @Override
+    public void transfer(Long senderWalletId, Long recipientWalletId, BigDecimal amount) {
+        lockAndCheckBalance(senderWalletId, amount);
+        walletLedgerRepository.appendBatch(List.of(
+                entry(senderWalletId, amount.negate(), LedgerOperation.TRANSFER_OUT),
+                entry(recipientWalletId, amount, LedgerOperation.TRANSFER_IN)));
+    }
+
+    @Transactional
+    @Override
+    public void applyBatch(Map<Long, BigDecimal> amountsByWalletId, LedgerOperation creditOperation,
+                           LedgerOperation debitOperation) {
+        List<Long> debitWalletIds = amountsByWalletId.entrySet().stream()
+                .filter(entry -> entry.getValue().signum() < 0)
+                .map(Map.Entry::getKey)
+                .sorted()
+                .toList();
+
+        if (!debitWalletIds.isEmpty()) {
+            if (walletRepository.lockByIdIn(debitWalletIds).size() != debitWalletIds.size()) {
+                throw new WalletNotFoundException("Кошелек для списания не найден");
+            }
+            Map<Long, BigDecimal> balances = walletLedgerRepository.currentBalances(debitWalletIds);
+            List<Long> insufficient = debitWalletIds.stream()
+                    .filter(walletId -> balances.get(walletId).add(amountsByWalletId.get(walletId)).signum() < 0)
+                    .toList();
+            if (!insufficient.isEmpty()) {
+                logger.warn("Недостаточно средств для пакетного списания на кошельках {}", insufficient);
+                throw new InsufficientFundsException("Недостаточно средств на кошельках: " + insufficient.size());
+            }
+        }
+
+        List<WalletLedgerEntry> entries = new ArrayList<>(amountsByWalletId.size());
+        amountsByWalletId.forEach((walletId, amount) -> entries.add(
+                entry(walletId, amount, amount.signum() < 0 ? debitOperation : creditOperation)));
+        walletLedgerRepository.appendBatch(entries);
+    }
+
+    @Transactional
+    @Override
+    public Set<Long> creditUsers(Map<Long, BigDecimal> amountsByUserId, LedgerOperation operation) {
+        return walletLedgerRepository.appendByUserIds(amountsByUserId, operation);
+    }
+
+    @Transactional
+    @Override
+    public int snapshotBalances() {
+        LedgerWatermark watermark = pendingWatermark;
+        int updated = 0;
+        if (watermark != null) {
+            if (!walletLedgerRepository.isWatermarkCommitted(watermark)) {
+                logger.info("Граница снимка {} ждет завершения транзакций журнала", watermark.lastEntryId());
+                return 0;
+            }
+            updated = walletLedgerRepository.snapshotBalances(watermark.lastEntryId());
+            if (updated > 0) {
+                logger.info("Обновлено снимков балансов: {}", updated);
+            }
+        }
+        pendingWatermark = walletLedgerRepository.captureWatermark()
+                .filter(next -> watermark == null || next.lastEntryId() > watermark.lastEntryId())
+                .orElse(null);
+        return updated;
+    }
+
+    /**
+     * Блокирует строку кошелька до конца транзакции и проверяет, что средств достаточно.
+     * Зачисления строку не блокируют, поэтому баланс под блокировкой может только вырасти.
+     *
+     * @return баланс кошелька до списания.
+     */
+    private BigDecimal lockAndCheckBalance(Long walletId, BigDecimal amount) {
+        if (walletRepository.lockByIdIn(List.of(walletId)).isEmpty()) {
+            throw new WalletNotFoundException("Кошелек пользователя не найден");
+        }
+
+        BigDecimal balance = getBalance(walletId);
+        if (balance.compareTo(amount) < 0) {
+            logger.warn("Недостаточно средств на кошельке {}", walletId);
+            throw new InsufficientFundsException("Недостаточно средств на кошельке");
+        }
+        return balance;
+    }
+
+    private static WalletLedgerEntry entry(Long walletId, BigDecimal amount, LedgerOperation operation) {
+        return WalletLedgerEntry.builder()
+                .walletId(walletId)
+                .amount(amount)
+                .operation(operation)
+                .build();
+    }
+}
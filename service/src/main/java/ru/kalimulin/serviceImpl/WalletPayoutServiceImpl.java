@@ -0,0 +1,111 @@
+package ru.kalimulin.serviceImpl;
+
+import jakarta.servlet.http.HttpSession;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.kalimulin.customExceptions.walletExceptions.InvalidPayoutException;
+import ru.kalimulin.customExceptions.walletExceptions.WalletNotFoundException;
+import ru.kalimulin.dto.kafkaEventDTO.WalletTransactionBatchEvent;
+import ru.kalimulin.dto.walletDTO.WalletPayoutLineDTO;
+import ru.kalimulin.dto.walletDTO.WalletPayoutRequestDTO;
+import ru.kalimulin.dto.walletDTO.WalletPayoutResultDTO;
+import ru.kalimulin.enums.LedgerOperation;
+import ru.kalimulin.kafka.WalletEventProducer;
+import ru.kalimulin.projections.WalletNumberView;
+import ru.kalimulin.repositories.WalletRepository;
+import ru.kalimulin.service.WalletLedgerService;
+import ru.kalimulin.service.WalletPayoutService;
+import ru.kalimulin.util.SessionUtils;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.*;
+
+@Service
+@RequiredArgsConstructor
+public class WalletPayoutServiceImpl implements WalletPayoutService {
+    private static final int MISSING_WALLETS_IN_MESSAGE = 10;
+
+    private final WalletRepository walletRepository;
+    private final WalletLedgerService walletLedgerService;
+    private final WalletEventProducer walletEventProducer;
+
+    @Value("${shop.wallet.payout.chunk-size:1000}")
+    private int chunkSize;
+
+    private static final Logger logger = LoggerFactory.getLogger(WalletPayoutServiceImpl.class);
+
+    @Transactional
+    @Override
+    public WalletPayoutResultDTO applyPayouts(WalletPayoutRequestDTO request, HttpSession session) {
+        String adminLogin = SessionUtils.getUserLogin(session);
+        logger.info("Пакетная выплата: {} строк", request.getLines().size());
+
+        // Суммируем строки по кошельку, порядок первого упоминания сохраняется для события
+        Map<String, BigDecimal> amountsByNumber = new LinkedHashMap<>();
+        for (WalletPayoutLineDTO line : request.getLines()) {
+            if (line.getAmount().signum() == 0) {
+                throw new InvalidPayoutException("Сумма выплаты для кошелька " + line.getWalletNumber()
+                        + " не может быть нулевой");
+            }
+            amountsByNumber.merge(line.getWalletNumber(), line.getAmount(), BigDecimal::add);
+        }
+        amountsByNumber.values().removeIf(amount -> amount.signum() == 0);
+
+        Map<String, Long> walletIds = findWalletIds(amountsByNumber.keySet());
+
+        Map<Long, BigDecimal> amountsByWalletId = new HashMap<>();
+        List<WalletTransactionBatchEvent.Line> lines = new ArrayList<>(amountsByNumber.size());
+        BigDecimal totalCredited = BigDecimal.ZERO;
+        BigDecimal totalDebited = BigDecimal.ZERO;
+        for (Map.Entry<String, BigDecimal> entry : amountsByNumber.entrySet()) {
+            BigDecimal amount = entry.getValue();
+            amountsByWalletId.put(walletIds.get(entry.getKey()), amount);
+            lines.add(new WalletTransactionBatchEvent.Line(entry.getKey(), amount));
+            if (amount.signum() > 0) {
+                totalCredited = totalCredited.add(amount);
+            } else {
+                totalDebited = totalDebited.add(amount.negate());
+            }
+        }
+
+        walletLedgerService.applyBatch(amountsByWalletId, LedgerOperation.PAYOUT, LedgerOperation.CHARGE);
+
+        walletEventProducer.sendWalletTransactionBatch(new WalletTransactionBatchEvent(
+                "PAYOUT", adminLogin, lines, totalCredited, totalDebited, Instant.now()));
+
+        logger.info("Пакетная выплата применена: кошельков {}, зачислено {}, списано {}",
+                lines.size(), totalCredited, totalDebited);
+        return new WalletPayoutResultDTO(lines.size(), totalCredited, totalDebited);
+    }
+
+    /**
+     * Получает идентификаторы кошельков по номерам запросами по {@code chunkSize} номеров.
+     *
+     * @throws WalletNotFoundException если хотя бы один номер не найден.
+     */
+    private Map<String, Long> findWalletIds(Collection<String> walletNumbers) {
+        List<String> numbers = new ArrayList<>(walletNumbers);
+        Map<String, Long> walletIds = new HashMap<>(numbers.size());
+        for (int from = 0; from < numbers.size(); from += chunkSize) {
+            List<String> chunk = numbers.subList(from, Math.min(from + chunkSize, numbers.size()));
+            for (WalletNumberView view : walletRepository.findNumberViewsByWalletNumberIn(chunk)) {
+                walletIds.put(view.getWalletNumber(), view.getId());
+            }
+        }
+
+        if (walletIds.size() != numbers.size()) {
+            List<String> missing = numbers.stream()
+                    .filter(number -> !walletIds.containsKey(number))
+                    .limit(MISSING_WALLETS_IN_MESSAGE)
+                    .toList();
+            logger.warn("Пакетная выплата: кошельки не найдены {}", missing);
+            throw new WalletNotFoundException("Кошельки не найдены: " + String.join(", ", missing));
+        }
+        return walletIds;
+    }
+}
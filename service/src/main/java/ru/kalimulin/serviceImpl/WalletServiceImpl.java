@@ -2,13 +2,11 @@ package ru.kalimulin.serviceImpl;
 
 import jakarta.servlet.http.HttpSession;
 import lombok.RequiredArgsConstructor;
-import org.mindrot.jbcrypt.BCrypt;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.kalimulin.customExceptions.userExceptions.UserNotFoundException;
-import ru.kalimulin.customExceptions.walletExceptions.InsufficientFundsException;
 import ru.kalimulin.customExceptions.walletExceptions.InvalidPinException;
 import ru.kalimulin.customExceptions.walletExceptions.PaymentProcessingException;
 import ru.kalimulin.customExceptions.walletExceptions.WalletNotFoundException;
@@ -18,6 +16,7 @@ import ru.kalimulin.dto.walletDTO.WalletCreateDTO;
 import ru.kalimulin.dto.walletDTO.WalletResponseDTO;
 import ru.kalimulin.dto.walletDTO.WalletUpdateBalanceDTO;
 import ru.kalimulin.dto.walletDTO.WalletUpdatePinDTO;
+import ru.kalimulin.enums.LedgerOperation;
 import ru.kalimulin.kafka.KafkaEmailEventPublisher;
 import ru.kalimulin.kafka.WalletEventProducer;
 import ru.kalimulin.mappers.walletMapper.WalletMapper;
@@ -25,12 +24,15 @@ import ru.kalimulin.models.User;
 import ru.kalimulin.models.Wallet;
 import ru.kalimulin.repositories.UserRepository;
 import ru.kalimulin.repositories.WalletRepository;
+import ru.kalimulin.service.PinVerificationService;
+import ru.kalimulin.service.WalletLedgerService;
 import ru.kalimulin.service.WalletService;
 import ru.kalimulin.stubService.PaymentService;
+import ru.kalimulin.util.SessionUser;
 import ru.kalimulin.util.SessionUtils;
+import ru.kalimulin.util.WalletNumberGenerator;
 
 import java.math.BigDecimal;
-import java.security.SecureRandom;
 import java.time.Instant;
 
 @Service
@@ -40,6 +42,9 @@ public class WalletServiceImpl implements WalletService {
     private final UserRepository userRepository;
     private final WalletMapper walletMapper;
     private final PaymentService paymentService;
+    private final WalletLedgerService walletLedgerService;
+    private final PinVerificationService pinVerificationService;
+    private final WalletNumberGenerator walletNumberGenerator;
     private final WalletEventProducer walletEventProducer;
     private final KafkaEmailEventPublisher kafkaEmailEventPublisher;
 
@@ -50,10 +55,13 @@ public class WalletServiceImpl implements WalletService {
     public WalletResponseDTO createWallet(WalletCreateDTO walletCreateDTO, HttpSession session) {
         logger.info("Создание нового кошелька для пользователя");
 
-        String walletNumber;
-        do {
-            walletNumber = generateWalletNumber();
-        } while (walletRepository.existsByWalletNumber(walletNumber));
+        // Новые номера не повторяются, но могут совпасть со случайными номерами, выданными до генератора;
+        // такие номера пропускаются, иначе сохранение упало бы на уникальности wallet_number
+        String walletNumber = walletNumberGenerator.next();
+        while (walletRepository.existsByWalletNumber(walletNumber)) {
+            logger.info("Номер кошелька уже занят, берем следующий");
+            walletNumber = walletNumberGenerator.next();
+        }
 
         User user = findUserByLogin(SessionUtils.getUserLogin(session));
 
@@ -61,7 +69,7 @@ public class WalletServiceImpl implements WalletService {
                 .walletNumber(walletNumber)
                 .user(user)
                 .balance(BigDecimal.ZERO)
-                .pin(hashPin(walletCreateDTO.getPin()))
+                .pin(pinVerificationService.hash(walletCreateDTO.getPin()))
                 .build();
 
         walletRepository.save(wallet);
@@ -75,68 +83,70 @@ public class WalletServiceImpl implements WalletService {
     public WalletResponseDTO getUserWallet(HttpSession session) {
         Wallet wallet = findWalletByUser(findUserByLogin(SessionUtils.getUserLogin(session)));
         logger.info("Запрос кошелька");
-        return walletMapper.toWalletResponseDTO(wallet);
+        WalletResponseDTO walletResponseDTO = walletMapper.toWalletResponseDTO(wallet);
+        walletResponseDTO.setBalance(walletLedgerService.getBalance(wallet.getId()));
+        return walletResponseDTO;
     }
 
     @Transactional
     @Override
     public void transfer(String walletNumber, BigDecimal amount, String pin, HttpSession session) {
-        String senderLogin = SessionUtils.getUserLogin(session);
+        SessionUser sender = SessionUtils.getUser(session);
 
-        User sender = userRepository.findByLogin(senderLogin)
-                .orElseThrow(() -> {
-                    logger.error("Не найден пользователь");
-                    return new UserNotFoundException("Пользователь с логином " + senderLogin + "не найден");
-                });
+        Long senderWalletId = findWalletIdByUserId(sender.id());
 
-        Wallet senderWallet = walletRepository.findByUser(sender)
-                .orElseThrow(() -> {
-                    logger.error("Кошелек пользователя не найден");
-                    return new WalletNotFoundException("Кошелек пользователя не найден");
-                });
-
-
-        Wallet recipientWallet = walletRepository.findByWalletNumber(walletNumber)
+        Long recipientWalletId = walletRepository.findIdByWalletNumber(walletNumber)
                 .orElseThrow(() -> {
                     logger.error("Кошелек с номером не найден");
                     return new WalletNotFoundException("Кошелька с номером " + walletNumber + " не существует");
                 });
 
-        validPin(senderWallet, pin); //Проверка пин
-
-        if (senderWallet.getBalance().compareTo(amount) < 0) {
-            logger.error("Недостаточно средств у пользователя");
-            throw new InsufficientFundsException("Недостаточно средств на кошельке");
-        }
+        // PIN проверяем до блокировки, чтобы не держать строку кошелька во время хэширования
+        pinVerificationService.verify(session, senderWalletId, walletRepository.findPinById(senderWalletId)
+                .orElseThrow(() -> new WalletNotFoundException("Кошелек пользователя не найден")), pin);
 
-        senderWallet.setBalance(senderWallet.getBalance().subtract(amount));
-        recipientWallet.setBalance(recipientWallet.getBalance().add(amount));
+        // Списание под блокировкой кошелька отправителя, зачисление получателю - запись в журнал без блокировки
+        walletLedgerService.transfer(senderWalletId, recipientWalletId, amount);
 
-        walletRepository.save(senderWallet);
-        walletRepository.save(recipientWallet);
+        Wallet senderWallet = walletRepository.findById(senderWalletId)
+                .orElseThrow(() -> new WalletNotFoundException("Кошелек пользователя не найден"));
+        Wallet recipientWallet = walletRepository.findById(recipientWalletId)
+                .orElseThrow(() -> new WalletNotFoundException("Кошелек получателя не найден"));
 
         logger.info("Перевод");
 
         WalletNotificationEvent walletNotificationEventToSender = new WalletNotificationEvent(
-                sender.getEmail(), "Успешный исходящий перевод",
+                senderWallet.getUser().getEmail(), "Успешный исходящий перевод",
                 "Вы успешно перевели средства на " + walletNumber + " Время операции " + Instant.now()
         );
         kafkaEmailEventPublisher.sendWalletNotification(walletNotificationEventToSender);
 
         WalletNotificationEvent walletNotificationEvent = new WalletNotificationEvent(
                 recipientWallet.getUser().getEmail(), "Успешный входящий перевод",
-                "Ваш баланс пополнен на сумму: " + amount + ". Текущий баланс: " + recipientWallet.getBalance()
+                "Ваш баланс пополнен на сумму: " + amount + ". Текущий баланс: "
+                        + walletLedgerService.getBalance(recipientWalletId)
         );
         kafkaEmailEventPublisher.sendWalletNotification(walletNotificationEvent);
 
-        WalletTransactionEvent event = new WalletTransactionEvent(
-                "TRANSFER",
-                senderLogin,
+        // Списание и зачисление публикуются отдельными событиями с ключами своих кошельков,
+        // чтобы порядок операций сохранялся и у отправителя, и у получателя
+        Instant timestamp = Instant.now();
+        walletEventProducer.sendWalletTransaction(new WalletTransactionEvent(
+                senderWallet.getWalletNumber(),
+                "TRANSFER_OUT",
+                sender.login(),
                 walletNumber,
                 amount,
-                Instant.now()
-        );
-        walletEventProducer.sendWalletTransaction(event);
+                timestamp
+        ));
+        walletEventProducer.sendWalletTransaction(new WalletTransactionEvent(
+                walletNumber,
+                "TRANSFER_IN",
+                sender.login(),
+                walletNumber,
+                amount,
+                timestamp
+        ));
     }
 
 
@@ -144,26 +154,30 @@ public class WalletServiceImpl implements WalletService {
     @Override
     public void deposit(HttpSession session, WalletUpdateBalanceDTO walletUpdateBalanceDTO) {
         logger.info("Пополнение кошелька пользователя");
-        Wallet wallet = findWalletByUser(findUserByLogin(SessionUtils.getUserLogin(session)));
+        SessionUser user = SessionUtils.getUser(session);
+        Long walletId = findWalletIdByUserId(user.id());
         BigDecimal amount = walletUpdateBalanceDTO.getAmount();
-        boolean payment = paymentService.processPayment(SessionUtils.getUserLogin(session), amount);
+        boolean payment = paymentService.processPayment(user.login(), amount);
 
         if (!payment) {
             logger.error("Ошибка обработки платежа для пользователя");
             throw new PaymentProcessingException("Ошибка при обработке платежа. Повторите попытку позже");
         }
 
-        wallet.setBalance(wallet.getBalance().add(amount));
-        walletRepository.save(wallet);
+        // Зачисление только добавляет запись в журнал и не блокирует строку кошелька
+        BigDecimal balance = walletLedgerService.credit(walletId, amount, LedgerOperation.DEPOSIT);
+        Wallet wallet = walletRepository.findById(walletId)
+                .orElseThrow(() -> new WalletNotFoundException("Кошелек пользователя не найден"));
         logger.info("Баланс пользователя успешно пополнен");
 
         WalletNotificationEvent walletNotificationEvent = new WalletNotificationEvent(
                 wallet.getUser().getEmail(), "Пополнение кошелька",
-                "Ваш кошелек успешно пополнен на " + amount + " RUB. Новый баланс: " + wallet.getBalance()
+                "Ваш кошелек успешно пополнен на " + amount + " RUB. Новый баланс: " + balance
         );
         kafkaEmailEventPublisher.sendWalletNotification(walletNotificationEvent);
 
         WalletTransactionEvent walletTransactionEvent = new WalletTransactionEvent(
+                wallet.getWalletNumber(),
                 "DEPOSIT",
                 wallet.getUser().getLogin(),
                 wallet.getWalletNumber(),
@@ -184,13 +198,14 @@ public class WalletServiceImpl implements WalletService {
         Wallet wallet = findWalletByUser(user);
 
         // Проверяем старый PIN перед изменением
-        if (!BCrypt.checkpw(walletUpdatePinDTO.getOldPin(), wallet.getPin())) {
+        if (!pinVerificationService.matches(walletUpdatePinDTO.getOldPin(), wallet.getPin())) {
             logger.warn("Попытка смены PIN-кода с неверным старым PIN");
             throw new InvalidPinException("Неверный старый PIN-код");
         }
 
-        wallet.setPin(hashPin(walletUpdatePinDTO.getNewPin()));
+        wallet.setPin(pinVerificationService.hash(walletUpdatePinDTO.getNewPin()));
         walletRepository.save(wallet);
+        pinVerificationService.revoke(session);
 
         logger.info("Пользователь успешно сменил PIN-код");
 
@@ -201,6 +216,7 @@ public class WalletServiceImpl implements WalletService {
         kafkaEmailEventPublisher.sendWalletNotification(walletNotificationEvent);
 
         WalletTransactionEvent walletTransactionEvent = new WalletTransactionEvent(
+                wallet.getWalletNumber(),
                 "PIN_CHANGE",
                 user.getLogin(),
                 wallet.getWalletNumber(),
@@ -210,17 +226,6 @@ public class WalletServiceImpl implements WalletService {
         walletEventProducer.sendWalletTransaction(walletTransactionEvent);
     }
 
-    /**
-     * Генерация номера кошелька
-     *
-     * @return номер из 12 цифр
-     */
-    private static String generateWalletNumber() {
-        SecureRandom random = new SecureRandom();
-        long number = Math.abs(random.nextLong()) % 1000000000000L; // Ограничиваем до 12 цифр
-        return String.format("%012d", number);
-    }
-
     /**
      * Получение пользователя по логину.
      *
@@ -237,13 +242,14 @@ public class WalletServiceImpl implements WalletService {
     }
 
     /**
-     * Получение кошелька пользователя
+     * Получение id кошелька пользователя без загрузки сущностей пользователя и кошелька.
      *
-     * @param user пользователь
-     * @return кошелек
+     * @param userId id пользователя из сессии.
+     * @return id кошелька.
+     * @throws WalletNotFoundException если у пользователя нет кошелька.
      */
-    private Wallet findWalletByUser(User user) {
-        return walletRepository.findByUser(user)
+    private Long findWalletIdByUserId(Long userId) {
+        return walletRepository.findIdByUserId(userId)
                 .orElseThrow(() -> {
                     logger.warn("Кошелек пользователя не найден");
                     return new WalletNotFoundException("Кошелек пользователя не найден");
@@ -251,38 +257,16 @@ public class WalletServiceImpl implements WalletService {
     }
 
     /**
-     * Хэширует указанный PIN-код с использованием BCrypt.
-     *
-     * @param pin PIN-код, который необходимо хэшировать
-     * @return Хэшированный PIN-код
-     */
-    private String hashPin(String pin) {
-        return BCrypt.hashpw(pin, BCrypt.gensalt());
-    }
-
-    /**
-     * Проверяет, соответствует ли указанный PIN
-     * хэшированному PIN-коду
-     *
-     * @param wallet Кошелек у которого проверяем PIN
-     * @param pin    PIN-код, который нужно проверить на соответствие
-     * @return {@code true}, если указанный PIN-код соответствует хэшированному PIN-коду;
-     * {@code false} в противном случае
-     */
-    private boolean checkPin(Wallet wallet, String pin) {
-        return BCrypt.checkpw(pin, wallet.getPin());
-    }
-
-    /**
-     * Проверяет, соответствует ли указанный PIN-код хэшированному PIN-коду на счету.
+     * Получение кошелька пользователя
      *
-     * @param wallet кошелек, для которой необходимо проверить PIN-код
-     * @param pin    PIN-код, который нужно проверить на соответствие
-     * @throws RuntimeException если указанный PIN-код не совпадает с хэшированным PIN-кодом кошелька
+     * @param user пользователь
+     * @return кошелек
      */
-    private void validPin(Wallet wallet, String pin) {
-        if (!checkPin(wallet, pin)) {
-            throw new InvalidPinException("Пин-код не прошел проверку");
-        }
+    private Wallet findWalletByUser(User user) {
+        return walletRepository.findByUser(user)
+                .orElseThrow(() -> {
+                    logger.warn("Кошелек пользователя не найден");
+                    return new WalletNotFoundException("Кошелек пользователя не найден");
+                });
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,90 @@
+package ru.kalimulin.serviceImpl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpSession;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.kalimulin.customExceptions.walletExceptions.InvalidStatementPeriodException;
+import ru.kalimulin.customExceptions.walletExceptions.WalletNotFoundException;
+import ru.kalimulin.enums.WalletStatementFormat;
+import ru.kalimulin.projections.WalletStatementRow;
+import ru.kalimulin.repositories.WalletLedgerRepository;
+import ru.kalimulin.repositories.WalletRepository;
+import ru.kalimulin.service.WalletStatementService;
+import ru.kalimulin.util.SessionUtils;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Service
+@RequiredArgsConstructor
+public class WalletStatementServiceImpl implements WalletStatementService {
+    private static final String CSV_HEADER = "entry_id,created_at,operation,amount";
+
+    private final WalletLedgerRepository walletLedgerRepository;
+    private final WalletRepository walletRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${shop.wallet.statement.fetch-size:500}")
+    private int fetchSize;
+
+    private static final Logger logger = LoggerFactory.getLogger(WalletStatementServiceImpl.class);
+
+    @Override
+    public StreamingResponseBody exportStatement(HttpSession session, LocalDate from, LocalDate to,
+                                                 WalletStatementFormat format) {
+        if (from.isAfter(to)) {
+            throw new InvalidStatementPeriodException("Начало периода не может быть позже его окончания");
+        }
+
+        Long walletId = walletRepository.findIdByUserId(SessionUtils.getUserId(session))
+                .orElseThrow(() -> new WalletNotFoundException("Кошелек пользователя не найден"));
+
+        // Последний день периода входит в выписку целиком
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.plusDays(1).atStartOfDay();
+
+        // Тело выполняется уже после возврата из контроллера; курсор открывается внутри streamStatement
+        return out -> {
+            logger.info("Выгрузка выписки по кошельку за период {} - {} в формате {}", from, to, format);
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            if (format == WalletStatementFormat.CSV) {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+                walletLedgerRepository.streamStatement(walletId, start, end, fetchSize,
+                        row -> write(writer, toCsvLine(row)));
+            } else {
+                walletLedgerRepository.streamStatement(walletId, start, end, fetchSize,
+                        row -> write(writer, toJsonLine(row)));
+            }
+            writer.flush();
+        };
+    }
+
+    private static String toCsvLine(WalletStatementRow row) {
+        return row.entryId() + "," + row.createdAt() + "," + row.operation() + "," + row.amount().toPlainString() + "\n";
+    }
+
+    private String toJsonLine(WalletStatementRow row) {
+        try {
+            return objectMapper.writeValueAsString(row) + "\n";
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void write(Writer writer, String line) {
+        try {
+            writer.write(line);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
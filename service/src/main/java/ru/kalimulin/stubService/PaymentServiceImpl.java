@@ -8,10 +8,11 @@ import org.springframework.transaction.annotation.Transactional;
 import ru.kalimulin.customExceptions.userExceptions.UserNotFoundException;
 import ru.kalimulin.customExceptions.walletExceptions.InsufficientFundsException;
 import ru.kalimulin.customExceptions.walletExceptions.WalletNotFoundException;
+import ru.kalimulin.enums.LedgerOperation;
 import ru.kalimulin.models.User;
-import ru.kalimulin.models.Wallet;
 import ru.kalimulin.repositories.UserRepository;
 import ru.kalimulin.repositories.WalletRepository;
+import ru.kalimulin.service.WalletLedgerService;
 
 import java.math.BigDecimal;
 import java.util.Random;
@@ -23,11 +24,14 @@ public class PaymentServiceImpl implements PaymentService {
 
     private final WalletRepository walletRepository;
     private final UserRepository userRepository;
+    private final WalletLedgerService walletLedgerService;
 
     @Autowired
-    public PaymentServiceImpl(WalletRepository walletRepository, UserRepository userRepository) {
+    public PaymentServiceImpl(WalletRepository walletRepository, UserRepository userRepository,
+                              WalletLedgerService walletLedgerService) {
         this.walletRepository = walletRepository;
         this.userRepository = userRepository;
+        this.walletLedgerService = walletLedgerService;
     }
 
     @Override
@@ -45,18 +49,10 @@ public class PaymentServiceImpl implements PaymentService {
         }
     }
 
+    @Transactional
     @Override
     public boolean processPayment(User user, BigDecimal amount) {
-        Wallet wallet = walletRepository.findByUser(user)
-                .orElseThrow(() -> new WalletNotFoundException("Кошелек пользователя не найден"));
-
-        if(wallet.getBalance().compareTo(amount) < 0) {
-            throw new InsufficientFundsException("Недостаточно средств на кошельке");
-        }
-
-        wallet.setBalance(wallet.getBalance().subtract(amount));
-        walletRepository.save(wallet);
-
+        walletLedgerService.debit(findWalletId(user.getId()), amount, LedgerOperation.PURCHASE);
         return true;
     }
 
@@ -64,22 +60,23 @@ public class PaymentServiceImpl implements PaymentService {
     public void withdrawFunds(String userLogin, BigDecimal amount) {
         logger.info("Попытка списания {} с кошелька пользователя {}", amount, userLogin);
 
-        User user = userRepository.findByLogin(userLogin)
+        Long userId = userRepository.findIdByLogin(userLogin)
                 .orElseThrow(() -> new UserNotFoundException("Пользователь с логином " + userLogin + " не найден"));
 
-        Wallet wallet = walletRepository.findByUser(user)
-                .orElseThrow(() -> new WalletNotFoundException("Кошелек пользователя не найден"));
-
-        if (wallet.getBalance().compareTo(amount) < 0) {
-            logger.error("Ошибка: Недостаточно средств у пользователя {}. Баланс: {}, требуемая сумма: {}",
-                    userLogin, wallet.getBalance(), amount);
+        BigDecimal balance;
+        try {
+            balance = walletLedgerService.debit(findWalletId(userId), amount, LedgerOperation.WITHDRAWAL);
+        } catch (InsufficientFundsException e) {
+            logger.error("Ошибка: Недостаточно средств у пользователя {}. Требуемая сумма: {}", userLogin, amount);
             throw new InsufficientFundsException("Недостаточно средств на балансе");
         }
 
-        wallet.setBalance(wallet.getBalance().subtract(amount));
-        walletRepository.save(wallet);
-
         logger.info("Успешное списание {} с кошелька пользователя {}. Новый баланс: {}",
-                amount, userLogin, wallet.getBalance());
+                amount, userLogin, balance);
+    }
+
+    private Long findWalletId(Long userId) {
+        return walletRepository.findIdByUserId(userId)
+                .orElseThrow(() -> new WalletNotFoundException("Кошелек пользователя не найден"));
     }
-}
\ No newline at end of file
+}
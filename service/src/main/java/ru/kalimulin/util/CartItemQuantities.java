@@ -0,0 +1,54 @@
+package ru.kalimulin.util;
+
+import ru.kalimulin.customExceptions.cartExceptions.InvalidCartItemsException;
+import ru.kalimulin.dto.cartItemDTO.CartItemCreateDTO;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Утилитный класс для пакетного добавления товаров в корзину.
+ */
+public final class CartItemQuantities {
+    /**
+     * Максимальное суммарное количество одного товара в запросе.
+     */
+    public static final int MAX_QUANTITY = 10_000;
+
+    private CartItemQuantities() {
+        throw new UnsupportedOperationException("Этот класс нельзя инстанцировать.");
+    }
+
+    /**
+     * Проверяет позиции и суммирует количество повторяющихся товаров.
+     *
+     * @param items    добавляемые позиции
+     * @param maxItems максимальное количество позиций в одном запросе
+     * @return количество по идентификатору товара в порядке первого упоминания
+     * @throws InvalidCartItemsException если список пуст, слишком велик, содержит некорректную позицию
+     *                                   или количество товара превышает {@link #MAX_QUANTITY}
+     */
+    public static Map<Long, Integer> merge(List<CartItemCreateDTO> items, int maxItems) {
+        if (items == null || items.isEmpty()) {
+            throw new InvalidCartItemsException("Список товаров пуст");
+        }
+        if (items.size() > maxItems) {
+            throw new InvalidCartItemsException("Нельзя добавить больше " + maxItems + " позиций за один запрос");
+        }
+
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (CartItemCreateDTO item : items) {
+            if (item == null || item.getProductId() == null || item.getQuantity() == null || item.getQuantity() <= 0) {
+                throw new InvalidCartItemsException("Для каждой позиции нужно указать товар и положительное количество");
+            }
+            int quantity = quantities.getOrDefault(item.getProductId(), 0);
+            // Сравнение через вычитание не переполняется: оба слагаемых положительны
+            if (item.getQuantity() > MAX_QUANTITY - quantity) {
+                throw new InvalidCartItemsException("Количество товара не может превышать " + MAX_QUANTITY);
+            }
+            quantities.put(item.getProductId(), quantity + item.getQuantity());
+        }
+        return quantities;
+    }
+}
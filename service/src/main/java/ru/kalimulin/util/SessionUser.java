@@ -0,0 +1,15 @@
+package ru.kalimulin.util;
+
+import java.io.Serializable;
+
+/**
+ * Данные вошедшего пользователя, сохраняемые в сессии при входе.
+ * Позволяют не загружать пользователя из базы данных на каждом запросе.
+ * Роли сюда не входят: они могут измениться без участия пользователя и проверяются через {@link UserRoleCache}.
+ *
+ * @param id    идентификатор пользователя
+ * @param login логин пользователя
+ * @param email email пользователя
+ */
+public record SessionUser(Long id, String login, String email) implements Serializable {
+}
@@ -7,11 +7,12 @@ import java.util.Optional;
 
 /**
  * Утилитный класс для работы с сессией пользователя.
- * Позволяет извлекать логин текущего пользователя.
+ * Позволяет сохранять вошедшего пользователя и извлекать его данные из сессии.
  */
 public final class SessionUtils {
 
     private static final String USER_LOGIN_ATTRIBUTE = "userLogin";
+    private static final String USER_ATTRIBUTE = "sessionUser";
 
 
     private SessionUtils() {
@@ -34,6 +35,44 @@ public final class SessionUtils {
                 .orElseThrow(() -> new UnauthorizedException("Вы не авторизованы. Войдите в систему!"));
     }
 
+    /**
+     * Сохраняет вошедшего пользователя в сессии. Вызывается при входе и при изменении логина или email.
+     *
+     * @param session текущая сессия пользователя.
+     * @param user    данные пользователя.
+     */
+    public static void setUser(HttpSession session, SessionUser user) {
+        session.setAttribute(USER_LOGIN_ATTRIBUTE, user.login());
+        session.setAttribute(USER_ATTRIBUTE, user);
+    }
+
+    /**
+     * Получает данные вошедшего пользователя из сессии без обращения к базе данных.
+     *
+     * @param session текущая сессия пользователя.
+     * @return данные пользователя.
+     * @throws UnauthorizedException если пользователь не авторизован.
+     */
+    public static SessionUser getUser(HttpSession session) {
+        if (session == null || !isSessionValid(session)) {
+            throw new UnauthorizedException("Вы не авторизованы. Войдите в систему!");
+        }
+
+        return Optional.ofNullable((SessionUser) session.getAttribute(USER_ATTRIBUTE))
+                .orElseThrow(() -> new UnauthorizedException("Вы не авторизованы. Войдите в систему!"));
+    }
+
+    /**
+     * Получает идентификатор вошедшего пользователя из сессии.
+     *
+     * @param session текущая сессия пользователя.
+     * @return идентификатор пользователя.
+     * @throws UnauthorizedException если пользователь не авторизован.
+     */
+    public static Long getUserId(HttpSession session) {
+        return getUser(session).id();
+    }
+
     private static boolean isSessionValid(HttpSession session) {
         try {
             session.getAttribute("check"); // Попытка обращения к атрибуту
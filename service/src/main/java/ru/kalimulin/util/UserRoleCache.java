@@ -0,0 +1,80 @@
+package ru.kalimulin.util;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.kalimulin.enums.RoleName;
+import ru.kalimulin.repositories.UserRepository;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Локальный кэш ролей пользователей по логину для проверки доступа.
+ * <p>
+ * Запись сбрасывается при изменении ролей, логина или удалении пользователя на этом экземпляре.
+ * Изменения, сделанные на других экземплярах, становятся видны не позже чем через {@code ttl}.
+ */
+@Component
+public class UserRoleCache {
+    private final UserRepository userRepository;
+    private final long ttlMillis;
+    private final int maxSize;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public UserRoleCache(UserRepository userRepository,
+                         @Value("${shop.security.role-cache.ttl:1m}") Duration ttl,
+                         @Value("${shop.security.role-cache.max-size:10000}") int maxSize) {
+        this.userRepository = userRepository;
+        this.ttlMillis = ttl.toMillis();
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Возвращает роли пользователя, при промахе загружая их одним запросом.
+     *
+     * @param login логин пользователя
+     * @return роли пользователя; пустое множество, если пользователь не найден
+     */
+    public Set<RoleName> getRoles(String login) {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(login);
+        if (entry != null && entry.expiresAt() > now) {
+            return entry.roles();
+        }
+
+        Set<RoleName> roles = Set.copyOf(userRepository.findRoleNamesByLogin(login));
+        if (entries.size() >= maxSize) {
+            entries.values().removeIf(e -> e.expiresAt() <= now);
+            if (entries.size() >= maxSize) {
+                entries.clear();
+            }
+        }
+        entries.put(login, new Entry(roles, now + ttlMillis));
+        return roles;
+    }
+
+    /**
+     * Сбрасывает роли пользователя. Внутри транзакции запись сбрасывается еще раз после коммита,
+     * чтобы параллельный запрос не успел закэшировать роли, прочитанные до коммита.
+     *
+     * @param login логин пользователя
+     */
+    public void evict(String login) {
+        entries.remove(login);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    entries.remove(login);
+                }
+            });
+        }
+    }
+
+    private record Entry(Set<RoleName> roles, long expiresAt) {
+    }
+}
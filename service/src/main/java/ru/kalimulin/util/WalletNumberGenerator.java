@@ -0,0 +1,88 @@
+package ru.kalimulin.util;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.kalimulin.repositories.WalletRepository;
+
+/**
+ * Генератор номеров кошельков. Выданные им номера не повторяются без проверки в базе;
+ * совпасть они могут только со случайными номерами старых кошельков, их пропускает вызывающий код.
+ * <p>
+ * Узел берет из последовательности блок из {@link #BLOCK_SIZE} порядковых номеров и раздает их из памяти.
+ * Порядковый номер переставляется взаимно однозначным отображением на 11-значное пространство,
+ * чтобы номера соседних кошельков не шли подряд, и дополняется контрольной цифрой Луна.
+ * Разные порядковые номера всегда дают разные номера кошельков.
+ */
+@Component
+@RequiredArgsConstructor
+public class WalletNumberGenerator {
+    /**
+     * Размер блока. Нельзя менять после запуска: блоки с разным размером пересекутся.
+     */
+    static final long BLOCK_SIZE = 1000;
+
+    private static final long NUMBER_SPACE = 100_000_000_000L; // 11 цифр без контрольной
+    // Множитель взаимно прост с 10^11, поэтому (n * MULTIPLIER + OFFSET) mod 10^11 - перестановка.
+    // Множитель меньше 9 * 10^7, чтобы произведение не переполняло long.
+    private static final long MULTIPLIER = 72_541_039L;
+    private static final long OFFSET = 31_415_926_535L;
+
+    private final WalletRepository walletRepository;
+
+    private long nextOrdinal;
+    private long blockEnd;
+
+    /**
+     * Выдает следующий номер кошелька.
+     *
+     * @return номер из 12 цифр: 11 цифр номера и контрольная цифра
+     */
+    public synchronized String next() {
+        if (nextOrdinal == blockEnd) {
+            nextOrdinal = walletRepository.nextWalletNumberBlock() * BLOCK_SIZE;
+            blockEnd = nextOrdinal + BLOCK_SIZE;
+        }
+        long number = (nextOrdinal++ * MULTIPLIER + OFFSET) % NUMBER_SPACE;
+
+        char[] digits = new char[12];
+        for (int i = 10; i >= 0; i--) {
+            digits[i] = (char) ('0' + number % 10);
+            number /= 10;
+        }
+        digits[11] = (char) ('0' + checkDigit(digits, 11));
+        return new String(digits);
+    }
+
+    /**
+     * Проверяет контрольную цифру номера кошелька.
+     *
+     * @param walletNumber номер кошелька
+     * @return {@code true}, если номер из 12 цифр и контрольная цифра верна
+     */
+    public static boolean isValid(String walletNumber) {
+        if (walletNumber == null || !walletNumber.matches("\\d{12}")) {
+            return false;
+        }
+        return checkDigit(walletNumber.toCharArray(), 11) == walletNumber.charAt(11) - '0';
+    }
+
+    /**
+     * Вычисляет контрольную цифру по алгоритму Луна для первых {@code length} цифр.
+     */
+    private static int checkDigit(char[] digits, int length) {
+        int sum = 0;
+        boolean doubled = true;
+        for (int i = length - 1; i >= 0; i--) {
+            int digit = digits[i] - '0';
+            if (doubled) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+            doubled = !doubled;
+        }
+        return (10 - sum % 10) % 10;
+    }
+}
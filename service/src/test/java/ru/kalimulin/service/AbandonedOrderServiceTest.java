@@ -0,0 +1,61 @@
+package ru.kalimulin.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.kalimulin.repositories.OrderRepository;
+import ru.kalimulin.service.AbandonedOrderService.SweepChunk;
+import ru.kalimulin.serviceImpl.AbandonedOrderServiceImpl;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AbandonedOrderServiceTest {
+    @InjectMocks
+    private AbandonedOrderServiceImpl abandonedOrderService;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(abandonedOrderService, "maxAge", Duration.ofDays(7));
+        ReflectionTestUtils.setField(abandonedOrderService, "chunkSize", 3);
+    }
+
+    @Test
+    void shouldDeleteItemsThenOrdersAndContinueAfterLastId() {
+        List<Long> ids = List.of(4L, 7L, 9L);
+        when(orderRepository.lockAbandonedOrders(any(), eq(0L), eq(3))).thenReturn(ids);
+        when(orderRepository.deleteItemsByOrderIds(ids)).thenReturn(5);
+        when(orderRepository.deleteOrdersByIds(ids)).thenReturn(3);
+
+        SweepChunk result = abandonedOrderService.deleteAbandonedChunk(0L);
+
+        assertEquals(new SweepChunk(9L, 3, 5, true), result);
+        var inOrder = inOrder(orderRepository);
+        inOrder.verify(orderRepository).deleteItemsByOrderIds(ids);
+        inOrder.verify(orderRepository).deleteOrdersByIds(ids);
+    }
+
+    @Test
+    void shouldStopWhenNothingToDelete() {
+        when(orderRepository.lockAbandonedOrders(any(), eq(9L), eq(3))).thenReturn(Collections.emptyList());
+
+        SweepChunk result = abandonedOrderService.deleteAbandonedChunk(9L);
+
+        assertFalse(result.hasMore());
+        assertEquals(9L, result.lastOrderId());
+        verify(orderRepository, never()).deleteOrdersByIds(anyList());
+    }
+}
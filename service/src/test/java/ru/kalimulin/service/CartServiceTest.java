@@ -0,0 +1,174 @@
+package ru.kalimulin.service;
+
+import jakarta.servlet.http.HttpSession;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.kalimulin.customExceptions.cartExceptions.CartItemNotFoundException;
+import ru.kalimulin.customExceptions.cartExceptions.InvalidCartItemsException;
+import ru.kalimulin.customExceptions.productExceptions.ProductNotFoundException;
+import ru.kalimulin.dto.cartItemDTO.CartItemCreateDTO;
+import ru.kalimulin.mappers.cartItemMapper.CartItemMapper;
+import ru.kalimulin.mappers.cartMapper.CartMapper;
+import ru.kalimulin.projections.ProductPriceView;
+import ru.kalimulin.repositories.CartRepository;
+import ru.kalimulin.repositories.ProductRepository;
+import ru.kalimulin.repositories.UserRepository;
+import ru.kalimulin.serviceImpl.CartServiceImpl;
+import ru.kalimulin.util.CartItemQuantities;
+import ru.kalimulin.util.SessionUser;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CartServiceTest {
+    private static final Long CART_ID = 3L;
+    private static final Long PRODUCT_ID = 10L;
+
+    @Mock
+    private CartRepository cartRepository;
+    @Mock
+    private ProductRepository productRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private CartMapper cartMapper;
+    @Mock
+    private CartItemMapper cartItemMapper;
+    @Mock
+    private HttpSession session;
+
+    @InjectMocks
+    private CartServiceImpl cartService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cartService, "maxBatchItems", 3);
+        lenient().when(session.getAttribute("check")).thenReturn(true);
+        lenient().when(session.getAttribute("sessionUser")).thenReturn(new SessionUser(1L, "buyer", "buyer@example.com"));
+        lenient().when(cartRepository.findIdByUserId(1L)).thenReturn(Optional.of(CART_ID));
+    }
+
+    @Test
+    void addShouldUpsertItemAndApplyDelta() {
+        when(productRepository.findPriceById(PRODUCT_ID)).thenReturn(Optional.of(new BigDecimal("19.99")));
+
+        cartService.addItemToCart(session, new CartItemCreateDTO(PRODUCT_ID, 3));
+
+        verify(cartRepository).addItems(CART_ID, Map.of(PRODUCT_ID, 3));
+        verify(cartRepository).addToTotalPrice(CART_ID, new BigDecimal("59.97"));
+        verify(cartRepository, never()).findByUserId(anyLong());
+        verify(productRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void removeShouldRecalculateTotalFromRemainingItems() {
+        when(cartRepository.removeItem(CART_ID, PRODUCT_ID)).thenReturn(true);
+
+        cartService.removeItemFromCart(session, PRODUCT_ID);
+
+        verify(cartRepository, never()).addToTotalPrice(anyLong(), any());
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void removeShouldFailWhenProductIsNotInCart() {
+        when(cartRepository.removeItem(CART_ID, PRODUCT_ID)).thenReturn(false);
+
+        assertThrows(CartItemNotFoundException.class, () -> cartService.removeItemFromCart(session, PRODUCT_ID));
+        verify(cartRepository, never()).addToTotalPrice(anyLong(), any());
+    }
+
+    @Test
+    void addShouldFailForUnknownProduct() {
+        when(productRepository.findPriceById(PRODUCT_ID)).thenReturn(Optional.empty());
+
+        assertThrows(ProductNotFoundException.class,
+                () -> cartService.addItemToCart(session, new CartItemCreateDTO(PRODUCT_ID, 1)));
+        verify(cartRepository, never()).addItems(anyLong(), anyMap());
+    }
+
+    @Test
+    void addItemsShouldMergeDuplicatesAndUpdateTotalOnce() {
+        when(productRepository.findPricesByIdIn(Set.of(PRODUCT_ID, 11L))).thenReturn(List.of(
+                priceView(PRODUCT_ID, "10.00"), priceView(11L, "0.50")));
+
+        cartService.addItemsToCart(session, List.of(
+                new CartItemCreateDTO(PRODUCT_ID, 1),
+                new CartItemCreateDTO(11L, 4),
+                new CartItemCreateDTO(PRODUCT_ID, 2)));
+
+        verify(cartRepository).addItems(CART_ID, Map.of(PRODUCT_ID, 3, 11L, 4));
+        verify(cartRepository).addToTotalPrice(CART_ID, new BigDecimal("32.00"));
+    }
+
+    @Test
+    void addItemsShouldRejectWholeBatchWhenProductIsMissing() {
+        when(productRepository.findPricesByIdIn(Set.of(PRODUCT_ID, 11L))).thenReturn(List.of(priceView(PRODUCT_ID, "10.00")));
+
+        ProductNotFoundException exception = assertThrows(ProductNotFoundException.class, () -> cartService.addItemsToCart(
+                session, List.of(new CartItemCreateDTO(PRODUCT_ID, 1), new CartItemCreateDTO(11L, 1))));
+
+        assertEquals("Товары не найдены: [11]", exception.getMessage());
+        verify(cartRepository, never()).addItems(anyLong(), anyMap());
+    }
+
+    @Test
+    void addItemsShouldRejectInvalidBatches() {
+        List<CartItemCreateDTO> tooLarge = List.of(new CartItemCreateDTO(1L, 1), new CartItemCreateDTO(2L, 1),
+                new CartItemCreateDTO(3L, 1), new CartItemCreateDTO(4L, 1));
+
+        assertThrows(InvalidCartItemsException.class, () -> cartService.addItemsToCart(session, List.of()));
+        assertThrows(InvalidCartItemsException.class, () -> cartService.addItemsToCart(session, tooLarge));
+        assertThrows(InvalidCartItemsException.class,
+                () -> cartService.addItemsToCart(session, List.of(new CartItemCreateDTO(PRODUCT_ID, 0))));
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void addItemsShouldRejectQuantityAboveLimitWithoutOverflow() {
+        List<CartItemCreateDTO> overflowing = List.of(
+                new CartItemCreateDTO(PRODUCT_ID, Integer.MAX_VALUE), new CartItemCreateDTO(PRODUCT_ID, Integer.MAX_VALUE));
+        List<CartItemCreateDTO> aboveLimit = List.of(
+                new CartItemCreateDTO(PRODUCT_ID, CartItemQuantities.MAX_QUANTITY), new CartItemCreateDTO(PRODUCT_ID, 1));
+
+        assertThrows(InvalidCartItemsException.class, () -> cartService.addItemsToCart(session, overflowing));
+        assertThrows(InvalidCartItemsException.class, () -> cartService.addItemsToCart(session, aboveLimit));
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void clearShouldDeleteItemsInBulkWithoutLoadingCart() {
+        cartService.clearCart(session);
+
+        verify(cartRepository).clearItems(CART_ID);
+        verify(cartRepository, never()).findByUserId(anyLong());
+    }
+
+    private static ProductPriceView priceView(Long id, String price) {
+        return new ProductPriceView() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public BigDecimal getPrice() {
+                return new BigDecimal(price);
+            }
+        };
+    }
+}
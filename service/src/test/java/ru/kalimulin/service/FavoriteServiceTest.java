@@ -0,0 +1,123 @@
+package ru.kalimulin.service;
+
+import jakarta.servlet.http.HttpSession;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.kalimulin.customExceptions.favoriteExceptions.FavoriteNotFoundException;
+import ru.kalimulin.customExceptions.productExceptions.ProductNotFoundException;
+import ru.kalimulin.dto.favoriteDTO.FavoritePageDTO;
+import ru.kalimulin.dto.productDTO.ProductResponseDTO;
+import ru.kalimulin.mappers.productMapper.ProductMapper;
+import ru.kalimulin.models.Product;
+import ru.kalimulin.repositories.FavoriteRepository;
+import ru.kalimulin.repositories.ProductRepository;
+import ru.kalimulin.serviceImpl.FavoriteServiceImpl;
+import ru.kalimulin.util.SessionUser;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FavoriteServiceTest {
+    private static final Long USER_ID = 1L;
+    private static final Long PRODUCT_ID = 10L;
+
+    @Mock
+    private ProductRepository productRepository;
+    @Mock
+    private FavoriteRepository favoriteRepository;
+    @Mock
+    private ProductMapper productMapper;
+    @Mock
+    private HttpSession session;
+
+    @InjectMocks
+    private FavoriteServiceImpl favoriteService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(favoriteService, "defaultPageSize", 2);
+        ReflectionTestUtils.setField(favoriteService, "maxPageSize", 3);
+        lenient().when(session.getAttribute("check")).thenReturn(true);
+        lenient().when(session.getAttribute("sessionUser")).thenReturn(new SessionUser(USER_ID, "buyer", "buyer@example.com"));
+    }
+
+    @Test
+    void addShouldInsertPairWithoutLoadingFavorites() {
+        when(favoriteRepository.addProduct(USER_ID, PRODUCT_ID)).thenReturn(true);
+
+        favoriteService.addToFavorite(PRODUCT_ID, session);
+
+        verify(favoriteRepository, never()).findByUserId(anyLong());
+        verify(productRepository, never()).existsById(anyLong());
+    }
+
+    @Test
+    void addShouldBeIdempotentForProductAlreadyInFavorites() {
+        when(favoriteRepository.addProduct(USER_ID, PRODUCT_ID)).thenReturn(false);
+        when(productRepository.existsById(PRODUCT_ID)).thenReturn(true);
+
+        assertDoesNotThrow(() -> favoriteService.addToFavorite(PRODUCT_ID, session));
+    }
+
+    @Test
+    void addShouldRejectMissingProduct() {
+        when(favoriteRepository.addProduct(USER_ID, PRODUCT_ID)).thenReturn(false);
+        when(productRepository.existsById(PRODUCT_ID)).thenReturn(false);
+
+        assertThrows(ProductNotFoundException.class, () -> favoriteService.addToFavorite(PRODUCT_ID, session));
+    }
+
+    @Test
+    void removeShouldFailWhenPairIsAbsent() {
+        when(favoriteRepository.deleteProduct(USER_ID, PRODUCT_ID)).thenReturn(0);
+
+        assertThrows(FavoriteNotFoundException.class, () -> favoriteService.removeFromFavorites(PRODUCT_ID, session));
+    }
+
+    @Test
+    void isFavoriteShouldUseExistsQuery() {
+        when(favoriteRepository.existsByUserIdAndProductId(USER_ID, PRODUCT_ID)).thenReturn(true);
+
+        assertTrue(favoriteService.isFavorite(PRODUCT_ID, session));
+        verify(favoriteRepository, never()).findByUserId(anyLong());
+    }
+
+    @Test
+    void pageShouldReturnProductsInCursorOrderAndNextCursor() {
+        when(favoriteRepository.findProductIdsPageAfter(USER_ID, 50L, Limit.of(4))).thenReturn(List.of(40L, 30L, 20L, 10L));
+        Product p40 = Product.builder().id(40L).build();
+        Product p30 = Product.builder().id(30L).build();
+        Product p20 = Product.builder().id(20L).build();
+        when(productRepository.findWithDetailsByIdIn(List.of(40L, 30L, 20L))).thenReturn(List.of(p20, p40, p30));
+        List<ProductResponseDTO> dtos = List.of(new ProductResponseDTO(), new ProductResponseDTO(), new ProductResponseDTO());
+        when(productMapper.toListProductResponseDTO(List.of(p40, p30, p20))).thenReturn(dtos);
+
+        FavoritePageDTO page = favoriteService.getFavoritesPage(session, 50L, 10);
+
+        assertSame(dtos, page.getProducts());
+        assertTrue(page.isHasMore());
+        assertEquals(20L, page.getNextProductId());
+    }
+
+    @Test
+    void lastPageShouldHaveNoCursorAndSkipProductQuery() {
+        when(favoriteRepository.findFirstProductIdsPage(USER_ID, Limit.of(3))).thenReturn(List.of());
+        when(productMapper.toListProductResponseDTO(List.of())).thenReturn(List.of());
+
+        FavoritePageDTO page = favoriteService.getFavoritesPage(session, null, null);
+
+        assertFalse(page.isHasMore());
+        assertNull(page.getNextProductId());
+        verify(productRepository, never()).findWithDetailsByIdIn(any());
+    }
+}
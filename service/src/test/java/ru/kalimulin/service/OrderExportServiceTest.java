@@ -0,0 +1,118 @@
+package ru.kalimulin.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpSession;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.kalimulin.customExceptions.userExceptions.UnauthorizedException;
+import ru.kalimulin.enums.OrderExportFormat;
+import ru.kalimulin.projections.OrderExportRow;
+import ru.kalimulin.repositories.OrderRepository;
+import ru.kalimulin.serviceImpl.OrderExportServiceImpl;
+import ru.kalimulin.util.SessionUser;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderExportServiceTest {
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    @Mock
+    private OrderRepository orderRepository;
+    @Mock
+    private HttpSession session;
+
+    private OrderExportServiceImpl orderExportService;
+
+    @BeforeEach
+    void setUp() {
+        orderExportService = new OrderExportServiceImpl(orderRepository, new ObjectMapper().findAndRegisterModules());
+        when(session.getAttribute("check")).thenReturn(true);
+    }
+
+    @Test
+    void shouldWriteCsvRowPerItemAndEscapeValues() throws Exception {
+        mockRows(List.of(
+                row(2L, 10L, "Чай, зеленый", 1),
+                row(2L, 11L, "Кофе \"Арабика\"", 2),
+                row(1L, 10L, "Чай, зеленый", 3)));
+
+        String csv = export(OrderExportFormat.CSV);
+
+        assertEquals("""
+                order_id,created_at,status,total_price,product_id,product_title,quantity,price
+                2,2025-01-01T12:00,PAID,300,10,"Чай, зеленый",1,100
+                2,2025-01-01T12:00,PAID,300,11,"Кофе ""Арабика\""",2,100
+                1,2025-01-01T12:00,PAID,300,10,"Чай, зеленый",3,100
+                """, csv);
+    }
+
+    @Test
+    void shouldNeutralizeSpreadsheetFormulasInCsv() throws Exception {
+        mockRows(List.of(
+                row(1L, 10L, "=HYPERLINK(\"http://example.com\")", 1),
+                row(1L, 11L, "+7 чай", 1),
+                row(1L, 12L, "-кофе", 1),
+                row(1L, 13L, "@SUM(A1)", 1)));
+
+        String[] lines = export(OrderExportFormat.CSV).split("\n");
+
+        assertEquals("1,2025-01-01T12:00,PAID,300,10,\"'=HYPERLINK(\"\"http://example.com\"\")\",1,100", lines[1]);
+        assertEquals("1,2025-01-01T12:00,PAID,300,11,'+7 чай,1,100", lines[2]);
+        assertEquals("1,2025-01-01T12:00,PAID,300,12,'-кофе,1,100", lines[3]);
+        assertEquals("1,2025-01-01T12:00,PAID,300,13,'@SUM(A1),1,100", lines[4]);
+    }
+
+    @Test
+    void shouldWriteOneJsonLinePerOrder() throws Exception {
+        mockRows(List.of(row(2L, 10L, "Чай", 1), row(2L, 11L, "Кофе", 2), row(1L, 10L, "Чай", 3)));
+
+        String[] lines = export(OrderExportFormat.NDJSON).split("\n");
+
+        assertEquals(2, lines.length);
+        ObjectMapper mapper = new ObjectMapper();
+        assertEquals(2, mapper.readTree(lines[0]).get("items").size());
+        assertEquals(1L, mapper.readTree(lines[1]).get("id").asLong());
+        assertEquals("buyer", mapper.readTree(lines[1]).get("userLogin").asText());
+    }
+
+    @Test
+    void shouldFailBeforeStreamingWhenUserNotLoggedIn() {
+        assertThrows(UnauthorizedException.class,
+                () -> orderExportService.exportOrders(session, OrderExportFormat.CSV));
+        verifyNoInteractions(orderRepository);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void mockRows(List<OrderExportRow> rows) {
+        when(session.getAttribute("sessionUser")).thenReturn(new SessionUser(1L, "buyer", "buyer@example.com"));
+        doAnswer(invocation -> {
+            Consumer<OrderExportRow> consumer = invocation.getArgument(2);
+            rows.forEach(consumer);
+            return null;
+        }).when(orderRepository).streamExportRows(eq(1L), anyInt(), any(Consumer.class));
+    }
+
+    private String export(OrderExportFormat format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        orderExportService.exportOrders(session, format).writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private OrderExportRow row(Long orderId, Long productId, String title, int quantity) {
+        return new OrderExportRow(orderId, CREATED_AT, "PAID", BigDecimal.valueOf(300),
+                productId, title, quantity, BigDecimal.valueOf(100));
+    }
+}
@@ -0,0 +1,128 @@
+package ru.kalimulin.service;
+
+import jakarta.servlet.http.HttpSession;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.kalimulin.enums.OrderStatus;
+import ru.kalimulin.enums.ProductStatus;
+import ru.kalimulin.kafka.KafkaEmailEventPublisher;
+import ru.kalimulin.mappers.orderMapper.OrderMapper;
+import ru.kalimulin.models.*;
+import ru.kalimulin.repositories.*;
+import ru.kalimulin.serviceImpl.OrderServiceImpl;
+import ru.kalimulin.serviceImpl.StockReservationServiceImpl;
+import ru.kalimulin.serviceImpl.WalletLedgerServiceImpl;
+import ru.kalimulin.stubService.PaymentService;
+import ru.kalimulin.util.SessionUser;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Считает реальные SQL-запросы оплаты заказа на H2: их число не должно зависеть от количества позиций.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({OrderServiceImpl.class, StockReservationServiceImpl.class, WalletLedgerServiceImpl.class,
+        SqlStatementRecorder.class})
+class OrderPaymentStatementCountTest {
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private AddressRepository addressRepository;
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @MockitoBean
+    private OrderMapper orderMapper;
+    @MockitoBean
+    private PaymentService paymentService;
+    @MockitoBean
+    private CartService cartService;
+    @MockitoBean
+    private KafkaEmailEventPublisher kafkaEmailEventPublisher;
+
+    @Test
+    void paymentShouldIssueSameStatementsForOneAndThirtyLines() {
+        when(paymentService.processPayment(any(User.class), any(BigDecimal.class))).thenReturn(true);
+
+        List<String> single = payOrderWithLines(1);
+        List<String> large = payOrderWithLines(30);
+
+        assertEquals(single.size(), large.size(), () -> "1 позиция: " + single + "\n30 позиций: " + large);
+        verify(kafkaEmailEventPublisher, times(31)).sendEmailNotification(any());
+    }
+
+    private List<String> payOrderWithLines(int lines) {
+        User buyer = createUser("buyer");
+        Address address = addressRepository.save(Address.builder()
+                .country("Россия").region("Москва").city("Москва").street("Тверская").user(buyer).build());
+        Category category = categoryRepository.save(Category.builder().name("Категория " + System.nanoTime()).build());
+
+        Order order = Order.builder()
+                .user(buyer)
+                .status(OrderStatus.PENDING)
+                .totalPrice(new BigDecimal("100.00").multiply(BigDecimal.valueOf(lines)))
+                .reservedUntil(LocalDateTime.now().plusMinutes(15))
+                .items(new ArrayList<>())
+                .build();
+        for (int i = 0; i < lines; i++) {
+            // У каждой позиции свой продавец, чтобы запросы на продавца тоже были видны
+            String suffix = String.valueOf(System.nanoTime());
+            User seller = walletRepository.save(Wallet.builder()
+                    .user(User.builder()
+                            .login("seller" + suffix)
+                            .email("seller" + suffix + "@example.com")
+                            .password("password")
+                            .build())
+                    .walletNumber(suffix)
+                    .balance(BigDecimal.ZERO)
+                    .pin("pinHash")
+                    .build()).getUser();
+            Product product = productRepository.save(Product.builder()
+                    .title("Товар").description("Описание").stocks(10).price(new BigDecimal("100.00"))
+                    .status(ProductStatus.AVAILABLE).salesCount(0).category(category).owner(seller).build());
+            order.getItems().add(OrderItem.builder()
+                    .order(order).product(product).quantity(1).price(product.getPrice()).build());
+        }
+        orderRepository.save(order);
+
+        HttpSession session = mock(HttpSession.class);
+        when(session.getAttribute("check")).thenReturn(true);
+        when(session.getAttribute("sessionUser")).thenReturn(new SessionUser(buyer.getId(), buyer.getLogin(), buyer.getEmail()));
+
+        SqlStatementRecorder.clear();
+        orderService.paymentOrder(order.getId(), session, address.getId());
+        return SqlStatementRecorder.statements();
+    }
+
+    private User createUser(String prefix) {
+        String suffix = String.valueOf(System.nanoTime());
+        return userRepository.save(User.builder()
+                .login(prefix + suffix)
+                .email(prefix + suffix + "@example.com")
+                .password("password")
+                .build());
+    }
+}
@@ -0,0 +1,281 @@
+package ru.kalimulin.service;
+
+import jakarta.servlet.http.HttpSession;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.kalimulin.customExceptions.orderExceptions.InvalidOrderCursorException;
+import ru.kalimulin.customExceptions.productExceptions.NotEnoughStockException;
+import ru.kalimulin.dto.orderDTO.OrderDTO;
+import ru.kalimulin.dto.orderDTO.OrderPageDTO;
+import ru.kalimulin.enums.LedgerOperation;
+import ru.kalimulin.enums.OrderStatus;
+import ru.kalimulin.kafka.KafkaEmailEventPublisher;
+import ru.kalimulin.mappers.orderMapper.OrderMapper;
+import ru.kalimulin.models.*;
+import ru.kalimulin.projections.ProductSaleView;
+import ru.kalimulin.repositories.*;
+import ru.kalimulin.serviceImpl.OrderServiceImpl;
+import ru.kalimulin.stubService.PaymentService;
+import ru.kalimulin.util.SessionUser;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderServiceTest {
+    @InjectMocks
+    private OrderServiceImpl orderService;
+
+    @Mock
+    private OrderRepository orderRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private OrderMapper orderMapper;
+    @Mock
+    private CartRepository cartRepository;
+    @Mock
+    private PaymentService paymentService;
+    @Mock
+    private CartService cartService;
+    @Mock
+    private ProductRepository productRepository;
+    @Mock
+    private WalletLedgerService walletLedgerService;
+    @Mock
+    private AddressRepository addressRepository;
+    @Mock
+    private KafkaEmailEventPublisher kafkaEmailEventPublisher;
+    @Mock
+    private StockReservationService stockReservationService;
+    @Mock
+    private HttpSession session;
+
+    private User buyer;
+    private Address address;
+
+    @BeforeEach
+    void setUp() {
+        buyer = User.builder().id(1L).login("buyer").email("buyer@example.com").build();
+        address = Address.builder().id(5L).country("Россия").region("Москва").city("Москва").street("Тверская")
+                .user(buyer).build();
+    }
+
+    @Test
+    void shouldPayOrderWithSingleItem() {
+        Order order = createOrder(1);
+        mockPayment(order);
+
+        OrderDTO result = orderService.paymentOrder(order.getId(), session, address.getId());
+
+        assertNotNull(result);
+        assertEquals(OrderStatus.PAID, order.getStatus());
+        verifyConstantRepositoryCalls(1);
+    }
+
+    @Test
+    void shouldMakeSameRepositoryCallsRegardlessOfOrderSize() {
+        Order order = createOrder(30);
+        mockPayment(order);
+
+        orderService.paymentOrder(order.getId(), session, address.getId());
+
+        verifyConstantRepositoryCalls(30);
+        verify(productRepository, never()).findById(anyLong());
+        verify(walletLedgerService, never()).credit(anyLong(), any(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldAggregateCreditsPerSeller() {
+        Order order = createOrder(4);
+        mockPayment(order);
+        ArgumentCaptor<Map<Long, BigDecimal>> captor = ArgumentCaptor.forClass(Map.class);
+
+        orderService.paymentOrder(order.getId(), session, address.getId());
+
+        // Товары с четными и нечетными id принадлежат двум продавцам: по 2 позиции по 2 шт. по 100
+        verify(walletLedgerService).creditUsers(captor.capture(), eq(LedgerOperation.SALE));
+        assertEquals(2, captor.getValue().size());
+        captor.getValue().values().forEach(amount -> assertEquals(0, amount.compareTo(BigDecimal.valueOf(400))));
+    }
+
+    @Test
+    void shouldThrowWhenNotEnoughStock() {
+        Order order = createOrder(2);
+        mockLookups(order);
+        when(paymentService.processPayment(buyer, order.getTotalPrice())).thenReturn(true);
+        when(productRepository.findSaleViewsByIdIn(anyCollection())).thenReturn(saleViews(order));
+        when(stockReservationService.convertToSale(eq(order.getId()), anyMap())).thenReturn(Set.of(101L));
+
+        assertThrows(NotEnoughStockException.class,
+                () -> orderService.paymentOrder(order.getId(), session, address.getId()));
+
+        verify(walletLedgerService, never()).creditUsers(anyMap(), any());
+        verify(kafkaEmailEventPublisher, never()).sendEmailNotification(any());
+    }
+
+    @Test
+    void shouldReserveStockWhenCreatingOrder() {
+        Product product = Product.builder().id(100L).price(BigDecimal.valueOf(100)).build();
+        Cart cart = Cart.builder()
+                .user(buyer)
+                .totalPrice(BigDecimal.valueOf(300))
+                .items(List.of(CartItem.builder().product(product).quantity(3).build()))
+                .build();
+        LocalDateTime reservedUntil = LocalDateTime.now().plusMinutes(15);
+        mockSession();
+        when(cartRepository.findByUserId(buyer.getId())).thenReturn(Optional.of(cart));
+        when(userRepository.getReferenceById(buyer.getId())).thenReturn(buyer);
+        when(stockReservationService.reserve(Map.of(100L, 3))).thenReturn(reservedUntil);
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        orderService.createOrder(session);
+
+        ArgumentCaptor<Order> captor = ArgumentCaptor.forClass(Order.class);
+        verify(orderRepository).save(captor.capture());
+        assertEquals(reservedUntil, captor.getValue().getReservedUntil());
+    }
+
+    @Test
+    void shouldNotCreateOrderWhenStockCannotBeReserved() {
+        Product product = Product.builder().id(100L).price(BigDecimal.valueOf(100)).build();
+        Cart cart = Cart.builder()
+                .user(buyer)
+                .totalPrice(BigDecimal.valueOf(100))
+                .items(List.of(CartItem.builder().product(product).quantity(1).build()))
+                .build();
+        mockSession();
+        when(cartRepository.findByUserId(buyer.getId())).thenReturn(Optional.of(cart));
+        when(userRepository.getReferenceById(buyer.getId())).thenReturn(buyer);
+        when(stockReservationService.reserve(anyMap())).thenThrow(new NotEnoughStockException("Недостаточно товара"));
+
+        assertThrows(NotEnoughStockException.class, () -> orderService.createOrder(session));
+
+        verify(orderRepository, never()).save(any());
+    }
+
+    @Test
+    void shouldReturnPageWithCursorAndFetchItemsOnce() {
+        ReflectionTestUtils.setField(orderService, "defaultPageSize", 2);
+        ReflectionTestUtils.setField(orderService, "maxPageSize", 100);
+        mockSession();
+        LocalDateTime createdAt = LocalDateTime.of(2025, 1, 1, 12, 0);
+        List<Order> orders = List.of(
+                Order.builder().id(3L).createdAt(createdAt).build(),
+                Order.builder().id(2L).createdAt(createdAt).build(),
+                Order.builder().id(1L).createdAt(createdAt).build());
+        when(orderRepository.findFirstPageByUserId(eq(buyer.getId()), any())).thenReturn(orders);
+
+        OrderPageDTO page = orderService.getUserOrdersPage(session, null, null, null);
+
+        assertTrue(page.isHasMore());
+        assertEquals(2L, page.getNextId());
+        assertEquals(createdAt, page.getNextCreatedAt());
+        verify(orderRepository, times(1)).findWithItemsByIdIn(List.of(3L, 2L));
+        verify(orderMapper).toListOrderDTO(orders.subList(0, 2), "buyer");
+    }
+
+    @Test
+    void shouldRejectIncompleteCursor() {
+        assertThrows(InvalidOrderCursorException.class,
+                () -> orderService.getUserOrdersPage(session, null, 5L, 10));
+        verifyNoInteractions(orderRepository);
+    }
+
+    private void verifyConstantRepositoryCalls(int itemsCount) {
+        verify(productRepository, times(1)).findSaleViewsByIdIn(anyCollection());
+        verify(stockReservationService, times(1)).convertToSale(eq(10L), anyMap());
+        verify(walletLedgerService, times(1)).creditUsers(anyMap(), eq(LedgerOperation.SALE));
+        verify(orderRepository, times(1)).save(any(Order.class));
+        verify(kafkaEmailEventPublisher, times(itemsCount)).sendEmailNotification(any());
+    }
+
+    private void mockPayment(Order order) {
+        mockLookups(order);
+        when(paymentService.processPayment(buyer, order.getTotalPrice())).thenReturn(true);
+        when(productRepository.findSaleViewsByIdIn(anyCollection())).thenReturn(saleViews(order));
+        when(stockReservationService.convertToSale(eq(order.getId()), anyMap())).thenReturn(Collections.emptySet());
+        when(walletLedgerService.creditUsers(anyMap(), eq(LedgerOperation.SALE))).thenReturn(Collections.emptySet());
+        when(orderMapper.toOrderDTO(order, "buyer")).thenReturn(new OrderDTO());
+    }
+
+    private void mockSession() {
+        when(session.getAttribute("check")).thenReturn(true);
+        when(session.getAttribute("sessionUser")).thenReturn(new SessionUser(buyer.getId(), buyer.getLogin(), buyer.getEmail()));
+    }
+
+    private void mockLookups(Order order) {
+        mockSession();
+        when(orderRepository.findById(order.getId())).thenReturn(Optional.of(order));
+        when(addressRepository.existsByUserId(buyer.getId())).thenReturn(true);
+        when(addressRepository.findById(address.getId())).thenReturn(Optional.of(address));
+    }
+
+    private Order createOrder(int itemsCount) {
+        Order order = Order.builder()
+                .id(10L)
+                .user(buyer)
+                .status(OrderStatus.PENDING)
+                .items(new ArrayList<>())
+                .build();
+
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < itemsCount; i++) {
+            Product product = Product.builder().id(100L + i).title("Товар " + i).build();
+            OrderItem item = OrderItem.builder()
+                    .order(order)
+                    .product(product)
+                    .quantity(2)
+                    .price(BigDecimal.valueOf(100))
+                    .build();
+            order.getItems().add(item);
+            total = total.add(BigDecimal.valueOf(200));
+        }
+        order.setTotalPrice(total);
+        return order;
+    }
+
+    private List<ProductSaleView> saleViews(Order order) {
+        List<ProductSaleView> views = new ArrayList<>();
+        for (OrderItem item : order.getItems()) {
+            Product product = item.getProduct();
+            long ownerId = product.getId() % 2;
+            views.add(new TestSaleView(product.getId(), product.getTitle(), ownerId, "seller" + ownerId + "@example.com"));
+        }
+        return views;
+    }
+
+    private record TestSaleView(Long id, String title, Long ownerId, String ownerEmail) implements ProductSaleView {
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public String getTitle() {
+            return title;
+        }
+
+        @Override
+        public Long getOwnerId() {
+            return ownerId;
+        }
+
+        @Override
+        public String getOwnerEmail() {
+            return ownerEmail;
+        }
+    }
+}
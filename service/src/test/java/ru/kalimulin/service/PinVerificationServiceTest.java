@@ -0,0 +1,104 @@
+package ru.kalimulin.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mindrot.jbcrypt.BCrypt;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.kalimulin.customExceptions.walletExceptions.InvalidPinException;
+import ru.kalimulin.customExceptions.walletExceptions.PinVerificationUnavailableException;
+import ru.kalimulin.serviceImpl.PinVerificationServiceImpl;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PinVerificationServiceTest {
+    private static final String PIN_HASH = BCrypt.hashpw("1234", BCrypt.gensalt(4));
+
+    private ExecutorService executor;
+    private PinVerificationServiceImpl pinVerificationService;
+    private MockHttpSession session;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1));
+        pinVerificationService = new PinVerificationServiceImpl(executor, "secret");
+        ReflectionTestUtils.setField(pinVerificationService, "timeout", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(pinVerificationService, "verifiedTtl", Duration.ofMinutes(5));
+        session = new MockHttpSession();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldSkipBcryptForRepeatedOperationsWithSameWallet() {
+        pinVerificationService.verify(session, 10L, PIN_HASH, "1234");
+        // Без пула BCrypt выполнить нельзя: повторная проверка проходит только по отметке в сессии
+        executor.shutdownNow();
+
+        assertDoesNotThrow(() -> pinVerificationService.verify(session, 10L, PIN_HASH, "1234"));
+    }
+
+    @Test
+    void shouldRejectWrongPinWhileVerificationIsRemembered() {
+        pinVerificationService.verify(session, 10L, PIN_HASH, "1234");
+
+        assertThrows(InvalidPinException.class,
+                () -> pinVerificationService.verify(session, 10L, PIN_HASH, "0000"));
+        // Неверный PIN-код снимает отметку, следующий ввод проверяется через BCrypt
+        assertNull(session.getAttribute("verifiedPin"));
+    }
+
+    @Test
+    void shouldNotTrustVerificationFromAnotherKey() {
+        pinVerificationService.verify(session, 10L, PIN_HASH, "1234");
+        PinVerificationServiceImpl otherInstance = new PinVerificationServiceImpl(executor, "other-secret");
+        executor.shutdownNow();
+
+        assertThrows(PinVerificationUnavailableException.class,
+                () -> otherInstance.verify(session, 10L, PIN_HASH, "1234"));
+    }
+
+    @Test
+    void shouldVerifyAgainWhenWalletOrPinChanges() {
+        pinVerificationService.verify(session, 10L, PIN_HASH, "1234");
+
+        assertThrows(InvalidPinException.class,
+                () -> pinVerificationService.verify(session, 20L, PIN_HASH, "0000"));
+        assertThrows(InvalidPinException.class,
+                () -> pinVerificationService.verify(session, 10L, BCrypt.hashpw("5678", BCrypt.gensalt(4)), "1234"));
+    }
+
+    @Test
+    void shouldNotRememberInvalidPin() {
+        assertThrows(InvalidPinException.class,
+                () -> pinVerificationService.verify(session, 10L, PIN_HASH, "0000"));
+        assertThrows(InvalidPinException.class,
+                () -> pinVerificationService.verify(session, 10L, PIN_HASH, "0000"));
+    }
+
+    @Test
+    void shouldRejectWhenQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Callable<Void> blocker = () -> {
+            release.await();
+            return null;
+        };
+        // Один поток занят, единственное место в очереди тоже
+        executor.submit(blocker);
+        executor.submit(blocker);
+
+        try {
+            assertThrows(PinVerificationUnavailableException.class,
+                    () -> pinVerificationService.matches("1234", PIN_HASH));
+        } finally {
+            release.countDown();
+        }
+    }
+}
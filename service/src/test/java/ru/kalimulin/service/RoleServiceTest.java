@@ -21,6 +21,7 @@ import ru.kalimulin.repositories.RoleRepository;
 import ru.kalimulin.repositories.UserRepository;
 import ru.kalimulin.serviceImpl.RoleServiceImpl;
 import ru.kalimulin.stubService.PaymentService;
+import ru.kalimulin.util.UserRoleCache;
 
 import java.math.BigDecimal;
 import java.util.HashSet;
@@ -45,6 +46,8 @@ public class RoleServiceTest {
     @Mock
     private UserMapper userMapper;
     @Mock
+    private UserRoleCache userRoleCache;
+    @Mock
     private HttpSession session;
 
     private User testUser;
@@ -81,6 +84,7 @@ public class RoleServiceTest {
         assertTrue(testUser.getRoles().contains(sellerRole));
         verify(paymentService, times(1)).withdrawFunds("testUser", new BigDecimal("999.99"));
         verify(userRepository, times(1)).save(testUser);
+        verify(userRoleCache).evict("testUser");
     }
 
     @Test
@@ -121,6 +125,7 @@ public class RoleServiceTest {
         assertNotNull(result);
         assertTrue(testUser.getRoles().contains(adminRole));
         verify(userRepository, times(1)).save(testUser);
+        verify(userRoleCache).evict("testUser");
     }
 
     @Test
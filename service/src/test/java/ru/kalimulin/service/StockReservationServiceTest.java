@@ -0,0 +1,111 @@
+package ru.kalimulin.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.kalimulin.customExceptions.productExceptions.NotEnoughStockException;
+import ru.kalimulin.models.Order;
+import ru.kalimulin.models.OrderItem;
+import ru.kalimulin.models.Product;
+import ru.kalimulin.projections.ProductQuantityView;
+import ru.kalimulin.repositories.OrderItemRepository;
+import ru.kalimulin.repositories.OrderRepository;
+import ru.kalimulin.repositories.ProductRepository;
+import ru.kalimulin.serviceImpl.StockReservationServiceImpl;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StockReservationServiceTest {
+    @InjectMocks
+    private StockReservationServiceImpl stockReservationService;
+
+    @Mock
+    private ProductRepository productRepository;
+    @Mock
+    private OrderRepository orderRepository;
+    @Mock
+    private OrderItemRepository orderItemRepository;
+
+    @Test
+    void shouldThrowWhenStockCannotBeReserved() {
+        when(productRepository.reserveStocksBatch(Map.of(1L, 2))).thenReturn(Set.of(1L));
+
+        assertThrows(NotEnoughStockException.class, () -> stockReservationService.reserve(Map.of(1L, 2)));
+    }
+
+    @Test
+    void shouldOnlyCountSalesWhenReservationIsActive() {
+        when(orderRepository.releaseReservation(10L)).thenReturn(true);
+
+        Set<Long> rejected = stockReservationService.convertToSale(10L, Map.of(1L, 2));
+
+        assertTrue(rejected.isEmpty());
+        verify(productRepository).increaseSalesCountBatch(Map.of(1L, 2));
+        verify(productRepository, never()).decreaseStocksBatch(anyMap());
+    }
+
+    @Test
+    void shouldDecreaseStocksAgainWhenReservationExpired() {
+        when(orderRepository.releaseReservation(10L)).thenReturn(false);
+        when(productRepository.decreaseStocksBatch(Map.of(1L, 2))).thenReturn(Set.of(1L));
+
+        Set<Long> rejected = stockReservationService.convertToSale(10L, Map.of(1L, 2));
+
+        assertEquals(Set.of(1L), rejected);
+        verify(productRepository, never()).increaseSalesCountBatch(anyMap());
+    }
+
+    @Test
+    void shouldNotReturnStockTwiceForReleasedReservation() {
+        Order order = Order.builder()
+                .id(10L)
+                .items(List.of(OrderItem.builder().product(Product.builder().id(1L).build()).quantity(2).build()))
+                .build();
+        when(orderRepository.releaseReservation(10L)).thenReturn(true, false);
+
+        stockReservationService.release(order);
+        stockReservationService.release(order);
+
+        verify(productRepository, times(1)).returnStocksBatch(Map.of(1L, 2));
+    }
+
+    @Test
+    void shouldReturnStockOfExpiredOrdersInOneBatch() {
+        when(orderRepository.claimExpiredReservations(any(), anyInt())).thenReturn(List.of(10L, 11L));
+        when(orderItemRepository.sumQuantitiesByOrderIds(List.of(10L, 11L)))
+                .thenReturn(List.of(new TestQuantityView(1L, 5L), new TestQuantityView(2L, 1L)));
+
+        assertEquals(2, stockReservationService.releaseExpired());
+        verify(productRepository).returnStocksBatch(Map.of(1L, 5, 2L, 1));
+    }
+
+    @Test
+    void shouldDoNothingWhenNoReservationsExpired() {
+        when(orderRepository.claimExpiredReservations(any(), anyInt())).thenReturn(Collections.emptyList());
+
+        assertEquals(0, stockReservationService.releaseExpired());
+        verifyNoInteractions(orderItemRepository, productRepository);
+    }
+
+    private record TestQuantityView(Long productId, Long quantity) implements ProductQuantityView {
+        @Override
+        public Long getProductId() {
+            return productId;
+        }
+
+        @Override
+        public Long getQuantity() {
+            return quantity;
+        }
+    }
+}
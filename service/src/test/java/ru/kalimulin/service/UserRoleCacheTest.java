@@ -0,0 +1,48 @@
+package ru.kalimulin.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.kalimulin.enums.RoleName;
+import ru.kalimulin.repositories.UserRepository;
+import ru.kalimulin.util.UserRoleCache;
+
+import java.time.Duration;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserRoleCacheTest {
+    @Mock
+    private UserRepository userRepository;
+
+    @Test
+    void shouldLoadRolesOnceUntilEvicted() {
+        UserRoleCache cache = new UserRoleCache(userRepository, Duration.ofMinutes(1), 100);
+        when(userRepository.findRoleNamesByLogin("admin"))
+                .thenReturn(Set.of(RoleName.BUYER))
+                .thenReturn(Set.of(RoleName.BUYER, RoleName.ADMIN));
+
+        assertEquals(Set.of(RoleName.BUYER), cache.getRoles("admin"));
+        assertEquals(Set.of(RoleName.BUYER), cache.getRoles("admin"));
+
+        cache.evict("admin");
+
+        assertEquals(Set.of(RoleName.BUYER, RoleName.ADMIN), cache.getRoles("admin"));
+        verify(userRepository, times(2)).findRoleNamesByLogin("admin");
+    }
+
+    @Test
+    void shouldReloadExpiredRoles() {
+        UserRoleCache cache = new UserRoleCache(userRepository, Duration.ZERO, 100);
+        when(userRepository.findRoleNamesByLogin("seller")).thenReturn(Set.of(RoleName.SELLER));
+
+        cache.getRoles("seller");
+        cache.getRoles("seller");
+
+        verify(userRepository, times(2)).findRoleNamesByLogin("seller");
+    }
+}
@@ -16,6 +16,8 @@ import ru.kalimulin.models.User;
 import ru.kalimulin.repositories.RoleRepository;
 import ru.kalimulin.repositories.UserRepository;
 import ru.kalimulin.serviceImpl.UserServiceImpl;
+import ru.kalimulin.util.SessionUser;
+import ru.kalimulin.util.UserRoleCache;
 
 import java.util.List;
 import java.util.Optional;
@@ -41,6 +43,8 @@ public class UserServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
     @Mock
+    private UserRoleCache userRoleCache;
+    @Mock
     private HttpSession session;
 
     private User testUser;
@@ -88,10 +92,11 @@ public class UserServiceTest {
         when(userRepository.findByLogin("testUser")).thenReturn(Optional.of(testUser));
         when(passwordEncoder.matches("password", "hashedPassword")).thenReturn(true);
 
-        LoginResponseDTO result = userService.authenticateUser(loginRequest);
+        LoginResponseDTO result = userService.authenticateUser(loginRequest, session);
 
         assertNotNull(result);
         assertEquals("Успешный вход!", result.getMessage());
+        verify(session).setAttribute("sessionUser", new SessionUser(testUser.getId(), "testUser", "testEmail@test.com"));
     }
 
     @Test
@@ -111,6 +116,7 @@ public class UserServiceTest {
         assertNotNull(result);
         assertEquals("newUser", result.getLogin());
         assertEquals("newEmail@test.com", result.getEmail());
+        verify(userRoleCache).evict("testUser");
     }
 
     @Test
@@ -159,5 +165,6 @@ public class UserServiceTest {
         userService.deleteUserByLogin(session);
 
         verify(userRepository, times(1)).delete(testUser);
+        verify(userRoleCache).evict("testUser");
     }
 }
@@ -0,0 +1,143 @@
+package ru.kalimulin.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.kalimulin.customExceptions.walletExceptions.InsufficientFundsException;
+import ru.kalimulin.customExceptions.walletExceptions.WalletNotFoundException;
+import ru.kalimulin.enums.LedgerOperation;
+import ru.kalimulin.models.WalletLedgerEntry;
+import ru.kalimulin.projections.LedgerWatermark;
+import ru.kalimulin.repositories.WalletLedgerRepository;
+import ru.kalimulin.repositories.WalletRepository;
+import ru.kalimulin.serviceImpl.WalletLedgerServiceImpl;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WalletLedgerServiceTest {
+    @InjectMocks
+    private WalletLedgerServiceImpl walletLedgerService;
+
+    @Mock
+    private WalletLedgerRepository walletLedgerRepository;
+    @Mock
+    private WalletRepository walletRepository;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldAppendBothTransferEntriesAfterLockingSender() {
+        when(walletRepository.lockByIdIn(List.of(10L))).thenReturn(List.of(10L));
+        when(walletLedgerRepository.currentBalance(10L)).thenReturn(Optional.of(BigDecimal.valueOf(200)));
+        ArgumentCaptor<List<WalletLedgerEntry>> captor = ArgumentCaptor.forClass(List.class);
+
+        walletLedgerService.transfer(10L, 20L, BigDecimal.valueOf(150));
+
+        verify(walletLedgerRepository).appendBatch(captor.capture());
+        List<WalletLedgerEntry> entries = captor.getValue();
+        assertEquals(2, entries.size());
+        assertEquals(LedgerOperation.TRANSFER_OUT, entries.get(0).getOperation());
+        assertEquals(0, entries.get(0).getAmount().compareTo(BigDecimal.valueOf(-150)));
+        assertEquals(20L, entries.get(1).getWalletId());
+        assertEquals(0, entries.get(1).getAmount().compareTo(BigDecimal.valueOf(150)));
+        verify(walletRepository, never()).lockByIdIn(List.of(20L));
+    }
+
+    @Test
+    void shouldRejectDebitWhenBalanceIsInsufficient() {
+        when(walletRepository.lockByIdIn(List.of(10L))).thenReturn(List.of(10L));
+        when(walletLedgerRepository.currentBalance(10L)).thenReturn(Optional.of(BigDecimal.valueOf(50)));
+
+        assertThrows(InsufficientFundsException.class,
+                () -> walletLedgerService.debit(10L, BigDecimal.valueOf(100), LedgerOperation.PURCHASE));
+        verify(walletLedgerRepository, never()).appendBatch(anyList());
+    }
+
+    @Test
+    void shouldRejectBatchWhenAnyDebitExceedsBalance() {
+        when(walletRepository.lockByIdIn(List.of(2L, 3L))).thenReturn(List.of(2L, 3L));
+        when(walletLedgerRepository.currentBalances(List.of(2L, 3L)))
+                .thenReturn(Map.of(2L, BigDecimal.valueOf(100), 3L, BigDecimal.valueOf(10)));
+
+        assertThrows(InsufficientFundsException.class, () -> walletLedgerService.applyBatch(Map.of(
+                1L, BigDecimal.valueOf(500),
+                2L, BigDecimal.valueOf(-50),
+                3L, BigDecimal.valueOf(-20)), LedgerOperation.PAYOUT, LedgerOperation.CHARGE));
+        verify(walletLedgerRepository, never()).appendBatch(anyList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldAppendBatchWithoutLockingCreditedWallets() {
+        when(walletRepository.lockByIdIn(List.of(2L))).thenReturn(List.of(2L));
+        when(walletLedgerRepository.currentBalances(List.of(2L))).thenReturn(Map.of(2L, BigDecimal.valueOf(100)));
+        ArgumentCaptor<List<WalletLedgerEntry>> captor = ArgumentCaptor.forClass(List.class);
+
+        walletLedgerService.applyBatch(Map.of(1L, BigDecimal.valueOf(500), 2L, BigDecimal.valueOf(-50)),
+                LedgerOperation.PAYOUT, LedgerOperation.CHARGE);
+
+        verify(walletLedgerRepository).appendBatch(captor.capture());
+        assertEquals(2, captor.getValue().size());
+        assertTrue(captor.getValue().stream().anyMatch(entry ->
+                entry.getWalletId() == 2L && entry.getOperation() == LedgerOperation.CHARGE));
+        assertTrue(captor.getValue().stream().anyMatch(entry ->
+                entry.getWalletId() == 1L && entry.getOperation() == LedgerOperation.PAYOUT));
+    }
+
+    @Test
+    void shouldCreditWithoutLockingWallet() {
+        when(walletLedgerRepository.currentBalance(10L)).thenReturn(Optional.of(BigDecimal.valueOf(300)));
+
+        BigDecimal balance = walletLedgerService.credit(10L, BigDecimal.valueOf(100), LedgerOperation.DEPOSIT);
+
+        assertEquals(BigDecimal.valueOf(300), balance);
+        verify(walletLedgerRepository).appendBatch(anyList());
+        verifyNoInteractions(walletRepository);
+    }
+
+    @Test
+    void shouldThrowWhenWalletNotFound() {
+        when(walletLedgerRepository.currentBalance(10L)).thenReturn(Optional.empty());
+
+        assertThrows(WalletNotFoundException.class, () -> walletLedgerService.getBalance(10L));
+    }
+
+    @Test
+    void firstSnapshotRunShouldOnlyCaptureWatermark() {
+        when(walletLedgerRepository.captureWatermark())
+                .thenReturn(Optional.of(new LedgerWatermark(10L, List.of("3/7"))));
+
+        assertEquals(0, walletLedgerService.snapshotBalances());
+
+        verify(walletLedgerRepository, never()).snapshotBalances(anyLong());
+    }
+
+    @Test
+    void shouldSnapshotUpToWatermarkOnlyAfterItsWritersFinish() {
+        LedgerWatermark watermark = new LedgerWatermark(10L, List.of("3/7"));
+        when(walletLedgerRepository.captureWatermark())
+                .thenReturn(Optional.of(watermark))
+                .thenReturn(Optional.of(new LedgerWatermark(25L, List.of())));
+        when(walletLedgerRepository.isWatermarkCommitted(watermark)).thenReturn(false, true);
+        when(walletLedgerRepository.snapshotBalances(10L)).thenReturn(3);
+
+        walletLedgerService.snapshotBalances();
+        // Транзакция 3/7 еще пишет в журнал: граница не подтверждена и не заменяется новой
+        assertEquals(0, walletLedgerService.snapshotBalances());
+        verify(walletLedgerRepository, never()).snapshotBalances(anyLong());
+
+        assertEquals(3, walletLedgerService.snapshotBalances());
+        verify(walletLedgerRepository).snapshotBalances(10L);
+        verify(walletLedgerRepository, times(2)).captureWatermark();
+    }
+}
@@ -0,0 +1,80 @@
+package ru.kalimulin.service;
+
+import org.junit.jupiter.api.Test;
+import ru.kalimulin.repositories.WalletRepository;
+import ru.kalimulin.util.WalletNumberGenerator;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class WalletNumberGeneratorTest {
+    private static final int WALLETS = 200_000;
+    private static final int BLOCK_SIZE = 1000;
+    private static final long NUMBER_SPACE = 100_000_000_000L;
+    private static final long MULTIPLIER = 72_541_039L;
+    private static final long OFFSET = 31_415_926_535L;
+
+    @Test
+    void shouldAllocateUniqueValidNumbersWithOneSequenceCallPerBlock() {
+        WalletRepository walletRepository = mock(WalletRepository.class);
+        AtomicLong block = new AtomicLong();
+        when(walletRepository.nextWalletNumberBlock()).thenAnswer(invocation -> block.getAndIncrement());
+        WalletNumberGenerator generator = new WalletNumberGenerator(walletRepository);
+
+        long[] numbers = new long[WALLETS];
+        for (int i = 0; i < WALLETS; i++) {
+            String walletNumber = generator.next();
+            assertTrue(WalletNumberGenerator.isValid(walletNumber), walletNumber);
+            numbers[i] = Long.parseLong(walletNumber);
+        }
+
+        // Стоимость выдачи номера не зависит от числа кошельков: одно обращение к последовательности на блок
+        verify(walletRepository, times(WALLETS / BLOCK_SIZE)).nextWalletNumberBlock();
+
+        Arrays.sort(numbers);
+        for (int i = 1; i < WALLETS; i++) {
+            assertNotEquals(numbers[i - 1], numbers[i]);
+        }
+    }
+
+    /**
+     * Уникальность на всем пространстве номеров следует из того, что отображение порядкового номера -
+     * перестановка: множитель взаимно прост с 10^11 (не делится ни на 2, ни на 5), а значит обратим по модулю.
+     * Проверяем это и то, что произведение максимального порядкового номера на множитель не переполняет long.
+     */
+    @Test
+    void ordinalMappingShouldBeBijection() {
+        assertEquals(BigInteger.ONE, BigInteger.valueOf(MULTIPLIER).gcd(BigInteger.valueOf(NUMBER_SPACE)));
+        assertDoesNotThrow(() -> Math.multiplyExact(NUMBER_SPACE, MULTIPLIER));
+
+        BigInteger inverse = BigInteger.valueOf(MULTIPLIER).modInverse(BigInteger.valueOf(NUMBER_SPACE));
+        WalletRepository walletRepository = mock(WalletRepository.class);
+        // Последний блок последовательности: порядковые номера у верхней границы пространства
+        when(walletRepository.nextWalletNumberBlock()).thenReturn(99_999_999L);
+        WalletNumberGenerator generator = new WalletNumberGenerator(walletRepository);
+        String walletNumber = generator.next();
+
+        long number = Long.parseLong(walletNumber.substring(0, 11));
+        long ordinal = BigInteger.valueOf(number - OFFSET).multiply(inverse)
+                .mod(BigInteger.valueOf(NUMBER_SPACE)).longValueExact();
+        assertEquals(99_999_999L * BLOCK_SIZE, ordinal);
+    }
+
+    @Test
+    void shouldDetectMistypedNumber() {
+        WalletRepository walletRepository = mock(WalletRepository.class);
+        when(walletRepository.nextWalletNumberBlock()).thenReturn(42L);
+        String walletNumber = new WalletNumberGenerator(walletRepository).next();
+
+        char last = walletNumber.charAt(11);
+        String mistyped = walletNumber.substring(0, 11) + (char) ('0' + (last - '0' + 1) % 10);
+
+        assertTrue(WalletNumberGenerator.isValid(walletNumber));
+        assertFalse(WalletNumberGenerator.isValid(mistyped));
+        assertFalse(WalletNumberGenerator.isValid("12345"));
+    }
+}
@@ -0,0 +1,124 @@
+package ru.kalimulin.service;
+
+import jakarta.servlet.http.HttpSession;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.kalimulin.customExceptions.walletExceptions.InvalidPayoutException;
+import ru.kalimulin.customExceptions.walletExceptions.WalletNotFoundException;
+import ru.kalimulin.dto.kafkaEventDTO.WalletTransactionBatchEvent;
+import ru.kalimulin.dto.walletDTO.WalletPayoutLineDTO;
+import ru.kalimulin.dto.walletDTO.WalletPayoutRequestDTO;
+import ru.kalimulin.dto.walletDTO.WalletPayoutResultDTO;
+import ru.kalimulin.enums.LedgerOperation;
+import ru.kalimulin.kafka.WalletEventProducer;
+import ru.kalimulin.projections.WalletNumberView;
+import ru.kalimulin.repositories.WalletRepository;
+import ru.kalimulin.serviceImpl.WalletPayoutServiceImpl;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WalletPayoutServiceTest {
+    @InjectMocks
+    private WalletPayoutServiceImpl walletPayoutService;
+
+    @Mock
+    private WalletRepository walletRepository;
+    @Mock
+    private WalletLedgerService walletLedgerService;
+    @Mock
+    private WalletEventProducer walletEventProducer;
+    @Mock
+    private HttpSession session;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(walletPayoutService, "chunkSize", 2);
+        lenient().when(session.getAttribute("userLogin")).thenReturn("admin");
+        lenient().when(session.getAttribute("check")).thenReturn(true);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldApplyAggregatedLinesAndEmitSingleEvent() {
+        when(walletRepository.findNumberViewsByWalletNumberIn(List.of("111", "222")))
+                .thenReturn(List.of(view(1L, "111"), view(2L, "222")));
+        when(walletRepository.findNumberViewsByWalletNumberIn(List.of("333")))
+                .thenReturn(List.of(view(3L, "333")));
+        ArgumentCaptor<Map<Long, BigDecimal>> amounts = ArgumentCaptor.forClass(Map.class);
+        ArgumentCaptor<WalletTransactionBatchEvent> event = ArgumentCaptor.forClass(WalletTransactionBatchEvent.class);
+
+        WalletPayoutResultDTO result = walletPayoutService.applyPayouts(request(
+                line("111", "100.00"),
+                line("222", "-30.00"),
+                line("111", "50.00"),
+                line("333", "20.00")), session);
+
+        assertEquals(3, result.getWalletsCount());
+        assertEquals(0, result.getTotalCredited().compareTo(new BigDecimal("170.00")));
+        assertEquals(0, result.getTotalDebited().compareTo(new BigDecimal("30.00")));
+
+        verify(walletLedgerService).applyBatch(amounts.capture(), eq(LedgerOperation.PAYOUT), eq(LedgerOperation.CHARGE));
+        assertEquals(0, amounts.getValue().get(1L).compareTo(new BigDecimal("150.00")));
+        assertEquals(0, amounts.getValue().get(2L).compareTo(new BigDecimal("-30.00")));
+
+        verify(walletEventProducer, times(1)).sendWalletTransactionBatch(event.capture());
+        verify(walletEventProducer, never()).sendWalletTransaction(any());
+        assertEquals("admin", event.getValue().getInitiatorLogin());
+        assertEquals(3, event.getValue().getLines().size());
+    }
+
+    @Test
+    void shouldRejectWholeBatchWhenWalletIsMissing() {
+        when(walletRepository.findNumberViewsByWalletNumberIn(List.of("111", "404")))
+                .thenReturn(List.of(view(1L, "111")));
+
+        WalletNotFoundException exception = assertThrows(WalletNotFoundException.class,
+                () -> walletPayoutService.applyPayouts(request(line("111", "10.00"), line("404", "10.00")), session));
+
+        assertTrue(exception.getMessage().contains("404"));
+        verifyNoInteractions(walletLedgerService, walletEventProducer);
+    }
+
+    @Test
+    void shouldRejectZeroAmount() {
+        assertThrows(InvalidPayoutException.class,
+                () -> walletPayoutService.applyPayouts(request(line("111", "0.00")), session));
+
+        verifyNoInteractions(walletRepository, walletLedgerService, walletEventProducer);
+    }
+
+    private WalletPayoutRequestDTO request(WalletPayoutLineDTO... lines) {
+        return new WalletPayoutRequestDTO(List.of(lines));
+    }
+
+    private WalletPayoutLineDTO line(String walletNumber, String amount) {
+        return new WalletPayoutLineDTO(walletNumber, new BigDecimal(amount));
+    }
+
+    private WalletNumberView view(Long id, String walletNumber) {
+        return new WalletNumberView() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getWalletNumber() {
+                return walletNumber;
+            }
+        };
+    }
+}
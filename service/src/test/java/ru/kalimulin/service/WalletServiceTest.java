@@ -4,12 +4,15 @@ import jakarta.servlet.http.HttpSession;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import ru.kalimulin.customExceptions.walletExceptions.InsufficientFundsException;
 import ru.kalimulin.customExceptions.walletExceptions.InvalidPinException;
+import ru.kalimulin.dto.kafkaEventDTO.WalletTransactionEvent;
 import ru.kalimulin.dto.walletDTO.*;
+import ru.kalimulin.enums.LedgerOperation;
 import ru.kalimulin.kafka.KafkaEmailEventPublisher;
 import ru.kalimulin.kafka.WalletEventProducer;
 import ru.kalimulin.mappers.walletMapper.WalletMapper;
@@ -19,9 +22,12 @@ import ru.kalimulin.repositories.UserRepository;
 import ru.kalimulin.repositories.WalletRepository;
 import ru.kalimulin.serviceImpl.WalletServiceImpl;
 import ru.kalimulin.stubService.PaymentService;
+import ru.kalimulin.util.SessionUser;
+import ru.kalimulin.util.WalletNumberGenerator;
 import org.mindrot.jbcrypt.BCrypt;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -42,6 +48,12 @@ class WalletServiceTest {
     @Mock
     private PaymentService paymentService;
     @Mock
+    private WalletLedgerService walletLedgerService;
+    @Mock
+    private PinVerificationService pinVerificationService;
+    @Mock
+    private WalletNumberGenerator walletNumberGenerator;
+    @Mock
     private WalletEventProducer walletEventProducer;
     @Mock
     private KafkaEmailEventPublisher kafkaEmailEventPublisher;
@@ -76,6 +88,7 @@ class WalletServiceTest {
         when(session.getAttribute("userLogin")).thenReturn("testUser");
         when(session.getAttribute("check")).thenReturn(true);
         when(userRepository.findByLogin("testUser")).thenReturn(Optional.of(testUser));
+        when(walletNumberGenerator.next()).thenReturn("123456789012");
         when(walletRepository.save(any(Wallet.class))).thenReturn(testWallet);
         when(walletMapper.toWalletResponseDTO(any(Wallet.class))).thenReturn(walletResponseDTO);
 
@@ -85,12 +98,26 @@ class WalletServiceTest {
         assertEquals("123456789012", result.getWalletNumber());
         assertEquals(BigDecimal.ZERO, result.getBalance());
 
-        verify(walletRepository, times(1)).save(any(Wallet.class));
+        verify(walletRepository, times(1)).save(argThat(wallet -> "123456789012".equals(wallet.getWalletNumber())));
     }
 
 
     @Test
-    void shouldReturnUserWallet() {
+    void shouldSkipWalletNumberTakenByLegacyWallet() {
+        when(session.getAttribute("userLogin")).thenReturn("testUser");
+        when(session.getAttribute("check")).thenReturn(true);
+        when(userRepository.findByLogin("testUser")).thenReturn(Optional.of(testUser));
+        when(walletNumberGenerator.next()).thenReturn("123456789012", "210987654321");
+        when(walletRepository.existsByWalletNumber("123456789012")).thenReturn(true);
+        when(walletRepository.existsByWalletNumber("210987654321")).thenReturn(false);
+
+        walletService.createWallet(new WalletCreateDTO("1234"), session);
+
+        verify(walletRepository).save(argThat(wallet -> "210987654321".equals(wallet.getWalletNumber())));
+    }
+
+    @Test
+    void shouldReturnUserWalletWithLedgerBalance() {
         WalletResponseDTO responseDTO = new WalletResponseDTO("123456789012", BigDecimal.ZERO);
 
         when(session.getAttribute("userLogin")).thenReturn("testUser");
@@ -98,75 +125,84 @@ class WalletServiceTest {
         when(userRepository.findByLogin("testUser")).thenReturn(Optional.of(testUser));
         when(walletRepository.findByUser(testUser)).thenReturn(Optional.of(testWallet));
         when(walletMapper.toWalletResponseDTO(testWallet)).thenReturn(responseDTO);
+        when(walletLedgerService.getBalance(testWallet.getId())).thenReturn(BigDecimal.valueOf(300));
 
         WalletResponseDTO result = walletService.getUserWallet(session);
 
         assertNotNull(result);
         assertEquals("123456789012", result.getWalletNumber());
+        assertEquals(BigDecimal.valueOf(300), result.getBalance());
 
         verify(walletRepository, times(1)).findByUser(testUser);
     }
 
     @Test
     void shouldThrowExceptionWhenInsufficientFunds() {
-        when(session.getAttribute("userLogin")).thenReturn("testUser");
-        when(session.getAttribute("check")).thenReturn(true);
-        when(userRepository.findByLogin("testUser")).thenReturn(Optional.of(testUser));
-        when(walletRepository.findByUser(testUser)).thenReturn(Optional.of(testWallet));
-
-        Wallet recipientWallet = new Wallet();
-        recipientWallet.setWalletNumber("987654321098");
-        recipientWallet.setUser(new User());
-        recipientWallet.setBalance(BigDecimal.ZERO);
-
-        when(walletRepository.findByWalletNumber("987654321098")).thenReturn(Optional.of(recipientWallet));
+        mockTransferLookups();
+        doThrow(new InsufficientFundsException("Недостаточно средств на кошельке"))
+                .when(walletLedgerService).transfer(10L, 20L, BigDecimal.valueOf(100));
 
         assertThrows(InsufficientFundsException.class, () ->
                 walletService.transfer("987654321098", BigDecimal.valueOf(100), "1234", session)
         );
+        verify(kafkaEmailEventPublisher, never()).sendWalletNotification(any());
+        verify(walletEventProducer, never()).sendWalletTransaction(any());
     }
 
     @Test
-    void shouldTransferFundsSuccessfully() {
-        testWallet.setBalance(BigDecimal.valueOf(200));
-
-        Wallet recipientWallet = new Wallet();
-        recipientWallet.setWalletNumber("987654321098");
-        recipientWallet.setUser(new User());
-        recipientWallet.setBalance(BigDecimal.ZERO);
-
-        when(session.getAttribute("userLogin")).thenReturn("testUser");
+    void shouldCheckPinBeforeLockingWallet() {
         when(session.getAttribute("check")).thenReturn(true);
-        when(userRepository.findByLogin("testUser")).thenReturn(Optional.of(testUser));
-        when(walletRepository.findByUser(testUser)).thenReturn(Optional.of(testWallet));
-        when(walletRepository.findByWalletNumber("987654321098")).thenReturn(Optional.of(recipientWallet));
-        when(walletRepository.save(any(Wallet.class))).thenReturn(testWallet, recipientWallet);
+        when(session.getAttribute("sessionUser")).thenReturn(new SessionUser(1L, "testUser", "testEmail"));
+        when(walletRepository.findIdByUserId(1L)).thenReturn(Optional.of(10L));
+        when(walletRepository.findIdByWalletNumber("987654321098")).thenReturn(Optional.of(20L));
+        when(walletRepository.findPinById(10L)).thenReturn(Optional.of(testWallet.getPin()));
+        doThrow(new InvalidPinException("Пин-код не прошел проверку"))
+                .when(pinVerificationService).verify(session, 10L, testWallet.getPin(), "0000");
+
+        assertThrows(InvalidPinException.class, () ->
+                walletService.transfer("987654321098", BigDecimal.valueOf(100), "0000", session)
+        );
+        verifyNoInteractions(walletLedgerService);
+    }
 
-        walletService.transfer("987654321098", BigDecimal.valueOf(100), "1234", session);
+    @Test
+    void shouldTransferFundsSuccessfully() {
+        Wallet recipientWallet = createRecipientWallet();
+        mockTransferLookups();
+        when(walletRepository.findById(10L)).thenReturn(Optional.of(testWallet));
+        when(walletRepository.findById(20L)).thenReturn(Optional.of(recipientWallet));
+        when(walletLedgerService.getBalance(20L)).thenReturn(BigDecimal.valueOf(100));
 
-        assertEquals(BigDecimal.valueOf(100), testWallet.getBalance());
-        assertEquals(BigDecimal.valueOf(100), recipientWallet.getBalance());
+        walletService.transfer("987654321098", BigDecimal.valueOf(100), "1234", session);
 
-        verify(walletRepository, times(2)).save(any(Wallet.class));
+        verify(walletLedgerService, times(1)).transfer(10L, 20L, BigDecimal.valueOf(100));
+        verify(walletRepository, never()).save(any(Wallet.class));
         verify(kafkaEmailEventPublisher, times(2)).sendWalletNotification(any());
-        verify(walletEventProducer, times(1)).sendWalletTransaction(any());
+
+        ArgumentCaptor<WalletTransactionEvent> events = ArgumentCaptor.forClass(WalletTransactionEvent.class);
+        verify(walletEventProducer, times(2)).sendWalletTransaction(events.capture());
+        assertEquals(List.of("123456789012", "987654321098"),
+                events.getAllValues().stream().map(WalletTransactionEvent::getWalletNumber).toList());
+        assertEquals(List.of("TRANSFER_OUT", "TRANSFER_IN"),
+                events.getAllValues().stream().map(WalletTransactionEvent::getTransactionType).toList());
     }
 
     @Test
     void shouldDepositSuccessfully() {
         WalletUpdateBalanceDTO walletUpdateBalanceDTO = new WalletUpdateBalanceDTO(BigDecimal.valueOf(500));
 
-        when(session.getAttribute("userLogin")).thenReturn("testUser");
         when(session.getAttribute("check")).thenReturn(true);
-        when(userRepository.findByLogin("testUser")).thenReturn(Optional.of(testUser));
-        when(walletRepository.findByUser(testUser)).thenReturn(Optional.of(testWallet));
+        when(session.getAttribute("sessionUser")).thenReturn(new SessionUser(1L, "testUser", "testEmail"));
+        when(walletRepository.findIdByUserId(1L)).thenReturn(Optional.of(10L));
+        when(walletRepository.findById(10L)).thenReturn(Optional.of(testWallet));
         when(paymentService.processPayment("testUser", BigDecimal.valueOf(500))).thenReturn(true);
+        when(walletLedgerService.credit(10L, BigDecimal.valueOf(500), LedgerOperation.DEPOSIT))
+                .thenReturn(BigDecimal.valueOf(500));
 
         walletService.deposit(session, walletUpdateBalanceDTO);
 
-        assertEquals(BigDecimal.valueOf(500), testWallet.getBalance());
-
-        verify(walletRepository, times(1)).save(any(Wallet.class));
+        verify(walletLedgerService, times(1)).credit(10L, BigDecimal.valueOf(500), LedgerOperation.DEPOSIT);
+        verify(walletRepository, never()).save(any(Wallet.class));
         verify(kafkaEmailEventPublisher, times(1)).sendWalletNotification(any());
         verify(walletEventProducer, times(1)).sendWalletTransaction(any());
     }
@@ -192,12 +228,33 @@ class WalletServiceTest {
 
         when(userRepository.findByLogin("testUser")).thenReturn(Optional.of(testUser));
         when(walletRepository.findByUser(testUser)).thenReturn(Optional.of(testWallet));
+        when(pinVerificationService.matches("1234", testWallet.getPin())).thenReturn(true);
+        when(pinVerificationService.hash("4444")).thenReturn("newPinHash");
 
         walletService.changePin(session, walletUpdatePinDTO);
 
-        assertTrue(BCrypt.checkpw("4444", testWallet.getPin()));
+        assertEquals("newPinHash", testWallet.getPin());
+        verify(pinVerificationService, times(1)).revoke(session);
 
         verify(walletRepository, times(1)).save(any(Wallet.class));
         verify(kafkaEmailEventPublisher, times(1)).sendWalletNotification(any());
     }
+
+    private Wallet createRecipientWallet() {
+        Wallet recipientWallet = new Wallet();
+        recipientWallet.setId(20L);
+        recipientWallet.setWalletNumber("987654321098");
+        recipientWallet.setUser(new User());
+        recipientWallet.setBalance(BigDecimal.ZERO);
+        return recipientWallet;
+    }
+
+    private void mockTransferLookups() {
+        testWallet.setId(10L);
+        when(session.getAttribute("check")).thenReturn(true);
+        when(session.getAttribute("sessionUser")).thenReturn(new SessionUser(1L, "testUser", "testEmail"));
+        when(walletRepository.findIdByUserId(1L)).thenReturn(Optional.of(10L));
+        when(walletRepository.findIdByWalletNumber("987654321098")).thenReturn(Optional.of(20L));
+        when(walletRepository.findPinById(10L)).thenReturn(Optional.of(testWallet.getPin()));
+    }
 }
@@ -0,0 +1,121 @@
+package ru.kalimulin.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpSession;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.kalimulin.customExceptions.walletExceptions.InvalidStatementPeriodException;
+import ru.kalimulin.customExceptions.walletExceptions.WalletNotFoundException;
+import ru.kalimulin.enums.WalletStatementFormat;
+import ru.kalimulin.projections.WalletStatementRow;
+import ru.kalimulin.repositories.WalletLedgerRepository;
+import ru.kalimulin.repositories.WalletRepository;
+import ru.kalimulin.serviceImpl.WalletStatementServiceImpl;
+import ru.kalimulin.util.SessionUser;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WalletStatementServiceTest {
+    private static final LocalDate FROM = LocalDate.of(2025, 1, 1);
+    private static final LocalDate TO = LocalDate.of(2025, 1, 31);
+
+    @Mock
+    private WalletLedgerRepository walletLedgerRepository;
+    @Mock
+    private WalletRepository walletRepository;
+    @Mock
+    private HttpSession session;
+
+    private WalletStatementServiceImpl walletStatementService;
+
+    @BeforeEach
+    void setUp() {
+        walletStatementService = new WalletStatementServiceImpl(walletLedgerRepository, walletRepository,
+                new ObjectMapper().findAndRegisterModules());
+    }
+
+    @Test
+    void shouldWriteCsvRowPerEntryForWholeLastDay() throws Exception {
+        mockRows(List.of(
+                new WalletStatementRow(1L, LocalDateTime.of(2025, 1, 2, 10, 0), "DEPOSIT", new BigDecimal("100.00")),
+                new WalletStatementRow(5L, LocalDateTime.of(2025, 1, 31, 23, 59), "PURCHASE", new BigDecimal("-40.50"))));
+
+        String csv = export(WalletStatementFormat.CSV);
+
+        assertEquals("""
+                entry_id,created_at,operation,amount
+                1,2025-01-02T10:00,DEPOSIT,100.00
+                5,2025-01-31T23:59,PURCHASE,-40.50
+                """, csv);
+        verify(walletLedgerRepository).streamStatement(eq(7L), eq(FROM.atStartOfDay()),
+                eq(LocalDate.of(2025, 2, 1).atStartOfDay()), anyInt(), any());
+    }
+
+    @Test
+    void shouldWriteOneJsonLinePerEntry() throws Exception {
+        mockRows(List.of(
+                new WalletStatementRow(1L, LocalDateTime.of(2025, 1, 2, 10, 0), "DEPOSIT", new BigDecimal("100.00")),
+                new WalletStatementRow(2L, LocalDateTime.of(2025, 1, 3, 10, 0), "SALE", new BigDecimal("15.00"))));
+
+        String[] lines = export(WalletStatementFormat.NDJSON).split("\n");
+
+        assertEquals(2, lines.length);
+        ObjectMapper mapper = new ObjectMapper();
+        assertEquals("SALE", mapper.readTree(lines[1]).get("operation").asText());
+        assertTrue(lines[0].contains("\"amount\":100.00"));
+    }
+
+    @Test
+    void shouldRejectPeriodWithStartAfterEnd() {
+        assertThrows(InvalidStatementPeriodException.class,
+                () -> walletStatementService.exportStatement(session, TO, FROM, WalletStatementFormat.CSV));
+        verifyNoInteractions(walletRepository, walletLedgerRepository);
+    }
+
+    @Test
+    void shouldFailBeforeStreamingWhenWalletNotFound() {
+        mockSession();
+        when(walletRepository.findIdByUserId(1L)).thenReturn(Optional.empty());
+
+        assertThrows(WalletNotFoundException.class,
+                () -> walletStatementService.exportStatement(session, FROM, TO, WalletStatementFormat.CSV));
+        verifyNoInteractions(walletLedgerRepository);
+    }
+
+    private void mockSession() {
+        when(session.getAttribute("check")).thenReturn(true);
+        when(session.getAttribute("sessionUser")).thenReturn(new SessionUser(1L, "user", "user@example.com"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void mockRows(List<WalletStatementRow> rows) {
+        mockSession();
+        when(walletRepository.findIdByUserId(1L)).thenReturn(Optional.of(7L));
+        doAnswer(invocation -> {
+            Consumer<WalletStatementRow> consumer = invocation.getArgument(4);
+            rows.forEach(consumer);
+            return null;
+        }).when(walletLedgerRepository).streamStatement(eq(7L), any(), any(), anyInt(), any(Consumer.class));
+    }
+
+    private String export(WalletStatementFormat format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        walletStatementService.exportStatement(session, FROM, TO, format).writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,135 @@
+package ru.kalimulin.service;
+
+import jakarta.servlet.http.HttpSession;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.kalimulin.customExceptions.walletExceptions.InsufficientFundsException;
+import ru.kalimulin.kafka.KafkaEmailEventPublisher;
+import ru.kalimulin.kafka.WalletEventProducer;
+import ru.kalimulin.mappers.walletMapper.WalletMapper;
+import ru.kalimulin.models.User;
+import ru.kalimulin.models.Wallet;
+import ru.kalimulin.repositories.WalletRepository;
+import ru.kalimulin.serviceImpl.WalletLedgerServiceImpl;
+import ru.kalimulin.serviceImpl.WalletServiceImpl;
+import ru.kalimulin.stubService.PaymentService;
+import ru.kalimulin.util.SessionUser;
+import ru.kalimulin.util.WalletNumberGenerator;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({WalletServiceImpl.class, WalletLedgerServiceImpl.class})
+class WalletTransferConcurrencyTest {
+    private static final int WALLETS = 8;
+    private static final int TRANSFERS = 2000;
+    private static final int THREADS = 32;
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000.00");
+    private static final String PIN = "1234";
+
+    @Autowired
+    private WalletService walletService;
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private WalletLedgerService walletLedgerService;
+
+    @MockitoBean
+    private WalletMapper walletMapper;
+    @MockitoBean
+    private PaymentService paymentService;
+    @MockitoBean
+    private PinVerificationService pinVerificationService;
+    @MockitoBean
+    private WalletNumberGenerator walletNumberGenerator;
+    @MockitoBean
+    private WalletEventProducer walletEventProducer;
+    @MockitoBean
+    private KafkaEmailEventPublisher kafkaEmailEventPublisher;
+
+    @Test
+    void randomCrossTransfersShouldConserveTotalBalance() throws Exception {
+        // PIN проверяет мок: тест упирается в блокировки, а не в хэширование
+        String pinHash = "pinHash";
+        List<Wallet> wallets = new ArrayList<>();
+        for (int i = 0; i < WALLETS; i++) {
+            wallets.add(walletRepository.save(createWallet(pinHash)));
+        }
+        BigDecimal expectedTotal = INITIAL_BALANCE.multiply(BigDecimal.valueOf(WALLETS));
+
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < TRANSFERS; i++) {
+            futures.add(executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                Wallet sender = wallets.get(random.nextInt(WALLETS));
+                Wallet recipient = wallets.get(random.nextInt(WALLETS));
+                BigDecimal amount = BigDecimal.valueOf(random.nextInt(1, 30000), 2);
+                start.await();
+                try {
+                    walletService.transfer(recipient.getWalletNumber(), amount, PIN, session(sender));
+                    completed.incrementAndGet();
+                } catch (InsufficientFundsException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        List<BigDecimal> balances = wallets.stream().map(wallet -> walletLedgerService.getBalance(wallet.getId())).toList();
+        assertEquals(0, expectedTotal.compareTo(balances.stream().reduce(BigDecimal.ZERO, BigDecimal::add)));
+        assertTrue(balances.stream().allMatch(balance -> balance.signum() >= 0));
+        assertEquals(TRANSFERS, completed.get() + rejected.get());
+        assertTrue(completed.get() > 0);
+    }
+
+    private HttpSession session(Wallet wallet) {
+        HttpSession session = mock(HttpSession.class);
+        User user = wallet.getUser();
+        when(session.getAttribute("sessionUser")).thenReturn(new SessionUser(user.getId(), user.getLogin(), user.getEmail()));
+        return session;
+    }
+
+    private Wallet createWallet(String pinHash) {
+        String suffix = String.valueOf(System.nanoTime());
+        // Пользователь сохраняется каскадом вместе с кошельком
+        User user = User.builder()
+                .login("user" + suffix)
+                .email("user" + suffix + "@example.com")
+                .password("password")
+                .build();
+
+        return Wallet.builder()
+                .user(user)
+                .balance(INITIAL_BALANCE)
+                .pin(pinHash)
+                .walletNumber(suffix.substring(suffix.length() - 12))
+                .build();
+    }
+}
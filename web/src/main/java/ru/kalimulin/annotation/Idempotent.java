@@ -0,0 +1,14 @@
+package ru.kalimulin.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * Помечает метод контроллера, повторные вызовы которого с тем же заголовком
+ * {@code Idempotency-Key} не выполняются заново, а получают сохраненный первый ответ.
+ * Метод должен возвращать {@link org.springframework.http.ResponseEntity}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Idempotent {
+}
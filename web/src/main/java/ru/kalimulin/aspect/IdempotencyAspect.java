@@ -0,0 +1,220 @@
+package ru.kalimulin.aspect;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import ru.kalimulin.annotation.Idempotent;
+import ru.kalimulin.customExceptions.idempotencyExceptions.IdempotencyKeyInUseException;
+import ru.kalimulin.customExceptions.idempotencyExceptions.IdempotencyKeyReusedException;
+import ru.kalimulin.redis.IdempotencyStore;
+import ru.kalimulin.util.SessionUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.lang.annotation.Annotation;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Обрабатывает заголовок {@code Idempotency-Key} для методов, помеченных {@link Idempotent}.
+ * Первый запрос с ключом выполняется и его ответ сохраняется на время окна идемпотентности;
+ * повторы получают сохраненный ответ, а повтор во время выполнения первого запроса - 409.
+ * Ключ действует в пределах пользователя, HTTP-метода и пути запроса.
+ * <p>
+ * Вместе с ключом хранится HMAC-SHA256 от метода, пути, параметров и тела запроса: повтор ключа
+ * с другим запросом отклоняется с 422, а не получает чужой ответ. Тело перевода содержит PIN-код,
+ * поэтому отпечаток вычисляется на ключе приложения: без него PIN-код по отпечатку из Redis не подобрать.
+ * Пока запрос выполняется, блокировка ключа продлевается каждую треть {@code lock-ttl},
+ * поэтому медленный запрос не теряет ее; {@code lock-ttl} ограничивает только блокировку
+ * упавшего экземпляра.
+ */
+@Aspect
+@Component
+public class IdempotencyAspect {
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final IdempotencyStore idempotencyStore;
+    private final ObjectMapper objectMapper;
+    private final HttpSession session;
+    private final SecretKeySpec fingerprintKey;
+    private final ScheduledExecutorService lockRenewalExecutor = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "idempotency-lock-renewal");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Value("${shop.idempotency.window:24h}")
+    private Duration window;
+
+    @Value("${shop.idempotency.lock-ttl:1m}")
+    private Duration lockTtl;
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyAspect.class);
+
+    /**
+     * @param fingerprintSecret ключ HMAC для отпечатков запросов, общий для всех экземпляров.
+     *                          Если он не задан, ключ генерируется при запуске: повтор запроса,
+     *                          попавший на другой экземпляр, тогда будет отклонен с 422.
+     */
+    public IdempotencyAspect(IdempotencyStore idempotencyStore,
+                             ObjectMapper objectMapper,
+                             HttpSession session,
+                             @Value("${shop.idempotency.fingerprint-secret:}") String fingerprintSecret) {
+        this.idempotencyStore = idempotencyStore;
+        this.objectMapper = objectMapper;
+        this.session = session;
+        byte[] key = fingerprintSecret.isBlank() ? new byte[32] : fingerprintSecret.getBytes(StandardCharsets.UTF_8);
+        if (fingerprintSecret.isBlank()) {
+            new SecureRandom().nextBytes(key);
+        }
+        this.fingerprintKey = new SecretKeySpec(key, HMAC_ALGORITHM);
+    }
+
+    @Around("@annotation(idempotent)")
+    public Object handle(ProceedingJoinPoint joinPoint, Idempotent idempotent) throws Throwable {
+        HttpServletRequest request = ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes()).getRequest();
+        String idempotencyKey = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return joinPoint.proceed();
+        }
+
+        String key = "idempotency:" + SessionUtils.getUserLogin(session) + ":" + request.getMethod() + ":"
+                + request.getRequestURI() + ":" + idempotencyKey;
+        String fingerprint = fingerprint(request, joinPoint);
+        String lock = objectMapper.writeValueAsString(StoredResponse.inProgress(fingerprint));
+
+        Optional<String> existing = idempotencyStore.putIfAbsent(key, lock, lockTtl);
+        if (existing.isPresent()) {
+            return replay(existing.get(), fingerprint);
+        }
+
+        ResponseEntity<?> response;
+        ScheduledFuture<?> renewal = scheduleLockRenewal(key, lock);
+        try {
+            response = (ResponseEntity<?>) joinPoint.proceed();
+        } catch (Throwable e) {
+            // Неуспешный запрос не запоминаем, чтобы клиент мог его повторить
+            renewal.cancel(false);
+            idempotencyStore.remove(key);
+            throw e;
+        }
+        renewal.cancel(false);
+
+        idempotencyStore.put(key, objectMapper.writeValueAsString(StoredResponse.of(fingerprint, response, objectMapper)), window);
+        return response;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        lockRenewalExecutor.shutdownNow();
+    }
+
+    private ScheduledFuture<?> scheduleLockRenewal(String key, String lock) {
+        long period = Math.max(1, lockTtl.toMillis() / 3);
+        return lockRenewalExecutor.scheduleAtFixedRate(() -> {
+            try {
+                if (!idempotencyStore.extend(key, lock, lockTtl)) {
+                    logger.warn("Блокировка ключа идемпотентности потеряна во время выполнения запроса");
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Не удалось продлить блокировку ключа идемпотентности", e);
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Отпечаток запроса: HMAC-SHA256 на ключе приложения от HTTP-метода, пути, строки параметров и тела в JSON.
+     */
+    private String fingerprint(HttpServletRequest request, ProceedingJoinPoint joinPoint)
+            throws JsonProcessingException, GeneralSecurityException {
+        Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+        mac.init(fingerprintKey);
+        update(mac, request.getMethod());
+        update(mac, request.getRequestURI());
+        update(mac, Objects.toString(request.getQueryString(), ""));
+
+        Annotation[][] parameterAnnotations = ((MethodSignature) joinPoint.getSignature()).getMethod().getParameterAnnotations();
+        Object[] args = joinPoint.getArgs();
+        for (int i = 0; i < args.length; i++) {
+            for (Annotation annotation : parameterAnnotations[i]) {
+                if (annotation instanceof RequestBody) {
+                    update(mac, objectMapper.writeValueAsString(args[i]));
+                }
+            }
+        }
+        return HexFormat.of().formatHex(mac.doFinal());
+    }
+
+    private static void update(Mac mac, String part) {
+        mac.update(part.getBytes(StandardCharsets.UTF_8));
+        mac.update((byte) 0);
+    }
+
+    private ResponseEntity<Object> replay(String stored, String fingerprint) throws JsonProcessingException, ClassNotFoundException {
+        StoredResponse response = objectMapper.readValue(stored, StoredResponse.class);
+        if (!fingerprint.equals(response.fingerprint())) {
+            logger.warn("Ключ идемпотентности повторно использован для другого запроса");
+            throw new IdempotencyKeyReusedException("Idempotency-Key уже использован для другого запроса");
+        }
+        if (response.status() == null) {
+            throw inUse();
+        }
+
+        logger.info("Повторный запрос с ключом идемпотентности, возвращаем сохраненный ответ");
+        Object body = response.bodyType() == null
+                ? null
+                : objectMapper.readValue(response.body(), Class.forName(response.bodyType()));
+        return ResponseEntity.status(response.status())
+                .header(REPLAYED_HEADER, "true")
+                .body(body);
+    }
+
+    private static IdempotencyKeyInUseException inUse() {
+        logger.warn("Повторный запрос с ключом идемпотентности во время выполнения первого");
+        return new IdempotencyKeyInUseException("Запрос с таким Idempotency-Key уже выполняется");
+    }
+
+    /**
+     * Сохраненный ответ: отпечаток запроса, статус и тело в JSON вместе с его типом.
+     * Пока запрос выполняется, статус не заполнен.
+     */
+    private record StoredResponse(String fingerprint, Integer status, String bodyType, String body) {
+        static StoredResponse inProgress(String fingerprint) {
+            return new StoredResponse(fingerprint, null, null, null);
+        }
+
+        static StoredResponse of(String fingerprint, ResponseEntity<?> response, ObjectMapper objectMapper)
+                throws JsonProcessingException {
+            Object body = response.getBody();
+            return body == null
+                    ? new StoredResponse(fingerprint, response.getStatusCode().value(), null, null)
+                    : new StoredResponse(fingerprint, response.getStatusCode().value(), body.getClass().getName(),
+                    objectMapper.writeValueAsString(body));
+        }
+    }
+}
@@ -6,23 +6,22 @@ import org.aspectj.lang.annotation.Before;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import ru.kalimulin.annotation.RoleRequired;
-import ru.kalimulin.models.User;
-import ru.kalimulin.repositories.UserRepository;
+import ru.kalimulin.enums.RoleName;
+import ru.kalimulin.util.UserRoleCache;
 
 import java.util.Set;
-import java.util.stream.Collectors;
 
 @Aspect
 @Component
 public class RoleAspect {
     private final HttpSession session;
 
-    private final UserRepository userRepository;
+    private final UserRoleCache userRoleCache;
 
     @Autowired
-    public RoleAspect(HttpSession session, UserRepository userRepository) {
+    public RoleAspect(HttpSession session, UserRoleCache userRoleCache) {
         this.session = session;
-        this.userRepository = userRepository;
+        this.userRoleCache = userRoleCache;
     }
 
     @Before("@annotation(roleRequired)")
@@ -32,17 +31,15 @@ public class RoleAspect {
             throw new AccessDeniedException("Неавторизованный доступ");
         }
 
-        User user = userRepository.findByLogin(userLogin)
-                .orElseThrow(() -> new AccessDeniedException("Пользователь не найден"));
-
-        Set<String> userRoles = user.getRoles().stream()
-                .map(role -> role.getRoleName().name())
-                .collect(Collectors.toSet());
-
+        // Роли берутся из кэша, без загрузки пользователя с ролями и адресами
+        Set<RoleName> userRoles = userRoleCache.getRoles(userLogin);
+        if (userRoles.isEmpty()) {
+            throw new AccessDeniedException("Пользователь не найден");
+        }
 
         boolean hasRole = false;
         for (String requiredRole : roleRequired.value()) {
-            if (userRoles.contains(requiredRole)) {
+            if (userRoles.stream().anyMatch(role -> role.name().equals(requiredRole))) {
                 hasRole = true;
                 break;
             }
@@ -58,4 +55,4 @@ public class RoleAspect {
             super(message);
         }
     }
-}
\ No newline at end of file
+}
@@ -4,6 +4,7 @@ import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.annotation.EnableKafka;
@@ -13,7 +14,9 @@ import org.springframework.kafka.support.serializer.JsonDeserializer;
 import org.springframework.kafka.support.serializer.JsonSerializer;
 import ru.kalimulin.dto.kafkaEventDTO.EmailNotificationEvent;
 import ru.kalimulin.dto.kafkaEventDTO.InventoryUpdateEvent;
+import ru.kalimulin.dto.kafkaEventDTO.ProductPriceChangedEvent;
 import ru.kalimulin.dto.kafkaEventDTO.WalletNotificationEvent;
+import ru.kalimulin.dto.kafkaEventDTO.WalletTransactionBatchEvent;
 import ru.kalimulin.dto.kafkaEventDTO.WalletTransactionEvent;
 
 import java.util.HashMap;
@@ -24,12 +27,39 @@ import java.util.Map;
 public class KafkaConfig {
     private final String bootstrapServers = "localhost:9092";
 
+    @Value("${spring.kafka.consumer.concurrency:1}")
+    private int emailConcurrency;
+
+    @Value("${spring.kafka.inventory-consumer.concurrency:1}")
+    private int inventoryConcurrency;
+
+    @Value("${spring.kafka.wallet-consumer.concurrency:1}")
+    private int walletConcurrency;
+
+    @Value("${spring.kafka.cart-consumer.concurrency:1}")
+    private int cartConcurrency;
+
+    @Value("${spring.kafka.inventory-consumer.batch.max-records:500}")
+    private int inventoryBatchMaxRecords;
+
+    @Value("${spring.kafka.inventory-consumer.batch.poll-interval-ms:1000}")
+    private long inventoryBatchPollIntervalMs;
+
+    @Value("${spring.kafka.producer.delivery-timeout-ms:30000}")
+    private int producerDeliveryTimeoutMs;
+
+    @Value("${spring.kafka.producer.max-block-ms:10000}")
+    private int producerMaxBlockMs;
+
     @Bean
     public ProducerFactory<String, Object> producerFactory() {
         Map<String, Object> config = new HashMap<>();
         config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
         config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        // Ограничивают время, которое OutboxRelay ждет брокер, удерживая блокировки строк outbox
+        config.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, producerDeliveryTimeoutMs);
+        config.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, producerMaxBlockMs);
         return new DefaultKafkaProducerFactory<>(config);
     }
 
@@ -54,52 +84,89 @@ public class KafkaConfig {
         ConcurrentKafkaListenerContainerFactory<String, EmailNotificationEvent> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
+        factory.setConcurrency(emailConcurrency);
         return factory;
     }
 
     @Bean
-    public ProducerFactory<String, InventoryUpdateEvent> inventoryProducerFactory() {
+    public ConsumerFactory<String, WalletTransactionEvent> walletConsumerFactory() {
         Map<String, Object> configProps = new HashMap<>();
-        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
-        return new DefaultKafkaProducerFactory<>(configProps);
+        configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ConsumerConfig.GROUP_ID_CONFIG, "wallet-group");
+        configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
+        configProps.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
+        return new DefaultKafkaConsumerFactory<>(configProps, new StringDeserializer(), new JsonDeserializer<>(WalletTransactionEvent.class));
     }
 
     @Bean
-    public KafkaTemplate<String, InventoryUpdateEvent> inventoryKafkaTemplate() {
-        return new KafkaTemplate<>(inventoryProducerFactory());
+    public ConcurrentKafkaListenerContainerFactory<String, WalletTransactionEvent> walletKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, WalletTransactionEvent> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(walletConsumerFactory());
+        factory.setConcurrency(walletConcurrency);
+        return factory;
     }
 
     @Bean
-    public ProducerFactory<String, WalletTransactionEvent> walletProducerFactory() {
+    public ConsumerFactory<String, WalletTransactionBatchEvent> walletBatchConsumerFactory() {
         Map<String, Object> configProps = new HashMap<>();
-        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
-        return new DefaultKafkaProducerFactory<>(configProps);
+        configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ConsumerConfig.GROUP_ID_CONFIG, "wallet-group");
+        configProps.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
+        return new DefaultKafkaConsumerFactory<>(configProps, new StringDeserializer(), new JsonDeserializer<>(WalletTransactionBatchEvent.class));
     }
 
     @Bean
-    public KafkaTemplate<String, WalletTransactionEvent> walletKafkaTemplate() {
-        return new KafkaTemplate<>(walletProducerFactory());
+    public ConcurrentKafkaListenerContainerFactory<String, WalletTransactionBatchEvent> walletBatchKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, WalletTransactionBatchEvent> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(walletBatchConsumerFactory());
+        factory.setConcurrency(walletConcurrency);
+        return factory;
     }
 
     @Bean
-    public ConsumerFactory<String, WalletTransactionEvent> walletConsumerFactory() {
+    public ConsumerFactory<String, InventoryUpdateEvent> inventoryConsumerFactory() {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-        configProps.put(ConsumerConfig.GROUP_ID_CONFIG, "wallet-group");
-        configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
+        configProps.put(ConsumerConfig.GROUP_ID_CONFIG, "inventory-group");
+        configProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, inventoryBatchMaxRecords);
         configProps.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
-        return new DefaultKafkaConsumerFactory<>(configProps, new StringDeserializer(), new JsonDeserializer<>(WalletTransactionEvent.class));
+        return new DefaultKafkaConsumerFactory<>(configProps, new StringDeserializer(), new JsonDeserializer<>(InventoryUpdateEvent.class));
     }
 
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, WalletTransactionEvent> walletKafkaListenerContainerFactory() {
-        ConcurrentKafkaListenerContainerFactory<String, WalletTransactionEvent> factory = new ConcurrentKafkaListenerContainerFactory<>();
-        factory.setConsumerFactory(walletConsumerFactory());
+    public ConcurrentKafkaListenerContainerFactory<String, InventoryUpdateEvent> inventoryKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, InventoryUpdateEvent> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(inventoryConsumerFactory());
+        factory.setConcurrency(inventoryConcurrency);
+        return factory;
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, InventoryUpdateEvent> inventoryBatchKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, InventoryUpdateEvent> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(inventoryConsumerFactory());
+        factory.setConcurrency(inventoryConcurrency);
+        factory.setBatchListener(true);
+        // Пауза между опросами позволяет накопить события и схлопнуть их в один батч
+        factory.getContainerProperties().setIdleBetweenPolls(inventoryBatchPollIntervalMs);
+        return factory;
+    }
+
+    @Bean
+    public ConsumerFactory<String, ProductPriceChangedEvent> cartConsumerFactory() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ConsumerConfig.GROUP_ID_CONFIG, "cart-group");
+        configProps.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
+        return new DefaultKafkaConsumerFactory<>(configProps, new StringDeserializer(), new JsonDeserializer<>(ProductPriceChangedEvent.class));
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, ProductPriceChangedEvent> cartKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, ProductPriceChangedEvent> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(cartConsumerFactory());
+        factory.setConcurrency(cartConcurrency);
         return factory;
     }
 }
@@ -0,0 +1,37 @@
+package ru.kalimulin.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.*;
+
+/**
+ * Пул для проверки PIN-кодов. BCrypt занимает десятки миллисекунд процессора,
+ * поэтому число потоков и длина очереди ограничены: при перегрузке запросы сразу отклоняются.
+ */
+@Configuration
+public class PinVerificationConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService pinVerificationExecutor(MeterRegistry meterRegistry,
+                                                   @Value("${shop.wallet.pin.threads:4}") int threads,
+                                                   @Value("${shop.wallet.pin.queue-capacity:100}") int queueCapacity) {
+        Counter rejected = Counter.builder("shop.wallet.pin.rejected")
+                .description("Проверки PIN-кода, отклоненные из-за переполнения очереди")
+                .register(meterRegistry);
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("pin-verification-"),
+                (task, pool) -> {
+                    rejected.increment();
+                    throw new RejectedExecutionException("Очередь проверки PIN-кодов переполнена");
+                });
+
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, "pin.verification");
+    }
+}
@@ -0,0 +1,28 @@
+package ru.kalimulin.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+/**
+ * Хранение HTTP-сессий в Redis (spring-session-data-redis, подключение берется из spring.data.redis).
+ * Сессия читается из Redis один раз за запрос, а при сохранении записываются только измененные атрибуты.
+ */
+@Configuration
+public class SessionConfig {
+
+    /**
+     * Атрибуты сессии сохраняются в JSON вместо стандартной Java-сериализации:
+     * записи получаются короче и не ломаются при изменении serialVersionUID классов.
+     */
+    @Bean
+    public RedisSerializer<Object> springSessionDefaultRedisSerializer() {
+        return GenericJackson2JsonRedisSerializer.builder()
+                .objectMapper(new ObjectMapper().registerModule(new JavaTimeModule()))
+                .defaultTyping(true)
+                .build();
+    }
+}
@@ -2,9 +2,11 @@ package ru.kalimulin.controllers;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.enums.ParameterIn;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpSession;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
@@ -12,15 +14,19 @@ import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.kalimulin.annotation.Idempotent;
 import ru.kalimulin.annotation.RoleRequired;
 import ru.kalimulin.dto.categoryDTO.CategoryCreateDTO;
 import ru.kalimulin.dto.categoryDTO.CategoryResponseDTO;
 import ru.kalimulin.dto.categoryDTO.CategoryUpdateDTO;
 import ru.kalimulin.dto.userDTO.UserResponseDTO;
+import ru.kalimulin.dto.walletDTO.WalletPayoutRequestDTO;
+import ru.kalimulin.dto.walletDTO.WalletPayoutResultDTO;
 import ru.kalimulin.service.CategoryService;
 import ru.kalimulin.service.ReviewService;
 import ru.kalimulin.service.RoleService;
 import ru.kalimulin.service.UserService;
+import ru.kalimulin.service.WalletPayoutService;
 
 import java.util.List;
 
@@ -33,6 +39,7 @@ public class AdminController {
     private final CategoryService categoryService;
     private final RoleService roleService;
     private final ReviewService reviewService;
+    private final WalletPayoutService walletPayoutService;
     private static final Logger logger = LoggerFactory.getLogger(AuthController.class);
 
     @Operation(summary = "Получить пользователя по ID", description = "Возвращает пользователя по его ID")
@@ -149,4 +156,27 @@ public class AdminController {
         reviewService.deleteReview(id);
         return ResponseEntity.ok("Отзыв удален");
     }
-}
\ No newline at end of file
+
+    @Operation(summary = "Пакетная выплата",
+            description = "Зачисляет (положительная сумма) или списывает (отрицательная сумма) средства " +
+                    "по списку кошельков одной транзакцией: применяются либо все строки, либо ни одной")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Выплаты применены"),
+            @ApiResponse(responseCode = "400", description = "Ошибка валидации данных или нулевая сумма"),
+            @ApiResponse(responseCode = "402", description = "Недостаточно средств для списания"),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещён"),
+            @ApiResponse(responseCode = "404", description = "Кошелек не найден"),
+            @ApiResponse(responseCode = "409", description = "Запрос с тем же Idempotency-Key еще выполняется"),
+            @ApiResponse(responseCode = "422", description = "Idempotency-Key уже использован для другого запроса")
+    })
+    @Parameter(in = ParameterIn.HEADER, name = "Idempotency-Key",
+            description = "Ключ идемпотентности: повтор с тем же ключом вернет первый ответ без повторной выплаты")
+    @RoleRequired("ADMIN")
+    @Idempotent
+    @PostMapping("/wallets/payouts")
+    public ResponseEntity<WalletPayoutResultDTO> applyPayouts(@Valid @RequestBody WalletPayoutRequestDTO request,
+                                                              HttpSession session) {
+        logger.info("Запрос на пакетную выплату");
+        return ResponseEntity.ok(walletPayoutService.applyPayouts(request, session));
+    }
+}
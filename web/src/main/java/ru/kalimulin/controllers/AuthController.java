@@ -52,8 +52,7 @@ public class AuthController {
     public ResponseEntity<LoginResponseDTO> loginUser(@Valid @RequestBody
                                                       LoginRequestDTO loginRequestDTO,
                                                       HttpSession session) {
-        LoginResponseDTO loginResponseDTO = userService.authenticateUser(loginRequestDTO);
-        session.setAttribute("userLogin", loginRequestDTO.getLogin());
+        LoginResponseDTO loginResponseDTO = userService.authenticateUser(loginRequestDTO, session);
 
         logger.info("Пользователь вошел в систему");
 
@@ -6,6 +6,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.HttpSession;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,6 +14,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.kalimulin.dto.cartDTO.CartDTO;
 import ru.kalimulin.dto.cartItemDTO.CartItemCreateDTO;
+import ru.kalimulin.dto.cartItemDTO.CartItemsBatchDTO;
 import ru.kalimulin.service.CartService;
 
 @RestController
@@ -69,9 +71,25 @@ public class CartController {
             @ApiResponse(responseCode = "401", description = "Пользователь не аутентифицирован")
     })
     @PostMapping
-    public ResponseEntity<String> addItemToCart(HttpSession session, @RequestBody CartItemCreateDTO cartItemCreateDTO) {
+    public ResponseEntity<String> addItemToCart(HttpSession session,
+                                                @Valid @RequestBody CartItemCreateDTO cartItemCreateDTO) {
         logger.info("Запрос на добавление товара в корзину");
         cartService.addItemToCart(session, cartItemCreateDTO);
         return ResponseEntity.ok("Товар успешно добавлен в корзину!");
     }
-}
\ No newline at end of file
+
+    @Operation(summary = "Добавить несколько товаров в корзину",
+            description = "Добавляет список товаров в корзину пользователя за один запрос: слияние гостевой корзины, импорт списка товаров")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Товары успешно добавлены в корзину"),
+            @ApiResponse(responseCode = "400", description = "Список пуст, слишком велик или содержит некорректную позицию"),
+            @ApiResponse(responseCode = "404", description = "Часть товаров не найдена"),
+            @ApiResponse(responseCode = "401", description = "Пользователь не аутентифицирован")
+    })
+    @PostMapping("/batch")
+    public ResponseEntity<String> addItemsToCart(HttpSession session, @Valid @RequestBody CartItemsBatchDTO request) {
+        logger.info("Запрос на пакетное добавление товаров в корзину");
+        cartService.addItemsToCart(session, request.getItems());
+        return ResponseEntity.ok("Товары успешно добавлены в корзину!");
+    }
+}
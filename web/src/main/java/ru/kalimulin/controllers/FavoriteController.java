@@ -12,11 +12,9 @@ import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import ru.kalimulin.dto.productDTO.ProductResponseDTO;
+import ru.kalimulin.dto.favoriteDTO.FavoritePageDTO;
 import ru.kalimulin.service.FavoriteService;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/shop/favorites")
 @RequiredArgsConstructor
@@ -25,10 +23,10 @@ public class FavoriteController {
     private final FavoriteService favoriteService;
     private static final Logger logger = LoggerFactory.getLogger(FavoriteController.class);
 
-    @Operation(summary = "Добавить товар в избранное", description = "Добавляет товар в список избранного для текущего пользователя")
+    @Operation(summary = "Добавить товар в избранное",
+            description = "Добавляет товар в список избранного для текущего пользователя. Повторное добавление ничего не меняет")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "201", description = "Товар успешно добавлен в избранное"),
-            @ApiResponse(responseCode = "400", description = "Товар уже находится в избранном"),
+            @ApiResponse(responseCode = "201", description = "Товар добавлен в избранное или уже находился в нем"),
             @ApiResponse(responseCode = "404", description = "Товар не найден")
     })
     @PostMapping("/{productId}")
@@ -37,14 +35,10 @@ public class FavoriteController {
             HttpSession session) {
         logger.info("Запрос на добавление товара в избранное");
 
-        try {
-            favoriteService.addToFavorite(productId, session);
-            logger.info("Товар добавлен в избранное");
-            return ResponseEntity.status(HttpStatus.CREATED).body("Объявление добавлено в избранное");
-        } catch (IllegalStateException ex) {
-            logger.warn("Товар уже в избранном");
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Объявление уже в избранном");
-        }
+        favoriteService.addToFavorite(productId, session);
+
+        logger.info("Товар добавлен в избранное");
+        return ResponseEntity.status(HttpStatus.CREATED).body("Объявление добавлено в избранное");
     }
 
     @Operation(summary = "Удалить товар из избранного", description = "Удаляет товар из списка избранного текущего пользователя")
@@ -64,22 +58,34 @@ public class FavoriteController {
         return ResponseEntity.ok("Объявление удалено из избранного");
     }
 
-    @Operation(summary = "Получить список избранного", description = "Возвращает список всех товаров, добавленных в избранное текущего пользователя")
+    @Operation(summary = "Проверить товар в избранном",
+            description = "Возвращает true, если товар находится в избранном текущего пользователя")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Список избранного успешно получен"),
-            @ApiResponse(responseCode = "204", description = "Список избранного пуст")
+            @ApiResponse(responseCode = "200", description = "Проверка выполнена")
     })
-    @GetMapping
-    public ResponseEntity<List<ProductResponseDTO>> getFavorites(HttpSession session) {
-        logger.info("Запрос на получение списка избранного");
-        List<ProductResponseDTO> favorites = favoriteService.getFavorites(session);
-
-        if (favorites.isEmpty()) {
-            logger.info("Список избранного пуст");
-            return ResponseEntity.noContent().build();
-        }
+    @GetMapping("/{productId}/exists")
+    public ResponseEntity<Boolean> isFavorite(
+            @Parameter(description = "ID товара", example = "1") @PathVariable Long productId,
+            HttpSession session) {
+        logger.info("Запрос на проверку товара в избранном");
+        return ResponseEntity.ok(favoriteService.isFavorite(productId, session));
+    }
 
-        logger.info("Пользователь получил список избранного");
-        return ResponseEntity.ok(favorites);
+    @Operation(summary = "Получить страницу избранного",
+            description = "Возвращает товары из избранного текущего пользователя по убыванию id товара. " +
+                    "Для следующей страницы передайте nextProductId из ответа как afterProductId")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Страница избранного успешно получена")
+    })
+    @GetMapping
+    public ResponseEntity<FavoritePageDTO> getFavorites(
+            @Parameter(description = "ID последнего товара предыдущей страницы", example = "42")
+            @RequestParam(required = false) Long afterProductId,
+            @Parameter(description = "Размер страницы", example = "20")
+            @RequestParam(required = false) Integer size,
+            HttpSession session) {
+        logger.info("Запрос на получение страницы избранного");
+        FavoritePageDTO page = favoriteService.getFavoritesPage(session, afterProductId, size);
+        return ResponseEntity.ok(page);
     }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package ru.kalimulin.controllers;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.enums.ParameterIn;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -9,11 +10,21 @@ import jakarta.servlet.http.HttpSession;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.kalimulin.annotation.Idempotent;
 import ru.kalimulin.dto.orderDTO.OrderDTO;
+import ru.kalimulin.dto.orderDTO.OrderPageDTO;
+import ru.kalimulin.enums.OrderExportFormat;
+import ru.kalimulin.service.OrderExportService;
 import ru.kalimulin.service.OrderService;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -22,6 +33,7 @@ import java.util.List;
 @Tag(name = "Заказы", description = "Методы для управления заказами(Создание, оплата)")
 public class OrderController {
     private final OrderService orderService;
+    private final OrderExportService orderExportService;
     private static final Logger logger = LoggerFactory.getLogger(OrderController.class);
 
     @Operation(summary = "Создать заказ", description = "Создает заказ на основе товаров в корзине текущего пользователя")
@@ -40,8 +52,13 @@ public class OrderController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Заказ успешно оплачен"),
             @ApiResponse(responseCode = "400", description = "Ошибка обработки платежа"),
-            @ApiResponse(responseCode = "404", description = "Заказ не найден")
+            @ApiResponse(responseCode = "404", description = "Заказ не найден"),
+            @ApiResponse(responseCode = "409", description = "Запрос с тем же Idempotency-Key еще выполняется"),
+            @ApiResponse(responseCode = "422", description = "Idempotency-Key уже использован для другого запроса")
     })
+    @Parameter(in = ParameterIn.HEADER, name = "Idempotency-Key",
+            description = "Ключ идемпотентности: повтор с тем же ключом вернет первый ответ без повторной оплаты")
+    @Idempotent
     @PostMapping("/payment/{orderId}")
     public ResponseEntity<OrderDTO> paymentOrder(
             @Parameter(description = "ID заказа, который требуется оплатить", example = "1")
@@ -66,6 +83,48 @@ public class OrderController {
         return ResponseEntity.ok(orders);
     }
 
+    @Operation(summary = "Получить страницу заказов пользователя",
+            description = "Возвращает заказы текущего пользователя от новых к старым. " +
+                    "Для следующей страницы передайте nextCreatedAt и nextId из ответа как afterCreatedAt и afterId")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Страница заказов успешно получена"),
+            @ApiResponse(responseCode = "400", description = "Указана только одна часть курсора"),
+            @ApiResponse(responseCode = "404", description = "Пользователь не найден")
+    })
+    @GetMapping("/page")
+    public ResponseEntity<OrderPageDTO> getUserOrdersPage(
+            @Parameter(description = "Дата создания последнего заказа предыдущей страницы", example = "2025-03-01T12:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime afterCreatedAt,
+            @Parameter(description = "ID последнего заказа предыдущей страницы", example = "42")
+            @RequestParam(required = false) Long afterId,
+            @Parameter(description = "Размер страницы", example = "20")
+            @RequestParam(required = false) Integer size,
+            HttpSession session) {
+        logger.info("Запрос на получение страницы заказов");
+        OrderPageDTO page = orderService.getUserOrdersPage(session, afterCreatedAt, afterId, size);
+        return ResponseEntity.ok(page);
+    }
+
+    @Operation(summary = "Выгрузить историю заказов",
+            description = "Потоково выгружает все заказы текущего пользователя в формате CSV или NDJSON")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Выгрузка успешно сформирована"),
+            @ApiResponse(responseCode = "404", description = "Пользователь не найден")
+    })
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @Parameter(description = "Формат выгрузки", example = "CSV")
+            @RequestParam(defaultValue = "CSV") OrderExportFormat format,
+            HttpSession session) {
+        logger.info("Запрос на выгрузку истории заказов");
+        StreamingResponseBody body = orderExportService.exportOrders(session, format);
+        boolean csv = format == OrderExportFormat.CSV;
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8) : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"orders." + (csv ? "csv" : "ndjson") + "\"")
+                .body(body);
+    }
+
     @Operation(summary = "Удалить заказ пользователя", description = "Удаляет не оплаченный заказ по id")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Заказ успешно удален"),
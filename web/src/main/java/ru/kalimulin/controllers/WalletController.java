@@ -1,6 +1,8 @@
 package ru.kalimulin.controllers;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.enums.ParameterIn;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -9,15 +11,25 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.kalimulin.annotation.Idempotent;
 import ru.kalimulin.dto.transferDTO.TransferRequestDTO;
 import ru.kalimulin.dto.walletDTO.WalletCreateDTO;
 import ru.kalimulin.dto.walletDTO.WalletResponseDTO;
 import ru.kalimulin.dto.walletDTO.WalletUpdateBalanceDTO;
 import ru.kalimulin.dto.walletDTO.WalletUpdatePinDTO;
+import ru.kalimulin.enums.WalletStatementFormat;
 import ru.kalimulin.service.WalletService;
+import ru.kalimulin.service.WalletStatementService;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 
 @RestController
 @RequestMapping("/shop/wallet")
@@ -25,6 +37,7 @@ import ru.kalimulin.service.WalletService;
 @Tag(name = "Кошелек", description = "Методы для работы с кошельком пользователя")
 public class WalletController {
     private final WalletService walletService;
+    private final WalletStatementService walletStatementService;
     private static final Logger logger = LoggerFactory.getLogger(WalletController.class);
 
     @Operation(summary = "Получить данные кошелька", description = "Возвращает баланс и номер кошелька пользователя")
@@ -40,6 +53,32 @@ public class WalletController {
     }
 
 
+    @Operation(summary = "Выписка по кошельку",
+            description = "Выгружает операции кошелька за период в CSV или NDJSON, записывая их в ответ по мере чтения")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Выписка успешно сформирована"),
+            @ApiResponse(responseCode = "400", description = "Начало периода позже его окончания"),
+            @ApiResponse(responseCode = "404", description = "Кошелек не найден")
+    })
+    @GetMapping("/statement")
+    public ResponseEntity<StreamingResponseBody> exportStatement(
+            @Parameter(description = "Первый день периода", example = "2025-01-01")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Последний день периода включительно", example = "2025-01-31")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "Формат выписки", example = "CSV")
+            @RequestParam(defaultValue = "CSV") WalletStatementFormat format,
+            HttpSession session) {
+        logger.info("Запрос на выписку по кошельку");
+        StreamingResponseBody body = walletStatementService.exportStatement(session, from, to, format);
+        boolean csv = format == WalletStatementFormat.CSV;
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8) : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"wallet-statement-" + from + "-" + to
+                        + "." + (csv ? "csv" : "ndjson") + "\"")
+                .body(body);
+    }
+
     @Operation(summary = "Создать кошелек", description = "Создает новый кошелек для пользователя")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Кошелек успешно создан"),
@@ -73,7 +112,8 @@ public class WalletController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "PIN-код успешно изменен"),
             @ApiResponse(responseCode = "400", description = "Ошибка валидации данных"),
-            @ApiResponse(responseCode = "404", description = "Кошелек не найден")
+            @ApiResponse(responseCode = "404", description = "Кошелек не найден"),
+            @ApiResponse(responseCode = "503", description = "Проверка PIN-кода перегружена, повторите запрос позже")
     })
     @PostMapping("/change-pin")
     public ResponseEntity<String> changePin(HttpSession session,
@@ -90,8 +130,14 @@ public class WalletController {
             @ApiResponse(responseCode = "400", description = "Ошибка валидации данных"),
             @ApiResponse(responseCode = "403", description = "Неверный PIN-код"),
             @ApiResponse(responseCode = "404", description = "Кошелек отправителя или получателя не найден"),
-            @ApiResponse(responseCode = "409", description = "Недостаточно средств")
+            @ApiResponse(responseCode = "409",
+                    description = "Недостаточно средств или запрос с тем же Idempotency-Key еще выполняется"),
+            @ApiResponse(responseCode = "422", description = "Idempotency-Key уже использован для другого запроса"),
+            @ApiResponse(responseCode = "503", description = "Проверка PIN-кода перегружена, повторите запрос позже")
     })
+    @Parameter(in = ParameterIn.HEADER, name = "Idempotency-Key",
+            description = "Ключ идемпотентности: повтор с тем же ключом вернет первый ответ без повторного перевода")
+    @Idempotent
     @PostMapping("/transfer")
     public ResponseEntity<String> transferMoney(@RequestBody TransferRequestDTO transferDTO,
                                                 HttpSession session) {
@@ -0,0 +1,27 @@
+package ru.kalimulin.kafka.consumers;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+import ru.kalimulin.dto.kafkaEventDTO.ProductPriceChangedEvent;
+import ru.kalimulin.repositories.CartRepository;
+
+/**
+ * Фоновая сверка стоимости корзин: после изменения цены товара корзины с этим товаром
+ * пересчитываются целиком, поэтому повторная доставка события ничего не портит.
+ */
+@Service
+@RequiredArgsConstructor
+public class CartPriceEventListener {
+    private final CartRepository cartRepository;
+    private static final Logger logger = LoggerFactory.getLogger(CartPriceEventListener.class);
+
+    @KafkaListener(topics = "product-price-changes", groupId = "cart-group",
+            containerFactory = "cartKafkaListenerContainerFactory")
+    public void listen(ProductPriceChangedEvent event) {
+        int updated = cartRepository.recalculateTotalsByProductId(event.getProductId());
+        logger.info("Пересчитана стоимость корзин с товаром id {}: {}", event.getProductId(), updated);
+    }
+}
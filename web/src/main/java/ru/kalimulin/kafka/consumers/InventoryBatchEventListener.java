@@ -0,0 +1,49 @@
+package ru.kalimulin.kafka.consumers;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+import ru.kalimulin.dto.kafkaEventDTO.InventoryUpdateEvent;
+import ru.kalimulin.repositories.ProductRepository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Пакетный обработчик событий обновления остатков.
+ * События одного опроса группируются по товару, количества суммируются,
+ * и все списания применяются одним JDBC-батчем.
+ */
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "spring.kafka.inventory-consumer.batch.enabled", havingValue = "true")
+public class InventoryBatchEventListener {
+    private final ProductRepository productRepository;
+    private static final Logger logger = LoggerFactory.getLogger(InventoryBatchEventListener.class);
+
+    @KafkaListener(topics = "inventory-updates", groupId = "inventory-group",
+            containerFactory = "inventoryBatchKafkaListenerContainerFactory")
+    public void listen(List<InventoryUpdateEvent> events) {
+        Map<Long, Integer> quantities = events.stream()
+                .collect(Collectors.groupingBy(InventoryUpdateEvent::getProductId,
+                        Collectors.summingInt(InventoryUpdateEvent::getQuantitySold)));
+
+        Set<Long> rejected = productRepository.decreaseStocksBatch(quantities);
+
+        // Суммарное списание не прошло - применяем события товара по одному, как в поштучном режиме
+        for (InventoryUpdateEvent event : events) {
+            if (rejected.contains(event.getProductId())
+                    && productRepository.decreaseStocks(event.getProductId(), event.getQuantitySold()) == 0) {
+                logger.warn("Недостаточно товара на складе или товар не найден: id {}, количество {}",
+                        event.getProductId(), event.getQuantitySold());
+            }
+        }
+
+        logger.info("Обновлены остатки {} товаров по {} событиям", quantities.size(), events.size());
+    }
+}
@@ -3,32 +3,30 @@ package ru.kalimulin.kafka.consumers;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
 import ru.kalimulin.customExceptions.productExceptions.NotEnoughStockException;
-import ru.kalimulin.customExceptions.productExceptions.ProductNotFoundException;
 import ru.kalimulin.dto.kafkaEventDTO.InventoryUpdateEvent;
-import ru.kalimulin.models.Product;
 import ru.kalimulin.repositories.ProductRepository;
 
 @Service
 @RequiredArgsConstructor
+@ConditionalOnProperty(name = "spring.kafka.inventory-consumer.batch.enabled", havingValue = "false",
+        matchIfMissing = true)
 public class InventoryEventListener {
     private final ProductRepository productRepository;
     private static final Logger logger = LoggerFactory.getLogger(InventoryEventListener.class);
 
-    @KafkaListener(topics = "inventory-updates", groupId = "inventory-group")
+    @KafkaListener(topics = "inventory-updates", groupId = "inventory-group",
+            containerFactory = "inventoryKafkaListenerContainerFactory")
     public void listen(InventoryUpdateEvent event) {
-        Product product = productRepository.findById(event.getProductId())
-                .orElseThrow(() -> new ProductNotFoundException("Товар не найден"));
+        int updated = productRepository.decreaseStocks(event.getProductId(), event.getQuantitySold());
 
-        if (product.getStocks() < event.getQuantitySold()) {
-            throw new NotEnoughStockException("Недостаточно товара на складе");
+        if (updated == 0) {
+            throw new NotEnoughStockException("Недостаточно товара на складе или товар не найден");
         }
 
-        product.setStocks(product.getStocks() - event.getQuantitySold());
-        productRepository.save(product);
-
-        logger.info("Обновлен остаток товара с id {}", product.getId());
+        logger.info("Обновлен остаток товара с id {}", event.getProductId());
     }
-}
\ No newline at end of file
+}
@@ -4,19 +4,34 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
+import ru.kalimulin.dto.kafkaEventDTO.WalletTransactionBatchEvent;
 import ru.kalimulin.dto.kafkaEventDTO.WalletTransactionEvent;
 
 @Service
 public class WalletEventListener {
     private static final Logger logger = LoggerFactory.getLogger(WalletEventListener.class);
 
-    @KafkaListener(topics = "wallet-transactions", groupId = "wallet-group")
+    @KafkaListener(topics = "wallet-transactions", groupId = "wallet-group",
+            containerFactory = "walletKafkaListenerContainerFactory")
     public void listen(WalletTransactionEvent event) {
-        logger.info("Обработано событие: {} | Отправитель: {} | Получатель: {} | Сумма: {} | Время: {}",
+        logger.info("Обработано событие: {} | Кошелек: {} | Отправитель: {} | Получатель: {} | Сумма: {} | Время: {}",
                 event.getTransactionType(),
+                event.getWalletNumber(),
                 event.getSenderLogin(),
                 event.getRecipientWallet(),
                 event.getAmount(),
                 event.getTimestamp());
     }
-}
\ No newline at end of file
+
+    @KafkaListener(topics = "wallet-transaction-batches", groupId = "wallet-group",
+            containerFactory = "walletBatchKafkaListenerContainerFactory")
+    public void listenBatch(WalletTransactionBatchEvent event) {
+        logger.info("Обработан пакет: {} | Инициатор: {} | Кошельков: {} | Зачислено: {} | Списано: {} | Время: {}",
+                event.getTransactionType(),
+                event.getInitiatorLogin(),
+                event.getLines().size(),
+                event.getTotalCredited(),
+                event.getTotalDebited(),
+                event.getTimestamp());
+    }
+}
@@ -0,0 +1,41 @@
+package ru.kalimulin.kafka.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.kalimulin.models.OutboxEvent;
+import ru.kalimulin.repositories.OutboxEventRepository;
+
+/**
+ * Запись событий в outbox-таблицу.
+ * Событие сохраняется в транзакции вызывающего сервиса и уходит в Kafka
+ * только после ее фиксации (см. {@link OutboxRelay}).
+ */
+@Component
+@RequiredArgsConstructor
+public class KafkaOutbox {
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    @Transactional
+    public void enqueue(String topic, String key, Object event) {
+        OutboxEvent outboxEvent = OutboxEvent.builder()
+                .topic(topic)
+                .eventKey(key)
+                .eventType(event.getClass().getName())
+                .payload(toJson(event))
+                .build();
+
+        outboxEventRepository.save(outboxEvent);
+    }
+
+    private String toJson(Object event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Не удалось сериализовать событие " + event.getClass().getName(), e);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package ru.kalimulin.kafka.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.kalimulin.models.OutboxEvent;
+import ru.kalimulin.repositories.OutboxEventRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Фоновая отправка событий из outbox-таблицы в Kafka.
+ * Событие удаляется только после подтверждения брокером, поэтому доставка - at-least-once.
+ * <p>
+ * Событие, которое не удалось прочитать, не удаляется: у него растет счетчик попыток, а после
+ * {@code max-attempts} оно помечается {@code failed_at} и остается в таблице для разбора.
+ * Чтобы отправить его повторно, достаточно сбросить {@code failed_at} и {@code attempts}.
+ */
+@Component
+@RequiredArgsConstructor
+public class OutboxRelay {
+    private static final int MAX_ERROR_LENGTH = 2000;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${spring.kafka.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${spring.kafka.outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${spring.kafka.producer.delivery-timeout-ms:30000}")
+    private long deliveryTimeoutMs;
+
+    @Value("${spring.kafka.producer.max-block-ms:10000}")
+    private long maxBlockMs;
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    @Scheduled(fixedDelayString = "${spring.kafka.outbox.poll-interval-ms:500}")
+    @Transactional
+    public void relay() {
+        List<OutboxEvent> events = outboxEventRepository.lockNextBatch(batchSize);
+        if (events.isEmpty()) {
+            return;
+        }
+
+        // Строки пачки заблокированы до конца транзакции. Продюсер сам завершает с ошибкой запись,
+        // не подтвержденную за max.block.ms + delivery.timeout.ms, дольше этого брокер не ждем
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxBlockMs + deliveryTimeoutMs);
+
+        List<CompletableFuture<?>> sends = new ArrayList<>();
+        List<Long> sentIds = new ArrayList<>();
+        for (OutboxEvent event : events) {
+            Object payload = readPayload(event);
+            if (payload == null) {
+                continue;
+            }
+            CompletableFuture<?> send = kafkaTemplate.send(event.getTopic(), event.getEventKey(), payload);
+            if (send.isCompletedExceptionally() || System.nanoTime() > deadline) {
+                // Брокер недоступен: остальные записи пачки не отправляем, транзакция откатится
+                await(send, deadline);
+            }
+            sends.add(send);
+            sentIds.add(event.getId());
+        }
+
+        // Ждем подтверждения всей пачки: при ошибке транзакция откатится и события уйдут повторно
+        await(CompletableFuture.allOf(sends.toArray(new CompletableFuture[0])), deadline);
+        if (!sentIds.isEmpty()) {
+            outboxEventRepository.deleteAllByIdInBatch(sentIds);
+        }
+
+        logger.info("Отправлено в Kafka событий из outbox: {}", sentIds.size());
+    }
+
+    private void await(CompletableFuture<?> send, long deadline) {
+        try {
+            send.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Отправка событий outbox прервана", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Брокер не подтвердил пачку событий outbox", e);
+        }
+    }
+
+    private Object readPayload(OutboxEvent event) {
+        try {
+            return objectMapper.readValue(event.getPayload(), Class.forName(event.getEventType()));
+        } catch (Exception e) {
+            // Изменения сохранятся при фиксации транзакции, событие остается в таблице
+            event.setAttempts(event.getAttempts() + 1);
+            event.setLastError(truncate(e.toString()));
+            if (event.getAttempts() >= maxAttempts) {
+                event.setFailedAt(LocalDateTime.now());
+                logger.error("Событие outbox с id {} типа {} не прочитано за {} попыток и больше не отправляется",
+                        event.getId(), event.getEventType(), event.getAttempts(), e);
+            } else {
+                logger.warn("Не удалось прочитать событие outbox с id {} типа {}, попытка {}",
+                        event.getId(), event.getEventType(), event.getAttempts(), e);
+            }
+            return null;
+        }
+    }
+
+    private static String truncate(String error) {
+        return error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH);
+    }
+}
@@ -1,19 +1,20 @@
 package ru.kalimulin.kafka.producers;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 import ru.kalimulin.dto.kafkaEventDTO.InventoryUpdateEvent;
 import ru.kalimulin.kafka.InventoryEventProducer;
+import ru.kalimulin.kafka.outbox.KafkaOutbox;
 
 @Service
 @RequiredArgsConstructor
 public class InventoryEventProducerImpl implements InventoryEventProducer {
-    private final KafkaTemplate<String, InventoryUpdateEvent> kafkaTemplate;
+    private final KafkaOutbox kafkaOutbox;
 
     @Override
     public void sendInventoryUpdate(Long productId, int quantitySold) {
         InventoryUpdateEvent event = new InventoryUpdateEvent(productId, quantitySold);
-        kafkaTemplate.send("inventory-updates", event);
+        // Ключ по товару: все изменения остатка одного товара попадают в одну партицию
+        kafkaOutbox.enqueue("inventory-updates", String.valueOf(productId), event);
     }
 }
\ No newline at end of file
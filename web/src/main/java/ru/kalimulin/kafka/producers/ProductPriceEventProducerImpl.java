@@ -0,0 +1,18 @@
+package ru.kalimulin.kafka.producers;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import ru.kalimulin.dto.kafkaEventDTO.ProductPriceChangedEvent;
+import ru.kalimulin.kafka.ProductPriceEventProducer;
+import ru.kalimulin.kafka.outbox.KafkaOutbox;
+
+@Service
+@RequiredArgsConstructor
+public class ProductPriceEventProducerImpl implements ProductPriceEventProducer {
+    private final KafkaOutbox kafkaOutbox;
+
+    @Override
+    public void sendPriceChanged(Long productId) {
+        kafkaOutbox.enqueue("product-price-changes", String.valueOf(productId), new ProductPriceChangedEvent(productId));
+    }
+}
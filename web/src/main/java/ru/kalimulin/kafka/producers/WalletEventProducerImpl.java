@@ -1,18 +1,25 @@
 package ru.kalimulin.kafka.producers;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
+import ru.kalimulin.dto.kafkaEventDTO.WalletTransactionBatchEvent;
 import ru.kalimulin.dto.kafkaEventDTO.WalletTransactionEvent;
 import ru.kalimulin.kafka.WalletEventProducer;
+import ru.kalimulin.kafka.outbox.KafkaOutbox;
 
 @Service
 @RequiredArgsConstructor
 public class WalletEventProducerImpl implements WalletEventProducer {
-    private final KafkaTemplate<String, WalletTransactionEvent> kafkaTemplate;
+    private final KafkaOutbox kafkaOutbox;
 
     @Override
     public void sendWalletTransaction(WalletTransactionEvent event) {
-        kafkaTemplate.send("wallet-transactions", event);
+        // Ключ по номеру измененного кошелька сохраняет порядок операций одного кошелька
+        kafkaOutbox.enqueue("wallet-transactions", event.getWalletNumber(), event);
     }
-}
\ No newline at end of file
+
+    @Override
+    public void sendWalletTransactionBatch(WalletTransactionBatchEvent event) {
+        kafkaOutbox.enqueue("wallet-transaction-batches", event.getInitiatorLogin(), event);
+    }
+}
@@ -0,0 +1,28 @@
+package ru.kalimulin.redis;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Хранилище ключей идемпотентности.
+ */
+public interface IdempotencyStore {
+
+    /**
+     * Атомарно сохраняет значение, если ключа еще нет.
+     *
+     * @return пустой {@link Optional}, если значение сохранено этим вызовом, иначе текущее значение ключа
+     */
+    Optional<String> putIfAbsent(String key, String value, Duration ttl);
+
+    void put(String key, String value, Duration ttl);
+
+    /**
+     * Продлевает срок жизни ключа, если его значение не изменилось.
+     *
+     * @return {@code true}, если ключ продлен
+     */
+    boolean extend(String key, String expectedValue, Duration ttl);
+
+    void remove(String key);
+}
@@ -0,0 +1,438 @@
+package ru.kalimulin.redis;
+
+import jakarta.servlet.http.HttpSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.kalimulin.customExceptions.cartExceptions.CartItemNotFoundException;
+import ru.kalimulin.customExceptions.productExceptions.ProductNotFoundException;
+import ru.kalimulin.dto.cartDTO.CartDTO;
+import ru.kalimulin.dto.cartItemDTO.CartItemCreateDTO;
+import ru.kalimulin.dto.cartItemDTO.CartItemDTO;
+import ru.kalimulin.models.Cart;
+import ru.kalimulin.models.CartItem;
+import ru.kalimulin.models.Product;
+import ru.kalimulin.projections.ProductPriceView;
+import ru.kalimulin.repositories.CartRepository;
+import ru.kalimulin.repositories.ProductRepository;
+import ru.kalimulin.repositories.UserRepository;
+import ru.kalimulin.service.CartService;
+import ru.kalimulin.util.CartItemQuantities;
+import ru.kalimulin.util.SessionUser;
+import ru.kalimulin.util.SessionUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Корзины в Redis с отложенной записью в базу данных.
+ * <p>
+ * Корзина пользователя хранится хэшем {@code shop:cart:{userId}}: количество по идентификатору товара,
+ * идентификатор корзины в базе и стоимость в копейках, которая меняется вместе с количеством.
+ * Добавление и удаление товара выполняются одним Lua-скриптом, то есть одним обращением к Redis.
+ * Измененные корзины попадают в множество {@code shop:cart:dirty} и периодически записываются
+ * в таблицы {@code carts}/{@code cart_items} пачками ({@link #flushDirtyCarts()}).
+ * Перед записью строки корзин блокируются в базе, а содержимое читается из Redis уже после блокировки:
+ * параллельные записи одной корзины выполняются по очереди, и последней остается самая свежая версия.
+ * При потере данных Redis теряются изменения корзин за последний интервал записи.
+ */
+@Service
+@ConditionalOnProperty(name = "shop.cart.engine", havingValue = "redis")
+public class RedisCartService implements CartService {
+    private static final String CART_KEY_PREFIX = "shop:cart:";
+    private static final String DIRTY_KEY = "shop:cart:dirty";
+    private static final String FLUSH_LOCK_KEY_PREFIX = "shop:cart:flush-lock:";
+    private static final String ID_FIELD = "id";
+    private static final String TOTAL_FIELD = "total";
+
+    // Не перезаписывает корзину, уже загруженную параллельным запросом.
+    // Поля записываются частями: unpack всего ARGV упирается в размер стека Lua на больших корзинах
+    private static final RedisScript<Long> LOAD_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 1 then return 0 end
+            for i = 2, #ARGV, 1000 do
+                redis.call('HSET', KEYS[1], unpack(ARGV, i, math.min(i + 999, #ARGV)))
+            end
+            redis.call('EXPIRE', KEYS[1], ARGV[1])
+            return 1
+            """, Long.class);
+    // Снимает блокировку записи, только если ее значение совпадает с меткой владельца
+    private static final RedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end
+            return 0
+            """, Long.class);
+    // Скрипты изменения корзины возвращают 0, если корзины нет в Redis и ее нужно загрузить из базы
+    // ARGV: идентификатор пользователя, TTL, изменение стоимости, затем пары товар-количество
+    private static final RedisScript<Long> ADD_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end
+            for i = 4, #ARGV, 2 do
+                redis.call('HINCRBY', KEYS[1], ARGV[i], ARGV[i + 1])
+            end
+            redis.call('HINCRBY', KEYS[1], 'total', ARGV[3])
+            redis.call('SADD', KEYS[2], ARGV[1])
+            redis.call('EXPIRE', KEYS[1], ARGV[2])
+            return 1
+            """, Long.class);
+    // Возвращает -1, если товара нет в корзине
+    private static final RedisScript<Long> REMOVE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end
+            local quantity = redis.call('HGET', KEYS[1], ARGV[1])
+            if not quantity then return -1 end
+            redis.call('HDEL', KEYS[1], ARGV[1])
+            redis.call('HINCRBY', KEYS[1], 'total', string.format('%d', -tonumber(quantity) * tonumber(ARGV[2])))
+            redis.call('SADD', KEYS[2], ARGV[3])
+            redis.call('EXPIRE', KEYS[1], ARGV[4])
+            return 1
+            """, Long.class);
+    private static final RedisScript<Long> CLEAR_SCRIPT = new DefaultRedisScript<>("""
+            local id = redis.call('HGET', KEYS[1], 'id')
+            if not id then return 0 end
+            redis.call('DEL', KEYS[1])
+            redis.call('HSET', KEYS[1], 'id', id, 'total', 0)
+            redis.call('SADD', KEYS[2], ARGV[1])
+            redis.call('EXPIRE', KEYS[1], ARGV[2])
+            return 1
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final CartRepository cartRepository;
+    private final ProductRepository productRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final String ttlSeconds;
+    private final Duration lockTtl;
+    private final int flushBatchSize;
+    private final int maxBatchItems;
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisCartService.class);
+
+    public RedisCartService(StringRedisTemplate redisTemplate,
+                            CartRepository cartRepository,
+                            ProductRepository productRepository,
+                            UserRepository userRepository,
+                            TransactionTemplate transactionTemplate,
+                            @Value("${shop.cart.redis.ttl:7d}") Duration ttl,
+                            @Value("${shop.cart.redis.flush-lock-ttl:30s}") Duration lockTtl,
+                            @Value("${shop.cart.redis.flush-batch-size:200}") int flushBatchSize,
+                            @Value("${shop.cart.batch.max-items:500}") int maxBatchItems) {
+        this.redisTemplate = redisTemplate;
+        this.cartRepository = cartRepository;
+        this.productRepository = productRepository;
+        this.userRepository = userRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.ttlSeconds = String.valueOf(ttl.toSeconds());
+        this.lockTtl = lockTtl;
+        this.flushBatchSize = flushBatchSize;
+        this.maxBatchItems = maxBatchItems;
+    }
+
+    @Transactional
+    @Override
+    public CartDTO getCart(HttpSession session) {
+        logger.info("Запрос на получение корзины");
+        SessionUser user = SessionUtils.getUser(session);
+        String key = cartKey(user.id());
+
+        Map<Object, Object> entries = redisTemplate.opsForHash().entries(key);
+        if (entries.isEmpty()) {
+            load(user.id());
+            entries = redisTemplate.opsForHash().entries(key);
+        }
+
+        Map<Long, Integer> quantities = readQuantities(entries);
+        List<CartItemDTO> items = new ArrayList<>();
+        long total = 0;
+        for (Product product : productRepository.findAllById(quantities.keySet())) {
+            int quantity = quantities.get(product.getId());
+            total += toMinorUnits(product.getPrice()) * quantity;
+            items.add(CartItemDTO.builder()
+                    .productId(product.getId())
+                    .productName(product.getTitle())
+                    .price(product.getPrice())
+                    .quantity(quantity)
+                    .build());
+        }
+        items.sort(Comparator.comparing(CartItemDTO::getProductId));
+
+        // Сохраненная стоимость могла разойтись с текущими ценами: поправляем ее разницей,
+        // чтобы не потерять параллельные изменения корзины
+        long storedTotal = Long.parseLong((String) entries.getOrDefault(TOTAL_FIELD, "0"));
+        if (total != storedTotal) {
+            redisTemplate.opsForHash().increment(key, TOTAL_FIELD, total - storedTotal);
+        }
+
+        return CartDTO.builder()
+                .id(Long.valueOf((String) entries.get(ID_FIELD)))
+                .userLogin(user.login())
+                .items(items)
+                .totalPrice(BigDecimal.valueOf(total, 2))
+                .build();
+    }
+
+    @Transactional
+    @Override
+    public void addItemToCart(HttpSession session, CartItemCreateDTO cartItemCreateDTO) {
+        logger.info("Запрос на добавление товара в корзину");
+        Long userId = SessionUtils.getUserId(session);
+        BigDecimal price = findPrice(cartItemCreateDTO.getProductId());
+        int quantity = cartItemCreateDTO.getQuantity();
+
+        execute(ADD_SCRIPT, userId,
+                userId.toString(),
+                ttlSeconds,
+                String.valueOf(toMinorUnits(price) * quantity),
+                cartItemCreateDTO.getProductId().toString(),
+                String.valueOf(quantity));
+        logger.info("Товар добавлен в корзину");
+    }
+
+    @Transactional
+    @Override
+    public void addItemsToCart(HttpSession session, List<CartItemCreateDTO> items) {
+        logger.info("Запрос на пакетное добавление товаров в корзину");
+        Long userId = SessionUtils.getUserId(session);
+        Map<Long, Integer> quantities = CartItemQuantities.merge(items, maxBatchItems);
+
+        Map<Long, BigDecimal> prices = productRepository.findPricesByIdIn(quantities.keySet()).stream()
+                .collect(Collectors.toMap(ProductPriceView::getId, ProductPriceView::getPrice));
+        if (prices.size() != quantities.size()) {
+            Set<Long> missing = new HashSet<>(quantities.keySet());
+            missing.removeAll(prices.keySet());
+            throw new ProductNotFoundException("Товары не найдены: " + missing);
+        }
+
+        List<String> args = new ArrayList<>(List.of(userId.toString(), ttlSeconds, "0"));
+        long delta = 0;
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            delta += toMinorUnits(prices.get(entry.getKey())) * entry.getValue();
+            args.add(entry.getKey().toString());
+            args.add(entry.getValue().toString());
+        }
+        args.set(2, String.valueOf(delta));
+
+        // Все товары добавляются одним скриптом, то есть одним обращением к Redis
+        execute(ADD_SCRIPT, userId, args.toArray(String[]::new));
+        logger.info("В корзину добавлено позиций: {}", quantities.size());
+    }
+
+    @Transactional
+    @Override
+    public void removeItemFromCart(HttpSession session, Long productId) {
+        logger.info("Запрос на удаление товара из корзины");
+        Long userId = SessionUtils.getUserId(session);
+        BigDecimal price = findPrice(productId);
+
+        long result = execute(REMOVE_SCRIPT, userId,
+                productId.toString(),
+                String.valueOf(toMinorUnits(price)),
+                userId.toString(),
+                ttlSeconds);
+        if (result < 0) {
+            throw new CartItemNotFoundException("Товар не найден в корзине");
+        }
+        logger.info("Товар удален из корзины");
+    }
+
+    @Transactional
+    @Override
+    public void clearCart(HttpSession session) {
+        logger.info("Запрос на очищение корзины");
+        Long userId = SessionUtils.getUserId(session);
+        if (!Boolean.TRUE.equals(redisTemplate.hasKey(cartKey(userId)))) {
+            load(userId);
+        }
+
+        // Внутри транзакции (оплата заказа) корзина очищается только после коммита
+        Runnable clear = () -> redisTemplate.execute(CLEAR_SCRIPT, List.of(cartKey(userId), DIRTY_KEY),
+                userId.toString(), ttlSeconds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    clear.run();
+                }
+            });
+        } else {
+            clear.run();
+        }
+        logger.info("Корзина очищена");
+    }
+
+    /**
+     * Синхронно записывает корзину пользователя в базу в текущей транзакции.
+     * Если корзину сейчас записывает фоновая задача, запрос ждет блокировки строки корзины в базе,
+     * а не опрашивает Redis. Если транзакция будет отменена, корзина снова помечается измененной.
+     */
+    @Transactional
+    @Override
+    public void flushCart(HttpSession session) {
+        String userId = SessionUtils.getUserId(session).toString();
+        redisTemplate.opsForSet().remove(DIRTY_KEY, userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        redisTemplate.opsForSet().add(DIRTY_KEY, userId);
+                    }
+                }
+            });
+        }
+
+        writeCarts(List.of(Long.valueOf(userId)));
+    }
+
+    /**
+     * Записывает в базу очередную пачку измененных корзин в отдельной транзакции. Корзины, которые сейчас
+     * записывает другой экземпляр приложения, и корзины из неудачной пачки остаются помеченными измененными.
+     */
+    public void flushDirtyCarts() {
+        List<String> userIds = redisTemplate.opsForSet().pop(DIRTY_KEY, flushBatchSize);
+        if (userIds == null || userIds.isEmpty()) {
+            return;
+        }
+
+        // Блокировка в Redis только распределяет пачки между экземплярами: занятые корзины
+        // откладываются до следующего запуска, а не ждут блокировки строк в базе
+        Map<String, String> locks = new HashMap<>();
+        try {
+            for (String userId : userIds) {
+                String token = tryLock(userId);
+                if (token == null) {
+                    redisTemplate.opsForSet().add(DIRTY_KEY, userId);
+                } else {
+                    locks.put(userId, token);
+                }
+            }
+
+            List<Long> lockedUserIds = locks.keySet().stream().map(Long::valueOf).toList();
+            int written = transactionTemplate.execute(status -> writeCarts(lockedUserIds));
+            logger.info("Записано корзин в базу: {}", written);
+        } catch (RuntimeException e) {
+            logger.error("Не удалось записать корзины в базу, они будут записаны повторно", e);
+            if (!locks.isEmpty()) {
+                redisTemplate.opsForSet().add(DIRTY_KEY, locks.keySet().toArray(String[]::new));
+            }
+        } finally {
+            locks.forEach(this::unlock);
+        }
+    }
+
+    /**
+     * Блокирует строки корзин в базе и записывает в них текущее содержимое корзин из Redis.
+     * Должен вызываться в транзакции: блокировки держатся до ее завершения.
+     *
+     * @return количество записанных корзин
+     */
+    private int writeCarts(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+
+        cartRepository.lockByUserIdIn(userIds);
+        Map<Long, Map<Long, Integer>> itemsByUserId = new HashMap<>();
+        for (Long userId : userIds) {
+            Map<Object, Object> entries = redisTemplate.opsForHash().entries(cartKey(userId));
+            if (!entries.isEmpty()) {
+                itemsByUserId.put(userId, readQuantities(entries));
+            }
+        }
+
+        cartRepository.replaceItems(itemsByUserId);
+        return itemsByUserId.size();
+    }
+
+    /**
+     * Выполняет скрипт над корзиной, при необходимости предварительно загрузив ее из базы.
+     *
+     * @return результат скрипта
+     */
+    private long execute(RedisScript<Long> script, Long userId, String... args) {
+        List<String> keys = List.of(cartKey(userId), DIRTY_KEY);
+        Long result = redisTemplate.execute(script, keys, (Object[]) args);
+        if (result == null || result == 0) {
+            load(userId);
+            result = redisTemplate.execute(script, keys, (Object[]) args);
+        }
+        return result == null ? 0 : result;
+    }
+
+    /**
+     * Загружает корзину пользователя из базы в Redis, создавая ее при отсутствии.
+     * Если корзину уже загрузил параллельный запрос, она не перезаписывается.
+     *
+     * @param userId идентификатор пользователя
+     */
+    private void load(Long userId) {
+        Cart cart = cartRepository.findByUserId(userId)
+                .orElseGet(() -> cartRepository.save(Cart.builder()
+                        .user(userRepository.getReferenceById(userId))
+                        .totalPrice(BigDecimal.ZERO)
+                        .items(new ArrayList<>())
+                        .build()));
+
+        List<String> args = new ArrayList<>(List.of(ttlSeconds, ID_FIELD, cart.getId().toString()));
+        long total = 0;
+        for (CartItem item : cart.getItems()) {
+            args.add(item.getProduct().getId().toString());
+            args.add(item.getQuantity().toString());
+            total += toMinorUnits(item.getProduct().getPrice()) * item.getQuantity();
+        }
+        args.add(TOTAL_FIELD);
+        args.add(String.valueOf(total));
+
+        redisTemplate.execute(LOAD_SCRIPT, List.of(cartKey(userId)), args.toArray());
+    }
+
+    private BigDecimal findPrice(Long productId) {
+        return productRepository.findPriceById(productId)
+                .orElseThrow(() -> new ProductNotFoundException("Товар не найден"));
+    }
+
+    /**
+     * Пытается захватить блокировку записи корзины.
+     *
+     * @return метка владельца блокировки или {@code null}, если блокировка занята
+     */
+    private String tryLock(String userId) {
+        String token = UUID.randomUUID().toString();
+        return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(FLUSH_LOCK_KEY_PREFIX + userId, token, lockTtl))
+                ? token
+                : null;
+    }
+
+    /**
+     * Снимает блокировку записи корзины. Блокировка, которая истекла и досталась другому экземпляру, не снимается.
+     */
+    private void unlock(String userId, String token) {
+        redisTemplate.execute(UNLOCK_SCRIPT, List.of(FLUSH_LOCK_KEY_PREFIX + userId), token);
+    }
+
+    private static Map<Long, Integer> readQuantities(Map<Object, Object> entries) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        entries.forEach((field, value) -> {
+            if (!ID_FIELD.equals(field) && !TOTAL_FIELD.equals(field)) {
+                quantities.put(Long.valueOf((String) field), Integer.valueOf((String) value));
+            }
+        });
+        return quantities;
+    }
+
+    private static long toMinorUnits(BigDecimal price) {
+        return price.movePointRight(2).longValueExact();
+    }
+
+    private static String cartKey(Long userId) {
+        return CART_KEY_PREFIX + userId;
+    }
+}
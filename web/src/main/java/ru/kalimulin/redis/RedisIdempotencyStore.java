@@ -0,0 +1,111 @@
+package ru.kalimulin.redis;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ключи идемпотентности в Redis. Если Redis недоступен, ключи временно хранятся в памяти приложения:
+ * защита от повторов тогда действует в пределах одного экземпляра.
+ */
+@Service
+@RequiredArgsConstructor
+public class RedisIdempotencyStore implements IdempotencyStore {
+    // KEYS[1] - ключ, ARGV[1] - ожидаемое значение, ARGV[2] - новый срок жизни в миллисекундах
+    private static final RedisScript<Long> EXTEND_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            end
+            return 0
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final Map<String, LocalEntry> localEntries = new ConcurrentHashMap<>();
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisIdempotencyStore.class);
+
+    @Override
+    public Optional<String> putIfAbsent(String key, String value, Duration ttl) {
+        try {
+            if (Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, value, ttl))) {
+                return Optional.empty();
+            }
+            return Optional.ofNullable(redisTemplate.opsForValue().get(key));
+        } catch (DataAccessException e) {
+            logger.warn("Redis недоступен, ключ идемпотентности хранится локально", e);
+            long now = System.currentTimeMillis();
+            LocalEntry entry = localEntries.compute(key, (k, current) ->
+                    current == null || current.isExpired(now) ? new LocalEntry(value, now + ttl.toMillis(), true) : current.existing());
+            return entry.created() ? Optional.empty() : Optional.of(entry.value());
+        }
+    }
+
+    @Override
+    public void put(String key, String value, Duration ttl) {
+        try {
+            redisTemplate.opsForValue().set(key, value, ttl);
+            localEntries.remove(key);
+        } catch (DataAccessException e) {
+            logger.warn("Redis недоступен, ответ сохраняется локально", e);
+            localEntries.put(key, new LocalEntry(value, System.currentTimeMillis() + ttl.toMillis(), false));
+        }
+    }
+
+    @Override
+    public boolean extend(String key, String expectedValue, Duration ttl) {
+        try {
+            Long extended = redisTemplate.execute(EXTEND_SCRIPT, List.of(key), expectedValue, String.valueOf(ttl.toMillis()));
+            return extended != null && extended == 1;
+        } catch (DataAccessException e) {
+            logger.warn("Redis недоступен, ключ идемпотентности продлевается локально", e);
+            long now = System.currentTimeMillis();
+            boolean[] extended = {false};
+            localEntries.computeIfPresent(key, (k, current) -> {
+                if (current.isExpired(now) || !current.value().equals(expectedValue)) {
+                    return current;
+                }
+                extended[0] = true;
+                return new LocalEntry(current.value(), now + ttl.toMillis(), false);
+            });
+            return extended[0];
+        }
+    }
+
+    @Override
+    public void remove(String key) {
+        localEntries.remove(key);
+        try {
+            redisTemplate.delete(key);
+        } catch (DataAccessException e) {
+            logger.warn("Redis недоступен, ключ идемпотентности удален только локально", e);
+        }
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void evictExpiredLocalEntries() {
+        long now = System.currentTimeMillis();
+        localEntries.values().removeIf(entry -> entry.isExpired(now));
+    }
+
+    private record LocalEntry(String value, long expiresAt, boolean created) {
+        boolean isExpired(long now) {
+            return expiresAt <= now;
+        }
+
+        LocalEntry existing() {
+            return new LocalEntry(value, expiresAt, false);
+        }
+    }
+}
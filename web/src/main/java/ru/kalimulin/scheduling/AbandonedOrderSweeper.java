@@ -0,0 +1,67 @@
+package ru.kalimulin.scheduling;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.kalimulin.service.AbandonedOrderService;
+import ru.kalimulin.service.AbandonedOrderService.SweepChunk;
+
+/**
+ * Фоновое удаление брошенных неоплаченных заказов.
+ * Заказы удаляются пачками по возрастанию id, каждая пачка - в отдельной транзакции.
+ */
+@Component
+public class AbandonedOrderSweeper {
+    private final AbandonedOrderService abandonedOrderService;
+    private final Counter ordersSwept;
+    private final Counter itemsSwept;
+    private final DistributionSummary ordersSweptPerRun;
+
+    @Value("${shop.orders.abandoned.max-chunks-per-run:20}")
+    private int maxChunksPerRun;
+
+    private static final Logger logger = LoggerFactory.getLogger(AbandonedOrderSweeper.class);
+
+    public AbandonedOrderSweeper(AbandonedOrderService abandonedOrderService, MeterRegistry meterRegistry) {
+        this.abandonedOrderService = abandonedOrderService;
+        this.ordersSwept = Counter.builder("shop.orders.abandoned.swept")
+                .description("Удалено брошенных заказов")
+                .register(meterRegistry);
+        this.itemsSwept = Counter.builder("shop.orders.abandoned.items.swept")
+                .description("Удалено позиций брошенных заказов")
+                .register(meterRegistry);
+        this.ordersSweptPerRun = DistributionSummary.builder("shop.orders.abandoned.swept.per.run")
+                .description("Удалено брошенных заказов за один запуск")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${shop.orders.abandoned.sweep-interval-ms:3600000}")
+    public void sweep() {
+        long lastOrderId = 0;
+        int orders = 0;
+        int items = 0;
+
+        for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+            SweepChunk result = abandonedOrderService.deleteAbandonedChunk(lastOrderId);
+            lastOrderId = result.lastOrderId();
+            orders += result.ordersDeleted();
+            items += result.itemsDeleted();
+            if (!result.hasMore()) {
+                break;
+            }
+        }
+
+        ordersSwept.increment(orders);
+        itemsSwept.increment(items);
+        ordersSweptPerRun.record(orders);
+
+        if (orders > 0) {
+            logger.info("Удалено брошенных заказов: {}, позиций: {}", orders, items);
+        }
+    }
+}
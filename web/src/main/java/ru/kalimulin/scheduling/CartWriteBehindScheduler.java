@@ -0,0 +1,22 @@
+package ru.kalimulin.scheduling;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.kalimulin.redis.RedisCartService;
+
+/**
+ * Периодическая запись измененных корзин из Redis в базу данных.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shop.cart.engine", havingValue = "redis")
+public class CartWriteBehindScheduler {
+    private final RedisCartService redisCartService;
+
+    @Scheduled(fixedDelayString = "${shop.cart.redis.flush-interval-ms:5000}")
+    public void flush() {
+        redisCartService.flushDirtyCarts();
+    }
+}
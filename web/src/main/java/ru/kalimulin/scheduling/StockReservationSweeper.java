@@ -0,0 +1,23 @@
+package ru.kalimulin.scheduling;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.kalimulin.service.StockReservationService;
+
+/**
+ * Фоновое снятие истекших резервов товаров.
+ * Каждая пачка обрабатывается в отдельной транзакции, поэтому блокировки строк держатся недолго.
+ */
+@Component
+@RequiredArgsConstructor
+public class StockReservationSweeper {
+    private final StockReservationService stockReservationService;
+
+    @Scheduled(fixedDelayString = "${shop.reservation.sweep-interval-ms:60000}")
+    public void sweep() {
+        while (stockReservationService.releaseExpired() > 0) {
+            // Продолжаем, пока находятся истекшие резервы
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package ru.kalimulin.scheduling;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.kalimulin.service.WalletLedgerService;
+
+/**
+ * Периодическое обновление снимков балансов, чтобы расчет баланса
+ * суммировал только короткий хвост журнала операций.
+ */
+@Component
+@RequiredArgsConstructor
+public class WalletSnapshotScheduler {
+    private final WalletLedgerService walletLedgerService;
+
+    @Scheduled(fixedDelayString = "${shop.wallet.snapshot.interval-ms:60000}")
+    public void snapshot() {
+        walletLedgerService.snapshotBalances();
+    }
+}
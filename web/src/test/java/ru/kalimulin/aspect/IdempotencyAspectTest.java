@@ -0,0 +1,237 @@
+package ru.kalimulin.aspect;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpSession;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import ru.kalimulin.annotation.Idempotent;
+import ru.kalimulin.customExceptions.idempotencyExceptions.IdempotencyKeyInUseException;
+import ru.kalimulin.customExceptions.idempotencyExceptions.IdempotencyKeyReusedException;
+import ru.kalimulin.redis.IdempotencyStore;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class IdempotencyAspectTest {
+    @Mock
+    private HttpSession session;
+    @Mock
+    private ProceedingJoinPoint joinPoint;
+    @Mock
+    private MethodSignature signature;
+
+    private final InMemoryIdempotencyStore store = new InMemoryIdempotencyStore();
+    private IdempotencyAspect aspect;
+
+    @BeforeEach
+    void setUp() throws NoSuchMethodException {
+        aspect = new IdempotencyAspect(store, new ObjectMapper(), session, "secret");
+        ReflectionTestUtils.setField(aspect, "window", Duration.ofHours(24));
+        ReflectionTestUtils.setField(aspect, "lockTtl", Duration.ofMinutes(1));
+
+        when(session.getAttribute("userLogin")).thenReturn("user");
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(signature.getMethod()).thenReturn(TransferEndpoint.class.getMethod("transfer", Transfer.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        aspect.shutdown();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void repeatedRequestShouldGetStoredResponseWithoutExecution() throws Throwable {
+        Transfer transfer = new Transfer("111111111111", new BigDecimal("100.00"));
+        when(joinPoint.proceed()).thenReturn(ResponseEntity.ok("Перевод выполнен успешно!"));
+
+        ResponseEntity<?> first = (ResponseEntity<?>) handle("key-1", transfer);
+        ResponseEntity<?> second = (ResponseEntity<?>) handle("key-1", transfer);
+
+        verify(joinPoint, times(1)).proceed();
+        assertEquals("Перевод выполнен успешно!", first.getBody());
+        assertEquals("Перевод выполнен успешно!", second.getBody());
+        assertEquals("true", second.getHeaders().getFirst(IdempotencyAspect.REPLAYED_HEADER));
+    }
+
+    @Test
+    void reusedKeyWithAnotherBodyShouldBeRejected() throws Throwable {
+        when(joinPoint.proceed()).thenReturn(ResponseEntity.ok("Перевод выполнен успешно!"));
+        handle("key-1", new Transfer("111111111111", new BigDecimal("100.00")));
+
+        assertThrows(IdempotencyKeyReusedException.class,
+                () -> handle("key-1", new Transfer("111111111111", new BigDecimal("900.00"))));
+        verify(joinPoint, times(1)).proceed();
+    }
+
+    @Test
+    void reusedKeyWithAnotherQueryShouldBeRejected() throws Throwable {
+        Transfer transfer = new Transfer("111111111111", new BigDecimal("100.00"));
+        when(joinPoint.proceed()).thenReturn(ResponseEntity.ok("Перевод выполнен успешно!"));
+        handle("key-1", transfer);
+
+        MockHttpServletRequest request = request("key-1");
+        request.setQueryString("addressId=2");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        when(joinPoint.getArgs()).thenReturn(new Object[]{transfer});
+
+        assertThrows(IdempotencyKeyReusedException.class, () -> aspect.handle(joinPoint, null));
+    }
+
+    @Test
+    void storedResponseWithoutFingerprintShouldBeRejected() throws Throwable {
+        store.values.put("idempotency:user:POST:/shop/wallet/transfer:key-1",
+                "{\"fingerprint\":null,\"status\":200,\"bodyType\":null,\"body\":null}");
+
+        assertThrows(IdempotencyKeyReusedException.class,
+                () -> handle("key-1", new Transfer("111111111111", new BigDecimal("100.00"))));
+        verify(joinPoint, never()).proceed();
+    }
+
+    @Test
+    void fingerprintShouldDependOnSecret() throws Throwable {
+        Transfer transfer = new Transfer("111111111111", new BigDecimal("100.00"));
+        when(joinPoint.proceed()).thenReturn(ResponseEntity.ok("Перевод выполнен успешно!"));
+        handle("key-1", transfer);
+        String stored = store.values.get("idempotency:user:POST:/shop/wallet/transfer:key-1");
+
+        IdempotencyAspect otherKeyAspect = new IdempotencyAspect(store, new ObjectMapper(), session, "other-secret");
+        ReflectionTestUtils.setField(otherKeyAspect, "window", Duration.ofHours(24));
+        ReflectionTestUtils.setField(otherKeyAspect, "lockTtl", Duration.ofMinutes(1));
+        try {
+            // Без ключа приложения отпечаток не воспроизвести и по нему не подобрать содержимое тела
+            assertThrows(IdempotencyKeyReusedException.class, () -> otherKeyAspect.handle(joinPoint, null));
+        } finally {
+            otherKeyAspect.shutdown();
+        }
+        assertTrue(stored.contains("\"fingerprint\":\""));
+    }
+
+    @Test
+    void requestInProgressShouldBeRejected() throws Throwable {
+        Transfer transfer = new Transfer("111111111111", new BigDecimal("100.00"));
+        when(joinPoint.proceed()).thenAnswer(invocation -> {
+            assertThrows(IdempotencyKeyInUseException.class, () -> handle("key-1", transfer));
+            return ResponseEntity.ok("Перевод выполнен успешно!");
+        });
+
+        handle("key-1", transfer);
+
+        verify(joinPoint, times(1)).proceed();
+    }
+
+    @Test
+    void failedRequestShouldReleaseKey() throws Throwable {
+        Transfer transfer = new Transfer("111111111111", new BigDecimal("100.00"));
+        when(joinPoint.proceed())
+                .thenThrow(new IllegalStateException("Ошибка"))
+                .thenReturn(ResponseEntity.ok("Перевод выполнен успешно!"));
+
+        assertThrows(IllegalStateException.class, () -> handle("key-1", transfer));
+        ResponseEntity<?> retry = (ResponseEntity<?>) handle("key-1", transfer);
+
+        verify(joinPoint, times(2)).proceed();
+        assertNull(retry.getHeaders().getFirst(IdempotencyAspect.REPLAYED_HEADER));
+    }
+
+    @Test
+    void lockShouldBeExtendedWhileRequestRuns() throws Throwable {
+        ReflectionTestUtils.setField(aspect, "lockTtl", Duration.ofMillis(150));
+        when(joinPoint.proceed()).thenAnswer(invocation -> {
+            Thread.sleep(500);
+            return ResponseEntity.ok("Перевод выполнен успешно!");
+        });
+
+        handle("key-1", new Transfer("111111111111", new BigDecimal("100.00")));
+
+        assertTrue(store.extensions.get() >= 2);
+    }
+
+    @Test
+    void requestWithoutKeyShouldNotBeStored() throws Throwable {
+        when(joinPoint.proceed()).thenReturn(ResponseEntity.ok("Перевод выполнен успешно!"));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request(null)));
+
+        aspect.handle(joinPoint, null);
+        aspect.handle(joinPoint, null);
+
+        verify(joinPoint, times(2)).proceed();
+        assertTrue(store.values.isEmpty());
+    }
+
+    private Object handle(String idempotencyKey, Transfer transfer) throws Throwable {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request(idempotencyKey)));
+        when(joinPoint.getArgs()).thenReturn(new Object[]{transfer});
+        return aspect.handle(joinPoint, null);
+    }
+
+    private static MockHttpServletRequest request(String idempotencyKey) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/shop/wallet/transfer");
+        if (idempotencyKey != null) {
+            request.addHeader(IdempotencyAspect.IDEMPOTENCY_KEY_HEADER, idempotencyKey);
+        }
+        return request;
+    }
+
+    public record Transfer(String walletNumber, BigDecimal amount) {
+    }
+
+    static class TransferEndpoint {
+        @Idempotent
+        public ResponseEntity<String> transfer(@RequestBody Transfer transfer) {
+            return ResponseEntity.ok("Перевод выполнен успешно!");
+        }
+    }
+
+    /**
+     * Хранилище без срока жизни ключей, считает продления блокировки.
+     */
+    private static class InMemoryIdempotencyStore implements IdempotencyStore {
+        private final Map<String, String> values = new ConcurrentHashMap<>();
+        private final AtomicInteger extensions = new AtomicInteger();
+
+        @Override
+        public Optional<String> putIfAbsent(String key, String value, Duration ttl) {
+            return Optional.ofNullable(values.putIfAbsent(key, value));
+        }
+
+        @Override
+        public void put(String key, String value, Duration ttl) {
+            values.put(key, value);
+        }
+
+        @Override
+        public boolean extend(String key, String expectedValue, Duration ttl) {
+            extensions.incrementAndGet();
+            return expectedValue.equals(values.get(key));
+        }
+
+        @Override
+        public void remove(String key) {
+            values.remove(key);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package ru.kalimulin.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mindrot.jbcrypt.BCrypt;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.kalimulin.serviceImpl.PinVerificationServiceImpl;
+import ru.kalimulin.util.SessionUser;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionConfigTest {
+    private static final String PIN_HASH = BCrypt.hashpw("1234", BCrypt.gensalt(4));
+
+    private final RedisSerializer<Object> serializer = new SessionConfig().springSessionDefaultRedisSerializer();
+
+    private ExecutorService executor;
+    private PinVerificationServiceImpl pinVerificationService;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newSingleThreadExecutor();
+        pinVerificationService = new PinVerificationServiceImpl(executor, "secret");
+        ReflectionTestUtils.setField(pinVerificationService, "timeout", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(pinVerificationService, "verifiedTtl", Duration.ofMinutes(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void sessionUserShouldSurviveJsonRoundTrip() {
+        SessionUser user = new SessionUser(1L, "buyer", "buyer@example.com");
+
+        assertEquals(user, roundTrip(user));
+    }
+
+    @Test
+    void verifiedPinShouldSurviveJsonRoundTrip() {
+        MockHttpSession session = new MockHttpSession();
+        pinVerificationService.verify(session, 10L, PIN_HASH, "1234");
+        Object verifiedPin = session.getAttribute("verifiedPin");
+        assertNotNull(verifiedPin);
+
+        Object restored = roundTrip(verifiedPin);
+        assertEquals(verifiedPin.getClass(), restored.getClass());
+
+        MockHttpSession restoredSession = new MockHttpSession();
+        restoredSession.setAttribute("verifiedPin", restored);
+        // Без пула BCrypt выполнить нельзя: проверка проходит только по восстановленной отметке
+        executor.shutdownNow();
+
+        assertDoesNotThrow(() -> pinVerificationService.verify(restoredSession, 10L, PIN_HASH, "1234"));
+    }
+
+    private Object roundTrip(Object value) {
+        return serializer.deserialize(serializer.serialize(value));
+    }
+}
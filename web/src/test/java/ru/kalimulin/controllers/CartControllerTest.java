@@ -0,0 +1,82 @@
+package ru.kalimulin.controllers;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.kalimulin.dto.cartItemDTO.CartItemCreateDTO;
+import ru.kalimulin.exceptionHandler.GlobalExceptionHandler;
+import ru.kalimulin.service.CartService;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class CartControllerTest {
+    @Mock
+    private CartService cartService;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(new CartController(cartService))
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void batchShouldPassValidItemsToService() throws Exception {
+        mockMvc.perform(post("/shop/cart/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"items\":[{\"productId\":1,\"quantity\":2},{\"productId\":3,\"quantity\":1}]}"))
+                .andExpect(status().isOk());
+
+        verify(cartService).addItemsToCart(any(), eq(List.of(new CartItemCreateDTO(1L, 2), new CartItemCreateDTO(3L, 1))));
+    }
+
+    @Test
+    void batchShouldRejectInvalidItemWithErrorResponse() throws Exception {
+        mockMvc.perform(post("/shop/cart/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"items\":[{\"productId\":1,\"quantity\":0}]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.statusCode").value(400))
+                .andExpect(jsonPath("$.message").value("Количество товара должно быть больше 0"));
+
+        verifyNoInteractions(cartService);
+    }
+
+    @Test
+    void batchShouldRejectEmptyList() throws Exception {
+        mockMvc.perform(post("/shop/cart/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"items\":[]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Список товаров пуст"));
+
+        verifyNoInteractions(cartService);
+    }
+
+    @Test
+    void addShouldRejectItemWithoutProduct() throws Exception {
+        mockMvc.perform(post("/shop/cart")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"quantity\":1}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", containsString("Укажите товар")));
+
+        verifyNoInteractions(cartService);
+    }
+}
@@ -0,0 +1,144 @@
+package ru.kalimulin.kafka.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+import ru.kalimulin.models.OutboxEvent;
+import ru.kalimulin.repositories.OutboxEventRepository;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+    private static final int BATCH_SIZE = 100;
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+    @Mock
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    private OutboxRelay outboxRelay;
+
+    @BeforeEach
+    void setUp() {
+        outboxRelay = new OutboxRelay(outboxEventRepository, kafkaTemplate, new ObjectMapper());
+        ReflectionTestUtils.setField(outboxRelay, "batchSize", BATCH_SIZE);
+        ReflectionTestUtils.setField(outboxRelay, "maxAttempts", 3);
+        ReflectionTestUtils.setField(outboxRelay, "deliveryTimeoutMs", 30_000L);
+        ReflectionTestUtils.setField(outboxRelay, "maxBlockMs", 10_000L);
+    }
+
+    @Test
+    void acknowledgedBatchShouldBeDeleted() {
+        when(outboxEventRepository.lockNextBatch(BATCH_SIZE)).thenReturn(List.of(event(1L), event(2L)));
+        when(kafkaTemplate.send(eq("topic"), anyString(), any())).thenReturn(acknowledged());
+
+        outboxRelay.relay();
+
+        verify(kafkaTemplate).send(eq("topic"), eq("key-1"), any());
+        verify(kafkaTemplate).send(eq("topic"), eq("key-2"), any());
+        verify(outboxEventRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+    }
+
+    @Test
+    void failedSendShouldRollBackWithoutDeleting() {
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        TransactionStatus status = mock(TransactionStatus.class);
+        when(transactionManager.getTransaction(any())).thenReturn(status);
+        OutboxRelay transactionalRelay = transactional(outboxRelay, transactionManager);
+
+        when(outboxEventRepository.lockNextBatch(BATCH_SIZE)).thenReturn(List.of(event(1L), event(2L)));
+        when(kafkaTemplate.send(eq("topic"), anyString(), any()))
+                .thenReturn(acknowledged())
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("broker is down")));
+
+        assertThrows(IllegalStateException.class, transactionalRelay::relay);
+
+        verify(transactionManager).rollback(status);
+        verify(transactionManager, never()).commit(any());
+        verify(outboxEventRepository, never()).deleteAllByIdInBatch(any());
+    }
+
+    @Test
+    void unacknowledgedBatchShouldTimeOutInsteadOfHanging() {
+        ReflectionTestUtils.setField(outboxRelay, "deliveryTimeoutMs", 50L);
+        ReflectionTestUtils.setField(outboxRelay, "maxBlockMs", 0L);
+        when(outboxEventRepository.lockNextBatch(BATCH_SIZE)).thenReturn(List.of(event(1L)));
+        when(kafkaTemplate.send(eq("topic"), anyString(), any())).thenReturn(new CompletableFuture<>());
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class, outboxRelay::relay);
+
+        assertInstanceOf(TimeoutException.class, exception.getCause());
+        verify(outboxEventRepository, never()).deleteAllByIdInBatch(any());
+    }
+
+    @Test
+    void unreadableEventShouldBeKeptWithAttemptCounted() {
+        OutboxEvent poison = event(1L);
+        poison.setEventType("ru.kalimulin.MissingEvent");
+        when(outboxEventRepository.lockNextBatch(BATCH_SIZE)).thenReturn(List.of(poison, event(2L)));
+        when(kafkaTemplate.send(eq("topic"), anyString(), any())).thenReturn(acknowledged());
+
+        outboxRelay.relay();
+
+        verify(kafkaTemplate, never()).send(eq("topic"), eq("key-1"), any());
+        verify(outboxEventRepository).deleteAllByIdInBatch(List.of(2L));
+        assertEquals(1, poison.getAttempts());
+        assertNotNull(poison.getLastError());
+        assertNull(poison.getFailedAt());
+    }
+
+    @Test
+    void unreadableEventShouldBeMarkedFailedAfterLastAttempt() {
+        OutboxEvent poison = event(1L);
+        poison.setPayload("not json");
+        poison.setAttempts(2);
+        when(outboxEventRepository.lockNextBatch(BATCH_SIZE)).thenReturn(List.of(poison));
+
+        outboxRelay.relay();
+
+        assertEquals(3, poison.getAttempts());
+        assertNotNull(poison.getFailedAt());
+        verifyNoInteractions(kafkaTemplate);
+        verify(outboxEventRepository, never()).deleteAllByIdInBatch(any());
+    }
+
+    private static OutboxEvent event(Long id) {
+        return OutboxEvent.builder()
+                .id(id)
+                .topic("topic")
+                .eventKey("key-" + id)
+                .eventType(LinkedHashMap.class.getName())
+                .payload("{\"id\":" + id + "}")
+                .build();
+    }
+
+    private static CompletableFuture<SendResult<String, Object>> acknowledged() {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    private static OutboxRelay transactional(OutboxRelay target, PlatformTransactionManager transactionManager) {
+        ProxyFactory proxyFactory = new ProxyFactory(target);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice(new TransactionInterceptor(transactionManager, new AnnotationTransactionAttributeSource()));
+        return (OutboxRelay) proxyFactory.getProxy();
+    }
+}
@@ -0,0 +1,43 @@
+package ru.kalimulin.kafka.producers;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.kalimulin.dto.kafkaEventDTO.WalletTransactionEvent;
+import ru.kalimulin.kafka.outbox.KafkaOutbox;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class WalletEventProducerTest {
+    @Mock
+    private KafkaOutbox kafkaOutbox;
+
+    @InjectMocks
+    private WalletEventProducerImpl walletEventProducer;
+
+    @Test
+    void debitShouldBeKeyedBySenderWallet() {
+        WalletTransactionEvent event = new WalletTransactionEvent("111111111111", "TRANSFER_OUT", "sender",
+                "222222222222", BigDecimal.TEN, Instant.now());
+
+        walletEventProducer.sendWalletTransaction(event);
+
+        verify(kafkaOutbox).enqueue("wallet-transactions", "111111111111", event);
+    }
+
+    @Test
+    void creditShouldBeKeyedByRecipientWallet() {
+        WalletTransactionEvent event = new WalletTransactionEvent("222222222222", "TRANSFER_IN", "sender",
+                "222222222222", BigDecimal.TEN, Instant.now());
+
+        walletEventProducer.sendWalletTransaction(event);
+
+        verify(kafkaOutbox).enqueue("wallet-transactions", "222222222222", event);
+    }
+}
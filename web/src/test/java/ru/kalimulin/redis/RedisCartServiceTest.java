@@ -0,0 +1,225 @@
+package ru.kalimulin.redis;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import redis.embedded.RedisServer;
+import ru.kalimulin.customExceptions.cartExceptions.CartItemNotFoundException;
+import ru.kalimulin.dto.cartItemDTO.CartItemCreateDTO;
+import ru.kalimulin.models.Cart;
+import ru.kalimulin.models.CartItem;
+import ru.kalimulin.models.Product;
+import ru.kalimulin.repositories.CartRepository;
+import ru.kalimulin.repositories.ProductRepository;
+import ru.kalimulin.repositories.UserRepository;
+import ru.kalimulin.util.SessionUser;
+import ru.kalimulin.util.SessionUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RedisCartServiceTest {
+    private static final String CART_KEY = "shop:cart:1";
+    private static final String DIRTY_KEY = "shop:cart:dirty";
+    private static final String LOCK_KEY = "shop:cart:flush-lock:1";
+
+    private static RedisServer redisServer;
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redisTemplate;
+
+    private CartRepository cartRepository;
+    private ProductRepository productRepository;
+    private PlatformTransactionManager transactionManager;
+    private RedisCartService cartService;
+    private MockHttpSession session;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port = freePort();
+        redisServer = new RedisServer(port);
+        redisServer.start();
+        connectionFactory = connectionFactory(port);
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate.getConnectionFactory().getConnection().serverCommands().flushAll();
+        cartRepository = mock(CartRepository.class);
+        productRepository = mock(ProductRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        cartService = new RedisCartService(redisTemplate, cartRepository, productRepository, mock(UserRepository.class),
+                new TransactionTemplate(transactionManager), Duration.ofDays(7), Duration.ofSeconds(30), 200, 500);
+
+        session = new MockHttpSession();
+        SessionUtils.setUser(session, new SessionUser(1L, "user", "user@mail.ru"));
+    }
+
+    @Test
+    void shouldLoadCartLargerThanLuaStackFromDatabase() {
+        Cart cart = Cart.builder().id(5L).items(new ArrayList<>()).totalPrice(BigDecimal.ZERO).build();
+        for (long productId = 1; productId <= 10_000; productId++) {
+            cart.getItems().add(CartItem.builder()
+                    .cart(cart)
+                    .product(Product.builder().id(productId).price(new BigDecimal("1.50")).build())
+                    .quantity(1)
+                    .build());
+        }
+        when(cartRepository.findByUserId(1L)).thenReturn(Optional.of(cart));
+        when(productRepository.findPriceById(20_000L)).thenReturn(Optional.of(new BigDecimal("2.00")));
+
+        cartService.addItemToCart(session, new CartItemCreateDTO(20_000L, 3));
+
+        assertEquals(10_003L, redisTemplate.opsForHash().size(CART_KEY));
+        assertEquals("5", redisTemplate.opsForHash().get(CART_KEY, "id"));
+        assertEquals("1500600", redisTemplate.opsForHash().get(CART_KEY, "total"));
+        assertEquals("3", redisTemplate.opsForHash().get(CART_KEY, "20000"));
+        assertTrue(redisTemplate.getExpire(CART_KEY) > 0);
+    }
+
+    @Test
+    void shouldNotOverwriteCartLoadedByConcurrentRequest() {
+        redisTemplate.opsForHash().putAll(CART_KEY, Map.of("id", "5", "total", "300", "10", "2"));
+        when(productRepository.findPriceById(10L)).thenReturn(Optional.of(new BigDecimal("1.50")));
+
+        cartService.addItemToCart(session, new CartItemCreateDTO(10L, 1));
+
+        assertEquals("3", redisTemplate.opsForHash().get(CART_KEY, "10"));
+        assertEquals("450", redisTemplate.opsForHash().get(CART_KEY, "total"));
+        assertTrue(redisTemplate.opsForSet().isMember(DIRTY_KEY, "1"));
+        verify(cartRepository, never()).findByUserId(any());
+    }
+
+    @Test
+    void shouldRemoveItemAndRejectMissingOne() {
+        redisTemplate.opsForHash().putAll(CART_KEY, Map.of("id", "5", "total", "300", "10", "2"));
+        when(productRepository.findPriceById(anyLong())).thenReturn(Optional.of(new BigDecimal("1.50")));
+
+        cartService.removeItemFromCart(session, 10L);
+
+        assertNull(redisTemplate.opsForHash().get(CART_KEY, "10"));
+        assertEquals("0", redisTemplate.opsForHash().get(CART_KEY, "total"));
+        assertThrows(CartItemNotFoundException.class, () -> cartService.removeItemFromCart(session, 10L));
+    }
+
+    @Test
+    void shouldClearCartKeepingItsId() {
+        redisTemplate.opsForHash().putAll(CART_KEY, Map.of("id", "5", "total", "300", "10", "2"));
+
+        cartService.clearCart(session);
+
+        assertEquals(Map.of("id", "5", "total", "0"), redisTemplate.opsForHash().entries(CART_KEY));
+        assertTrue(redisTemplate.opsForSet().isMember(DIRTY_KEY, "1"));
+    }
+
+    @Test
+    void flushDirtyCartsShouldLockRowsBeforeWritingAndReleaseOwnLock() {
+        redisTemplate.opsForHash().putAll(CART_KEY, Map.of("id", "5", "total", "300", "10", "2"));
+        redisTemplate.opsForSet().add(DIRTY_KEY, "1");
+
+        cartService.flushDirtyCarts();
+
+        InOrder inOrder = inOrder(transactionManager, cartRepository);
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(cartRepository).lockByUserIdIn(List.of(1L));
+        inOrder.verify(cartRepository).replaceItems(Map.of(1L, Map.of(10L, 2)));
+        inOrder.verify(transactionManager).commit(any());
+        assertFalse(redisTemplate.hasKey(LOCK_KEY));
+        assertEquals(0L, redisTemplate.opsForSet().size(DIRTY_KEY));
+    }
+
+    @Test
+    void flushDirtyCartsShouldSkipCartLockedByAnotherInstance() {
+        redisTemplate.opsForHash().putAll(CART_KEY, Map.of("id", "5", "total", "300", "10", "2"));
+        redisTemplate.opsForSet().add(DIRTY_KEY, "1");
+        redisTemplate.opsForValue().set(LOCK_KEY, "other");
+
+        cartService.flushDirtyCarts();
+
+        verify(cartRepository, never()).replaceItems(any());
+        assertEquals("other", redisTemplate.opsForValue().get(LOCK_KEY));
+        assertTrue(redisTemplate.opsForSet().isMember(DIRTY_KEY, "1"));
+    }
+
+    @Test
+    void flushDirtyCartsShouldNotReleaseLockTakenOverAfterExpiry() {
+        redisTemplate.opsForHash().putAll(CART_KEY, Map.of("id", "5", "total", "300", "10", "2"));
+        redisTemplate.opsForSet().add(DIRTY_KEY, "1");
+        doAnswer(invocation -> {
+            // Блокировка истекла во время записи и досталась другому экземпляру
+            redisTemplate.opsForValue().set(LOCK_KEY, "other");
+            return null;
+        }).when(cartRepository).replaceItems(any());
+
+        cartService.flushDirtyCarts();
+
+        assertEquals("other", redisTemplate.opsForValue().get(LOCK_KEY));
+    }
+
+    @Test
+    void flushDirtyCartsShouldKeepCartsDirtyWhenWriteFails() {
+        redisTemplate.opsForHash().putAll(CART_KEY, Map.of("id", "5", "total", "300", "10", "2"));
+        redisTemplate.opsForSet().add(DIRTY_KEY, "1");
+        doThrow(new IllegalStateException("База недоступна")).when(cartRepository).replaceItems(any());
+
+        cartService.flushDirtyCarts();
+
+        verify(transactionManager).rollback(any());
+        assertTrue(redisTemplate.opsForSet().isMember(DIRTY_KEY, "1"));
+        assertFalse(redisTemplate.hasKey(LOCK_KEY));
+    }
+
+    @Test
+    void flushCartShouldWriteWithoutRedisLock() {
+        redisTemplate.opsForHash().putAll(CART_KEY, Map.of("id", "5", "total", "300", "10", "2"));
+        redisTemplate.opsForSet().add(DIRTY_KEY, "1");
+        // Фоновая запись этой корзины еще идет: запрос не ждет ее блокировку в Redis
+        redisTemplate.opsForValue().set(LOCK_KEY, "other");
+
+        cartService.flushCart(session);
+
+        InOrder inOrder = inOrder(cartRepository);
+        inOrder.verify(cartRepository).lockByUserIdIn(List.of(1L));
+        inOrder.verify(cartRepository).replaceItems(Map.of(1L, Map.of(10L, 2)));
+        assertFalse(redisTemplate.opsForSet().isMember(DIRTY_KEY, "1"));
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static LettuceConnectionFactory connectionFactory(int port) {
+        LettuceConnectionFactory factory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port));
+        factory.afterPropertiesSet();
+        factory.start();
+        return factory;
+    }
+}
@@ -0,0 +1,118 @@
+package ru.kalimulin.redis;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedisIdempotencyStoreTest {
+    private static RedisServer redisServer;
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redisTemplate;
+
+    private RedisIdempotencyStore store;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port = freePort();
+        redisServer = new RedisServer(port);
+        redisServer.start();
+        connectionFactory = connectionFactory(port);
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate.getConnectionFactory().getConnection().serverCommands().flushAll();
+        store = new RedisIdempotencyStore(redisTemplate);
+    }
+
+    @Test
+    void putIfAbsentShouldReturnCurrentValueForExistingKey() {
+        assertEquals(Optional.empty(), store.putIfAbsent("key", "first", Duration.ofMinutes(1)));
+        assertEquals(Optional.of("first"), store.putIfAbsent("key", "second", Duration.ofMinutes(1)));
+    }
+
+    @Test
+    void putShouldReplaceValueAndTtl() {
+        store.putIfAbsent("key", "lock", Duration.ofSeconds(10));
+
+        store.put("key", "response", Duration.ofHours(24));
+
+        assertEquals("response", redisTemplate.opsForValue().get("key"));
+        assertTrue(redisTemplate.getExpire("key") > Duration.ofHours(23).toSeconds());
+    }
+
+    @Test
+    void extendShouldProlongOnlyUnchangedValue() {
+        store.putIfAbsent("key", "lock", Duration.ofSeconds(10));
+
+        assertTrue(store.extend("key", "lock", Duration.ofMinutes(5)));
+        assertTrue(redisTemplate.getExpire("key") > 60);
+
+        assertFalse(store.extend("key", "other", Duration.ofHours(1)));
+        assertTrue(redisTemplate.getExpire("key") <= Duration.ofMinutes(5).toSeconds());
+        assertFalse(store.extend("missing", "lock", Duration.ofMinutes(5)));
+        assertFalse(redisTemplate.hasKey("missing"));
+    }
+
+    @Test
+    void removeShouldDeleteKey() {
+        store.putIfAbsent("key", "lock", Duration.ofMinutes(1));
+
+        store.remove("key");
+
+        assertEquals(Optional.empty(), store.putIfAbsent("key", "lock", Duration.ofMinutes(1)));
+    }
+
+    @Test
+    void keysShouldBeKeptLocallyWhenRedisIsUnavailable() throws IOException {
+        LettuceConnectionFactory unavailable = connectionFactory(freePort());
+        try {
+            RedisIdempotencyStore localStore = new RedisIdempotencyStore(new StringRedisTemplate(unavailable));
+
+            assertEquals(Optional.empty(), localStore.putIfAbsent("key", "lock", Duration.ofMinutes(1)));
+            assertEquals(Optional.of("lock"), localStore.putIfAbsent("key", "lock", Duration.ofMinutes(1)));
+            assertTrue(localStore.extend("key", "lock", Duration.ofMinutes(1)));
+            assertFalse(localStore.extend("key", "other", Duration.ofMinutes(1)));
+
+            localStore.put("key", "response", Duration.ofMinutes(1));
+            assertEquals(Optional.of("response"), localStore.putIfAbsent("key", "lock", Duration.ofMinutes(1)));
+
+            localStore.remove("key");
+            assertEquals(Optional.empty(), localStore.putIfAbsent("key", "lock", Duration.ofMinutes(1)));
+        } finally {
+            unavailable.destroy();
+        }
+    }
+
+    private static LettuceConnectionFactory connectionFactory(int port) {
+        LettuceConnectionFactory factory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port));
+        factory.afterPropertiesSet();
+        factory.start();
+        return factory;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
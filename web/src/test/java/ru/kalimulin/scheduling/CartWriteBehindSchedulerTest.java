@@ -0,0 +1,100 @@
+package ru.kalimulin.scheduling;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import redis.embedded.RedisServer;
+import ru.kalimulin.redis.RedisCartService;
+import ru.kalimulin.repositories.CartRepository;
+import ru.kalimulin.repositories.ProductRepository;
+import ru.kalimulin.repositories.UserRepository;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class CartWriteBehindSchedulerTest {
+    private static RedisServer redisServer;
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redisTemplate;
+
+    private CartRepository cartRepository;
+    private CartWriteBehindScheduler scheduler;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate.getConnectionFactory().getConnection().serverCommands().flushAll();
+        cartRepository = mock(CartRepository.class);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        RedisCartService cartService = new RedisCartService(redisTemplate, cartRepository, mock(ProductRepository.class),
+                mock(UserRepository.class), new TransactionTemplate(transactionManager),
+                Duration.ofDays(7), Duration.ofSeconds(30), 2, 500);
+        scheduler = new CartWriteBehindScheduler(cartService);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flushShouldWriteDirtyCartsInBatchesUntilNoneLeft() {
+        for (long userId = 1; userId <= 3; userId++) {
+            redisTemplate.opsForHash().putAll("shop:cart:" + userId, Map.of("id", String.valueOf(userId), "total", "0",
+                    "10", String.valueOf(userId)));
+            redisTemplate.opsForSet().add("shop:cart:dirty", String.valueOf(userId));
+        }
+
+        scheduler.flush();
+        scheduler.flush();
+        scheduler.flush();
+
+        ArgumentCaptor<Map<Long, Map<Long, Integer>>> batches = ArgumentCaptor.forClass(Map.class);
+        verify(cartRepository, times(2)).replaceItems(batches.capture());
+        assertEquals(2, batches.getAllValues().get(0).size());
+        assertEquals(1, batches.getAllValues().get(1).size());
+
+        Map<Long, Map<Long, Integer>> written = new HashMap<>();
+        batches.getAllValues().forEach(written::putAll);
+        assertEquals(Map.of(1L, Map.of(10L, 1), 2L, Map.of(10L, 2), 3L, Map.of(10L, 3)), written);
+        assertEquals(0L, redisTemplate.opsForSet().size("shop:cart:dirty"));
+    }
+
+    @Test
+    void flushShouldDoNothingWithoutDirtyCarts() {
+        scheduler.flush();
+
+        verifyNoInteractions(cartRepository);
+    }
+}